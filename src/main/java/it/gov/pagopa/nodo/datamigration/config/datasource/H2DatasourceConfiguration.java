@@ -2,6 +2,7 @@ package it.gov.pagopa.nodo.datamigration.config.datasource;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
 import jakarta.persistence.EntityManagerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,6 +12,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
@@ -27,33 +29,36 @@ import java.util.Properties;
 )
 public class H2DatasourceConfiguration {
 
-    @Value("${persistence.h2.jdbc-url}")
+    @Value("${persistence.migration-status.jdbc-url}")
     private String jdbcUrl;
 
-    @Value("${persistence.h2.username}")
+    @Value("${persistence.migration-status.username}")
     private String username;
 
-    @Value("${persistence.h2.password}")
+    @Value("${persistence.migration-status.password}")
     private String password;
 
-//    @Value("${persistence.h2.default_schema}")
-//    private String defaultSchema;
-
-    @Value("${persistence.h2.driver-class-name}")
+    @Value("${persistence.migration-status.driver-class-name}")
     private String driverClassName;
 
-    @Value("${persistence.h2.hikari.connectionTimeout}")
+    @Value("${persistence.migration-status.hikari.connectionTimeout}")
     private String connectionTimeout;
 
-    @Value("${persistence.h2.hikari.maxLifetime}")
+    @Value("${persistence.migration-status.hikari.maxLifetime}")
     private String maxLifetime;
 
-    @Value("${persistence.h2.hikari.keepaliveTime}")
+    @Value("${persistence.migration-status.hikari.keepaliveTime}")
     private String keepaliveTime;
 
-    @Value("${persistence.h2.jdbc.batch.size}")
+    @Value("${persistence.migration-status.jdbc.batch.size}")
     private Integer jdbcBatchSize;
 
+    @Value("${persistence.migration-status.dialect}")
+    private String dialect;
+
+    @Value("${persistence.migration-status.ddl-auto}")
+    private String ddlAuto;
+
     @Bean(name = "h2DataSource")
     public DataSource dataSource() {
         HikariConfig hikariConfig = new HikariConfig();
@@ -74,7 +79,8 @@ public class H2DatasourceConfiguration {
     ) {
         LocalContainerEntityManagerFactoryBean entityManager = builder
                 .dataSource(dataSource)
-                .packages("it.gov.pagopa.nodo.datamigration.entity")
+                // only the status table, the tables of the migration must never be touched by its DDL
+                .managedTypes(PersistenceManagedTypes.of(DataMigration.class.getName()))
                 .persistenceUnit("h2Unit")
                 .build();
         HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
@@ -82,11 +88,12 @@ public class H2DatasourceConfiguration {
 
 
         Properties props = new Properties();
-        props.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
-        props.put("hibernate.database-platform", "org.hibernate.dialect.H2Dialect");
+        // the migration status can be kept on a durable DB (i.e. the PostgreSQL one) in order to survive a restart
+        props.put("hibernate.dialect", dialect);
+        props.put("hibernate.database-platform", dialect);
         props.put("hibernate.jdbc.batch_size", jdbcBatchSize);
         props.put("hibernate.ddl-auto", "none");
-        props.put("hibernate.hbm2ddl.auto", "create-drop");
+        props.put("hibernate.hbm2ddl.auto", ddlAuto);
         props.put("hibernate.jdbc.lob.non_contextual_creation", "true");
         entityManager.setJpaProperties(props);
 
@@ -2,6 +2,7 @@ package it.gov.pagopa.nodo.datamigration.config.datasource;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetJpaRepository;
 import jakarta.persistence.EntityManagerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -23,7 +24,8 @@ import java.util.Properties;
 @EnableJpaRepositories(
         entityManagerFactoryRef = "oracleEntityManagerFactory",
         transactionManagerRef = "oracledbTransactionManager",
-        basePackages = { "it.gov.pagopa.nodo.datamigration.repository.oracle" }
+        basePackages = { "it.gov.pagopa.nodo.datamigration.repository.oracle" },
+        repositoryBaseClass = KeysetJpaRepository.class
 )
 public class OracleDBDatasourceConfiguration {
 
@@ -51,6 +53,9 @@ public class OracleDBDatasourceConfiguration {
     @Value("${persistence.oracledb.hikari.keepaliveTime}")
     private String keepaliveTime;
 
+    @Value("${persistence.oracledb.hikari.maximumPoolSize}")
+    private int maximumPoolSize;
+
     @Primary
     @Bean(name = "oracledbDataSource")
     public DataSource dataSource() {
@@ -62,6 +67,7 @@ public class OracleDBDatasourceConfiguration {
         hikariConfig.setConnectionTimeout(Long.parseLong(connectionTimeout));
         hikariConfig.setMaxLifetime(Long.parseLong(maxLifetime));
         hikariConfig.setKeepaliveTime(Long.parseLong(keepaliveTime));
+        hikariConfig.setMaximumPoolSize(maximumPoolSize);
         return new HikariDataSource(hikariConfig);
     }
 
@@ -2,6 +2,7 @@ package it.gov.pagopa.nodo.datamigration.config.datasource;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyJpaRepository;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
@@ -24,7 +25,8 @@ import java.util.Properties;
 @EnableJpaRepositories(
         entityManagerFactoryRef = "postgresqlEntityManagerFactory",
         transactionManagerRef = "postgresqlTransactionManager",
-        basePackages = { "it.gov.pagopa.nodo.datamigration.repository.postgres" }
+        basePackages = { "it.gov.pagopa.nodo.datamigration.repository.postgres" },
+        repositoryBaseClass = InsertOnlyJpaRepository.class
 )
 public class PostgreSQLDatasourceConfiguration {
 
@@ -52,6 +54,9 @@ public class PostgreSQLDatasourceConfiguration {
     @Value("${persistence.postgresql.hikari.keepaliveTime}")
     private String keepaliveTime;
 
+    @Value("${persistence.postgresql.hikari.maximumPoolSize}")
+    private int maximumPoolSize;
+
     @Value("${persistence.postgresql.jdbc.batch.size}")
     private Integer jdbcBatchSize;
 
@@ -65,6 +70,7 @@ public class PostgreSQLDatasourceConfiguration {
         hikariConfig.setConnectionTimeout(Long.parseLong(connectionTimeout));
         hikariConfig.setMaxLifetime(Long.parseLong(maxLifetime));
         hikariConfig.setKeepaliveTime(Long.parseLong(keepaliveTime));
+        hikariConfig.setMaximumPoolSize(maximumPoolSize);
         return new HikariDataSource(hikariConfig);
     }
 
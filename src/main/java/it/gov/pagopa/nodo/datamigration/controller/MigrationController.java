@@ -9,15 +9,21 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import it.gov.pagopa.nodo.datamigration.model.migration.MigrationExecutionMessage;
 import it.gov.pagopa.nodo.datamigration.model.migration.MigrationStatus;
+import it.gov.pagopa.nodo.datamigration.model.migration.MigrationTablesRequest;
+import it.gov.pagopa.nodo.datamigration.model.migration.TableDiffResult;
 import it.gov.pagopa.nodo.datamigration.service.MigrationService;
 import it.gov.pagopa.nodo.datamigration.util.Constants;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @Tag(name = "DB Migration", description = "Everything about DB Migration")
 public class MigrationController {
@@ -54,7 +60,7 @@ public class MigrationController {
             },
             tags = {"DB Migration"})
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = "application/json", schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = "application/json", schema = @Schema(implementation = MigrationStatus.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
             @ApiResponse(responseCode = "409", description = "Conflict", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = MigrationExecutionMessage.class))),
             @ApiResponse(responseCode = "429", description = "Too many requests", content = @Content(schema = @Schema())),
@@ -109,4 +115,137 @@ public class MigrationController {
                         .build()
         );
     }
+
+    @Operation(
+            summary = "End the sync of the changed rows with a last round, once the source system is frozen",
+            security = {
+                    @SecurityRequirement(name = "ApiKey")
+            },
+            tags = {"DB Migration"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = "application/json", schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "409", description = "Conflict", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "429", description = "Too many requests", content = @Content(schema = @Schema()))
+    })
+    @PostMapping("/finalize")
+    public ResponseEntity<MigrationExecutionMessage> finalizeSync() {
+        migrationService.finalizeSync();
+        return ResponseEntity.ok(
+                MigrationExecutionMessage.builder()
+                        .message(Constants.API_FINALIZE_OK)
+                        .build()
+        );
+    }
+
+    @Operation(
+            summary = "Resume the migration of the chosen tables only, skipping the completed ones",
+            security = {
+                    @SecurityRequirement(name = "ApiKey")
+            },
+            tags = {"DB Migration"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = "application/json", schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content(schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "409", description = "Conflict", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "429", description = "Too many requests", content = @Content(schema = @Schema()))
+    })
+    @PostMapping("/tables/run")
+    public ResponseEntity<MigrationExecutionMessage> runTables(@RequestBody MigrationTablesRequest request) {
+        migrationService.runTables(request.getTables() != null ? request.getTables() : List.of());
+        return ResponseEntity.ok(
+                MigrationExecutionMessage.builder()
+                        .message(Constants.API_RUN_TABLES_OK)
+                        .build()
+        );
+    }
+
+    @Operation(
+            summary = "Migrate again a table, even if completed, writing only its changed rows",
+            security = {
+                    @SecurityRequirement(name = "ApiKey")
+            },
+            tags = {"DB Migration"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = "application/json", schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "409", description = "Conflict", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "429", description = "Too many requests", content = @Content(schema = @Schema()))
+    })
+    @PostMapping("/tables/{table}/rerun")
+    public ResponseEntity<MigrationExecutionMessage> rerunTable(@PathVariable("table") String table) {
+        migrationService.rerunTable(table);
+        return ResponseEntity.ok(
+                MigrationExecutionMessage.builder()
+                        .message(Constants.API_RERUN_TABLE_OK)
+                        .build()
+        );
+    }
+
+    @Operation(
+            summary = "Pause the migration of a table after its current page",
+            security = {
+                    @SecurityRequirement(name = "ApiKey")
+            },
+            tags = {"DB Migration"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = "application/json", schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "409", description = "Conflict", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "429", description = "Too many requests", content = @Content(schema = @Schema()))
+    })
+    @PostMapping("/tables/{table}/pause")
+    public ResponseEntity<MigrationExecutionMessage> pauseTable(@PathVariable("table") String table) {
+        migrationService.pauseTable(table);
+        return ResponseEntity.ok(
+                MigrationExecutionMessage.builder()
+                        .message(Constants.API_PAUSE_TABLE_OK)
+                        .build()
+        );
+    }
+
+    @Operation(
+            summary = "Resume the migration of a paused table",
+            security = {
+                    @SecurityRequirement(name = "ApiKey")
+            },
+            tags = {"DB Migration"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = "application/json", schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "409", description = "Conflict", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "429", description = "Too many requests", content = @Content(schema = @Schema()))
+    })
+    @PostMapping("/tables/{table}/resume")
+    public ResponseEntity<MigrationExecutionMessage> resumeTable(@PathVariable("table") String table) {
+        migrationService.resumeTable(table);
+        return ResponseEntity.ok(
+                MigrationExecutionMessage.builder()
+                        .message(Constants.API_RESUME_TABLE_OK)
+                        .build()
+        );
+    }
+
+    @Operation(
+            summary = "Compare a table on source and destination DB, finding the keys of the rows that differ",
+            security = {
+                    @SecurityRequirement(name = "ApiKey")
+            },
+            tags = {"DB Migration"})
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = "application/json", schema = @Schema(implementation = TableDiffResult.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema())),
+            @ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "409", description = "Conflict", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = MigrationExecutionMessage.class))),
+            @ApiResponse(responseCode = "429", description = "Too many requests", content = @Content(schema = @Schema()))
+    })
+    @GetMapping("/tables/{table}/diff")
+    public ResponseEntity<TableDiffResult> diff(@PathVariable("table") String table) {
+        return ResponseEntity.ok(migrationService.diffTable(table));
+    }
 }
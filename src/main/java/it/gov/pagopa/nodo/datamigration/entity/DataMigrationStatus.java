@@ -5,6 +5,7 @@ import lombok.*;
 
 import java.io.Serializable;
 import java.sql.Timestamp;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -21,6 +22,26 @@ public class DataMigrationStatus implements Serializable {
 
     private Long records;
 
+    private Long sourceRecords;
+
+    // last page size chosen by the step, that adapts it to the latency of its pages
+    private Integer pageSize;
+
+    // last key written on destination for each key range of the table, by lower bound of the range
+    private Map<Long, Long> checkpoints;
+
+    // SCN of the source DB read before the rows of the table were last read, so the rows changed after it are found by ORA_ROWSCN
+    private Long changeNumber;
+
+    // start of the last round of the SYNC step that wrote the changed rows of the table, while the changes are tracked by the SCN
+    private Timestamp syncWatermark;
+
+    // rows written by all the rounds of the SYNC step
+    private Long syncedRecords;
+
+    // comparison of the rows on source and destination DB, done by the VERIFY step after all the tables are migrated
+    private DataMigrationVerification verification;
+
     public DataMigrationStatus() {
         this.status = MigrationStepStatus.TODO.toString();
     }
@@ -0,0 +1,28 @@
+package it.gov.pagopa.nodo.datamigration.entity;
+
+import lombok.*;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class DataMigrationVerification implements Serializable {
+
+    private String status;
+
+    private Timestamp end;
+
+    private Long sourceRecords;
+
+    private Long destinationRecords;
+
+    // aggregate hash of the rows on each side, as hex digits
+    private String sourceHash;
+
+    private String destinationHash;
+}
@@ -20,6 +20,7 @@ public class GdeConfig {
     @Column(name = "PRIMITIVA", nullable = false)
     private String primitiva;
 
+    @Id
     @Column(name = "TYPE", nullable = false)
     private String type;
 
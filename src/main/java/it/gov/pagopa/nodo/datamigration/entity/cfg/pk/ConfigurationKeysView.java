@@ -3,7 +3,9 @@ package it.gov.pagopa.nodo.datamigration.entity.cfg.pk;
 import java.io.Serializable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Id;
+import lombok.EqualsAndHashCode;
 
+@EqualsAndHashCode
 public class ConfigurationKeysView implements Serializable {
 
     private static final long serialVersionUID = -6198929539099423043L;
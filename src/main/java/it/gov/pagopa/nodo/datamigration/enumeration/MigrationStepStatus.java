@@ -3,6 +3,7 @@ package it.gov.pagopa.nodo.datamigration.enumeration;
 public enum MigrationStepStatus {
     TODO, // used only for steps
     IN_PROGRESS,
+    PAUSED, // used only for the table steps paused by the table API, reported but never saved
     BLOCKED,
     FAILED,
     COMPLETED;
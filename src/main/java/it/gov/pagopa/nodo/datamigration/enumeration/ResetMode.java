@@ -0,0 +1,7 @@
+package it.gov.pagopa.nodo.datamigration.enumeration;
+
+public enum ResetMode {
+    DELETE, // one DELETE for each table, in foreign keys order
+    TRUNCATE,
+    INCREMENTAL; // no reset: only the rows changed on the source DB since the last migration are written, see TableMigrationStep
+}
@@ -47,6 +47,8 @@ public enum StepName {
     EXECUTE_FTP_SERVERS_TABLE_MIGRATION,
     EXECUTE_PDD_TABLE_MIGRATION,
     EXECUTE_GDE_CONFIG_TABLE_MIGRATION,
+    SYNC,
+    VERIFY,
     ERROR,
     END
 }
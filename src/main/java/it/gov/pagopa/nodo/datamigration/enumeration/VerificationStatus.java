@@ -0,0 +1,7 @@
+package it.gov.pagopa.nodo.datamigration.enumeration;
+
+public enum VerificationStatus {
+    MATCHING,
+    MISMATCHING, // different row count or hash
+    FAILED; // the checksum of a side cannot be computed
+}
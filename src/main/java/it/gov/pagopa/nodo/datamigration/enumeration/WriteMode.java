@@ -0,0 +1,10 @@
+package it.gov.pagopa.nodo.datamigration.enumeration;
+
+public enum WriteMode {
+    MERGE,
+    UPSERT, // rows inserted or updated by key, without reading them back: used also for restarted steps, whose destination table is not empty
+    INSERT,
+    COPY,
+    JDBC, // rows copied as plain column values, without entities: only for tables with a single numeric key
+    STREAM; // as JDBC, but each row is copied while it is read, streaming the LOB values into a COPY
+}
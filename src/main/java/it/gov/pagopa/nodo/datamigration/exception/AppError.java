@@ -12,6 +12,10 @@ public enum AppError {
 
     STATUS_NOT_LOCKED(HttpStatus.CONFLICT, Constants.STATUS_CONFLICT, "Error while trying to unlock the migration status. The status is not locked."),
 
+    FINALIZE_ALREADY_REQUESTED(HttpStatus.CONFLICT, Constants.STATUS_CONFLICT, "Error while trying to finalize the sync. The finalization was already requested."),
+
+    SYNC_NOT_IN_PROGRESS(HttpStatus.CONFLICT, Constants.STATUS_CONFLICT, "Error while trying to finalize the sync. The migration is not syncing the changed rows."),
+
     FORCE_STOP_ALREADY_REQUESTED(HttpStatus.CONFLICT, Constants.STATUS_CONFLICT, "Error while trying to stop the migration process. A graceful stop was already requested."),
 
     NOT_FOUND_NO_VALID_MIGRATION_STATUS(HttpStatus.NOT_FOUND, "Not found", "Error while reading the status of the last execution. No valid migration was executed before."),
@@ -20,6 +24,13 @@ public enum AppError {
     MIGRATION_ALREADY_IN_PROGRESS(HttpStatus.CONFLICT, Constants.STATUS_CONFLICT, "Error while restarting the migration. The last migration is currently in progress or has an invalid [IN_PROGRESS] state."),
     MIGRATION_NOT_RESTARTABLE(HttpStatus.CONFLICT, Constants.STATUS_CONFLICT, "Error while restarting the migration. The last migration cannot be restarted because is in a un-restartable state."),
 
+    NOT_FOUND_TABLE(HttpStatus.NOT_FOUND, "Not found", "Error while reading the table. No table step migrates a table with the passed name."),
+    TABLE_NOT_DIFFABLE(HttpStatus.CONFLICT, Constants.STATUS_CONFLICT, "Error while comparing the table. The table has not a single numeric key, so it cannot be split in key ranges."),
+    NO_TABLE_SELECTED(HttpStatus.BAD_REQUEST, "Bad Request", "Error while running the tables. No table was selected."),
+    TABLE_NOT_IN_PROGRESS(HttpStatus.CONFLICT, Constants.STATUS_CONFLICT, "Error while pausing the table. The table is not migrated at the moment."),
+    TABLE_ALREADY_PAUSED(HttpStatus.CONFLICT, Constants.STATUS_CONFLICT, "Error while pausing the table. The table is already paused."),
+    TABLE_NOT_PAUSED(HttpStatus.CONFLICT, Constants.STATUS_CONFLICT, "Error while resuming the table. The table is not paused."),
+
     INTERNAL_SERVER_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error", "Something was wrong");
 
     public final HttpStatus httpStatus;
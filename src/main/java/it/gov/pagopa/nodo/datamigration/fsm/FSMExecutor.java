@@ -1,6 +1,7 @@
 package it.gov.pagopa.nodo.datamigration.fsm;
 
 import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
 import it.gov.pagopa.nodo.datamigration.enumeration.MigrationStepStatus;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
 import it.gov.pagopa.nodo.datamigration.exception.AppError;
@@ -8,12 +9,22 @@ import it.gov.pagopa.nodo.datamigration.exception.AppException;
 import it.gov.pagopa.nodo.datamigration.repository.h2.CfgDataMigrationRepository;
 import it.gov.pagopa.nodo.datamigration.util.CommonUtils;
 import it.gov.pagopa.nodo.datamigration.util.Constants;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Slf4j
 @Service
@@ -25,24 +36,61 @@ public class FSMExecutor {
     @Autowired
     private Map<String, Step> steps;
 
+    @Autowired
+    private StepScheduler stepScheduler;
+
     @Getter
     private final FSMSharedState sharedState;
 
-    private StepName currentStep;
+    private volatile StepName currentStep;
 
 
     public FSMExecutor() {
         this.sharedState = new FSMSharedState();
     }
 
+    /*
+     * The whole run is traced by a single span, parent of the spans of its steps. The ID of the migration is known only
+     * after the START step, and it is reset by the END and ERROR steps, so it is taken while the steps are executed.
+     */
     private void execute() {
-        while (this.sharedState.isInLock() && this.currentStep != null) {
-            Step currentStepExecutor = this.steps.get(currentStep.toString());
-            currentStepExecutor.attachSharedState(sharedState, cfgDataMigrationRepo);
-            this.currentStep =  currentStepExecutor.call();
+        Span span = MigrationTracing.getTracer().spanBuilder("migration")
+                .setAttribute(MigrationTracing.STEP, String.valueOf(this.currentStep))
+                .startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            while (this.sharedState.isInLock() && this.currentStep != null) {
+                Step currentStepExecutor = this.steps.get(currentStep.toString());
+                if (currentStepExecutor instanceof TableMigrationStep<?, ?>) {
+                    // the table steps are not chained: all of them are scheduled together, following the foreign keys between the tables
+                    this.currentStep = this.stepScheduler.execute(getTableMigrationSteps(), sharedState, cfgDataMigrationRepo);
+                } else {
+                    currentStepExecutor.attachSharedState(sharedState, cfgDataMigrationRepo);
+                    this.currentStep = currentStepExecutor.call();
+                }
+                if (this.sharedState.getDataMigrationStateId() != null) {
+                    span.setAttribute(MigrationTracing.MIGRATION_ID, this.sharedState.getDataMigrationStateId());
+                }
+            }
+        } catch (RuntimeException e) {
+            MigrationTracing.onError(span, e);
+            throw e;
+        } finally {
+            span.end();
         }
     }
 
+    private List<TableMigrationStep<?, ?>> getTableMigrationSteps() {
+        List<TableMigrationStep<?, ?>> tableSteps = new ArrayList<>();
+        for (Step step : this.steps.values()) {
+            // only the table steps chosen by the table API are executed, if any
+            if (step instanceof TableMigrationStep<?, ?> tableStep && this.sharedState.isTableStepSelected(tableStep.getStepName())) {
+                tableStep.attachSharedState(sharedState, cfgDataMigrationRepo);
+                tableSteps.add(tableStep);
+            }
+        }
+        return tableSteps;
+    }
+
     public void start() {
         start(StepName.START);
     }
@@ -82,6 +130,72 @@ public class FSMExecutor {
         return lastExecutedStep;
     }
 
+    /**
+     * Prepare the execution of the passed table steps only, within the last migration: the other table steps are neither
+     * executed nor verified. As on restart, the steps are resumed from their checkpoints and the completed ones are
+     * skipped, unless the steps are run again: then their status is reset, even if completed, and their tables are
+     * compared with the source ones, writing only the changed rows.
+     *
+     * @param tableSteps the table steps to execute
+     * @param rerun true to execute the steps again, from the start
+     * @return the step from which the migration must be started
+     */
+    public StepName runTables(Set<StepName> tableSteps, boolean rerun) {
+        // check if status is in lock
+        if (this.sharedState.isInLock()) {
+            throw new AppException(AppError.STATUS_ALREADY_LOCKED);
+        }
+        if (tableSteps.isEmpty()) {
+            throw new AppException(AppError.NO_TABLE_SELECTED);
+        }
+        // check if the last migration exists and is not running, even if already completed
+        DataMigration dataMigration = getLastMigrationStatus();
+        if (MigrationStepStatus.IN_PROGRESS.toString().equals(dataMigration.getStatus())) {
+            throw new AppException(AppError.MIGRATION_ALREADY_IN_PROGRESS);
+        }
+        if (rerun) {
+            for (StepName stepName : tableSteps) {
+                DataMigrationStatus stepStatus = this.steps.get(stepName.toString()).getDataMigrationStatus(dataMigration.getDetails());
+                stepStatus.setStatus(MigrationStepStatus.TODO.toString());
+                stepStatus.setCheckpoints(null);
+                stepStatus.setVerification(null);
+            }
+        }
+        // lock the state and update the status
+        dataMigration.setRestart(CommonUtils.now());
+        dataMigration.setStatus(MigrationStepStatus.IN_PROGRESS.toString());
+        cfgDataMigrationRepo.saveAndFlush(dataMigration);
+        // update the FSM state with the ID of the saved state and the chosen steps
+        this.sharedState.resetStates();
+        this.sharedState.setDataMigrationStateId(dataMigration.getId());
+        this.sharedState.selectTableSteps(tableSteps, rerun);
+        log.info(String.format("The table steps %s of the migration [%s] will be %s.", new TreeSet<>(tableSteps), dataMigration.getId(), rerun ? "executed again" : "resumed"));
+        return Collections.min(tableSteps);
+    }
+
+    /**
+     * Mark as failed the last migration if it is still in progress, together with its steps in progress, so that it
+     * can be restarted. This must be called only when no migration is executed by this instance, i.e. at startup,
+     * when a migration still in progress is one interrupted by the shutdown of a previous instance.
+     */
+    public void recoverInterruptedMigration() {
+        Optional<DataMigration> dataMigrationOpt = cfgDataMigrationRepo.findTopByOrderByStartDesc();
+        if (dataMigrationOpt.isEmpty() || !MigrationStepStatus.IN_PROGRESS.toString().equals(dataMigrationOpt.get().getStatus())) {
+            return;
+        }
+        DataMigration dataMigration = dataMigrationOpt.get();
+        for (Step step : this.steps.values()) {
+            DataMigrationStatus stepStatus = step.getDataMigrationStatus(dataMigration.getDetails());
+            if (stepStatus != null && MigrationStepStatus.IN_PROGRESS.toString().equals(stepStatus.getStatus())) {
+                stepStatus.setStatus(MigrationStepStatus.FAILED.toString());
+            }
+        }
+        dataMigration.setStatus(MigrationStepStatus.FAILED.toString());
+        dataMigration.setEnd(CommonUtils.now());
+        cfgDataMigrationRepo.saveAndFlush(dataMigration);
+        log.warn(String.format("The migration [%s] was interrupted at step [%s] and is marked as failed: it can be restarted.", dataMigration.getId(), dataMigration.getLastExecutedStep()));
+    }
+
     public void forceStop() {
         if (this.sharedState.isBlockRequested()) {
             throw new AppException(AppError.FORCE_STOP_ALREADY_REQUESTED);
@@ -92,6 +206,82 @@ public class FSMExecutor {
         this.sharedState.requestBlock();
     }
 
+    /**
+     * Request the end of the sync of the changed rows, that ends after a last round: the source system must be already
+     * frozen, so the last round writes the final delta. Then the migration goes on with the verification of the tables.
+     */
+    public void finalizeSync() {
+        if (!this.sharedState.isInLock()) {
+            throw new AppException(AppError.STATUS_NOT_LOCKED);
+        }
+        if (this.currentStep != StepName.SYNC) {
+            throw new AppException(AppError.SYNC_NOT_IN_PROGRESS);
+        }
+        if (this.sharedState.isFinalizeRequested()) {
+            throw new AppException(AppError.FINALIZE_ALREADY_REQUESTED);
+        }
+        this.sharedState.requestFinalize();
+    }
+
+    public void pauseTable(String tableName) {
+        TableMigrationStep<?, ?> step = getTableMigrationStep(tableName).orElseThrow(() -> new AppException(AppError.NOT_FOUND_TABLE));
+        if (!this.sharedState.isInLock() || !step.isInFlight()) {
+            throw new AppException(AppError.TABLE_NOT_IN_PROGRESS);
+        }
+        if (step.isPaused()) {
+            throw new AppException(AppError.TABLE_ALREADY_PAUSED);
+        }
+        step.pause();
+    }
+
+    public void resumeTable(String tableName) {
+        TableMigrationStep<?, ?> step = getTableMigrationStep(tableName).orElseThrow(() -> new AppException(AppError.NOT_FOUND_TABLE));
+        if (!step.isPaused()) {
+            throw new AppException(AppError.TABLE_NOT_PAUSED);
+        }
+        step.resume();
+    }
+
+    /**
+     * Get the names of the tables whose steps are paused at the moment.
+     *
+     * @return the names of the paused tables
+     */
+    public Set<String> getPausedTables() {
+        Set<String> pausedTables = new HashSet<>();
+        for (Step step : this.steps.values()) {
+            if (step instanceof TableMigrationStep<?, ?> tableStep && tableStep.isPaused() && tableStep.isInFlight()) {
+                pausedTables.add(tableStep.getTableName());
+            }
+        }
+        return pausedTables;
+    }
+
+    /**
+     * Get the in-memory progress of the last execution of each table step, by table name. Only the table steps
+     * executed by this instance since its startup have a progress.
+     *
+     * @return the progress of the table steps, by table name
+     */
+    public Map<String, TableProgress> getTableProgress() {
+        Map<String, TableProgress> progress = new HashMap<>();
+        for (Step step : this.steps.values()) {
+            if (step instanceof TableMigrationStep<?, ?> tableStep && tableStep.getProgress() != null) {
+                progress.put(tableStep.getTableName(), tableStep.getProgress());
+            }
+        }
+        return progress;
+    }
+
+    public Optional<TableMigrationStep<?, ?>> getTableMigrationStep(String tableName) {
+        for (Step step : this.steps.values()) {
+            if (step instanceof TableMigrationStep<?, ?> tableStep && tableStep.getTableName().equals(tableName)) {
+                return Optional.of(tableStep);
+            }
+        }
+        return Optional.empty();
+    }
+
     public DataMigration getLastMigrationStatus() {
         return cfgDataMigrationRepo.findTopByOrderByStartDesc().orElseThrow(() -> new AppException(AppError.NOT_FOUND_NO_VALID_MIGRATION_STATUS));
     }
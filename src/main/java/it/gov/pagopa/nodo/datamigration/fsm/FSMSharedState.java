@@ -1,27 +1,54 @@
 package it.gov.pagopa.nodo.datamigration.fsm;
 
+import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Set;
+
 @Getter
 public class FSMSharedState {
 
-    private boolean isBlockRequested;
+    private volatile boolean isBlockRequested;
+
+    private volatile boolean isInLock;
+
+    private volatile boolean isFinalizeRequested;
 
-    private boolean isInLock;
+    // the table steps chosen by the table API, null if all the table steps are executed
+    private volatile Set<StepName> selectedTableSteps;
+
+    private volatile boolean isRerunRequested;
 
     @Setter
     private String dataMigrationStateId;
 
     public void resetStates() {
         this.isBlockRequested = false;
+        this.isFinalizeRequested = false;
+        this.selectedTableSteps = null;
+        this.isRerunRequested = false;
         this.dataMigrationStateId = null;
     }
 
+    public void selectTableSteps(Set<StepName> tableSteps, boolean rerun) {
+        this.selectedTableSteps = Set.copyOf(tableSteps);
+        this.isRerunRequested = rerun;
+    }
+
+    public boolean isTableStepSelected(String stepName) {
+        Set<StepName> selected = this.selectedTableSteps;
+        return selected == null || selected.contains(StepName.valueOf(stepName));
+    }
+
     public void requestBlock() {
         this.isBlockRequested = true;
     }
 
+    public void requestFinalize() {
+        this.isFinalizeRequested = true;
+    }
+
     public void lock() {
         this.isInLock = true;
     }
@@ -0,0 +1,55 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+
+/**
+ * The OpenTelemetry spans of a migration: a span for each run of the FSM, a child span for each step and, for the
+ * table steps, a grandchild span for each page read and written. The JDBC spans of the OpenTelemetry agent are then
+ * children of the page that executed them.
+ * The tracer is the one of the agent started by the Dockerfile: without the agent, it is a no-op tracer.
+ */
+final class MigrationTracing {
+
+    static final AttributeKey<String> MIGRATION_ID = AttributeKey.stringKey("migration.id");
+
+    static final AttributeKey<String> STEP = AttributeKey.stringKey("migration.step");
+
+    static final AttributeKey<String> NEXT_STEP = AttributeKey.stringKey("migration.next_step");
+
+    static final AttributeKey<String> TABLE = AttributeKey.stringKey("migration.table");
+
+    static final AttributeKey<String> WRITE_MODE = AttributeKey.stringKey("migration.write_mode");
+
+    static final AttributeKey<Long> PAGE_SIZE = AttributeKey.longKey("migration.page.size");
+
+    static final AttributeKey<Long> ROWS = AttributeKey.longKey("migration.page.rows");
+
+    static final AttributeKey<Long> BYTES = AttributeKey.longKey("migration.page.bytes");
+
+    static final AttributeKey<Long> RANGE_LOWER_BOUND = AttributeKey.longKey("migration.page.range.lower_bound");
+
+    static final AttributeKey<Long> RANGE_UPPER_BOUND = AttributeKey.longKey("migration.page.range.upper_bound");
+
+    static final AttributeKey<String> AFTER_KEY = AttributeKey.stringKey("migration.page.after_key");
+
+    static final AttributeKey<String> LAST_KEY = AttributeKey.stringKey("migration.page.last_key");
+
+    private static final String INSTRUMENTATION_NAME = "it.gov.pagopa.nodo.datamigration";
+
+    private MigrationTracing() {
+    }
+
+    // the tracer is not cached, so a global OpenTelemetry set after the startup (i.e. by the agent or a test) is used
+    static Tracer getTracer() {
+        return GlobalOpenTelemetry.getTracer(INSTRUMENTATION_NAME);
+    }
+
+    static void onError(Span span, Throwable error) {
+        span.recordException(error);
+        span.setStatus(StatusCode.ERROR);
+    }
+}
@@ -0,0 +1,102 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Chooses the size of the next page of a step from the latency of the pages already read and written, with an AIMD
+ * policy: the size grows by a fixed step after each full page written within the latency target, and it is halved
+ * after each page read or written over the target, or when the used heap is over its maximum ratio. So the pages grow
+ * up to the largest size that the source and destination DB can handle within the target, and shrink as soon as they
+ * slow down, always within the configured bounds.
+ * A single controller is shared by all the threads of an execution of a step.
+ */
+public class PageSizeController {
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final int increment;
+
+    private final long targetLatencyNanos;
+
+    private final double maxHeapRatio;
+
+    private final DoubleSupplier heapRatio;
+
+    private int size;
+
+    PageSizeController(int initialSize, int minSize, int maxSize, long targetLatencyMs, double maxHeapRatio, DoubleSupplier heapRatio) {
+        this.minSize = Math.max(1, Math.min(minSize, maxSize));
+        this.maxSize = Math.max(this.minSize, maxSize);
+        this.increment = this.minSize;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.maxHeapRatio = maxHeapRatio;
+        this.heapRatio = heapRatio;
+        this.size = Math.max(this.minSize, Math.min(this.maxSize, initialSize));
+    }
+
+    /**
+     * Create a controller that adapts the page size of a step, starting from its configured size.
+     *
+     * @param initialSize the configured page size of the step
+     * @param minSize the minimum page size
+     * @param maxSize the maximum page size
+     * @param targetLatencyMs the maximum time to read or to write a page
+     * @param maxHeapRatio the maximum ratio of the used heap over the maximum heap, over which the pages shrink
+     * @return the controller
+     */
+    public static PageSizeController adaptive(int initialSize, int minSize, int maxSize, long targetLatencyMs, double maxHeapRatio) {
+        return new PageSizeController(initialSize, minSize, maxSize, targetLatencyMs, maxHeapRatio, PageSizeController::getUsedHeapRatio);
+    }
+
+    /**
+     * Create a controller that always keeps the passed page size.
+     *
+     * @param size the page size
+     * @return the controller
+     */
+    public static PageSizeController fixed(int size) {
+        return new PageSizeController(size, size, size, Long.MAX_VALUE, Double.MAX_VALUE, () -> 0);
+    }
+
+    public synchronized int getPageSize() {
+        return this.size;
+    }
+
+    /**
+     * Record the time spent to read a page: a slow read shrinks the next pages.
+     *
+     * @param latencyNanos the time spent to read the page
+     */
+    public synchronized void onPageRead(long latencyNanos) {
+        if (latencyNanos > this.targetLatencyNanos) {
+            decrease();
+        }
+    }
+
+    /**
+     * Record the time spent to write a page: a slow write shrinks the next pages, while a fast write of a full page
+     * grows them.
+     *
+     * @param rows the rows of the page
+     * @param latencyNanos the time spent to write the page
+     */
+    public synchronized void onPageWritten(int rows, long latencyNanos) {
+        if (latencyNanos > this.targetLatencyNanos || this.heapRatio.getAsDouble() > this.maxHeapRatio) {
+            decrease();
+        } else if (rows >= this.size) {
+            this.size = Math.min(this.maxSize, this.size + this.increment);
+        }
+    }
+
+    private void decrease() {
+        this.size = Math.max(this.minSize, this.size / 2);
+    }
+
+    private static double getUsedHeapRatio() {
+        Runtime runtime = Runtime.getRuntime();
+        return (double) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+    }
+}
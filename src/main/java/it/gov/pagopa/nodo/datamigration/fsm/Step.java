@@ -1,5 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.fsm;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
@@ -11,14 +15,19 @@ import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepExcepti
 import it.gov.pagopa.nodo.datamigration.repository.h2.CfgDataMigrationRepository;
 import it.gov.pagopa.nodo.datamigration.util.CommonUtils;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 public abstract class Step implements Callable<StepName> {
 
+    private static final String STEP_TAG = "step";
+
     protected FSMSharedState sharedState;
 
     protected CfgDataMigrationRepository cfgDataMigrationRepo;
@@ -36,16 +45,33 @@ public abstract class Step implements Callable<StepName> {
         long startTime = System.currentTimeMillis();
         StepName nextState = getNextState();
         log.info(String.format("The step [%s] is starting its execution.", getStepName()));
-        try {
+        // the span is a child of the one of the migration run, also when the step is executed by the scheduler threads
+        Span span = MigrationTracing.getTracer().spanBuilder(getStepName())
+                .setAttribute(MigrationTracing.STEP, getStepName())
+                .startSpan();
+        try (Scope ignored = span.makeCurrent()) {
             executeStep();
         } catch (MigrationInterruptedStepException e) {
             log.info(String.format("The step [%s] is interrupted gracefully. Next step will be END step.", getStepName()));
             nextState = StepName.END;
         } catch (MigrationStepException e) {
             log.error(String.format("The step [%s] is in error. Next step will be ERROR step.", getStepName()));
+            MigrationTracing.onError(span, e);
             nextState = StepName.ERROR;
+        } catch (RuntimeException e) {
+            MigrationTracing.onError(span, e);
+            throw e;
+        } finally {
+            span.setAttribute(MigrationTracing.NEXT_STEP, String.valueOf(nextState));
+            span.end();
         }
-        log.info(String.format("The step [%s] ended its execution in [%d] ms.", getStepName(), (System.currentTimeMillis() - startTime)));
+        long elapsedTime = System.currentTimeMillis() - startTime;
+        log.info(String.format("The step [%s] ended its execution in [%d] ms.", getStepName(), elapsedTime));
+        Timer.builder("migration.step")
+                .description("Time to execute a step")
+                .tags(STEP_TAG, getStepName(), "next_step", String.valueOf(nextState))
+                .register(Metrics.globalRegistry)
+                .record(elapsedTime, TimeUnit.MILLISECONDS);
         return nextState;
     }
 
@@ -54,8 +80,8 @@ public abstract class Step implements Callable<StepName> {
         this.cfgDataMigrationRepo = repository;
     }
 
-    protected boolean canContinueReadPages(Pageable pageable) {
-        return !this.sharedState.isBlockRequested() && this.sharedState.isInLock() && pageable.isPaged();
+    protected boolean canContinueReadPages(Slice<?> slice) {
+        return !this.sharedState.isBlockRequested() && this.sharedState.isInLock() && slice.hasNext();
     }
 
     protected void checkExecutionBlock(CfgDataMigrationRepository cfgDataMigrationRepo, boolean updateStatus) throws MigrationInterruptedStepException, InvalidMigrationStatusException {
@@ -71,6 +97,61 @@ public abstract class Step implements Callable<StepName> {
         updateDataMigrationStatus(cfgDataMigrationRepo, MigrationStepStatus.IN_PROGRESS, CommonUtils.now(), null, 0);
     }
 
+    protected void updateDataMigrationStatusOnStart(CfgDataMigrationRepository cfgDataMigrationRepo, long sourceRecords) throws InvalidMigrationStatusException {
+        synchronized (this.sharedState) {
+            DataMigration dataMigration = cfgDataMigrationRepo.findById(this.sharedState.getDataMigrationStateId()).orElseThrow(InvalidMigrationStatusException::new);
+            getDataMigrationStatus(dataMigration.getDetails()).setSourceRecords(sourceRecords);
+            updateDataMigrationStatus(cfgDataMigrationRepo, dataMigration, MigrationStepStatus.IN_PROGRESS, CommonUtils.now(), null, 0);
+        }
+    }
+
+    protected Map<Long, Long> getDataMigrationCheckpoints(CfgDataMigrationRepository cfgDataMigrationRepo) throws InvalidMigrationStatusException {
+        DataMigration dataMigration = cfgDataMigrationRepo.findById(this.sharedState.getDataMigrationStateId()).orElseThrow(InvalidMigrationStatusException::new);
+        Map<Long, Long> checkpoints = getDataMigrationStatus(dataMigration.getDetails()).getCheckpoints();
+        return checkpoints == null ? new HashMap<>() : new HashMap<>(checkpoints);
+    }
+
+    protected void updateDataMigrationCheckpoints(CfgDataMigrationRepository cfgDataMigrationRepo, Map<Long, Long> checkpoints, long records, int pageSize) throws InvalidMigrationStatusException {
+        // the checkpoints are saved every few pages, so the time spent on the status DB is measured, waiting for the other threads included
+        Timer.Sample sample = Timer.start();
+        synchronized (this.sharedState) {
+            DataMigration dataMigration = cfgDataMigrationRepo.findById(this.sharedState.getDataMigrationStateId()).orElseThrow(InvalidMigrationStatusException::new);
+            DataMigrationStatus migrationStatus = getDataMigrationStatus(dataMigration.getDetails());
+            if (migrationStatus.getCheckpoints() == null) {
+                migrationStatus.setCheckpoints(new HashMap<>());
+            }
+            migrationStatus.getCheckpoints().putAll(checkpoints);
+            migrationStatus.setRecords(records);
+            migrationStatus.setPageSize(pageSize);
+            cfgDataMigrationRepo.saveAndFlush(dataMigration);
+        }
+        sample.stop(Timer.builder("migration.status.write")
+                .description("Time to save the checkpoints on the status DB")
+                .tag(STEP_TAG, getStepName())
+                .register(Metrics.globalRegistry));
+    }
+
+    protected Long getDataMigrationChangeNumber(CfgDataMigrationRepository cfgDataMigrationRepo) throws InvalidMigrationStatusException {
+        DataMigration dataMigration = cfgDataMigrationRepo.findById(this.sharedState.getDataMigrationStateId()).orElseThrow(InvalidMigrationStatusException::new);
+        return getDataMigrationStatus(dataMigration.getDetails()).getChangeNumber();
+    }
+
+    protected void updateDataMigrationChangeNumber(CfgDataMigrationRepository cfgDataMigrationRepo, long changeNumber) throws InvalidMigrationStatusException {
+        synchronized (this.sharedState) {
+            DataMigration dataMigration = cfgDataMigrationRepo.findById(this.sharedState.getDataMigrationStateId()).orElseThrow(InvalidMigrationStatusException::new);
+            getDataMigrationStatus(dataMigration.getDetails()).setChangeNumber(changeNumber);
+            cfgDataMigrationRepo.saveAndFlush(dataMigration);
+        }
+    }
+
+    protected void updateDataMigrationPageSize(CfgDataMigrationRepository cfgDataMigrationRepo, int pageSize) throws InvalidMigrationStatusException {
+        synchronized (this.sharedState) {
+            DataMigration dataMigration = cfgDataMigrationRepo.findById(this.sharedState.getDataMigrationStateId()).orElseThrow(InvalidMigrationStatusException::new);
+            getDataMigrationStatus(dataMigration.getDetails()).setPageSize(pageSize);
+            cfgDataMigrationRepo.saveAndFlush(dataMigration);
+        }
+    }
+
     protected void updateDataMigrationStatusOnEnd(CfgDataMigrationRepository cfgDataMigrationRepo, long records) throws InvalidMigrationStatusException {
         updateDataMigrationStatus(cfgDataMigrationRepo, MigrationStepStatus.COMPLETED, null, CommonUtils.now(), records);
     }
@@ -92,7 +173,17 @@ public abstract class Step implements Callable<StepName> {
     }
 
     protected void updateDataMigrationStatus(CfgDataMigrationRepository cfgDataMigrationRepo, MigrationStepStatus stepStatus, Timestamp start, Timestamp end, long records) throws InvalidMigrationStatusException {
-        DataMigration dataMigration = cfgDataMigrationRepo.findById(this.sharedState.getDataMigrationStateId()).orElseThrow(InvalidMigrationStatusException::new);
+        synchronized (this.sharedState) {
+            DataMigration dataMigration = cfgDataMigrationRepo.findById(this.sharedState.getDataMigrationStateId()).orElseThrow(InvalidMigrationStatusException::new);
+            updateDataMigrationStatus(cfgDataMigrationRepo, dataMigration, stepStatus, start, end, records);
+        }
+    }
+
+    /*
+     * The whole migration status is saved as a single record, and the table steps can be executed at the same time:
+     * so every status update is read and saved holding the lock on the shared state, in order to not lose the others.
+     */
+    private void updateDataMigrationStatus(CfgDataMigrationRepository cfgDataMigrationRepo, DataMigration dataMigration, MigrationStepStatus stepStatus, Timestamp start, Timestamp end, long records) {
         dataMigration.setLastExecutedStep(getStepName());
         DataMigrationStatus migrationStatus = getDataMigrationStatus(dataMigration.getDetails());
         migrationStatus.setStatus(stepStatus.toString());
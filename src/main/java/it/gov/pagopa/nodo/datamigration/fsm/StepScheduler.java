@@ -0,0 +1,232 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import io.opentelemetry.context.Context;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.enumeration.MigrationStepStatus;
+import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
+import it.gov.pagopa.nodo.datamigration.repository.h2.CfgDataMigrationRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.PostgresDBSystemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class StepScheduler {
+
+    // connections kept free for the APIs reading the DBs while the steps are running
+    private static final int API_CONNECTIONS = 2;
+
+    @Autowired
+    private PostgresDBSystemRepository postgresSystemRepo;
+
+    @Value("${persistence.postgresql.default_schema}")
+    private String schema;
+
+    @Value("${step.parallelism}")
+    private int parallelism;
+
+    @Value("${persistence.oracledb.hikari.maximumPoolSize}")
+    private int sourcePoolSize;
+
+    @Value("${persistence.postgresql.hikari.maximumPoolSize}")
+    private int destinationPoolSize;
+
+    /**
+     * Execute the table migration steps following the foreign keys between their tables, instead of a fixed chain:
+     * each step is started as soon as the steps of all the tables it references are completed, and the steps
+     * without pending dependencies are executed at the same time, up to the configured parallelism.
+     * The steps already completed in a previous execution of the migration are not executed again.
+     * No other step is started after a step is in error or after a stop is requested.
+     * The rows removed from the source tables, found by the incremental steps, are deleted at the end from the
+     * referencing tables to the referenced ones.
+     *
+     * @param tableSteps the table migration steps, with the shared state already attached
+     * @param sharedState the shared state of the FSM
+     * @param cfgDataMigrationRepo the repository of the migration status
+     * @return ERROR if a step is in error or the steps cannot be ordered, END if a stop is requested, SYNC otherwise
+     */
+    public StepName execute(Collection<TableMigrationStep<?, ?>> tableSteps, FSMSharedState sharedState, CfgDataMigrationRepository cfgDataMigrationRepo) {
+        Map<StepName, TableMigrationStep<?, ?>> stepsByName = tableSteps.stream()
+                .sorted(Comparator.comparing(step -> StepName.valueOf(step.getStepName())))
+                .collect(Collectors.toMap(step -> StepName.valueOf(step.getStepName()), Function.identity(), (first, second) -> first, LinkedHashMap::new));
+        Map<StepName, Set<StepName>> dependencies;
+        try {
+            dependencies = getDependencies(stepsByName);
+        } catch (DataAccessException e) {
+            log.error("Error while reading the foreign keys of the destination tables. Next step will be ERROR step.", e);
+            return StepName.ERROR;
+        }
+        Set<StepName> completed = getCompletedSteps(stepsByName, sharedState, cfgDataMigrationRepo);
+        Map<StepName, TableMigrationStep<?, ?>> pending = new LinkedHashMap<>(stepsByName);
+        pending.keySet().removeAll(completed);
+
+        int maxRunning = Math.max(1, this.parallelism);
+        checkPoolSize(pending.values(), maxRunning);
+        AtomicInteger threadCounter = new AtomicInteger();
+        // the steps are executed in the trace context of the migration run
+        ExecutorService executor = Context.taskWrapping(Executors.newFixedThreadPool(maxRunning, runnable -> new Thread(runnable, "step-" + threadCounter.incrementAndGet())));
+        CompletionService<StepName> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<StepName>, StepName> running = new HashMap<>();
+        boolean failed = false;
+        try {
+            while (!pending.isEmpty() || !running.isEmpty()) {
+                // start all the steps whose referenced tables are already migrated, in the order of their step names
+                if (!failed && sharedState.isInLock() && !sharedState.isBlockRequested()) {
+                    for (StepName ready : getReadySteps(pending.keySet(), dependencies, completed)) {
+                        if (running.size() >= maxRunning) {
+                            break;
+                        }
+                        running.put(completionService.submit(pending.remove(ready)), ready);
+                    }
+                }
+                if (running.isEmpty()) {
+                    break;
+                }
+                // wait for any running step: its end can make other steps ready
+                Future<StepName> done = completionService.take();
+                StepName stepName = running.remove(done);
+                if (getResult(done, stepName) == StepName.ERROR) {
+                    failed = true;
+                } else {
+                    completed.add(stepName);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("The execution of the table steps is interrupted. Next step will be ERROR step.");
+            return StepName.ERROR;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (failed) {
+            return StepName.ERROR;
+        }
+        if (!pending.isEmpty() && sharedState.isInLock() && !sharedState.isBlockRequested()) {
+            log.error(String.format("The steps %s cannot be executed because of circular dependencies between their tables. Next step will be ERROR step.", pending.keySet()));
+            return StepName.ERROR;
+        }
+        if (sharedState.isBlockRequested()) {
+            return StepName.END;
+        }
+        try {
+            deleteRemovedRows(stepsByName, dependencies);
+        } catch (DataAccessException e) {
+            log.error("Error while deleting the rows removed from the source tables. Next step will be ERROR step.", e);
+            return StepName.ERROR;
+        }
+        // the tables are synchronized and verified only once all of them are migrated
+        return StepName.SYNC;
+    }
+
+    /*
+     * The incremental steps delete the rows removed from their source tables only once all the tables are migrated, in
+     * the reverse order of the foreign keys: a removed row can be still referenced on the destination DB by a row that
+     * is removed too, but from a table migrated later. The steps migrated as a whole have no rows to delete.
+     */
+    private static void deleteRemovedRows(Map<StepName, TableMigrationStep<?, ?>> stepsByName, Map<StepName, Set<StepName>> dependencies) {
+        List<StepName> ordered = new ArrayList<>();
+        Set<StepName> pending = new LinkedHashSet<>(stepsByName.keySet());
+        while (!pending.isEmpty()) {
+            List<StepName> ready = getReadySteps(pending, dependencies, new HashSet<>(ordered));
+            if (ready.isEmpty()) {
+                break;
+            }
+            ordered.addAll(ready);
+            ready.forEach(pending::remove);
+        }
+        Collections.reverse(ordered);
+        for (StepName stepName : ordered) {
+            TableMigrationStep<?, ?> step = stepsByName.get(stepName);
+            if (step.hasRemovedRows()) {
+                step.deleteRemovedRows();
+            }
+        }
+    }
+
+    /*
+     * The dependencies are read from the foreign keys defined on the destination DB, that are the ones that require the
+     * referenced rows to be already migrated. Most of the entities map their foreign keys as plain columns, so their
+     * associations are not enough. Self references and references to tables without a step are ignored.
+     */
+    // the workers that cannot get a connection within the connection timeout of the pool fail their step
+    private void checkPoolSize(Collection<TableMigrationStep<?, ?>> steps, int maxRunning) {
+        int partitions = steps.stream().mapToInt(TableMigrationStep::getPartitions).max().orElse(1);
+        int connections = maxRunning * Math.max(1, partitions) + API_CONNECTIONS;
+        if (connections > Math.min(this.sourcePoolSize, this.destinationPoolSize)) {
+            log.warn(String.format("The table steps can use up to [%d] connections of each DB, but the pools have [%d] connections on source DB and [%d] on destination DB.",
+                    connections, this.sourcePoolSize, this.destinationPoolSize));
+        }
+    }
+
+    private Map<StepName, Set<StepName>> getDependencies(Map<StepName, TableMigrationStep<?, ?>> stepsByName) {
+        Map<String, StepName> stepsByTable = new HashMap<>();
+        stepsByName.forEach((stepName, step) -> stepsByTable.put(step.getTableName(), stepName));
+        Map<StepName, Set<StepName>> dependencies = new HashMap<>();
+        stepsByName.keySet().forEach(stepName -> dependencies.put(stepName, new HashSet<>()));
+        for (Object[] reference : this.postgresSystemRepo.findForeignKeyReferences(this.schema)) {
+            StepName step = stepsByTable.get(String.valueOf(reference[0]));
+            StepName referencedStep = stepsByTable.get(String.valueOf(reference[1]));
+            if (step != null && referencedStep != null && step != referencedStep) {
+                dependencies.get(step).add(referencedStep);
+            }
+        }
+        log.info(String.format("The table steps will be executed with the dependencies %s.", dependencies));
+        return dependencies;
+    }
+
+    private Set<StepName> getCompletedSteps(Map<StepName, TableMigrationStep<?, ?>> stepsByName, FSMSharedState sharedState, CfgDataMigrationRepository cfgDataMigrationRepo) {
+        Set<StepName> completed = new HashSet<>();
+        Optional<DataMigration> dataMigration = cfgDataMigrationRepo.findById(sharedState.getDataMigrationStateId());
+        if (dataMigration.isPresent()) {
+            stepsByName.forEach((stepName, step) -> {
+                DataMigrationStatus status = step.getDataMigrationStatus(dataMigration.get().getDetails());
+                if (status != null && MigrationStepStatus.COMPLETED.toString().equals(status.getStatus())) {
+                    completed.add(stepName);
+                }
+            });
+        }
+        return completed;
+    }
+
+    private static List<StepName> getReadySteps(Set<StepName> pending, Map<StepName, Set<StepName>> dependencies, Set<StepName> completed) {
+        return pending.stream()
+                .filter(stepName -> completed.containsAll(dependencies.get(stepName)))
+                .toList();
+    }
+
+    private static StepName getResult(Future<StepName> done, StepName stepName) throws InterruptedException {
+        try {
+            return done.get();
+        } catch (ExecutionException e) {
+            log.error(String.format("The step [%s] ended with an unexpected error. Next step will be ERROR step.", stepName), e.getCause());
+            return StepName.ERROR;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The rows that differ between the source and the destination table, found by a {@link TableDiffer}: the keys of the
+ * rows missing on the destination DB, of the rows that exist only on the destination DB, and of the rows whose values
+ * differ. The keys are collected up to a maximum, over which the diff is truncated.
+ */
+public class TableDiff {
+
+    @Getter
+    private final String tableName;
+
+    private final int maxKeys;
+
+    @Getter
+    private long sourceRecords;
+
+    @Getter
+    private long destinationRecords;
+
+    @Getter
+    private int comparedRanges;
+
+    @Getter
+    private boolean truncated;
+
+    private final List<Long> missingKeys = new ArrayList<>();
+
+    private final List<Long> unexpectedKeys = new ArrayList<>();
+
+    private final List<Long> differentKeys = new ArrayList<>();
+
+    public TableDiff(String tableName, int maxKeys) {
+        this.tableName = tableName;
+        this.maxKeys = maxKeys;
+    }
+
+    void onTableCompared(long sourceRecords, long destinationRecords) {
+        this.sourceRecords = sourceRecords;
+        this.destinationRecords = destinationRecords;
+    }
+
+    void onRangeCompared() {
+        this.comparedRanges++;
+    }
+
+    void addMissingKey(long key) {
+        addKey(this.missingKeys, key);
+    }
+
+    void addUnexpectedKey(long key) {
+        addKey(this.unexpectedKeys, key);
+    }
+
+    void addDifferentKey(long key) {
+        addKey(this.differentKeys, key);
+    }
+
+    void truncate() {
+        this.truncated = true;
+    }
+
+    boolean isFull() {
+        return this.missingKeys.size() + this.unexpectedKeys.size() + this.differentKeys.size() >= this.maxKeys;
+    }
+
+    public boolean isMatching() {
+        return !this.truncated && this.missingKeys.isEmpty() && this.unexpectedKeys.isEmpty() && this.differentKeys.isEmpty();
+    }
+
+    public List<Long> getMissingKeys() {
+        return Collections.unmodifiableList(this.missingKeys);
+    }
+
+    public List<Long> getUnexpectedKeys() {
+        return Collections.unmodifiableList(this.unexpectedKeys);
+    }
+
+    public List<Long> getDifferentKeys() {
+        return Collections.unmodifiableList(this.differentKeys);
+    }
+
+    private void addKey(List<Long> keys, long key) {
+        if (isFull()) {
+            truncate();
+        } else {
+            keys.add(key);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import io.opentelemetry.context.Context;
+import it.gov.pagopa.nodo.datamigration.repository.KeyRange;
+import it.gov.pagopa.nodo.datamigration.repository.TableChecksum;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetSrcRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyDestRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Finds the rows that differ between the source and the destination table, comparing the checksums of their key ranges
+ * as the nodes of a Merkle tree: the whole key range is compared first, and only the ranges whose checksums differ are
+ * split in halves and compared again, down to the ranges small enough to compare the hash of each row.
+ * The rows are hashed by the DBs: the checksum of each range is a single aggregate query on each side, and only the
+ * leaf ranges return the key and the hash of each row, never the values of the rows. The matching ranges are not read
+ * again, and the checksums of a range are computed on source and destination DB at the same time.
+ * The same comparison is used by the incremental migration, that writes only the divergent rows of each range.
+ * Comparing only the keys, the checksums are computed on the primary key indexes and only the missing and the
+ * unexpected rows are found: it is used to find the removed rows when the changed ones are found by SCN.
+ */
+@Slf4j
+public class TableDiffer {
+
+    private final KeysetSrcRepository<?, ?> srcRepo;
+
+    private final InsertOnlyDestRepository<?, ?> destRepo;
+
+    private final int leafRows;
+
+    private final int fetchSize;
+
+    private final boolean keysOnly;
+
+    public TableDiffer(KeysetSrcRepository<?, ?> srcRepo, InsertOnlyDestRepository<?, ?> destRepo, int leafRows, int fetchSize) {
+        this(srcRepo, destRepo, leafRows, fetchSize, false);
+    }
+
+    public TableDiffer(KeysetSrcRepository<?, ?> srcRepo, InsertOnlyDestRepository<?, ?> destRepo, int leafRows, int fetchSize, boolean keysOnly) {
+        this.srcRepo = srcRepo;
+        this.destRepo = destRepo;
+        this.leafRows = Math.max(1, leafRows);
+        this.fetchSize = fetchSize;
+        this.keysOnly = keysOnly;
+    }
+
+    /**
+     * Receives the keys of the divergent rows of each range compared row by row, as soon as the range is compared.
+     *
+     * @param <E> the exception thrown while handling the rows
+     */
+    @FunctionalInterface
+    public interface DivergentRowsHandler<E extends Exception> {
+
+        /**
+         * Handle the divergent rows of a range.
+         *
+         * @param range the compared range
+         * @param missingKeys the keys of the rows missing on the destination DB
+         * @param unexpectedKeys the keys of the rows that exist only on the destination DB
+         * @param differentKeys the keys of the rows whose values differ
+         * @return true to continue the comparison of the next ranges, false to stop it
+         * @throws E if the rows cannot be handled
+         */
+        boolean onDivergentRows(KeyRange range, List<Long> missingKeys, List<Long> unexpectedKeys, List<Long> differentKeys) throws E;
+    }
+
+    /**
+     * Compare the source and the destination table, reporting the keys of the divergent rows up to the passed maximum.
+     *
+     * @param tableName the name of the table
+     * @param maxKeys the maximum number of keys to report, over which the diff is truncated
+     * @return the diff of the table
+     * @throws UnsupportedOperationException if the key of the table is not a single numeric column, so it cannot be split in ranges
+     */
+    public TableDiff diff(String tableName, int maxKeys) {
+        TableDiff diff = new TableDiff(tableName, maxKeys);
+        compare(diff, null);
+        log.info(String.format("The table [%s] is compared on [%d] ranges: [%d] missing, [%d] unexpected and [%d] different rows.",
+                tableName, diff.getComparedRanges(), diff.getMissingKeys().size(), diff.getUnexpectedKeys().size(), diff.getDifferentKeys().size()));
+        return diff;
+    }
+
+    /**
+     * Compare the source and the destination table, handing off the keys of the divergent rows of each range instead of
+     * collecting them, so there is no maximum. The comparison is stopped when the handler asks for it.
+     *
+     * @param tableName the name of the table
+     * @param handler the handler of the divergent rows
+     * @return the diff of the table, with the counts of the compared rows and ranges but without keys
+     * @param <E> the exception thrown by the handler
+     * @throws E if the handler fails, stopping the comparison
+     * @throws UnsupportedOperationException if the key of the table is not a single numeric column, so it cannot be split in ranges
+     */
+    public <E extends Exception> TableDiff compare(String tableName, DivergentRowsHandler<E> handler) throws E {
+        TableDiff diff = new TableDiff(tableName, 0);
+        compare(diff, handler);
+        return diff;
+    }
+
+    private <E extends Exception> void compare(TableDiff diff, DivergentRowsHandler<E> handler) throws E {
+        Optional<KeyRange> sourceRange = this.srcRepo.findKeyRange();
+        Optional<KeyRange> destinationRange = this.destRepo.findKeyRange();
+        if (sourceRange.isEmpty() && destinationRange.isEmpty()) {
+            // both the tables are empty, or their key cannot be split
+            if (this.srcRepo.count() > 0 || this.destRepo.count() > 0) {
+                throw new UnsupportedOperationException(String.format("The table [%s] has not a single numeric key.", diff.getTableName()));
+            }
+            return;
+        }
+        // the rows that exist only on one side can be out of the key range of the other one
+        KeyRange range = new KeyRange(
+                Math.min(sourceRange.map(KeyRange::getLowerBound).orElse(Long.MAX_VALUE), destinationRange.map(KeyRange::getLowerBound).orElse(Long.MAX_VALUE)),
+                Math.max(sourceRange.map(KeyRange::getUpperBound).orElse(Long.MIN_VALUE), destinationRange.map(KeyRange::getUpperBound).orElse(Long.MIN_VALUE)));
+        ExecutorService executor = Context.taskWrapping(Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "diff-" + diff.getTableName())));
+        try {
+            Sides<TableChecksum> checksums = computeChecksums(executor, range);
+            diff.onTableCompared(checksums.source().getRecords(), checksums.destination().getRecords());
+            diffRange(executor, range, checksums, diff, handler);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // a truncated diff is not compared any further, with or without handler
+    private <E extends Exception> void diffRange(ExecutorService executor, KeyRange range, Sides<TableChecksum> checksums, TableDiff diff, DivergentRowsHandler<E> handler) throws E {
+        diff.onRangeCompared();
+        if (checksums.source().equals(checksums.destination())) {
+            return;
+        }
+        if (handler == null && diff.isFull()) {
+            diff.truncate();
+            return;
+        }
+        if (range.getLowerBound() == range.getUpperBound() || Math.max(checksums.source().getRecords(), checksums.destination().getRecords()) <= this.leafRows) {
+            diffRows(executor, range, diff, handler);
+            return;
+        }
+        for (KeyRange half : range.split(2)) {
+            if (diff.isTruncated()) {
+                return;
+            }
+            diffRange(executor, half, computeChecksums(executor, half), diff, handler);
+        }
+    }
+
+    private <E extends Exception> void diffRows(ExecutorService executor, KeyRange range, TableDiff diff, DivergentRowsHandler<E> handler) throws E {
+        Sides<Map<Long, Long>> hashes = this.keysOnly ?
+                computeBothSides(executor, () -> this.srcRepo.findKeyHashesInRange(range, this.fetchSize), () -> this.destRepo.findKeyHashesInRange(range, this.fetchSize)) :
+                computeBothSides(executor, () -> this.srcRepo.findRowHashesInRange(range, this.fetchSize), () -> this.destRepo.findRowHashesInRange(range, this.fetchSize));
+        TreeSet<Long> keys = new TreeSet<>(hashes.source().keySet());
+        keys.addAll(hashes.destination().keySet());
+        List<Long> missingKeys = new ArrayList<>();
+        List<Long> unexpectedKeys = new ArrayList<>();
+        List<Long> differentKeys = new ArrayList<>();
+        for (Long key : keys) {
+            Long sourceHash = hashes.source().get(key);
+            Long destinationHash = hashes.destination().get(key);
+            if (destinationHash == null) {
+                missingKeys.add(key);
+            } else if (sourceHash == null) {
+                unexpectedKeys.add(key);
+            } else if (!sourceHash.equals(destinationHash)) {
+                differentKeys.add(key);
+            }
+        }
+        if (handler != null) {
+            if (!handler.onDivergentRows(range, missingKeys, unexpectedKeys, differentKeys)) {
+                diff.truncate();
+            }
+            return;
+        }
+        missingKeys.forEach(diff::addMissingKey);
+        unexpectedKeys.forEach(diff::addUnexpectedKey);
+        differentKeys.forEach(diff::addDifferentKey);
+    }
+
+    private Sides<TableChecksum> computeChecksums(ExecutorService executor, KeyRange range) {
+        return this.keysOnly ?
+                computeBothSides(executor, () -> this.srcRepo.computeKeyChecksumInRange(range), () -> this.destRepo.computeKeyChecksumInRange(range)) :
+                computeBothSides(executor, () -> this.srcRepo.computeChecksumInRange(range), () -> this.destRepo.computeChecksumInRange(range));
+    }
+
+    // the source side is computed by the executor, while the destination side is computed by the calling thread
+    private static <R> Sides<R> computeBothSides(ExecutorService executor, Callable<R> source, Callable<R> destination) {
+        Future<R> sourceResult = executor.submit(source);
+        try {
+            R destinationResult = destination.call();
+            return new Sides<>(sourceResult.get(), destinationResult);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The diff of the table is interrupted.", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (RuntimeException e) {
+            sourceResult.cancel(true);
+            throw e;
+        } catch (Exception e) {
+            sourceResult.cancel(true);
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Sides<R>(R source, R destination) {
+    }
+}
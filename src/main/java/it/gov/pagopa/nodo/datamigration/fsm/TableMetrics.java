@@ -0,0 +1,75 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Micrometer meters of a table step, tagged by table and exposed by the Prometheus endpoint of the actuator:
+ * the latency of the pages read from the source DB and written on the destination DB, the rows and bytes written,
+ * and the pages read in advance waiting to be written.
+ * The meters are registered once per step, so they are shared by all its executions and by all their threads.
+ */
+public class TableMetrics {
+
+    private static final String TABLE_TAG = "table";
+
+    private final Timer pageReadTimer;
+
+    private final Timer pageWriteTimer;
+
+    private final Counter rowCounter;
+
+    private final Counter byteCounter;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    public TableMetrics(MeterRegistry registry, String tableName) {
+        this.pageReadTimer = Timer.builder("migration.page.read")
+                .description("Time to read a page from the source DB")
+                .tag(TABLE_TAG, tableName)
+                .register(registry);
+        this.pageWriteTimer = Timer.builder("migration.page.write")
+                .description("Time to write and flush a page on the destination DB")
+                .tag(TABLE_TAG, tableName)
+                .register(registry);
+        this.rowCounter = Counter.builder("migration.rows")
+                .description("Rows written on the destination DB")
+                .tag(TABLE_TAG, tableName)
+                .register(registry);
+        this.byteCounter = Counter.builder("migration.bytes")
+                .description("Bytes written on the destination DB, by the write modes that measure them")
+                .baseUnit("bytes")
+                .tag(TABLE_TAG, tableName)
+                .register(registry);
+        Gauge.builder("migration.pipeline.queue.depth", this.queueDepth, AtomicInteger::get)
+                .description("Pages read in advance and waiting to be written")
+                .tag(TABLE_TAG, tableName)
+                .register(registry);
+    }
+
+    public void onPageRead(long latencyNanos) {
+        this.pageReadTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void onPageWritten(long latencyNanos) {
+        this.pageWriteTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void onRecordsWritten(long records, long bytes) {
+        this.rowCounter.increment(records);
+        this.byteCounter.increment(bytes);
+    }
+
+    public void onBytesWritten(long bytes) {
+        this.byteCounter.increment(bytes);
+    }
+
+    public void setQueueDepth(int pages) {
+        this.queueDepth.set(pages);
+    }
+}
@@ -0,0 +1,712 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import io.micrometer.core.instrument.Metrics;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import it.gov.pagopa.nodo.datamigration.enumeration.ResetMode;
+import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
+import it.gov.pagopa.nodo.datamigration.enumeration.WriteMode;
+import it.gov.pagopa.nodo.datamigration.exception.migration.InvalidMigrationStatusException;
+import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationErrorOnStepException;
+import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
+import it.gov.pagopa.nodo.datamigration.repository.KeyRange;
+import it.gov.pagopa.nodo.datamigration.repository.PayloadDeduplicator;
+import it.gov.pagopa.nodo.datamigration.repository.TableChecksum;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetSrcRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyDestRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+public abstract class TableMigrationStep<T, ID> extends Step {
+
+    private static final long PAGE_POLL_TIMEOUT_MS = 100;
+
+    private static final long PAUSE_POLL_TIMEOUT_MS = 1000;
+
+    private static final String STEP_NAME_PREFIX = "EXECUTE_";
+
+    private static final String STEP_NAME_SUFFIX = "_TABLE_MIGRATION";
+
+    // Oracle allows at most 1000 expressions in an IN list
+    private static final int KEY_BATCH_SIZE = 1000;
+
+    @Value("${step.pipeline.prefetch.pages}")
+    private int prefetchPages;
+
+    @Value("${step.adaptive.batch.enabled}")
+    private boolean adaptiveBatchEnabled;
+
+    @Value("${step.adaptive.batch.min.size}")
+    private int adaptiveBatchMinSize;
+
+    @Value("${step.adaptive.batch.max.size}")
+    private int adaptiveBatchMaxSize;
+
+    @Value("${step.adaptive.batch.target.latency.ms}")
+    private long adaptiveBatchTargetLatencyMs;
+
+    @Value("${step.adaptive.batch.max.heap.ratio}")
+    private double adaptiveBatchMaxHeapRatio;
+
+    @Value("${step.checkpoint.interval.pages}")
+    private int checkpointIntervalPages;
+
+    @Value("${step.checkpoint.interval.ms}")
+    private long checkpointIntervalMs;
+
+    @Value("${step.start.reset.mode}")
+    private ResetMode resetMode;
+
+    @Value("${step.incremental.leaf.rows}")
+    private int incrementalLeafRows;
+
+    @Value("${step.incremental.fetch.size}")
+    private int incrementalFetchSize;
+
+    @Value("${step.sync.enabled}")
+    private boolean syncEnabled;
+
+    // progress of the last execution of the step, reported by the status API
+    @Getter
+    private volatile TableProgress progress;
+
+    private TableMetrics metrics;
+
+    private TableSynchronizer<T, ID> synchronizer;
+
+    private volatile boolean isPauseRequested;
+
+    protected abstract KeysetSrcRepository<T, ID> getSrcRepository();
+
+    protected abstract InsertOnlyDestRepository<T, ID> getDestRepository();
+
+    protected abstract int getPageSize();
+
+    protected abstract WriteMode getWriteMode();
+
+    protected abstract int getPartitions();
+
+    /**
+     * Get the byte budget of each page, for the tables whose rows have large LOB values: a page is closed when the
+     * next row would exceed it, even if the page size is not reached, so the memory used by a page is bounded.
+     *
+     * @return the maximum size of the rows of a page, 0 if the pages are closed only on the page size
+     */
+    protected long getPageBytes() {
+        return 0;
+    }
+
+    /**
+     * Get the columns whose sum is the size of a row, used only if the step has a byte budget.
+     *
+     * @return the numeric columns with the size of a LOB value, or the LOB columns to be measured
+     */
+    protected List<String> getRowSizeColumns() {
+        return List.of();
+    }
+
+    /**
+     * Create the cache of the LOB payloads written by a run of the step, for the tables that store the hash of their
+     * payloads. The duplicated payloads are then written from the cache, without reading them again from the source DB.
+     * It is used only by the STREAM write mode, that is the only one reading the LOB values only when they are written.
+     *
+     * @return the new cache for the run, empty if the step does not deduplicate its payloads
+     */
+    protected Optional<PayloadDeduplicator> createPayloadDeduplicator() {
+        return Optional.empty();
+    }
+
+    /**
+     * Get the step after a completed table step. The table steps are not chained: all of them are executed by the
+     * {@link StepScheduler}, that owns their order and moves on to SYNC once all the tables are migrated.
+     *
+     * @return the SYNC step
+     */
+    @Override
+    public final StepName getNextState() {
+        return StepName.SYNC;
+    }
+
+    /**
+     * Get the name of the migrated table, that is the same on source and destination DB.
+     *
+     * @return the table name, taken from the step name
+     */
+    public String getTableName() {
+        String stepName = getStepName();
+        return stepName.substring(STEP_NAME_PREFIX.length(), stepName.length() - STEP_NAME_SUFFIX.length());
+    }
+
+    /**
+     * Compute the checksum of the rows of the table on the source DB, to be compared with the one on the destination DB.
+     *
+     * @return the row count and the aggregate hash of the source rows
+     */
+    public TableChecksum computeSourceChecksum() {
+        return getSrcRepository().computeChecksum();
+    }
+
+    /**
+     * Compute the checksum of the rows of the table on the destination DB, to be compared with the one on the source DB.
+     *
+     * @return the row count and the aggregate hash of the destination rows
+     */
+    public TableChecksum computeDestinationChecksum() {
+        return getDestRepository().computeChecksum();
+    }
+
+    /**
+     * Find the rows that differ between the source and the destination table, comparing the checksums of their key ranges.
+     *
+     * @param leafRows the maximum rows of a range whose rows are compared one by one, instead of splitting it again
+     * @param maxKeys the maximum number of keys to report
+     * @param fetchSize the rows fetched in each round trip
+     * @return the diff of the table
+     * @throws UnsupportedOperationException if the key of the table is not a single numeric column
+     */
+    public TableDiff diff(int leafRows, int maxKeys, int fetchSize) {
+        return new TableDiffer(getSrcRepository(), getDestRepository(), leafRows, fetchSize).diff(getTableName(), maxKeys);
+    }
+
+    /**
+     * Check if the last comparison of the table found rows removed from the source table, still to be deleted.
+     *
+     * @return true if there are rows to delete
+     */
+    public boolean hasRemovedRows() {
+        return getSynchronizer().hasRemovedRows();
+    }
+
+    /**
+     * Delete from the destination table the rows removed from the source table, after the referencing tables.
+     *
+     * @return the number of deleted rows
+     */
+    public int deleteRemovedRows() {
+        return getSynchronizer().deleteRemovedRows();
+    }
+
+    /**
+     * Check if the step is migrating its table at the moment, so it can be paused.
+     *
+     * @return true if the step is started and not ended yet
+     */
+    public boolean isInFlight() {
+        TableProgress current = this.progress;
+        return current != null && !current.isEnded();
+    }
+
+    /**
+     * Pause the migration of the table after the pages being written, until {@link #resume()} is called. The paused
+     * step holds no connection, and it is stopped as usual on stop request.
+     */
+    public void pause() {
+        this.isPauseRequested = true;
+        log.info(String.format("The step [%s] will be paused after its current page.", getStepName()));
+    }
+
+    public void resume() {
+        this.isPauseRequested = false;
+        log.info(String.format("The step [%s] is resumed.", getStepName()));
+    }
+
+    public boolean isPaused() {
+        return this.isPauseRequested;
+    }
+
+    @Override
+    public void executeStep() throws MigrationStepException {
+        try {
+            // starting migration step: update migration status, counting the source rows only once for progress reporting
+            KeysetSrcRepository<T, ID> srcRepo = getSrcRepository();
+            long sourceRecords = srcRepo.count();
+            updateDataMigrationStatusOnStart(cfgDataMigrationRepo, sourceRecords);
+            this.progress = new TableProgress(this.sharedState.getDataMigrationStateId(), sourceRecords);
+            initMetrics();
+            checkExecutionBlock(cfgDataMigrationRepo, true);
+
+            // starting migration: read from source DB in primary key order, then save on destination DB, until end or stop
+            InsertOnlyDestRepository<T, ID> destRepo = getDestRepository();
+            long recordCounter;
+            // the tables run again are compared with the source ones, instead of being deleted in bulk
+            if (this.resetMode == ResetMode.INCREMENTAL || this.sharedState.isRerunRequested()) {
+                recordCounter = getSynchronizer().writeChangedRows(getDataMigrationChangeNumber(cfgDataMigrationRepo), createChangedRowsWriter(this.progress));
+            } else {
+                // the SCN is read only for the sync, a resumed step keeps the one read at its first start
+                if (this.syncEnabled && getDataMigrationChangeNumber(cfgDataMigrationRepo) == null) {
+                    Optional<Long> changeNumber = getSynchronizer().findCurrentChangeNumber();
+                    if (changeNumber.isPresent()) {
+                        updateDataMigrationChangeNumber(cfgDataMigrationRepo, changeNumber.get());
+                    }
+                }
+                Optional<KeyRange> keyRange = srcRepo.findKeyRange();
+                recordCounter = keyRange.isPresent() ?
+                        readAndWriteKeyRanges(srcRepo, destRepo, keyRange.get()) :
+                        readAndWriteWholeTable(srcRepo, destRepo, this.progress);
+            }
+
+            // ending migration step: update migration status
+            updateDataMigrationStatusOnStepEnd(cfgDataMigrationRepo, recordCounter);
+            checkExecutionBlock(cfgDataMigrationRepo, false);
+
+        } catch (DataAccessException e) {
+            updateDataMigrationStatusOnFailure(cfgDataMigrationRepo);
+            throw new MigrationErrorOnStepException(getStepName(), e);
+        } finally {
+            if (this.progress != null) {
+                this.progress.onEnd();
+            }
+            this.isPauseRequested = false;
+        }
+    }
+
+    /**
+     * Write the rows changed on the source table since its last migration or sync, without updating the step status.
+     *
+     * @param lastRound whether the tables must be compared to find the removed rows too
+     * @return the number of written rows
+     * @throws MigrationStepException if the rows cannot be written
+     */
+    public long synchronize(boolean lastRound) throws MigrationStepException {
+        initMetrics();
+        TableProgress syncProgress = new TableProgress(this.sharedState.getDataMigrationStateId(), 0);
+        return getSynchronizer().synchronize(lastRound, getDataMigrationChangeNumber(cfgDataMigrationRepo), createChangedRowsWriter(syncProgress));
+    }
+
+    // the meters are bound to the registry of the actuator, that Spring Boot adds to the global one
+    private void initMetrics() {
+        if (this.metrics == null) {
+            this.metrics = new TableMetrics(Metrics.globalRegistry, getTableName());
+        }
+    }
+
+    private long readAndWriteWholeTable(KeysetSrcRepository<T, ID> srcRepo, InsertOnlyDestRepository<T, ID> destRepo, TableProgress progress) throws MigrationStepException {
+        if (getPartitions() > 1) {
+            log.info(String.format("The step [%s] cannot split its table in key ranges, so it is not partitioned.", getStepName()));
+        }
+        // the rows can be inserted only if the destination table is empty (i.e. not on restart), otherwise they are upserted
+        WriteMode writeMode = destRepo.count() == 0 ? getWriteMode() : WriteMode.UPSERT;
+        if (writeMode == WriteMode.JDBC || writeMode == WriteMode.STREAM) {
+            log.info(String.format("The step [%s] cannot read its table by key ranges, so its rows are inserted as entities.", getStepName()));
+            writeMode = WriteMode.INSERT;
+        }
+        Execution execution = new Execution(srcRepo, destRepo, writeMode, new AtomicLong(), null, createPageSizeController(), progress, this.metrics);
+        if (this.prefetchPages > 0) {
+            readAndWritePipelined(execution, null, null);
+        } else {
+            readAndWrite(execution, null, null);
+        }
+        onExecutionEnd(execution);
+        return execution.recordCounter.get();
+    }
+
+    // on restart, the rows written after the checkpoint of each range are deleted and read again from the checkpoint
+    private long readAndWriteKeyRanges(KeysetSrcRepository<T, ID> srcRepo, InsertOnlyDestRepository<T, ID> destRepo, KeyRange keyRange) throws MigrationStepException {
+        List<KeyRange> ranges = getPartitions() > 1 ? keyRange.split(getPartitions()) : List.of(keyRange);
+        Map<Long, Long> checkpoints = getDataMigrationCheckpoints(cfgDataMigrationRepo);
+        long committedRecords = destRepo.count();
+        if (committedRecords > 0) {
+            for (KeyRange range : ranges) {
+                Long checkpoint = checkpoints.get(range.getLowerBound());
+                KeyRange tail = checkpoint == null ? range : new KeyRange(checkpoint + 1, range.getUpperBound());
+                if (tail.getLowerBound() <= tail.getUpperBound()) {
+                    destRepo.deleteAllInKeyRange(tail);
+                }
+            }
+            committedRecords = destRepo.count();
+            log.info(String.format("The step [%s] is resumed from the checkpoints %s, with [%d] rows already migrated.", getStepName(), checkpoints, committedRecords));
+        }
+        this.progress.onResume(committedRecords);
+
+        PayloadDeduplicator deduplicator = getWriteMode() == WriteMode.STREAM ? createPayloadDeduplicator().orElse(null) : null;
+        Execution execution = new Execution(srcRepo, destRepo, getWriteMode(), new AtomicLong(committedRecords), deduplicator, createPageSizeController(), this.progress, this.metrics);
+        // the streamed rows are written while they are read, so they cannot be read in advance
+        if (ranges.size() > 1) {
+            readAndWritePartitioned(execution, ranges, checkpoints);
+        } else if (this.prefetchPages > 0 && execution.writeMode != WriteMode.STREAM) {
+            readAndWritePipelined(execution, keyRange, getCheckpointKey(checkpoints, keyRange));
+        } else {
+            readAndWrite(execution, keyRange, getCheckpointKey(checkpoints, keyRange));
+        }
+        if (deduplicator != null) {
+            log.info(String.format("The step [%s] has written [%d] duplicated payloads from its cache, without reading [%d] bytes from the source DB.", getStepName(), deduplicator.getDeduplicatedPayloads(), deduplicator.getDeduplicatedBytes()));
+        }
+        onExecutionEnd(execution);
+        return execution.recordCounter.get();
+    }
+
+    // the rows are read by their keys, a batch at a time, so the unchanged rows around them are not read
+    private void readAndWriteRows(Execution execution, List<Long> keys) throws InvalidMigrationStatusException {
+        List<Long> sortedKeys = keys.stream().sorted().distinct().toList();
+        int batchSize = Math.min(execution.pageSizeController.getPageSize(), KEY_BATCH_SIZE);
+        for (int from = 0; from < sortedKeys.size(); from += batchSize) {
+            long start = System.nanoTime();
+            List<T> rows = execution.srcRepo.findAllByKeys(sortedKeys.subList(from, Math.min(from + batchSize, sortedKeys.size())));
+            execution.metrics.onPageRead(System.nanoTime() - start);
+            if (!rows.isEmpty()) {
+                write(execution, null, new SliceImpl<>(rows));
+            }
+            if (!this.sharedState.isInLock() || this.sharedState.isBlockRequested()) {
+                break;
+            }
+        }
+    }
+
+    // the changed rows are upserted by key, or as a whole for the tables that cannot be compared by key ranges
+    private TableSynchronizer.ChangedRowsWriter createChangedRowsWriter(TableProgress progress) {
+        Execution execution = new Execution(getSrcRepository(), getDestRepository(), WriteMode.UPSERT, new AtomicLong(), null, PageSizeController.fixed(getPageSize()), progress, this.metrics);
+        return new TableSynchronizer.ChangedRowsWriter() {
+            @Override
+            public long writeRows(List<Long> keys) throws InvalidMigrationStatusException {
+                long before = execution.recordCounter.get();
+                readAndWriteRows(execution, keys);
+                return execution.recordCounter.get() - before;
+            }
+
+            @Override
+            public long writeAllRows() throws MigrationStepException {
+                return readAndWriteWholeTable(getSrcRepository(), getDestRepository(), progress);
+            }
+
+            @Override
+            public void saveChangeNumber(long changeNumber) throws InvalidMigrationStatusException {
+                updateDataMigrationChangeNumber(cfgDataMigrationRepo, changeNumber);
+            }
+        };
+    }
+
+    // the synchronizer keeps the removed rows between the executions of the step, so it is built only once
+    private synchronized TableSynchronizer<T, ID> getSynchronizer() {
+        if (this.synchronizer == null) {
+            this.synchronizer = new TableSynchronizer<>(getStepName(), getTableName(), getSrcRepository(), getDestRepository(), this.sharedState, this.incrementalLeafRows, this.incrementalFetchSize);
+        }
+        return this.synchronizer;
+    }
+
+    // the configured page size is the starting point of the adaptive one, or it is kept if the adaptive page size is disabled
+    private PageSizeController createPageSizeController() {
+        if (!this.adaptiveBatchEnabled) {
+            return PageSizeController.fixed(getPageSize());
+        }
+        return PageSizeController.adaptive(getPageSize(), this.adaptiveBatchMinSize, this.adaptiveBatchMaxSize, this.adaptiveBatchTargetLatencyMs, this.adaptiveBatchMaxHeapRatio);
+    }
+
+    // the last page size is kept in the step status, also for the tables without checkpoints
+    private void onExecutionEnd(Execution execution) throws InvalidMigrationStatusException {
+        saveCheckpoints(execution);
+        int pageSize = execution.pageSizeController.getPageSize();
+        updateDataMigrationPageSize(cfgDataMigrationRepo, pageSize);
+        if (pageSize != getPageSize()) {
+            log.info(String.format("The step [%s] has adapted its page size from [%d] to [%d] rows.", getStepName(), getPageSize(), pageSize));
+        }
+    }
+
+    // with a null range, the whole table is read and no checkpoint is saved
+    private void readAndWrite(Execution execution, KeyRange range, ID startKey) throws InvalidMigrationStatusException {
+        Slice<?> slice = readPage(execution, range, startKey);
+        while (slice.hasContent()) {
+            write(execution, range, slice);
+            if (!canContinueReadPages(slice)) {
+                break;
+            }
+            slice = readPage(execution, range, getLastKey(execution, slice));
+        }
+    }
+
+    // each key range is migrated by its own worker, with its own connections: on error of a worker, the other ones are cancelled
+    private void readAndWritePartitioned(Execution execution, List<KeyRange> ranges, Map<Long, Long> checkpoints) throws MigrationStepException {
+        AtomicInteger workerCounter = new AtomicInteger();
+        ExecutorService workerExecutor = Context.taskWrapping(Executors.newFixedThreadPool(ranges.size(), runnable -> new Thread(runnable, getStepName() + "-worker-" + workerCounter.incrementAndGet())));
+        CompletionService<Void> workers = new ExecutorCompletionService<>(workerExecutor);
+        try {
+            for (KeyRange range : ranges) {
+                workers.submit(() -> {
+                    readAndWrite(execution, range, getCheckpointKey(checkpoints, range));
+                    return null;
+                });
+            }
+            for (int i = 0; i < ranges.size(); i++) {
+                workers.take().get();
+            }
+        } catch (ExecutionException e) {
+            throw onWorkerError(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw onWorkerError(e);
+        } finally {
+            workerExecutor.shutdownNow();
+        }
+    }
+
+    // the pages are read by a dedicated thread while the step thread writes them, at most the configured number of pages ahead
+    private void readAndWritePipelined(Execution execution, KeyRange range, ID startKey) throws MigrationStepException {
+        BlockingQueue<Slice<?>> pages = new ArrayBlockingQueue<>(this.prefetchPages);
+        ExecutorService readerExecutor = Context.taskWrapping(Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, getStepName() + "-reader")));
+        Future<?> reader = readerExecutor.submit(() -> {
+            Slice<?> slice = readPage(execution, range, startKey);
+            while (slice.hasContent()) {
+                pages.put(slice);
+                execution.metrics.setQueueDepth(pages.size());
+                if (!canContinueReadPages(slice)) {
+                    break;
+                }
+                slice = readPage(execution, range, getLastKey(execution, slice));
+            }
+            return null;
+        });
+        try {
+            while (true) {
+                Slice<?> slice = pages.poll(PAGE_POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                execution.metrics.setQueueDepth(pages.size());
+                if (slice == null) {
+                    // no page is ready: the migration of the table is ended only if the reader has nothing more to hand off
+                    if (reader.isDone() && pages.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                write(execution, range, slice);
+                if (!this.sharedState.isInLock() || this.sharedState.isBlockRequested()) {
+                    break;
+                }
+            }
+            // a reader still running is stopped by the cancellation, a failed one rethrows its error
+            if (reader.isDone()) {
+                reader.get();
+            }
+        } catch (ExecutionException e) {
+            throw onWorkerError(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw onWorkerError(e);
+        } finally {
+            reader.cancel(true);
+            readerExecutor.shutdownNow();
+            execution.metrics.setQueueDepth(0);
+        }
+    }
+
+    // the data access errors of the other threads are handled as the ones of the step thread
+    private MigrationErrorOnStepException onWorkerError(Throwable cause) throws InvalidMigrationStatusException {
+        if (cause instanceof DataAccessException dataAccessException) {
+            throw dataAccessException;
+        }
+        updateDataMigrationStatusOnFailure(cfgDataMigrationRepo);
+        return new MigrationErrorOnStepException(getStepName(), cause);
+    }
+
+    // the streamed pages are written while they are read, so their whole time is the write latency of the page
+    private Slice<?> readPage(Execution execution, KeyRange range, ID lastKey) {
+        int pageSize = execution.pageSizeController.getPageSize();
+        Span span = startPageSpan(execution.writeMode == WriteMode.STREAM ? "stream page" : "read page", execution, range)
+                .setAttribute(MigrationTracing.PAGE_SIZE, (long) pageSize);
+        if (lastKey != null) {
+            span.setAttribute(MigrationTracing.AFTER_KEY, String.valueOf(lastKey));
+        }
+        try (Scope ignored = span.makeCurrent()) {
+            long start = System.nanoTime();
+            Slice<?> slice = range != null && getPageBytes() > 0 ?
+                    readPageWithinBytes(execution, range, lastKey, pageSize) :
+                    readPageOfSize(execution, range, lastKey, pageSize);
+            long latency = System.nanoTime() - start;
+            if (execution.writeMode == WriteMode.STREAM) {
+                execution.pageSizeController.onPageWritten(slice.getNumberOfElements(), latency);
+                execution.metrics.onPageWritten(latency);
+            } else {
+                execution.pageSizeController.onPageRead(latency);
+                execution.metrics.onPageRead(latency);
+            }
+            span.setAttribute(MigrationTracing.ROWS, (long) slice.getNumberOfElements());
+            return slice;
+        } catch (RuntimeException e) {
+            MigrationTracing.onError(span, e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    // the page spans are children of the span of the step, that is the current one also in the worker and reader threads
+    private Span startPageSpan(String name, Execution execution, KeyRange range) {
+        Span span = MigrationTracing.getTracer().spanBuilder(name + " " + getTableName())
+                .setAttribute(MigrationTracing.TABLE, getTableName())
+                .setAttribute(MigrationTracing.WRITE_MODE, execution.writeMode.toString())
+                .startSpan();
+        if (range != null) {
+            span.setAttribute(MigrationTracing.RANGE_LOWER_BOUND, range.getLowerBound());
+            span.setAttribute(MigrationTracing.RANGE_UPPER_BOUND, range.getUpperBound());
+        }
+        return span;
+    }
+
+    // the page is narrowed to the keys of the rows that fit the byte budget, then it is read as the other pages
+    private Slice<?> readPageWithinBytes(Execution execution, KeyRange range, ID lastKey, int pageSize) {
+        Optional<KeyRange> pageRange = execution.srcRepo.findPageRangeWithinBytes(range, lastKey, pageSize, getRowSizeColumns(), getPageBytes());
+        if (pageRange.isEmpty()) {
+            return new SliceImpl<>(List.of());
+        }
+        Slice<?> slice = readPageOfSize(execution, pageRange.get(), lastKey, pageSize);
+        return new SliceImpl<>(List.copyOf(slice.getContent()), slice.getPageable(), pageRange.get().getUpperBound() < range.getUpperBound());
+    }
+
+    private Slice<?> readPageOfSize(Execution execution, KeyRange range, ID lastKey, int pageSize) {
+        // the page starts right after the passed key, no matter how deep in the table it is
+        KeysetSrcRepository<T, ID> srcRepo = execution.srcRepo;
+        if (execution.writeMode == WriteMode.JDBC) {
+            return srcRepo.findRowsInRange(range, lastKey, pageSize);
+        }
+        if (execution.writeMode == WriteMode.STREAM) {
+            PayloadDeduplicator deduplicator = execution.deduplicator;
+            return srcRepo.streamRowsInRange(range, lastKey, pageSize, rows -> {
+                long bytes = execution.destRepo.copyRowsAndFlush(deduplicator == null ? rows : deduplicator.wrap(rows));
+                execution.progress.onBytesWritten(bytes);
+                execution.metrics.onBytesWritten(bytes);
+                Span.current().setAttribute(MigrationTracing.BYTES, bytes);
+            });
+        }
+        if (range == null) {
+            return lastKey == null ? srcRepo.findFirstPage(pageSize) : srcRepo.findPageAfter(lastKey, pageSize);
+        }
+        return lastKey == null ? srcRepo.findFirstPageInRange(range, pageSize) : srcRepo.findPageAfterInRange(lastKey, range, pageSize);
+    }
+
+    // the rows read as plain column values start with their key, see JdbcRowMapping, and the streamed ones are just keys
+    @SuppressWarnings("unchecked")
+    private ID getLastKey(Execution execution, Slice<?> slice) {
+        Object last = slice.getContent().get(slice.getNumberOfElements() - 1);
+        return switch (execution.writeMode) {
+            case JDBC -> (ID) ((Object[]) last)[0];
+            case STREAM -> (ID) last;
+            default -> execution.srcRepo.getKey((T) last);
+        };
+    }
+
+    // the key ranges are used only for single numeric keys, so the checkpoint has the same type of the key
+    @SuppressWarnings("unchecked")
+    private ID getCheckpointKey(Map<Long, Long> checkpoints, KeyRange range) {
+        return (ID) checkpoints.get(range.getLowerBound());
+    }
+
+    private void write(Execution execution, KeyRange range, Slice<?> slice) throws InvalidMigrationStatusException {
+        ID lastKey = getLastKey(execution, slice);
+        Span span = startPageSpan("write page", execution, range)
+                .setAttribute(MigrationTracing.ROWS, (long) slice.getNumberOfElements())
+                .setAttribute(MigrationTracing.LAST_KEY, String.valueOf(lastKey));
+        try (Scope ignored = span.makeCurrent()) {
+            long bytes = writePage(execution, range, slice, lastKey);
+            if (bytes > 0) {
+                span.setAttribute(MigrationTracing.BYTES, bytes);
+            }
+        } catch (RuntimeException | InvalidMigrationStatusException e) {
+            MigrationTracing.onError(span, e);
+            throw e;
+        } finally {
+            span.end();
+        }
+        awaitResume();
+    }
+
+    // the step is paused between its pages, so all its threads stop after the page they are writing
+    private void awaitResume() {
+        while (this.isPauseRequested && this.sharedState.isInLock() && !this.sharedState.isBlockRequested()) {
+            try {
+                Thread.sleep(PAUSE_POLL_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // the pages are made of entities or, with JDBC write mode, of plain rows, while the streamed rows are already written
+    @SuppressWarnings("unchecked")
+    private long writePage(Execution execution, KeyRange range, Slice<?> slice, ID lastKey) throws InvalidMigrationStatusException {
+        long start = System.nanoTime();
+        long bytes = 0;
+        switch (execution.writeMode) {
+            case STREAM -> {
+            }
+            case JDBC -> bytes = execution.destRepo.insertRowsAndFlush((List<Object[]>) slice.getContent());
+            case COPY -> bytes = execution.destRepo.copyAllAndFlush((List<T>) slice.getContent());
+            case INSERT -> execution.destRepo.insertAllAndFlush((List<T>) slice.getContent());
+            case UPSERT -> bytes = execution.destRepo.upsertAllAndFlush((List<T>) slice.getContent());
+            default -> execution.destRepo.saveAllAndFlush((List<T>) slice.getContent());
+        }
+        if (execution.writeMode != WriteMode.STREAM) {
+            long latency = System.nanoTime() - start;
+            execution.pageSizeController.onPageWritten(slice.getNumberOfElements(), latency);
+            execution.metrics.onPageWritten(latency);
+        }
+        execution.progress.onPageWritten(slice.getNumberOfElements(), bytes);
+        execution.metrics.onRecordsWritten(slice.getNumberOfElements(), bytes);
+        execution.recordCounter.addAndGet(slice.getNumberOfElements());
+        // the page is committed, so the reading can be resumed after its last key
+        if (range != null) {
+            execution.checkpoints.put(range.getLowerBound(), (Long) lastKey);
+            long sinceLastSave = System.nanoTime() - execution.lastCheckpointSave.get();
+            if (execution.unsavedCheckpoints.incrementAndGet() >= this.checkpointIntervalPages || sinceLastSave >= TimeUnit.MILLISECONDS.toNanos(this.checkpointIntervalMs)) {
+                saveCheckpoints(execution);
+            }
+        }
+        return bytes;
+    }
+
+    // the checkpoints are saved every few pages, as the status is a single record: on restart, the rows after them are read again
+    private void saveCheckpoints(Execution execution) throws InvalidMigrationStatusException {
+        if (execution.unsavedCheckpoints.getAndSet(0) > 0) {
+            execution.lastCheckpointSave.set(System.nanoTime());
+            updateDataMigrationCheckpoints(cfgDataMigrationRepo, Map.copyOf(execution.checkpoints), execution.recordCounter.get(), execution.pageSizeController.getPageSize());
+        }
+    }
+
+    // the repositories, the write mode, the rows written, the payload cache, the page size, the progress, the meters and the checkpoints shared by all the threads of a single execution of the step
+    @AllArgsConstructor
+    private class Execution {
+
+        private final KeysetSrcRepository<T, ID> srcRepo;
+
+        private final InsertOnlyDestRepository<T, ID> destRepo;
+
+        private final WriteMode writeMode;
+
+        private final AtomicLong recordCounter;
+
+        private final PayloadDeduplicator deduplicator;
+
+        private final PageSizeController pageSizeController;
+
+        private final TableProgress progress;
+
+        private final TableMetrics metrics;
+
+        // the last key written for each range, and the pages written since the checkpoints were saved
+        private final Map<Long, Long> checkpoints = new ConcurrentHashMap<>();
+
+        private final AtomicInteger unsavedCheckpoints = new AtomicInteger();
+
+        private final AtomicLong lastCheckpointSave = new AtomicLong(System.nanoTime());
+    }
+}
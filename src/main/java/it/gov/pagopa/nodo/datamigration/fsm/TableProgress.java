@@ -0,0 +1,95 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The in-memory progress of the execution of a table step, updated after each page written by any of its threads
+ * without touching the status DB, and read by the status API to report the rows written so far, the throughput and
+ * the estimated time to the end of the step.
+ * The rates are computed on the rows written by the execution only, so the rows already migrated before a restart
+ * count as written but not as throughput.
+ */
+public class TableProgress {
+
+    @Getter
+    private final String dataMigrationId;
+
+    @Getter
+    private final long sourceRecords;
+
+    private final long startNanos;
+
+    private final LongAdder writtenRecords = new LongAdder();
+
+    private final LongAdder writtenBytes = new LongAdder();
+
+    private volatile long resumedRecords;
+
+    private volatile long endNanos;
+
+    public TableProgress(String dataMigrationId, long sourceRecords) {
+        this.dataMigrationId = dataMigrationId;
+        this.sourceRecords = sourceRecords;
+        this.startNanos = System.nanoTime();
+    }
+
+    public void onResume(long records) {
+        this.resumedRecords = records;
+    }
+
+    public void onPageWritten(long records, long bytes) {
+        this.writtenRecords.add(records);
+        this.writtenBytes.add(bytes);
+    }
+
+    public void onBytesWritten(long bytes) {
+        this.writtenBytes.add(bytes);
+    }
+
+    public void onEnd() {
+        this.endNanos = System.nanoTime();
+    }
+
+    public boolean isEnded() {
+        return this.endNanos != 0;
+    }
+
+    public long getRecords() {
+        return this.resumedRecords + this.writtenRecords.sum();
+    }
+
+    public double getRecordsPerSecond() {
+        return perSecond(this.writtenRecords.sum());
+    }
+
+    /**
+     * Get the bytes written per second, as measured by the write modes that encode the rows for the destination DB.
+     *
+     * @return the byte rate, null if the write mode of the step does not measure the written bytes
+     */
+    public Double getBytesPerSecond() {
+        long bytes = this.writtenBytes.sum();
+        return bytes == 0 ? null : perSecond(bytes);
+    }
+
+    /**
+     * Get the estimated time to the end of the step, at the current throughput.
+     *
+     * @return the estimated seconds to write the remaining source rows, null if the step is ended or no row is written yet
+     */
+    public Long getEtaSeconds() {
+        double recordsPerSecond = getRecordsPerSecond();
+        if (isEnded() || recordsPerSecond == 0) {
+            return null;
+        }
+        return (long) Math.ceil(Math.max(0, this.sourceRecords - getRecords()) / recordsPerSecond);
+    }
+
+    private double perSecond(long count) {
+        long elapsedNanos = (isEnded() ? this.endNanos : System.nanoTime()) - this.startNanos;
+        return elapsedNanos <= 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+}
@@ -0,0 +1,189 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import it.gov.pagopa.nodo.datamigration.exception.migration.InvalidMigrationStatusException;
+import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetSrcRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyDestRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Finds the rows changed on the source table of a step since its last migration, for the incremental migration, the
+ * rerun of the table and the sync. The inserted and updated rows are found by the SCN stored for the table, or by
+ * comparing the tables with a {@link TableDiffer}, and they are upserted by the step as soon as they are found.
+ * The keys of the removed rows are kept to be deleted after the tables that reference them.
+ */
+@Slf4j
+public class TableSynchronizer<T, ID> {
+
+    // Oracle allows at most 1000 expressions in an IN list
+    private static final int KEY_BATCH_SIZE = 1000;
+
+    private final String stepName;
+
+    private final String tableName;
+
+    private final KeysetSrcRepository<T, ID> srcRepo;
+
+    private final InsertOnlyDestRepository<T, ID> destRepo;
+
+    private final FSMSharedState sharedState;
+
+    private final int leafRows;
+
+    private final int fetchSize;
+
+    // keys of the rows removed from the source table, found by the last comparison and not deleted yet
+    private volatile List<ID> removedKeys = List.of();
+
+    /**
+     * Writes the changed rows on the destination table, and saves the SCN up to which the table is synchronized.
+     */
+    public interface ChangedRowsWriter {
+
+        long writeRows(List<Long> keys) throws InvalidMigrationStatusException;
+
+        long writeAllRows() throws MigrationStepException;
+
+        void saveChangeNumber(long changeNumber) throws InvalidMigrationStatusException;
+    }
+
+    public TableSynchronizer(String stepName, String tableName, KeysetSrcRepository<T, ID> srcRepo, InsertOnlyDestRepository<T, ID> destRepo, FSMSharedState sharedState, int leafRows, int fetchSize) {
+        this.stepName = stepName;
+        this.tableName = tableName;
+        this.srcRepo = srcRepo;
+        this.destRepo = destRepo;
+        this.sharedState = sharedState;
+        this.leafRows = leafRows;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Write the rows changed since the SCN stored for the table. The removed rows are found only by comparing the
+     * tables, so the tables are compared on the last round, or without a stored SCN.
+     *
+     * @param lastRound whether the tables must be compared to find the removed rows too
+     * @param changeNumber the SCN stored for the table, null if none
+     * @param writer the writer of the changed rows
+     * @return the number of written rows
+     * @throws MigrationStepException if the rows cannot be written
+     */
+    public long synchronize(boolean lastRound, Long changeNumber, ChangedRowsWriter writer) throws MigrationStepException {
+        if (!lastRound && changeNumber != null) {
+            try {
+                return writeRowsChangedSince(changeNumber, writer);
+            } catch (UnsupportedOperationException e) {
+                log.debug(String.format("The step [%s] cannot find its changed rows by SCN, so its table is compared.", this.stepName));
+            }
+        }
+        return writeChangedRows(changeNumber, writer);
+    }
+
+    /**
+     * Write the rows that differ from the source table, then save the SCN read before comparing the tables: the rows
+     * changed in the meantime are found again by the next comparison.
+     *
+     * @param changeNumber the SCN stored for the table, null if none
+     * @param writer the writer of the changed rows
+     * @return the number of written rows
+     * @throws MigrationStepException if the rows cannot be written
+     */
+    public long writeChangedRows(Long changeNumber, ChangedRowsWriter writer) throws MigrationStepException {
+        Optional<Long> currentChangeNumber = findCurrentChangeNumber();
+        long recordCounter = compareAndWrite(changeNumber, writer);
+        if (currentChangeNumber.isPresent() && canContinue()) {
+            writer.saveChangeNumber(currentChangeNumber.get());
+        }
+        return recordCounter;
+    }
+
+    // without the grant on V$DATABASE no SCN is stored, so the tables are compared row by row as on the first run
+    public Optional<Long> findCurrentChangeNumber() {
+        try {
+            return this.srcRepo.findCurrentChangeNumber();
+        } catch (DataAccessException e) {
+            log.warn(String.format("The step [%s] cannot read the SCN of the source DB, so its changed rows will be found comparing the tables: %s", this.stepName, e.getMessage()));
+            return Optional.empty();
+        }
+    }
+
+    public boolean hasRemovedRows() {
+        return !this.removedKeys.isEmpty();
+    }
+
+    public int deleteRemovedRows() {
+        List<ID> keys = this.removedKeys;
+        for (int from = 0; from < keys.size(); from += KEY_BATCH_SIZE) {
+            this.destRepo.deleteAllByIdInBatch(keys.subList(from, Math.min(from + KEY_BATCH_SIZE, keys.size())));
+        }
+        this.removedKeys = List.of();
+        log.info(String.format("The step [%s] has deleted [%d] rows removed from the source table.", this.stepName, keys.size()));
+        return keys.size();
+    }
+
+    // only the inserted and updated rows are found by ORA_ROWSCN, so no removed row is kept to be deleted
+    private long writeRowsChangedSince(long changeNumber, ChangedRowsWriter writer) throws InvalidMigrationStatusException {
+        Optional<Long> currentChangeNumber = findCurrentChangeNumber();
+        List<Long> changedKeys = this.srcRepo.findKeysChangedSince(changeNumber, this.fetchSize);
+        this.removedKeys = List.of();
+        long recordCounter = writer.writeRows(changedKeys);
+        if (currentChangeNumber.isPresent() && canContinue()) {
+            writer.saveChangeNumber(currentChangeNumber.get());
+        }
+        log.info(String.format("The step [%s] has found [%d] rows changed since the SCN [%d] and written [%d] of them.", this.stepName, changedKeys.size(), changeNumber, recordCounter));
+        return recordCounter;
+    }
+
+    // with a stored SCN the changed rows are read by it, and the tables are compared only by their keys to find the removed rows
+    @SuppressWarnings("unchecked")
+    private long compareAndWrite(Long changeNumber, ChangedRowsWriter writer) throws MigrationStepException {
+        List<Long> removed = new ArrayList<>();
+        long[] recordCounter = new long[1];
+        TableDiff diff;
+        try {
+            if (changeNumber != null) {
+                recordCounter[0] += writer.writeRows(this.srcRepo.findKeysChangedSince(changeNumber, this.fetchSize));
+            }
+            diff = new TableDiffer(this.srcRepo, this.destRepo, this.leafRows, this.fetchSize, changeNumber != null).compare(this.tableName, (range, missingKeys, unexpectedKeys, differentKeys) -> {
+                removed.addAll(unexpectedKeys);
+                List<Long> changedKeys = new ArrayList<>(missingKeys);
+                changedKeys.addAll(differentKeys);
+                recordCounter[0] += writer.writeRows(changedKeys);
+                return canContinue();
+            });
+        } catch (UnsupportedOperationException e) {
+            return writeWholeTableAgain(writer);
+        }
+        // the keys are compared only for the tables with a single numeric key, so they have the same type of the key
+        this.removedKeys = (List<ID>) List.copyOf(removed);
+        log.info(String.format("The step [%s] has compared [%d] key ranges %s and written [%d] changed rows, with [%d] removed rows to delete.",
+                this.stepName, diff.getComparedRanges(), changeNumber != null ? "by key" : "by row", recordCounter[0], removed.size()));
+        return recordCounter[0];
+    }
+
+    // the tables whose key cannot be split in ranges are upserted again as a whole, if their checksums differ
+    private long writeWholeTableAgain(ChangedRowsWriter writer) throws MigrationStepException {
+        this.removedKeys = List.of();
+        if (this.srcRepo.computeChecksum().equals(this.destRepo.computeChecksum())) {
+            return 0;
+        }
+        log.info(String.format("The step [%s] cannot compare its table by key ranges, so all its rows are upserted again.", this.stepName));
+        long recordCounter = writer.writeAllRows();
+        Set<ID> sourceKeys = new HashSet<>(this.srcRepo.findAllKeys());
+        this.removedKeys = this.destRepo.findAllKeys().stream()
+                .filter(key -> !sourceKeys.contains(key))
+                .toList();
+        log.info(String.format("The step [%s] has upserted [%d] rows, with [%d] removed rows to delete.", this.stepName, recordCounter, this.removedKeys.size()));
+        return recordCounter;
+    }
+
+    private boolean canContinue() {
+        return this.sharedState.isInLock() && !this.sharedState.isBlockRequested();
+    }
+}
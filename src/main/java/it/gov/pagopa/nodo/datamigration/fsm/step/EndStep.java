@@ -6,6 +6,7 @@ import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
 import it.gov.pagopa.nodo.datamigration.enumeration.MigrationStepStatus;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
 import it.gov.pagopa.nodo.datamigration.fsm.Step;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
 import it.gov.pagopa.nodo.datamigration.repository.oracle.OracleDBSystemRepository;
 import it.gov.pagopa.nodo.datamigration.repository.postgres.PostgresDBSystemRepository;
 import it.gov.pagopa.nodo.datamigration.util.CommonUtils;
@@ -14,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -26,6 +28,9 @@ public class EndStep extends Step {
     @Autowired
     private PostgresDBSystemRepository postgresSystemRepo;
 
+    @Autowired
+    private List<TableMigrationStep<?, ?>> tableSteps;
+
     @Override
     public void executeStep() {
         // save migration status
@@ -34,8 +39,9 @@ public class EndStep extends Step {
             if (dataMigrationOpt.isPresent()) {
                 // update the state with completed state
                 DataMigration dataMigration = dataMigrationOpt.get();
-                dataMigration.setStatus(this.sharedState.isBlockRequested() ? MigrationStepStatus.BLOCKED.toString() : MigrationStepStatus.COMPLETED.toString());
-                if (!this.sharedState.isBlockRequested()) {
+                boolean isInterrupted = this.sharedState.isBlockRequested() || isPartiallyCompleted(dataMigration.getDetails());
+                dataMigration.setStatus(isInterrupted ? MigrationStepStatus.BLOCKED.toString() : MigrationStepStatus.COMPLETED.toString());
+                if (!isInterrupted) {
                     dataMigration.setLastExecutedStep(StepName.END.toString());
                 }
                 dataMigration.setEnd(CommonUtils.now());
@@ -53,6 +59,13 @@ public class EndStep extends Step {
         this.sharedState.unlock();
     }
 
+    // a run of some tables completes the migration only if the other tables are completed too, otherwise it can be restarted
+    private boolean isPartiallyCompleted(DataMigrationDetails details) {
+        return this.sharedState.getSelectedTableSteps() != null && this.tableSteps.stream()
+                .map(step -> step.getDataMigrationStatus(details))
+                .anyMatch(status -> status == null || !MigrationStepStatus.COMPLETED.toString().equals(status.getStatus()));
+    }
+
     @Override
     public StepName getNextState() {
         return null;
@@ -4,29 +4,30 @@ import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdiInformazioniServizio;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
-import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationErrorOnStepException;
-import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
-import it.gov.pagopa.nodo.datamigration.fsm.Step;
+import it.gov.pagopa.nodo.datamigration.enumeration.WriteMode;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
 import it.gov.pagopa.nodo.datamigration.repository.oracle.CdiInformazioniServizioSrcRepository;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetSrcRepository;
 import it.gov.pagopa.nodo.datamigration.repository.postgres.CdiInformazioniServizioDestRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyDestRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.dao.DataAccessException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Slf4j
 @Service("EXECUTE_CDI_INFORMAZIONI_SERVIZIO_TABLE_MIGRATION")
-public class ExecuteCDIInformazioniServizioTableMigrationStep extends Step {
+public class ExecuteCDIInformazioniServizioTableMigrationStep extends TableMigrationStep<CdiInformazioniServizio, Long> {
 
     @Value("${step.cdi_informazioni_servizio.batch.size}")
     private Integer PAGE_SIZE;
 
+    @Value("${step.cdi_informazioni_servizio.write.mode}")
+    private WriteMode WRITE_MODE;
+
+    @Value("${step.cdi_informazioni_servizio.partitions}")
+    private Integer PARTITIONS;
+
     @Autowired
     CdiInformazioniServizioSrcRepository srcRepo;
 
@@ -34,36 +35,28 @@ public class ExecuteCDIInformazioniServizioTableMigrationStep extends Step {
     CdiInformazioniServizioDestRepository destRepo;
 
     @Override
-    public void executeStep() throws MigrationStepException {
-        try {
-            // starting migration step: update migration status
-            updateDataMigrationStatusOnStart(cfgDataMigrationRepo);
-            checkExecutionBlock(cfgDataMigrationRepo, true);
+    protected KeysetSrcRepository<CdiInformazioniServizio, Long> getSrcRepository() {
+        return srcRepo;
+    }
 
-            // starting migration: read from source DB, then save on destination DB, until end or stop
-            Pageable pageable = PageRequest.of(0, PAGE_SIZE);
-            long recordCounter = 0;
-            do {
-                Page<CdiInformazioniServizio> pagedEntities = srcRepo.findAll(pageable);
-                List<CdiInformazioniServizio> entities = pagedEntities.getContent();
-                recordCounter += entities.size();
-                destRepo.saveAllAndFlush(entities);
-                pageable = pagedEntities.nextPageable();
-            } while(canContinueReadPages(pageable));
+    @Override
+    protected InsertOnlyDestRepository<CdiInformazioniServizio, Long> getDestRepository() {
+        return destRepo;
+    }
 
-            // ending migration step: update migration status
-            updateDataMigrationStatusOnStepEnd(cfgDataMigrationRepo, recordCounter);
-            checkExecutionBlock(cfgDataMigrationRepo, false);
+    @Override
+    protected int getPageSize() {
+        return PAGE_SIZE;
+    }
 
-        } catch (DataAccessException e) {
-            updateDataMigrationStatusOnFailure(cfgDataMigrationRepo);
-            throw new MigrationErrorOnStepException(getStepName(), e);
-        }
+    @Override
+    protected WriteMode getWriteMode() {
+        return WRITE_MODE;
     }
 
     @Override
-    public StepName getNextState() {
-        return StepName.EXECUTE_CDI_PREFERENCES_TABLE_MIGRATION;
+    protected int getPartitions() {
+        return PARTITIONS;
     }
 
     @Override
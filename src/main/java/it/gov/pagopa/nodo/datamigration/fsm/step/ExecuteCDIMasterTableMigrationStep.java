@@ -4,29 +4,35 @@ import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdiMaster;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
-import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationErrorOnStepException;
-import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
-import it.gov.pagopa.nodo.datamigration.fsm.Step;
+import it.gov.pagopa.nodo.datamigration.enumeration.WriteMode;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
 import it.gov.pagopa.nodo.datamigration.repository.oracle.CdiMasterSrcRepository;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetSrcRepository;
 import it.gov.pagopa.nodo.datamigration.repository.postgres.CdiMasterDestRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyDestRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.dao.DataAccessException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 @Slf4j
 @Service("EXECUTE_CDI_MASTER_TABLE_MIGRATION")
-public class ExecuteCDIMasterTableMigrationStep extends Step {
+public class ExecuteCDIMasterTableMigrationStep extends TableMigrationStep<CdiMaster, Long> {
 
     @Value("${step.cdi_master.batch.size}")
     private Integer PAGE_SIZE;
 
+    @Value("${step.cdi_master.write.mode}")
+    private WriteMode WRITE_MODE;
+
+    @Value("${step.cdi_master.partitions}")
+    private Integer PARTITIONS;
+
+    @Value("${step.cdi_master.batch.bytes}")
+    private Long PAGE_BYTES;
+
     @Autowired
     CdiMasterSrcRepository srcRepo;
 
@@ -34,36 +40,38 @@ public class ExecuteCDIMasterTableMigrationStep extends Step {
     CdiMasterDestRepository destRepo;
 
     @Override
-    public void executeStep() throws MigrationStepException {
-        try {
-            // starting migration step: update migration status
-            updateDataMigrationStatusOnStart(cfgDataMigrationRepo);
-            checkExecutionBlock(cfgDataMigrationRepo, true);
-
-            // starting migration: read from source DB, then save on destination DB, until end or stop
-            Pageable pageable = PageRequest.of(0, PAGE_SIZE);
-            long recordCounter = 0;
-            do {
-                Page<CdiMaster> pagedEntities = srcRepo.findAll(pageable);
-                List<CdiMaster> entities = pagedEntities.getContent();
-                recordCounter += entities.size();
-                destRepo.saveAllAndFlush(entities);
-                pageable = pagedEntities.nextPageable();
-            } while(canContinueReadPages(pageable));
-
-            // ending migration step: update migration status
-            updateDataMigrationStatusOnStepEnd(cfgDataMigrationRepo, recordCounter);
-            checkExecutionBlock(cfgDataMigrationRepo, false);
-
-        } catch (DataAccessException e) {
-            updateDataMigrationStatusOnFailure(cfgDataMigrationRepo);
-            throw new MigrationErrorOnStepException(getStepName(), e);
-        }
+    protected KeysetSrcRepository<CdiMaster, Long> getSrcRepository() {
+        return srcRepo;
+    }
+
+    @Override
+    protected InsertOnlyDestRepository<CdiMaster, Long> getDestRepository() {
+        return destRepo;
+    }
+
+    @Override
+    protected int getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    @Override
+    protected WriteMode getWriteMode() {
+        return WRITE_MODE;
+    }
+
+    @Override
+    protected int getPartitions() {
+        return PARTITIONS;
+    }
+
+    @Override
+    protected long getPageBytes() {
+        return PAGE_BYTES;
     }
 
     @Override
-    public StepName getNextState() {
-        return StepName.EXECUTE_CDI_DETAIL_TABLE_MIGRATION;
+    protected List<String> getRowSizeColumns() {
+        return List.of("LOGO_PSP");
     }
 
     @Override
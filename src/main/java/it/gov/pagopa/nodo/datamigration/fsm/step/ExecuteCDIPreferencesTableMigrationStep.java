@@ -4,29 +4,30 @@ import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdiPreference;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
-import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationErrorOnStepException;
-import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
-import it.gov.pagopa.nodo.datamigration.fsm.Step;
+import it.gov.pagopa.nodo.datamigration.enumeration.WriteMode;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
 import it.gov.pagopa.nodo.datamigration.repository.oracle.CdiPreferenceSrcRepository;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetSrcRepository;
 import it.gov.pagopa.nodo.datamigration.repository.postgres.CdiPreferenceDestRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyDestRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.dao.DataAccessException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Slf4j
 @Service("EXECUTE_CDI_PREFERENCES_TABLE_MIGRATION")
-public class ExecuteCDIPreferencesTableMigrationStep extends Step {
+public class ExecuteCDIPreferencesTableMigrationStep extends TableMigrationStep<CdiPreference, Long> {
 
     @Value("${step.cdi_preferences.batch.size}")
     private Integer PAGE_SIZE;
 
+    @Value("${step.cdi_preferences.write.mode}")
+    private WriteMode WRITE_MODE;
+
+    @Value("${step.cdi_preferences.partitions}")
+    private Integer PARTITIONS;
+
     @Autowired
     CdiPreferenceSrcRepository srcRepo;
 
@@ -34,36 +35,28 @@ public class ExecuteCDIPreferencesTableMigrationStep extends Step {
     CdiPreferenceDestRepository destRepo;
 
     @Override
-    public void executeStep() throws MigrationStepException {
-        try {
-            // starting migration step: update migration status
-            updateDataMigrationStatusOnStart(cfgDataMigrationRepo);
-            checkExecutionBlock(cfgDataMigrationRepo, true);
+    protected KeysetSrcRepository<CdiPreference, Long> getSrcRepository() {
+        return srcRepo;
+    }
 
-            // starting migration: read from source DB, then save on destination DB, until end or stop
-            Pageable pageable = PageRequest.of(0, PAGE_SIZE);
-            long recordCounter = 0;
-            do {
-                Page<CdiPreference> pagedEntities = srcRepo.findAll(pageable);
-                List<CdiPreference> entities = pagedEntities.getContent();
-                recordCounter += entities.size();
-                destRepo.saveAllAndFlush(entities);
-                pageable = pagedEntities.nextPageable();
-            } while(canContinueReadPages(pageable));
+    @Override
+    protected InsertOnlyDestRepository<CdiPreference, Long> getDestRepository() {
+        return destRepo;
+    }
 
-            // ending migration step: update migration status
-            updateDataMigrationStatusOnStepEnd(cfgDataMigrationRepo, recordCounter);
-            checkExecutionBlock(cfgDataMigrationRepo, false);
+    @Override
+    protected int getPageSize() {
+        return PAGE_SIZE;
+    }
 
-        } catch (DataAccessException e) {
-            updateDataMigrationStatusOnFailure(cfgDataMigrationRepo);
-            throw new MigrationErrorOnStepException(getStepName(), e);
-        }
+    @Override
+    protected WriteMode getWriteMode() {
+        return WRITE_MODE;
     }
 
     @Override
-    public StepName getNextState() {
-        return StepName.EXECUTE_ELENCO_SERVIZI_TABLE_MIGRATION;
+    protected int getPartitions() {
+        return PARTITIONS;
     }
 
     @Override
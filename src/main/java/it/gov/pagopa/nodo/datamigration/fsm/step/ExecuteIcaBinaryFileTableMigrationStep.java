@@ -5,31 +5,45 @@ import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Iban;
 import it.gov.pagopa.nodo.datamigration.entity.cfg.IcaBinaryFile;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
-import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationErrorOnStepException;
-import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
-import it.gov.pagopa.nodo.datamigration.fsm.Step;
+import it.gov.pagopa.nodo.datamigration.enumeration.WriteMode;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
+import it.gov.pagopa.nodo.datamigration.repository.PayloadDeduplicator;
 import it.gov.pagopa.nodo.datamigration.repository.oracle.IbanSrcRepository;
 import it.gov.pagopa.nodo.datamigration.repository.oracle.IcaBinaryFileSrcRepository;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetSrcRepository;
 import it.gov.pagopa.nodo.datamigration.repository.postgres.IbanDestRepository;
 import it.gov.pagopa.nodo.datamigration.repository.postgres.IcaBinaryFileDestRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyDestRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.dao.DataAccessException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service("EXECUTE_ICA_BINARY_FILE_TABLE_MIGRATION")
-public class ExecuteIcaBinaryFileTableMigrationStep extends Step {
+public class ExecuteIcaBinaryFileTableMigrationStep extends TableMigrationStep<IcaBinaryFile, Long> {
 
     @Value("${step.ica_binary_file.batch.size}")
     private Integer PAGE_SIZE;
 
+    @Value("${step.ica_binary_file.write.mode}")
+    private WriteMode WRITE_MODE;
+
+    @Value("${step.ica_binary_file.partitions}")
+    private Integer PARTITIONS;
+
+    @Value("${step.ica_binary_file.batch.bytes}")
+    private Long PAGE_BYTES;
+
+    @Value("${step.ica_binary_file.dedup.cache.bytes}")
+    private Long DEDUP_CACHE_BYTES;
+
+    @Value("${step.dedup.max.file.bytes}")
+    private Long DEDUP_MAX_FILE_BYTES;
+
     @Autowired
     IcaBinaryFileSrcRepository srcRepo;
 
@@ -37,36 +51,46 @@ public class ExecuteIcaBinaryFileTableMigrationStep extends Step {
     IcaBinaryFileDestRepository destRepo;
 
     @Override
-    public void executeStep() throws MigrationStepException {
-        try {
-            // starting migration step: update migration status
-            updateDataMigrationStatusOnStart(cfgDataMigrationRepo);
-            checkExecutionBlock(cfgDataMigrationRepo, true);
-
-            // starting migration: read from source DB, then save on destination DB, until end or stop
-            Pageable pageable = PageRequest.of(0, PAGE_SIZE);
-            long recordCounter = 0;
-            do {
-                Page<IcaBinaryFile> pagedEntities = srcRepo.findAll(pageable);
-                List<IcaBinaryFile> entities = pagedEntities.getContent();
-                recordCounter += entities.size();
-                destRepo.saveAllAndFlush(entities);
-                pageable = pagedEntities.nextPageable();
-            } while(canContinueReadPages(pageable));
-
-            // ending migration step: update migration status
-            updateDataMigrationStatusOnStepEnd(cfgDataMigrationRepo, recordCounter);
-            checkExecutionBlock(cfgDataMigrationRepo, false);
-
-        } catch (DataAccessException e) {
-            updateDataMigrationStatusOnFailure(cfgDataMigrationRepo);
-            throw new MigrationErrorOnStepException(getStepName(), e);
-        }
+    protected KeysetSrcRepository<IcaBinaryFile, Long> getSrcRepository() {
+        return srcRepo;
     }
 
     @Override
-    public StepName getNextState() {
-        return StepName.EXECUTE_BINARY_FILE_TABLE_MIGRATION;
+    protected InsertOnlyDestRepository<IcaBinaryFile, Long> getDestRepository() {
+        return destRepo;
+    }
+
+    @Override
+    protected int getPageSize() {
+        return PAGE_SIZE;
+    }
+
+    @Override
+    protected WriteMode getWriteMode() {
+        return WRITE_MODE;
+    }
+
+    @Override
+    protected int getPartitions() {
+        return PARTITIONS;
+    }
+
+    @Override
+    protected long getPageBytes() {
+        return PAGE_BYTES;
+    }
+
+    @Override
+    protected List<String> getRowSizeColumns() {
+        return List.of("FILE_SIZE");
+    }
+
+    @Override
+    protected Optional<PayloadDeduplicator> createPayloadDeduplicator() {
+        if (DEDUP_CACHE_BYTES <= 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new PayloadDeduplicator("FILE_CONTENT", "FILE_HASH", "FILE_SIZE", DEDUP_CACHE_BYTES, DEDUP_MAX_FILE_BYTES));
     }
 
     @Override
@@ -4,25 +4,35 @@ import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
 import it.gov.pagopa.nodo.datamigration.enumeration.MigrationStepStatus;
+import it.gov.pagopa.nodo.datamigration.enumeration.ResetMode;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
 import it.gov.pagopa.nodo.datamigration.exception.migration.DatabaseConnectionException;
 import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStatusSavingException;
 import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
 import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationTruncateAllTablesException;
 import it.gov.pagopa.nodo.datamigration.fsm.Step;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
 import it.gov.pagopa.nodo.datamigration.service.HealthCheckService;
 import it.gov.pagopa.nodo.datamigration.util.CommonUtils;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceUnit;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service("START")
@@ -31,11 +41,69 @@ public class StartStep extends Step {
     @PersistenceUnit(unitName="postgresqlUnit")
     private EntityManagerFactory emFactory;
 
+    @PersistenceContext(unitName="postgresqlUnit")
+    private EntityManager destEM;
+
+    @Autowired
+    @Qualifier("postgresqlTransactionManager")
+    private PlatformTransactionManager transactionManager;
+
+    // the tables of the migration, each one after the tables that reference it
+    private static final List<String> TABLES = List.of(
+            "GDE_CONFIG",
+            "PDD",
+            "FTP_SERVERS",
+            "CONFIGURATION_KEYS",
+            "CDS_SOGGETTO_SERVIZIO",
+            "CDS_SERVIZIO",
+            "CDS_SOGGETTO",
+            "CDS_CATEGORIE",
+            "ELENCO_SERVIZI",
+            "CDI_PREFERENCES",
+            "CDI_INFORMAZIONI_SERVIZIO",
+            "CDI_FASCIA_COSTO_SERVIZIO",
+            "CDI_DETAIL",
+            "CDI_MASTER",
+            "DIZIONARIO_METADATI",
+            "PSP_CANALE_TIPO_VERSAMENTO",
+            "CANALE_TIPO_VERSAMENTO",
+            "TIPI_VERSAMENTO",
+            "CANALI",
+            "CANALI_NODO",
+            "WFESP_PLUGIN_CONF",
+            "PSP",
+            "INTERMEDIARI_PSP",
+            "INFORMATIVE_PA_FASCE",
+            "INFORMATIVE_PA_DETAIL",
+            "INFORMATIVE_PA_MASTER",
+            "INFORMATIVE_CONTO_ACCREDITO_DETAIL",
+            "INFORMATIVE_CONTO_ACCREDITO_MASTER",
+            "IBAN_ATTRIBUTES_MASTER",
+            "IBAN_MASTER",
+            "IBAN_ATTRIBUTES",
+            "IBAN",
+            "ICA_BINARY_FILE",
+            "BINARY_FILE",
+            "CODIFICHE_PA",
+            "CODIFICHE",
+            "PA_STAZIONE_PA",
+            "STAZIONI",
+            "PA",
+            "INTERMEDIARI_PA",
+            "QUADRATURE_SCHED"
+    );
+
     @Value("${persistence.postgresql.default_schema}")
     private String schema;
 
+    @Value("${step.start.reset.mode}")
+    private ResetMode resetMode;
+
     @Autowired private HealthCheckService healthCheckService;
 
+    @Autowired
+    private List<TableMigrationStep<?, ?>> tableSteps;
+
     @Override
     public void executeStep() throws MigrationStepException {
         // execute an health check and find if a DB is inaccessible
@@ -51,9 +119,13 @@ public class StartStep extends Step {
         truncateAllTables();
     }
 
+    // any table step hands the run to the scheduler, that owns the order of the tables: the first one is returned, as on table runs
     @Override
     public StepName getNextState() {
-        return StepName.EXECUTE_QUADRATURE_SCHED_TABLE_MIGRATION;
+        return this.tableSteps.stream()
+                .map(step -> StepName.valueOf(step.getStepName()))
+                .min(Comparator.naturalOrder())
+                .orElse(StepName.SYNC);
     }
 
     @Override
@@ -72,6 +144,7 @@ public class StartStep extends Step {
         this.sharedState.lock();
         // save migration status
         try {
+            Optional<DataMigration> lastMigration = this.resetMode == ResetMode.INCREMENTAL ? cfgDataMigrationRepo.findTopByOrderByStartDesc() : Optional.empty();
             String id = UUID.randomUUID().toString();
             this.sharedState.setDataMigrationStateId(id);
             DataMigration dataMigration = DataMigration.builder()
@@ -123,99 +196,43 @@ public class StartStep extends Step {
                             .quadratureSched(new DataMigrationStatus())
                             .build())
                     .build();
+            lastMigration.ifPresent(last -> keepChangeNumbers(last, dataMigration));
             cfgDataMigrationRepo.save(dataMigration);
         } catch (DataAccessException e) {
             throw new MigrationStatusSavingException(e);
         }
     }
 
+    /*
+     * The incremental migration finds the rows changed on each table after the SCN stored by the last migration of the
+     * table: only the SCNs of the tables completed by the last migration are kept, the other tables are compared row by row.
+     */
+    private void keepChangeNumbers(DataMigration lastMigration, DataMigration dataMigration) {
+        for (TableMigrationStep<?, ?> step : this.tableSteps) {
+            DataMigrationStatus lastStatus = step.getDataMigrationStatus(lastMigration.getDetails());
+            if (lastStatus != null && MigrationStepStatus.COMPLETED.toString().equals(lastStatus.getStatus())) {
+                step.getDataMigrationStatus(dataMigration.getDetails()).setChangeNumber(lastStatus.getChangeNumber());
+            }
+        }
+    }
+
     private void truncateAllTables() throws MigrationTruncateAllTablesException {
+        if (this.resetMode == ResetMode.INCREMENTAL) {
+            log.info(" - Keeping all previous data, only the changed rows will be migrated.");
+            return;
+        }
         try {
-            EntityManager em = emFactory.createEntityManager();
-            log.info(" - Starting deleting all data from GDE_CONFIG...");
-            deleteAndFlush(em, "GDE_CONFIG");
-            log.info(" - Deleted all data from GDE_CONFIG. Starting deleting all data from PDD...");
-            deleteAndFlush(em, "PDD");
-            log.info(" - Deleted all data from PDD. Starting deleting all data from FTP_SERVERS...");
-            deleteAndFlush(em, "FTP_SERVERS");
-            log.info(" - Deleted all data from FTP_SERVER. Starting deleting all data from CONFIGURATION_KEYS...");
-            deleteAndFlush(em, "CONFIGURATION_KEYS");
-            log.info(" - Deleted all data from CONFIGURATION_KEYS. Starting deleting all data from CDS_SOGGETTO_SERVIZIO...");
-            deleteAndFlush(em, "CDS_SOGGETTO_SERVIZIO");
-            log.info(" - Deleted all data from CDS_SOGGETTO_SERVIZIO. Starting deleting all data from CDS_SERVIZIO...");
-            deleteAndFlush(em, "CDS_SERVIZIO");
-            log.info(" - Deleted all data from CDS_SERVIZIO. Starting deleting all data from CDS_SOGGETTO...");
-            deleteAndFlush(em, "CDS_SOGGETTO");
-            log.info(" - Deleted all data from CDS_SOGGETTO. Starting deleting all data from CDS_CATEGORIA...");
-            deleteAndFlush(em, "CDS_CATEGORIE");
-            log.info(" - Deleted all data from CDS_CATEGORIE. Starting deleting all data from ELENCO_SERVIZI...");
-            deleteAndFlush(em, "ELENCO_SERVIZI");
-            log.info(" - Deleted all data from ELENCO_SERVIZI. Starting deleting all data from CDI_PREFERENCES...");
-            deleteAndFlush(em, "CDI_PREFERENCES");
-            log.info(" - Deleted all data from CDI_PREFERENCES. Starting deleting all data from CDI_INFORMAZIONI_SERVIZIO...");
-            deleteAndFlush(em, "CDI_INFORMAZIONI_SERVIZIO");
-            log.info(" - Deleted all data from CDI_INFORMAZIONI_SERVIZIO. Starting deleting all data from CDI_FASCIA_COSTO_SERVIZIO...");
-            deleteAndFlush(em, "CDI_FASCIA_COSTO_SERVIZIO");
-            log.info(" - Deleted all data from CDI_FASCIA_COSTO_SERVIZIO. Starting deleting all data from CDI_DETAIL...");
-            deleteAndFlush(em, "CDI_DETAIL");
-            log.info(" - Deleted all data from CDI_DETAIL. Starting deleting all data from CDI_MASTER...");
-            deleteAndFlush(em, "CDI_MASTER");
-            log.info(" - Deleted all data from CDI_MASTER. Starting deleting all data from DIZIONARIO_METADATI...");
-            deleteAndFlush(em, "DIZIONARIO_METADATI");
-            log.info(" - Deleted all data from DIZIONARIO_METADATI. Starting deleting all data from PSP_CANALE_TIPO_VERSAMENTO...");
-            deleteAndFlush(em, "PSP_CANALE_TIPO_VERSAMENTO");
-            log.info(" - Deleted all data from PSP_CANALE_TIPO_VERSAMENTO. Starting deleting all data from CANALE_TIPO_VERSAMENTO...");
-            deleteAndFlush(em, "CANALE_TIPO_VERSAMENTO");
-            log.info(" - Deleted all data from CANALE_TIPO_VERSAMENTO. Starting deleting all data from TIPI_VERSAMENTO...");
-            deleteAndFlush(em, "TIPI_VERSAMENTO");
-            log.info(" - Deleted all data from TIPI_VERSAMENTO. Starting deleting all data from CANALI_REPO...");
-            deleteAndFlush(em, "CANALI");
-            log.info(" - Deleted all data from CANALI_REPO. Starting deleting all data from CANALI_NODO...");
-            deleteAndFlush(em, "CANALI_NODO");
-            log.info(" - Deleted all data from CANALI_NODO. Starting deleting all data from WFESP_PLUGIN_CONF...");
-            deleteAndFlush(em, "WFESP_PLUGIN_CONF");
-            log.info(" - Deleted all data from WFESP_PLUGIN_CONF. Starting deleting all data from PSP...");
-            deleteAndFlush(em, "PSP");
-            log.info(" - Deleted all data from PSP. Starting deleting all data from INTERMEDIARI_PSP...");
-            deleteAndFlush(em, "INTERMEDIARI_PSP");
-            log.info(" - Deleted all data from INTERMEDIARI_PSP. Starting deleting all data from INFORMATIVE_PA_FASCE...");
-            deleteAndFlush(em, "INFORMATIVE_PA_FASCE");
-            log.info(" - Deleted all data from INFORMATIVE_PA_FASCE. Starting deleting all data from INFORMATIVE_PA_DETAIL...");
-            deleteAndFlush(em, "INFORMATIVE_PA_DETAIL");
-            log.info(" - Deleted all data from INFORMATIVE_PA_DETAIL. Starting deleting all data from INFORMATIVE_PA_MASTER...");
-            deleteAndFlush(em, "INFORMATIVE_PA_MASTER");
-            log.info(" - Deleted all data from INFORMATIVE_PA_MASTER. Starting deleting all data from INFORMATIVE_CONTO_ACCREDITO_DETAIL...");
-            deleteAndFlush(em, "INFORMATIVE_CONTO_ACCREDITO_DETAIL");
-            log.info(" - Deleted all data from INFORMATIVE_CONTO_ACCREDITO_DETAIL. Starting deleting all data from INFORMATIVE_CONTO_ACCREDITO_MASTER...");
-            deleteAndFlush(em, "INFORMATIVE_CONTO_ACCREDITO_MASTER");
-            log.info(" - Deleted all data from INFORMATIVE_CONTO_ACCREDITO_MASTER. Starting deleting all data from IBAN_ATTRIBUTES_MASTER...");
-            deleteAndFlush(em, "IBAN_ATTRIBUTES_MASTER");
-            log.info(" - Deleted all data from IBAN_ATTRIBUTES_MASTER. Starting deleting all data from IBAN_MASTER...");
-            deleteAndFlush(em, "IBAN_MASTER");
-            log.info(" - Deleted all data from IBAN_MASTER. Starting deleting all data from IBAN_ATTRIBUTES...");
-            deleteAndFlush(em, "IBAN_ATTRIBUTES");
-            log.info(" - Deleted all data from IBAN_ATTRIBUTES. Starting deleting all data from IBAN...");
-            deleteAndFlush(em, "IBAN");
-            log.info(" - Deleted all data from IBAN. Starting deleting all data from ICA_BINARY_FILE...");
-            deleteAndFlush(em, "ICA_BINARY_FILE");
-            log.info(" - Deleted all data from ICA_BINARY_FILE. Starting deleting all data from BINARY_FILE...");
-            deleteAndFlush(em, "BINARY_FILE");
-            log.info(" - Deleted all data from BINARY_FILE.");
-            log.info(" - Starting deleting all data from CODIFICHE_PA...");
-            deleteAndFlush(em, "CODIFICHE_PA");
-            log.info(" - Deleted all data from CODIFICHE_PA. Starting deleting all data from CODIFICHE...");
-            deleteAndFlush(em, "CODIFICHE");
-            log.info(" - Deleted all data from CODIFICHE. Starting deleting all data from PA_STAZIONE_PA...");
-            deleteAndFlush(em, "PA_STAZIONE_PA");
-            log.info(" - Deleted all data from PA_STAZIONE_PA. Starting deleting all data from STAZIONI...");
-            deleteAndFlush(em, "STAZIONI");
-            log.info(" - Deleted all data from STAZIONI. Starting deleting all data from PA...");
-            deleteAndFlush(em, "PA");
-            log.info(" - Deleted all data from PA. Starting deleting all data from INTERMEDIARI_PA...");
-            deleteAndFlush(em, "INTERMEDIARI_PA");
-            log.info(" - Deleted all data from INTERMEDIARI_PA. Starting deleting all data from QUADRATURE_SCHED...");
-            deleteAndFlush(em, "QUADRATURE_SCHED");
-            log.info(" - Deleted all data from QUADRATURE_SCHED. Ended deleting all previous data!.");
+            if (this.resetMode == ResetMode.TRUNCATE) {
+                log.info(" - Starting truncating all tables...");
+                truncate(TABLES);
+            } else {
+                EntityManager em = emFactory.createEntityManager();
+                for (String table : TABLES) {
+                    log.info(String.format(" - Starting deleting all data from %s...", table));
+                    deleteAndFlush(em, table);
+                    log.info(String.format(" - Deleted all data from %s.", table));
+                }
+            }
             log.info(" - Ended deleting all previous data!.");
         } catch (DataAccessException e) {
             throw new MigrationTruncateAllTablesException(e);
@@ -231,4 +248,17 @@ public class StartStep extends Step {
         destEM.clear();
         destEM.getTransaction().commit();
     }
+
+    /*
+     * A single TRUNCATE of all the tables does not need to follow the foreign keys and, unlike the DELETEs, does not
+     * scan the tables nor leave dead tuples to be vacuumed. No CASCADE is needed, because all the referencing tables
+     * are in the same statement. The sequences owned by the columns are restarted too, so the tables are left as just
+     * created. The statement is executed in a transaction of the PostgreSQL transaction manager, that is begun here
+     * because the annotations are not applied to the methods called by the step itself.
+     */
+    private void truncate(List<String> tables) {
+        new TransactionTemplate(this.transactionManager).executeWithoutResult(status ->
+                this.destEM.createNativeQuery(String.format("TRUNCATE TABLE %s RESTART IDENTITY", tables.stream().map(table -> schema + "." + table).collect(Collectors.joining(", "))))
+                        .executeUpdate());
+    }
 }
@@ -0,0 +1,152 @@
+package it.gov.pagopa.nodo.datamigration.fsm.step;
+
+import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
+import it.gov.pagopa.nodo.datamigration.exception.migration.InvalidMigrationStatusException;
+import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationErrorOnStepException;
+import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationInterruptedStepException;
+import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
+import it.gov.pagopa.nodo.datamigration.fsm.Step;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
+import it.gov.pagopa.nodo.datamigration.util.CommonUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service("SYNC")
+public class SyncStep extends Step {
+
+    private static final long FINALIZE_POLL_TIMEOUT_MS = 1000;
+
+    @Autowired
+    private List<TableMigrationStep<?, ?>> tableSteps;
+
+    @Value("${step.sync.enabled}")
+    private boolean enabled;
+
+    @Value("${step.sync.interval.ms}")
+    private long intervalMs;
+
+    /*
+     * After the bulk load the tables are kept aligned with the source ones, while the source system is still running:
+     * each round writes the rows of all the tables, or of the ones run by the table API, inserted or updated since the
+     * SCN stored for each table, without comparing the tables. The rounds go on until the finalize API is called, then
+     * a last round compares the tables by key ranges, as the incremental migration does, to write the final delta and
+     * to find the removed rows too: it is the only one run while the source system is frozen. A stop request
+     * interrupts the sync after the current table.
+     */
+    @Override
+    public void executeStep() throws MigrationStepException {
+        if (!this.enabled) {
+            log.info("The sync of the migrated tables is disabled.");
+            return;
+        }
+        List<TableMigrationStep<?, ?>> steps = this.tableSteps.stream()
+                .filter(step -> this.sharedState.isTableStepSelected(step.getStepName()))
+                .sorted(Comparator.comparing(step -> StepName.valueOf(step.getStepName())))
+                .toList();
+        int rounds = 0;
+        while (true) {
+            // the round started after the finalize request reads the frozen source tables, so it is the last one
+            boolean lastRound = this.sharedState.isFinalizeRequested();
+            synchronizeTables(steps, lastRound);
+            rounds++;
+            if (lastRound) {
+                break;
+            }
+            awaitNextRound();
+        }
+        log.info(String.format("The sync of the migrated tables is finalized after [%d] rounds.", rounds));
+    }
+
+    /*
+     * The changed rows are written following the order of the step names, from the referenced tables to the referencing
+     * ones, and the removed rows are deleted in the reverse order, as the table steps do.
+     */
+    private void synchronizeTables(List<TableMigrationStep<?, ?>> steps, boolean lastRound) throws MigrationStepException {
+        // the changes are tracked by the SCN of each table, the start of the round is kept only to be shown
+        Timestamp roundStart = CommonUtils.now();
+        Map<TableMigrationStep<?, ?>, Long> writtenRecords = new LinkedHashMap<>();
+        try {
+            for (TableMigrationStep<?, ?> step : steps) {
+                if (this.sharedState.isBlockRequested()) {
+                    throw new MigrationInterruptedStepException();
+                }
+                step.attachSharedState(this.sharedState, cfgDataMigrationRepo);
+                writtenRecords.put(step, step.synchronize(lastRound));
+            }
+            List<TableMigrationStep<?, ?>> reversed = new ArrayList<>(steps);
+            Collections.reverse(reversed);
+            for (TableMigrationStep<?, ?> step : reversed) {
+                if (step.hasRemovedRows()) {
+                    step.deleteRemovedRows();
+                }
+            }
+        } catch (DataAccessException e) {
+            throw new MigrationErrorOnStepException(getStepName(), e);
+        }
+        updateDataMigrationSync(writtenRecords, roundStart);
+        log.info(String.format("The sync round started at [%s] has written [%d] changed rows.", roundStart, writtenRecords.values().stream().mapToLong(Long::longValue).sum()));
+    }
+
+    private void awaitNextRound() throws MigrationInterruptedStepException {
+        long deadline = System.currentTimeMillis() + this.intervalMs;
+        while (!this.sharedState.isFinalizeRequested()) {
+            if (this.sharedState.isBlockRequested()) {
+                throw new MigrationInterruptedStepException();
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(Math.min(remaining, FINALIZE_POLL_TIMEOUT_MS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MigrationInterruptedStepException();
+            }
+        }
+    }
+
+    private void updateDataMigrationSync(Map<TableMigrationStep<?, ?>, Long> writtenRecords, Timestamp roundStart) throws InvalidMigrationStatusException {
+        synchronized (this.sharedState) {
+            DataMigration dataMigration = cfgDataMigrationRepo.findById(this.sharedState.getDataMigrationStateId()).orElseThrow(InvalidMigrationStatusException::new);
+            writtenRecords.forEach((step, records) -> {
+                DataMigrationStatus migrationStatus = step.getDataMigrationStatus(dataMigration.getDetails());
+                if (migrationStatus != null) {
+                    migrationStatus.setSyncWatermark(roundStart);
+                    migrationStatus.setSyncedRecords((migrationStatus.getSyncedRecords() != null ? migrationStatus.getSyncedRecords() : 0) + records);
+                }
+            });
+            cfgDataMigrationRepo.saveAndFlush(dataMigration);
+        }
+    }
+
+    @Override
+    public StepName getNextState() {
+        return StepName.VERIFY;
+    }
+
+    @Override
+    public String getStepName() {
+        return StepName.SYNC.toString();
+    }
+
+    @Override
+    public DataMigrationStatus getDataMigrationStatus(DataMigrationDetails details) {
+        return null;
+    }
+}
@@ -0,0 +1,155 @@
+package it.gov.pagopa.nodo.datamigration.fsm.step;
+
+import io.opentelemetry.context.Context;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationVerification;
+import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
+import it.gov.pagopa.nodo.datamigration.enumeration.VerificationStatus;
+import it.gov.pagopa.nodo.datamigration.exception.migration.InvalidMigrationStatusException;
+import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationInterruptedStepException;
+import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
+import it.gov.pagopa.nodo.datamigration.fsm.Step;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
+import it.gov.pagopa.nodo.datamigration.repository.TableChecksum;
+import it.gov.pagopa.nodo.datamigration.util.CommonUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service("VERIFY")
+public class VerifyStep extends Step {
+
+    private static final long CHECKSUM_POLL_TIMEOUT_MS = 1000;
+
+    @Autowired
+    private List<TableMigrationStep<?, ?>> tableSteps;
+
+    @Value("${step.verify.enabled}")
+    private boolean enabled;
+
+    @Value("${step.verify.parallelism}")
+    private int parallelism;
+
+    /*
+     * The checksums of the source and of the destination rows of a table are computed at the same time, each one by a
+     * single aggregate query on its DB, so only the row count and the sum of the row hashes are read, and the tables
+     * are verified in parallel. A table whose rows do not match is recorded as such, but the migration is completed
+     * anyway: its rows are already written, and a new run would migrate the same rows again. A stop request interrupts
+     * the verification of the tables not yet verified. When only some tables are run by the table API, only those
+     * tables are verified.
+     */
+    @Override
+    public void executeStep() throws MigrationStepException {
+        if (!this.enabled) {
+            log.info("The verification of the migrated tables is disabled.");
+            return;
+        }
+        List<TableMigrationStep<?, ?>> steps = this.tableSteps.stream()
+                .filter(step -> this.sharedState.isTableStepSelected(step.getStepName()))
+                .sorted(Comparator.comparing(step -> StepName.valueOf(step.getStepName())))
+                .toList();
+        AtomicInteger threadCounter = new AtomicInteger();
+        // the checksums are computed in the trace context of the step
+        ExecutorService executor = Context.taskWrapping(Executors.newFixedThreadPool(2 * Math.max(1, this.parallelism), runnable -> new Thread(runnable, "verify-" + threadCounter.incrementAndGet())));
+        try {
+            List<Future<TableChecksum>> sourceChecksums = new ArrayList<>();
+            List<Future<TableChecksum>> destinationChecksums = new ArrayList<>();
+            for (TableMigrationStep<?, ?> step : steps) {
+                sourceChecksums.add(executor.submit(() -> step.computeSourceChecksum()));
+                destinationChecksums.add(executor.submit(() -> step.computeDestinationChecksum()));
+            }
+            int mismatching = 0;
+            for (int i = 0; i < steps.size(); i++) {
+                TableMigrationStep<?, ?> step = steps.get(i);
+                DataMigrationVerification verification = verify(step, sourceChecksums.get(i), destinationChecksums.get(i));
+                if (!VerificationStatus.MATCHING.toString().equals(verification.getStatus())) {
+                    mismatching++;
+                }
+                updateDataMigrationVerification(step, verification);
+            }
+            if (mismatching > 0) {
+                log.warn(String.format("The rows of [%d] tables do not match between source and destination DB: see the verification of each table in the migration status.", mismatching));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private DataMigrationVerification verify(TableMigrationStep<?, ?> step, Future<TableChecksum> sourceChecksum, Future<TableChecksum> destinationChecksum) throws MigrationInterruptedStepException {
+        DataMigrationVerification verification = DataMigrationVerification.builder().build();
+        try {
+            TableChecksum source = awaitChecksum(sourceChecksum);
+            TableChecksum destination = awaitChecksum(destinationChecksum);
+            verification.setSourceRecords(source.getRecords());
+            verification.setSourceHash(source.getHashHex());
+            verification.setDestinationRecords(destination.getRecords());
+            verification.setDestinationHash(destination.getHashHex());
+            verification.setStatus(source.equals(destination) ? VerificationStatus.MATCHING.toString() : VerificationStatus.MISMATCHING.toString());
+            log.info(String.format("The table [%s] is verified: source %s, destination %s.", step.getTableName(), source, destination));
+        } catch (ExecutionException e) {
+            log.error(String.format("Error while computing the checksum of the table [%s].", step.getTableName()), e.getCause());
+            verification.setStatus(VerificationStatus.FAILED.toString());
+        }
+        verification.setEnd(CommonUtils.now());
+        return verification;
+    }
+
+    private TableChecksum awaitChecksum(Future<TableChecksum> checksum) throws ExecutionException, MigrationInterruptedStepException {
+        try {
+            while (true) {
+                if (this.sharedState.isBlockRequested()) {
+                    throw new MigrationInterruptedStepException();
+                }
+                try {
+                    return checksum.get(CHECKSUM_POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    // still computing: check the stop request again
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MigrationInterruptedStepException();
+        }
+    }
+
+    private void updateDataMigrationVerification(TableMigrationStep<?, ?> step, DataMigrationVerification verification) throws InvalidMigrationStatusException {
+        synchronized (this.sharedState) {
+            DataMigration dataMigration = cfgDataMigrationRepo.findById(this.sharedState.getDataMigrationStateId()).orElseThrow(InvalidMigrationStatusException::new);
+            DataMigrationStatus migrationStatus = step.getDataMigrationStatus(dataMigration.getDetails());
+            if (migrationStatus != null) {
+                migrationStatus.setVerification(verification);
+                cfgDataMigrationRepo.saveAndFlush(dataMigration);
+            }
+        }
+    }
+
+    @Override
+    public StepName getNextState() {
+        return StepName.END;
+    }
+
+    @Override
+    public String getStepName() {
+        return StepName.VERIFY.toString();
+    }
+
+    @Override
+    public DataMigrationStatus getDataMigrationStatus(DataMigrationDetails details) {
+        return null;
+    }
+}
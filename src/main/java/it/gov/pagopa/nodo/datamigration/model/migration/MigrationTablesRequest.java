@@ -0,0 +1,20 @@
+package it.gov.pagopa.nodo.datamigration.model.migration;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class MigrationTablesRequest implements Serializable {
+
+    @JsonProperty("tables")
+    private List<String> tables;
+}
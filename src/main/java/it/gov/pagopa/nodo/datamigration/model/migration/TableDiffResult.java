@@ -0,0 +1,46 @@
+package it.gov.pagopa.nodo.datamigration.model.migration;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TableDiffResult implements Serializable {
+
+    @JsonProperty("table")
+    private String table;
+
+    @JsonProperty("matching")
+    private Boolean matching;
+
+    @JsonProperty("source_records")
+    private Long sourceRecords;
+
+    @JsonProperty("destination_records")
+    private Long destinationRecords;
+
+    @JsonProperty("compared_ranges")
+    private Integer comparedRanges;
+
+    @JsonProperty("missing_keys")
+    private List<Long> missingKeys;
+
+    @JsonProperty("unexpected_keys")
+    private List<Long> unexpectedKeys;
+
+    @JsonProperty("different_keys")
+    private List<Long> differentKeys;
+
+    @JsonProperty("truncated")
+    private Boolean truncated;
+}
@@ -27,4 +27,31 @@ public class TableMigrationStatus implements Serializable {
 
     @JsonProperty("records")
     private Long records;
+
+    @JsonProperty("source_records")
+    private Long sourceRecords;
+
+    @JsonProperty("page_size")
+    private Integer pageSize;
+
+    @JsonProperty("records_per_second")
+    private Long recordsPerSecond;
+
+    @JsonProperty("bytes_per_second")
+    private Long bytesPerSecond;
+
+    @JsonProperty("eta_seconds")
+    private Long etaSeconds;
+
+    @JsonProperty("change_number")
+    private Long changeNumber;
+
+    @JsonProperty("sync_watermark")
+    private String syncWatermark;
+
+    @JsonProperty("synced_records")
+    private Long syncedRecords;
+
+    @JsonProperty("verification")
+    private TableVerificationStatus verification;
 }
@@ -0,0 +1,36 @@
+package it.gov.pagopa.nodo.datamigration.model.migration;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TableVerificationStatus implements Serializable {
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("end")
+    private String end;
+
+    @JsonProperty("source_records")
+    private Long sourceRecords;
+
+    @JsonProperty("destination_records")
+    private Long destinationRecords;
+
+    @JsonProperty("source_hash")
+    private String sourceHash;
+
+    @JsonProperty("destination_hash")
+    private String destinationHash;
+}
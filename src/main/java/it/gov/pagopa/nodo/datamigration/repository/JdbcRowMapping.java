@@ -0,0 +1,470 @@
+package it.gov.pagopa.nodo.datamigration.repository;
+
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.metamodel.mapping.SelectableMapping;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The columns of a table and the typed JDBC accessors of their values, taken once from the Hibernate mapping model
+ * of its entity. The rows are read from a {@link ResultSet} and bound to a {@link PreparedStatement} as plain column
+ * values, so no entity is created. The converted attributes (i.e. Y/N booleans) are copied as they are stored, and the
+ * associations as the values of their foreign keys.
+ * The key columns come first, so the value of a single key is the first one of each row, and the ones of a composite
+ * key are the first ones.
+ */
+public class JdbcRowMapping {
+
+    private static final Set<ColumnAccessor> NUMERIC_ACCESSORS = EnumSet.of(ColumnAccessor.LONG, ColumnAccessor.INTEGER, ColumnAccessor.DECIMAL, ColumnAccessor.DOUBLE);
+
+    private final String tableName;
+
+    private final List<String> columns = new ArrayList<>();
+
+    private final List<ColumnAccessor> accessors = new ArrayList<>();
+
+    private final int keyColumnCount;
+
+    public JdbcRowMapping(AbstractEntityPersister persister) {
+        this.tableName = persister.getTableName();
+        persister.getIdentifierMapping().forEachSelectable((index, selectable) -> addColumn(selectable));
+        this.keyColumnCount = this.columns.size();
+        // collections are mapped on other tables and non-insertable attributes are not written by Hibernate too
+        boolean[] insertability = persister.getPropertyInsertability();
+        for (AttributeMapping attributeMapping : persister.getAttributeMappings()) {
+            if (!(attributeMapping instanceof PluralAttributeMapping) && insertability[attributeMapping.getStateArrayPosition()]) {
+                attributeMapping.forEachSelectable((index, selectable) -> addColumn(selectable));
+            }
+        }
+    }
+
+    private void addColumn(SelectableMapping selectable) {
+        this.columns.add(selectable.getSelectionExpression());
+        this.accessors.add(ColumnAccessor.of(selectable.getJdbcMapping().getJdbcType().getJdbcTypeCode()));
+    }
+
+    public String getTableName() {
+        return this.tableName;
+    }
+
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(this.columns);
+    }
+
+    public String getKeyColumn() {
+        return this.columns.get(0);
+    }
+
+    /**
+     * Build the query of the rows that satisfy the passed condition, in key order.
+     *
+     * @param condition the condition of the WHERE clause, with its JDBC parameters
+     * @return the SELECT statement
+     */
+    public String getSelectStatement(String condition) {
+        return String.format("SELECT %s FROM %s WHERE %s ORDER BY %s", String.join(", ", this.columns), this.tableName, condition, getKeyColumn());
+    }
+
+    /**
+     * Build the query of the row count and of the sum of the row hashes of the table, computed by the DB itself, so
+     * only one row is read whatever the size of the table. The result is read by {@link TableChecksum#of(ResultSet)}.
+     *
+     * @param dialect the functions of the DB that compute the row hashes
+     * @return the SELECT statement
+     */
+    public String getChecksumStatement(RowHashDialect dialect) {
+        return String.format("SELECT COUNT(*), SUM(%s) FROM %s", getRowHash(dialect, this.columns.size()), this.tableName);
+    }
+
+    /**
+     * Build the query of the row count and of the sum of the row hashes of the rows that satisfy the passed condition.
+     *
+     * @param dialect the functions of the DB that compute the row hashes
+     * @param condition the condition of the WHERE clause, with its JDBC parameters
+     * @return the SELECT statement
+     */
+    public String getChecksumStatement(RowHashDialect dialect, String condition) {
+        return String.format("%s WHERE %s", getChecksumStatement(dialect), condition);
+    }
+
+    /**
+     * Build the query of the key and of the hash of each row that satisfies the passed condition, in no particular
+     * order, with the same hashes summed by {@link #getChecksumStatement(RowHashDialect)}. The result is read by
+     * {@link TableChecksum#rowHashesOf(ResultSet)}.
+     *
+     * @param dialect the functions of the DB that compute the row hashes
+     * @param condition the condition of the WHERE clause, with its JDBC parameters
+     * @return the SELECT statement, whose rows are made of the key and of the hash
+     */
+    public String getRowHashStatement(RowHashDialect dialect, String condition) {
+        return String.format("SELECT %s, %s FROM %s WHERE %s", getKeyColumn(), getRowHash(dialect, this.columns.size()), this.tableName, condition);
+    }
+
+    /**
+     * Build the query of the row count and of the sum of the key hashes of the rows that satisfy the passed condition,
+     * as {@link #getChecksumStatement(RowHashDialect, String)} does with the whole rows: only the key column is read,
+     * so the DB can compute it on the primary key index, without reading the rows.
+     *
+     * @param dialect the functions of the DB that compute the key hashes
+     * @param condition the condition of the WHERE clause, with its JDBC parameters
+     * @return the SELECT statement
+     */
+    public String getKeyChecksumStatement(RowHashDialect dialect, String condition) {
+        return String.format("SELECT COUNT(*), SUM(%s) FROM %s WHERE %s", getRowHash(dialect, 1), this.tableName, condition);
+    }
+
+    /**
+     * Build the query of the key and of the key hash of each row that satisfies the passed condition, with the same
+     * hashes summed by {@link #getKeyChecksumStatement(RowHashDialect, String)}.
+     *
+     * @param dialect the functions of the DB that compute the key hashes
+     * @param condition the condition of the WHERE clause, with its JDBC parameters
+     * @return the SELECT statement, whose rows are made of the key and of its hash
+     */
+    public String getKeyHashStatement(RowHashDialect dialect, String condition) {
+        return String.format("SELECT %s, %s FROM %s WHERE %s", getKeyColumn(), getRowHash(dialect, 1), this.tableName, condition);
+    }
+
+    /**
+     * Build the query of the keys of the rows that satisfy the passed condition, in key order.
+     *
+     * @param condition the condition of the WHERE clause, with its JDBC parameters
+     * @return the SELECT statement, whose rows are made of the key only
+     */
+    public String getKeyStatement(String condition) {
+        return String.format("SELECT %s FROM %s WHERE %s ORDER BY %s", getKeyColumn(), this.tableName, condition, getKeyColumn());
+    }
+
+    /**
+     * Build the query of the keys and of the sizes of the rows that satisfy the passed condition, in key order, without
+     * reading the values of the LOB columns. The size of a row is the sum of the passed columns: the numeric ones are
+     * taken as byte counts (i.e. the size of a file stored beside it), the other ones are measured with the passed function.
+     *
+     * @param condition the condition of the WHERE clause, with its JDBC parameters
+     * @param sizeColumns the columns that make up the size of a row
+     * @param lengthFunction the function of the DB that returns the length of a LOB value
+     * @return the SELECT statement, whose rows are made of the key and of the size
+     */
+    public String getSizeStatement(String condition, List<String> sizeColumns, String lengthFunction) {
+        String rowSize = sizeColumns.stream()
+                .map(column -> isNumeric(column) ? column : String.format("%s(%s)", lengthFunction, column))
+                .map(size -> String.format("COALESCE(%s, 0)", size))
+                .collect(Collectors.joining(" + "));
+        return String.format("SELECT %s, %s FROM %s WHERE %s ORDER BY %s", getKeyColumn(), rowSize, this.tableName, condition, getKeyColumn());
+    }
+
+    public String getInsertStatement() {
+        return String.format("INSERT INTO %s (%s) VALUES (%s)", this.tableName, String.join(", ", this.columns), String.join(", ", Collections.nCopies(this.columns.size(), "?")));
+    }
+
+    /**
+     * Build the PostgreSQL statement that inserts a row or, if a row with the same key exists, updates all its other
+     * columns, so it can be executed any number of times with the same result. The rows made only of key columns are
+     * left as they are.
+     *
+     * @return the <code>INSERT ... ON CONFLICT</code> statement, with the values in the order of {@link #getColumns()}
+     */
+    public String getUpsertStatement() {
+        List<String> valueColumns = this.columns.subList(this.keyColumnCount, this.columns.size());
+        String action = valueColumns.isEmpty() ? "NOTHING" : valueColumns.stream()
+                .map(column -> String.format("%s = EXCLUDED.%s", column, column))
+                .collect(Collectors.joining(", ", "UPDATE SET ", ""));
+        return String.format("%s ON CONFLICT (%s) DO %s", getInsertStatement(), String.join(", ", this.columns.subList(0, this.keyColumnCount)), action);
+    }
+
+    public Object[] readRow(ResultSet resultSet) throws SQLException {
+        Object[] row = new Object[this.accessors.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = this.accessors.get(i).read(resultSet, i + 1);
+        }
+        return row;
+    }
+
+    /**
+     * Read a value of the current row of the passed result set, as {@link #readRow(ResultSet)} does, but with the LOB
+     * values as streams: an {@link InputStream} for the binary values and a {@link Reader} for the character LOBs.
+     * The streams read the LOBs of the source DB while they are consumed, so they are valid only on the current row.
+     *
+     * @param resultSet the result set of a statement built by this mapping, on the row to read
+     * @param index the index of the column, in the order of {@link #getColumns()}
+     * @return the value of the column, or its stream
+     */
+    public Object readStreamedValue(ResultSet resultSet, int index) throws SQLException {
+        return this.accessors.get(index).readStream(resultSet, index + 1);
+    }
+
+    public void bindRow(PreparedStatement statement, Object[] row) throws SQLException {
+        for (int i = 0; i < row.length; i++) {
+            this.accessors.get(i).bind(statement, i + 1, row[i]);
+        }
+    }
+
+    /*
+     * The values are separated by a character that no rendered value contains, and the null values are rendered with a
+     * marker that no other value has, so the values of a row cannot shift into each other. Only the first columns are
+     * hashed, so the hash of the single key column is computed by the same functions.
+     */
+    private String getRowHash(RowHashDialect dialect, int columnCount) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < columnCount; i++) {
+            String column = this.columns.get(i);
+            values.add(String.format("CASE WHEN %s IS NULL THEN 'n' ELSE %s END", column, this.accessors.get(i).render(dialect, column)));
+        }
+        return dialect.rowHash(values);
+    }
+
+    private boolean isNumeric(String column) {
+        int index = this.columns.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException(String.format("The column [%s] is not mapped on the table [%s].", column, this.tableName));
+        }
+        return NUMERIC_ACCESSORS.contains(this.accessors.get(index));
+    }
+
+    /*
+     * The JDBC types are the ones chosen by the dialect of each DB for the same attribute, so on both sides a value is
+     * read and bound with the accessor of the same Java type, without converting it.
+     */
+    private enum ColumnAccessor {
+        LONG(Types.BIGINT) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                long value = resultSet.getLong(index);
+                return resultSet.wasNull() ? null : value;
+            }
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setLong(index, ((Number) value).longValue());
+            }
+            @Override
+            String render(RowHashDialect dialect, String column) {
+                return dialect.integerText(column);
+            }
+        },
+        INTEGER(Types.INTEGER) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                int value = resultSet.getInt(index);
+                return resultSet.wasNull() ? null : value;
+            }
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setInt(index, ((Number) value).intValue());
+            }
+            @Override
+            String render(RowHashDialect dialect, String column) {
+                return dialect.integerText(column);
+            }
+        },
+        DECIMAL(Types.NUMERIC) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                return resultSet.getBigDecimal(index);
+            }
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setBigDecimal(index, (BigDecimal) value);
+            }
+            @Override
+            String render(RowHashDialect dialect, String column) {
+                return dialect.decimalText(column);
+            }
+        },
+        DOUBLE(Types.DOUBLE) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                double value = resultSet.getDouble(index);
+                return resultSet.wasNull() ? null : value;
+            }
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setDouble(index, ((Number) value).doubleValue());
+            }
+            @Override
+            String render(RowHashDialect dialect, String column) {
+                return dialect.decimalText(column);
+            }
+        },
+        BOOLEAN(Types.BOOLEAN) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                boolean value = resultSet.getBoolean(index);
+                return resultSet.wasNull() ? null : value;
+            }
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setBoolean(index, (Boolean) value);
+            }
+            @Override
+            String render(RowHashDialect dialect, String column) {
+                return dialect.booleanText(column);
+            }
+        },
+        STRING(Types.VARCHAR) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                return resultSet.getString(index);
+            }
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setString(index, (String) value);
+            }
+            @Override
+            String render(RowHashDialect dialect, String column) {
+                return dialect.hash(column);
+            }
+        },
+        CLOB(Types.CLOB) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                return resultSet.getString(index);
+            }
+            @Override
+            Object readStream(ResultSet resultSet, int index) throws SQLException {
+                return resultSet.getCharacterStream(index);
+            }
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setString(index, (String) value);
+            }
+            @Override
+            String render(RowHashDialect dialect, String column) {
+                return dialect.hashLob(column);
+            }
+        },
+        BYTES(Types.BINARY) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                return resultSet.getBytes(index);
+            }
+            @Override
+            Object readStream(ResultSet resultSet, int index) throws SQLException {
+                return resultSet.getBinaryStream(index);
+            }
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setBytes(index, (byte[]) value);
+            }
+            @Override
+            String render(RowHashDialect dialect, String column) {
+                return dialect.hashLob(column);
+            }
+        },
+        TIMESTAMP(Types.TIMESTAMP) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                return resultSet.getTimestamp(index);
+            }
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setTimestamp(index, (Timestamp) value);
+            }
+            @Override
+            String render(RowHashDialect dialect, String column) {
+                return dialect.timestampText(column);
+            }
+        },
+        TIME(Types.TIME) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                return resultSet.getTime(index);
+            }
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setTime(index, (Time) value);
+            }
+            @Override
+            String render(RowHashDialect dialect, String column) {
+                return dialect.timeText(column);
+            }
+        },
+        OFFSET_DATE_TIME(Types.TIMESTAMP_WITH_TIMEZONE) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                return resultSet.getObject(index, OffsetDateTime.class);
+            }
+            // the values broken down from the entities keep their zone, that the driver cannot bind
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setObject(index, value instanceof ZonedDateTime dateTime ? dateTime.toOffsetDateTime() : value);
+            }
+            @Override
+            String render(RowHashDialect dialect, String column) {
+                return dialect.offsetDateTimeText(column);
+            }
+        },
+        OBJECT(Types.OTHER) {
+            @Override
+            Object read(ResultSet resultSet, int index) throws SQLException {
+                return resultSet.getObject(index);
+            }
+            @Override
+            void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+                statement.setObject(index, value);
+            }
+        };
+
+        private final int nullType;
+
+        ColumnAccessor(int nullType) {
+            this.nullType = nullType;
+        }
+
+        abstract Object read(ResultSet resultSet, int index) throws SQLException;
+
+        // only the LOB values are read as streams, the other ones are small enough to be read as they are
+        Object readStream(ResultSet resultSet, int index) throws SQLException {
+            return read(resultSet, index);
+        }
+
+        abstract void bindValue(PreparedStatement statement, int index, Object value) throws SQLException;
+
+        // the values of the other types are hashed as the text rendered by the DB, that may differ between the DBs
+        String render(RowHashDialect dialect, String column) {
+            return dialect.hash(dialect.text(column));
+        }
+
+        void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+            if (value == null) {
+                statement.setNull(index, this.nullType);
+            } else {
+                bindValue(statement, index, value);
+            }
+        }
+
+        static ColumnAccessor of(int jdbcTypeCode) {
+            return switch (jdbcTypeCode) {
+                case Types.BIGINT -> LONG;
+                case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> INTEGER;
+                case Types.NUMERIC, Types.DECIMAL -> DECIMAL;
+                case Types.DOUBLE, Types.FLOAT, Types.REAL -> DOUBLE;
+                case Types.BOOLEAN, Types.BIT -> BOOLEAN;
+                case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR -> STRING;
+                case Types.CLOB, Types.NCLOB -> CLOB;
+                case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> BYTES;
+                case Types.TIMESTAMP, Types.DATE -> TIMESTAMP;
+                case Types.TIME -> TIME;
+                case Types.TIMESTAMP_WITH_TIMEZONE -> OFFSET_DATE_TIME;
+                default -> OBJECT;
+            };
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package it.gov.pagopa.nodo.datamigration.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The reads shared by the source and destination repositories of a table: its {@link JdbcRowMapping}, its checksums
+ * and row hashes, computed by the DB, and all its keys. The queries are executed on the connection of the current
+ * transaction, so they see the same rows of the other reads of the repository.
+ */
+public class JdbcTableReader<T, ID> {
+
+    private final JpaEntityInformation<T, ID> entityInformation;
+
+    private final EntityManager entityManager;
+
+    private JdbcRowMapping rowMapping;
+
+    public JdbcTableReader(JpaEntityInformation<T, ID> entityInformation, EntityManager entityManager) {
+        this.entityInformation = entityInformation;
+        this.entityManager = entityManager;
+    }
+
+    public synchronized JdbcRowMapping getRowMapping(SharedSessionContractImplementor session) {
+        // the mapping is built only on first use, because the mapping model is not available when the repository is created
+        if (this.rowMapping == null) {
+            EntityPersister persister = session.getFactory().getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(this.entityInformation.getJavaType());
+            this.rowMapping = new JdbcRowMapping((AbstractEntityPersister) persister);
+        }
+        return this.rowMapping;
+    }
+
+    /*
+     * The checksums are computed by the DB, that reads the rows, LOB values included, and returns only their count and
+     * the sum of their hashes: so a table, or a key range, costs a single aggregate query whatever its size.
+     */
+    public TableChecksum computeChecksum() {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        String query = getRowMapping(session).getChecksumStatement(getRowHashDialect(session));
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(query);
+                 ResultSet resultSet = statement.executeQuery()) {
+                return TableChecksum.of(resultSet);
+            }
+        });
+    }
+
+    public TableChecksum computeChecksumInRange(KeyRange range) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        JdbcRowMapping mapping = getRowMapping(session);
+        return readChecksumInRange(session, mapping.getChecksumStatement(getRowHashDialect(session), buildKeyRangeCondition(mapping)), range);
+    }
+
+    public Map<Long, Long> findRowHashesInRange(KeyRange range, int fetchSize) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        JdbcRowMapping mapping = getRowMapping(session);
+        return readRowHashesInRange(session, mapping.getRowHashStatement(getRowHashDialect(session), buildKeyRangeCondition(mapping)), range, fetchSize);
+    }
+
+    public TableChecksum computeKeyChecksumInRange(KeyRange range) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        JdbcRowMapping mapping = getRowMapping(session);
+        return readChecksumInRange(session, mapping.getKeyChecksumStatement(getRowHashDialect(session), buildKeyRangeCondition(mapping)), range);
+    }
+
+    public Map<Long, Long> findKeyHashesInRange(KeyRange range, int fetchSize) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        JdbcRowMapping mapping = getRowMapping(session);
+        return readRowHashesInRange(session, mapping.getKeyHashStatement(getRowHashDialect(session), buildKeyRangeCondition(mapping)), range, fetchSize);
+    }
+
+    /*
+     * The composite keys of an ID class cannot be selected by JPQL, so they are taken from the entities, loaded as
+     * read-only: the tables that read all their keys are only the ones that cannot be compared by key ranges.
+     */
+    public List<ID> findAllKeys() {
+        String entityName = this.entityInformation.getEntityName();
+        if (!this.entityInformation.hasCompositeId()) {
+            return this.entityManager.createQuery(String.format("SELECT id(e) FROM %s e", entityName), this.entityInformation.getIdType()).getResultList();
+        }
+        return this.entityManager.createQuery(String.format("SELECT e FROM %s e", entityName), this.entityInformation.getJavaType())
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(this.entityInformation::getId)
+                .toList();
+    }
+
+    private static TableChecksum readChecksumInRange(SharedSessionContractImplementor session, String query, KeyRange range) {
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = prepareKeyRangeStatement(connection, query, range, 1);
+                 ResultSet resultSet = statement.executeQuery()) {
+                return TableChecksum.of(resultSet);
+            }
+        });
+    }
+
+    private static Map<Long, Long> readRowHashesInRange(SharedSessionContractImplementor session, String query, KeyRange range, int fetchSize) {
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = prepareKeyRangeStatement(connection, query, range, fetchSize);
+                 ResultSet resultSet = statement.executeQuery()) {
+                return TableChecksum.rowHashesOf(resultSet);
+            }
+        });
+    }
+
+    private static PreparedStatement prepareKeyRangeStatement(Connection connection, String query, KeyRange range, int fetchSize) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(query);
+        statement.setFetchSize(fetchSize);
+        statement.setLong(1, range.getLowerBound());
+        statement.setLong(2, range.getUpperBound());
+        return statement;
+    }
+
+    private static String buildKeyRangeCondition(JdbcRowMapping mapping) {
+        String key = mapping.getKeyColumn();
+        return String.format("%s >= ? AND %s <= ?", key, key);
+    }
+
+    private static RowHashDialect getRowHashDialect(SharedSessionContractImplementor session) {
+        return RowHashDialect.of(session.getJdbcServices().getDialect());
+    }
+}
@@ -0,0 +1,37 @@
+package it.gov.pagopa.nodo.datamigration.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class KeyRange {
+
+    // both the bounds are included in the range
+    private long lowerBound;
+
+    private long upperBound;
+
+    /**
+     * Split the range in contiguous ranges of the same width, that together cover this range.
+     *
+     * @param partitions the number of ranges to create
+     * @return at most the requested number of ranges, less only if this range contains less keys
+     */
+    public List<KeyRange> split(int partitions) {
+        long width = Math.max(1, Math.floorDiv(this.upperBound - this.lowerBound, partitions) + 1);
+        List<KeyRange> ranges = new ArrayList<>();
+        for (long lower = this.lowerBound; lower <= this.upperBound && ranges.size() < partitions; lower += width) {
+            long upper = ranges.size() == partitions - 1 ? this.upperBound : Math.min(this.upperBound, lower + width - 1);
+            ranges.add(new KeyRange(lower, upper));
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,188 @@
+package it.gov.pagopa.nodo.datamigration.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded cache of the LOB payloads already written by a run of a step, keyed by the hash and the size that the
+ * table stores beside each payload. The streamed rows whose payload is cached are written with the cached copy, so
+ * their LOB is never read from the source DB: only the other columns of the row are.
+ * The cache is bounded by the total size of its payloads, and the payloads bigger than the configured maximum are
+ * never cached, so they are streamed as usual without being held in memory.
+ */
+public class PayloadDeduplicator {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final String contentColumn;
+
+    private final String hashColumn;
+
+    private final String sizeColumn;
+
+    private final long maxPayloadBytes;
+
+    private final Cache<String, byte[]> payloads;
+
+    private final AtomicLong deduplicatedPayloads = new AtomicLong();
+
+    private final AtomicLong deduplicatedBytes = new AtomicLong();
+
+    public PayloadDeduplicator(String contentColumn, String hashColumn, String sizeColumn, long cacheBytes, long maxPayloadBytes) {
+        this.contentColumn = contentColumn;
+        this.hashColumn = hashColumn;
+        this.sizeColumn = sizeColumn;
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.payloads = Caffeine.newBuilder()
+                .maximumWeight(cacheBytes)
+                .weigher((String key, byte[] payload) -> payload.length)
+                .build();
+    }
+
+    /**
+     * Wrap the passed cursor, so that the payloads are taken from the cache when possible, and added to the cache when
+     * they are streamed from the source DB. The cursor can be shared by the workers of a step, as the cache is.
+     *
+     * @param rows the cursor on the rows of a page
+     * @return the cursor to be handed off to the writer
+     */
+    public RowCursor wrap(RowCursor rows) {
+        List<String> columns = rows.getColumns();
+        if (!columns.containsAll(List.of(this.contentColumn, this.hashColumn, this.sizeColumn))) {
+            throw new IllegalArgumentException(String.format("The columns [%s, %s, %s] are not all mapped on the rows.", this.contentColumn, this.hashColumn, this.sizeColumn));
+        }
+        return new DeduplicatingRowCursor(rows, columns.indexOf(this.contentColumn), columns.indexOf(this.hashColumn), columns.indexOf(this.sizeColumn));
+    }
+
+    public long getDeduplicatedPayloads() {
+        return this.deduplicatedPayloads.get();
+    }
+
+    public long getDeduplicatedBytes() {
+        return this.deduplicatedBytes.get();
+    }
+
+    /*
+     * The hash is read once per row, because a streamed value can be read only once: the writer then gets a copy of it.
+     * The size is part of the key, so two payloads are the same only if both their hash and their size are.
+     */
+    private class DeduplicatingRowCursor implements RowCursor {
+
+        private final RowCursor rows;
+
+        private final int contentIndex;
+
+        private final int hashIndex;
+
+        private final int sizeIndex;
+
+        private boolean hashRead;
+
+        private byte[] hash;
+
+        DeduplicatingRowCursor(RowCursor rows, int contentIndex, int hashIndex, int sizeIndex) {
+            this.rows = rows;
+            this.contentIndex = contentIndex;
+            this.hashIndex = hashIndex;
+            this.sizeIndex = sizeIndex;
+        }
+
+        @Override
+        public boolean next() throws SQLException {
+            this.hashRead = false;
+            this.hash = null;
+            return this.rows.next();
+        }
+
+        @Override
+        public Object getValue(int index) throws SQLException {
+            if (index == this.hashIndex) {
+                byte[] value = readHash();
+                return value == null ? null : new ByteArrayInputStream(value);
+            }
+            if (index != this.contentIndex) {
+                return this.rows.getValue(index);
+            }
+            byte[] value = readHash();
+            Object size = this.rows.getValue(this.sizeIndex);
+            if (value == null || !(size instanceof Number payloadSize)) {
+                return this.rows.getValue(index);
+            }
+            String key = HEX.formatHex(value) + ":" + payloadSize.longValue();
+            byte[] payload = payloads.getIfPresent(key);
+            if (payload != null) {
+                deduplicatedPayloads.incrementAndGet();
+                deduplicatedBytes.addAndGet(payload.length);
+                return new ByteArrayInputStream(payload);
+            }
+            Object content = this.rows.getValue(index);
+            if (content instanceof InputStream stream && payloadSize.longValue() <= maxPayloadBytes) {
+                return new CachingInputStream(stream, key);
+            }
+            return content;
+        }
+
+        @Override
+        public List<String> getColumns() {
+            return this.rows.getColumns();
+        }
+
+        private byte[] readHash() throws SQLException {
+            if (!this.hashRead) {
+                Object value = this.rows.getValue(this.hashIndex);
+                try {
+                    this.hash = value instanceof InputStream stream ? stream.readAllBytes() : (byte[]) value;
+                } catch (IOException e) {
+                    throw new SQLException("Error while reading the hash of the payload", e);
+                }
+                this.hashRead = true;
+            }
+            return this.hash;
+        }
+    }
+
+    // the payload is copied while the writer reads it, and it is cached only if it is read up to its end
+    private class CachingInputStream extends FilterInputStream {
+
+        private final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        private final String key;
+
+        CachingInputStream(InputStream in, String key) {
+            super(in);
+            this.key = key;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read < 0) {
+                payloads.put(this.key, this.copy.toByteArray());
+            } else {
+                this.copy.write(read);
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read < 0) {
+                payloads.put(this.key, this.copy.toByteArray());
+            } else {
+                this.copy.write(buffer, offset, read);
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package it.gov.pagopa.nodo.datamigration.repository;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The rows of a page, read one at a time from a cursor still open on the source DB. The values are in the order of the
+ * columns of the {@link JdbcRowMapping} of the entity, and the LOB values are streams on the source LOBs (see
+ * {@link JdbcRowMapping#readStreamedValue}), so they can be read only until the cursor moves to the next row.
+ */
+public interface RowCursor {
+
+    /**
+     * Move the cursor to the next row of the page.
+     *
+     * @return true if the cursor is on a row, false if the page has no more rows
+     */
+    boolean next() throws SQLException;
+
+    /**
+     * Get a value of the current row.
+     *
+     * @param index the index of the column, in the order of the columns of the mapping
+     * @return the value of the column, or its stream for a LOB column
+     */
+    Object getValue(int index) throws SQLException;
+
+    /**
+     * Get the columns of the values of each row.
+     *
+     * @return the columns of the mapping, in the order of the values
+     */
+    List<String> getColumns();
+}
@@ -0,0 +1,241 @@
+package it.gov.pagopa.nodo.datamigration.repository;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.OracleDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SQL functions that compute the hash of a row on each DB, used by the statements of {@link JdbcRowMapping} to
+ * compute the {@link TableChecksum} of a table on the DB itself. Each value is rendered with the same canonical text
+ * on every DB (numbers without trailing zeros, timestamps with microseconds, booleans as 0 or 1), and the text and
+ * binary values are replaced by the MD5 of their UTF-8 or binary content. The hash of a row is taken from the first
+ * 60 bits of the MD5 of its rendered values, so the sum of the hashes of a table is exact on every DB.
+ * On Oracle the rows of more than {@value #MAX_ORACLE_VARCHAR_VALUES} values, each one rendered in at most 64 characters
+ * plus the separator, are concatenated as a CLOB.
+ * On Oracle the LOB values are hashed with DBMS_CRYPTO, that needs the EXECUTE grant, and the character values are
+ * hashed in the database character set, that must be AL32UTF8 to have the same hashes of PostgreSQL. On PostgreSQL the
+ * numbers are rendered with <code>trim_scale</code>, available from version 13.
+ */
+public enum RowHashDialect {
+
+    ORACLE {
+        @Override
+        String hash(String text) {
+            return String.format("LOWER(RAWTOHEX(STANDARD_HASH(%s, 'MD5')))", text);
+        }
+
+        @Override
+        String hashLob(String column) {
+            return String.format("LOWER(RAWTOHEX(DBMS_CRYPTO.HASH(%s, 2)))", column);
+        }
+
+        @Override
+        String integerText(String column) {
+            return String.format("TO_CHAR(%s)", column);
+        }
+
+        // the numbers are rendered without trailing zeros and without the leading zero of the decimals, i.e. .5
+        @Override
+        String decimalText(String column) {
+            return String.format("TO_CHAR(%s, 'TM9')", column);
+        }
+
+        // the booleans are stored as NUMBER(1)
+        @Override
+        String booleanText(String column) {
+            return String.format("TO_CHAR(%s)", column);
+        }
+
+        @Override
+        String timestampText(String column) {
+            return String.format("TO_CHAR(CAST(%s AS TIMESTAMP), 'YYYY-MM-DD HH24:MI:SS.FF6')", column);
+        }
+
+        @Override
+        String timeText(String column) {
+            return String.format("TO_CHAR(%s, 'HH24:MI:SS')", column);
+        }
+
+        @Override
+        String offsetDateTimeText(String column) {
+            return String.format("TO_CHAR(SYS_EXTRACT_UTC(%s), 'YYYY-MM-DD HH24:MI:SS.FF6')", column);
+        }
+
+        @Override
+        String text(String column) {
+            return String.format("TO_CHAR(%s)", column);
+        }
+
+        /*
+         * A VARCHAR2 expression cannot exceed 4000 bytes (ORA-01489), so the rows whose rendered values could be longer
+         * are concatenated as a CLOB, hashed by DBMS_CRYPTO: the rendered values are ASCII, so the hash is the same.
+         */
+        @Override
+        String rowHash(List<String> values) {
+            if (values.size() <= MAX_ORACLE_VARCHAR_VALUES) {
+                return String.format("TO_NUMBER(SUBSTR(RAWTOHEX(STANDARD_HASH(%s, 'MD5')), 1, 15), 'XXXXXXXXXXXXXXX')", join(values));
+            }
+            List<String> clobValues = new ArrayList<>(values);
+            clobValues.set(0, String.format("TO_CLOB(%s)", values.get(0)));
+            return String.format("TO_NUMBER(SUBSTR(RAWTOHEX(DBMS_CRYPTO.HASH(%s, 2)), 1, 15), 'XXXXXXXXXXXXXXX')", join(clobValues));
+        }
+    },
+
+    POSTGRESQL {
+        @Override
+        String hash(String text) {
+            return String.format("md5(%s)", text);
+        }
+
+        @Override
+        String hashLob(String column) {
+            return String.format("md5(%s)", column);
+        }
+
+        @Override
+        String integerText(String column) {
+            return String.format("%s::text", column);
+        }
+
+        // the numbers are rendered as Oracle does, without trailing zeros and without the leading zero of the decimals
+        @Override
+        String decimalText(String column) {
+            return String.format("regexp_replace(trim_scale(%s::numeric)::text, '^(-?)0\\.', '\\1.')", column);
+        }
+
+        @Override
+        String booleanText(String column) {
+            return String.format("CASE WHEN %s THEN '1' ELSE '0' END", column);
+        }
+
+        @Override
+        String timestampText(String column) {
+            return String.format("to_char(%s, 'YYYY-MM-DD HH24:MI:SS.US')", column);
+        }
+
+        @Override
+        String timeText(String column) {
+            return String.format("to_char(%s, 'HH24:MI:SS')", column);
+        }
+
+        @Override
+        String offsetDateTimeText(String column) {
+            return String.format("to_char(%s AT TIME ZONE 'UTC', 'YYYY-MM-DD HH24:MI:SS.US')", column);
+        }
+
+        @Override
+        String text(String column) {
+            return String.format("%s::text", column);
+        }
+
+        @Override
+        String rowHash(List<String> values) {
+            return String.format("('x' || substr(md5(%s), 1, 15))::bit(60)::bigint", join(values));
+        }
+    },
+
+    // the in-memory DB of the tests, whose values are rendered as H2 casts them
+    H2 {
+        @Override
+        String hash(String text) {
+            return String.format("LOWER(RAWTOHEX(HASH('MD5', %s)))", text);
+        }
+
+        @Override
+        String hashLob(String column) {
+            return hash(column);
+        }
+
+        @Override
+        String integerText(String column) {
+            return text(column);
+        }
+
+        @Override
+        String decimalText(String column) {
+            return text(column);
+        }
+
+        @Override
+        String booleanText(String column) {
+            return text(column);
+        }
+
+        @Override
+        String timestampText(String column) {
+            return text(column);
+        }
+
+        @Override
+        String timeText(String column) {
+            return text(column);
+        }
+
+        @Override
+        String offsetDateTimeText(String column) {
+            return text(column);
+        }
+
+        @Override
+        String text(String column) {
+            return String.format("CAST(%s AS VARCHAR)", column);
+        }
+
+        @Override
+        String rowHash(List<String> values) {
+            return String.format("URSHIFT(CAST(SUBSTRING(HASH('MD5', %s), 1, 8) AS BIGINT), 4)", join(values));
+        }
+    };
+
+    // the longest VARCHAR2 value of Oracle, divided by the longest rendered value and its separator
+    private static final int MAX_ORACLE_VARCHAR_VALUES = 4000 / 65;
+
+    abstract String hash(String text);
+
+    abstract String hashLob(String column);
+
+    abstract String integerText(String column);
+
+    abstract String decimalText(String column);
+
+    abstract String booleanText(String column);
+
+    abstract String timestampText(String column);
+
+    abstract String timeText(String column);
+
+    abstract String offsetDateTimeText(String column);
+
+    abstract String text(String column);
+
+    abstract String rowHash(List<String> values);
+
+    // the values are separated by a character that no rendered value contains
+    private static String join(List<String> values) {
+        return String.join(" || '|' || ", values);
+    }
+
+    /**
+     * Get the functions of the DB of the passed Hibernate dialect.
+     *
+     * @param dialect the dialect of the session
+     * @return the row hash functions of the DB
+     * @throws IllegalArgumentException if the DB is not one of the migration
+     */
+    public static RowHashDialect of(Dialect dialect) {
+        if (dialect instanceof OracleDialect) {
+            return ORACLE;
+        }
+        if (dialect instanceof PostgreSQLDialect) {
+            return POSTGRESQL;
+        }
+        if (dialect instanceof H2Dialect) {
+            return H2;
+        }
+        throw new IllegalArgumentException(String.format("The row hashes cannot be computed on the DB of the dialect [%s].", dialect.getClass().getSimpleName()));
+    }
+}
@@ -0,0 +1,69 @@
+package it.gov.pagopa.nodo.datamigration.repository;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * The row count and the aggregate hash of the rows of a table, comparable between the source and the destination DB.
+ * The hash of each row is computed by the DB from the canonical rendering of its values, see {@link RowHashDialect},
+ * and the hash of the table is the sum of the hashes of its rows, computed by the DB too: so only the aggregate is
+ * read, it does not depend on the order of the rows, and duplicated rows are not cancelled out as they would be by a XOR.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class TableChecksum {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final long records;
+
+    private final long hash;
+
+    public TableChecksum(long records, long hash) {
+        this.records = records;
+        this.hash = hash;
+    }
+
+    public String getHashHex() {
+        return HEX.toHexDigits(this.hash);
+    }
+
+    /**
+     * Read the checksum computed by a statement of {@link JdbcRowMapping#getChecksumStatement(RowHashDialect)}. The sum
+     * of the row hashes is exact on the DB, so it is wrapped on 64 bits as the sum of the same hashes in Java would be.
+     *
+     * @param resultSet the result set of the statement, before its single row
+     * @return the checksum of the rows
+     */
+    public static TableChecksum of(ResultSet resultSet) throws SQLException {
+        resultSet.next();
+        long records = resultSet.getLong(1);
+        // the sum of no rows is null
+        BigDecimal hash = resultSet.getBigDecimal(2);
+        return new TableChecksum(records, hash == null ? 0 : hash.longValue());
+    }
+
+    /**
+     * Read the hash of each row computed by a statement of {@link JdbcRowMapping#getRowHashStatement(RowHashDialect, String)},
+     * as summed by {@link #of(ResultSet)}. It can be used only for tables with a single numeric key.
+     *
+     * @param resultSet the result set of the statement
+     * @return the hash of each row, by key
+     */
+    public static Map<Long, Long> rowHashesOf(ResultSet resultSet) throws SQLException {
+        Map<Long, Long> hashes = new HashMap<>();
+        while (resultSet.next()) {
+            hashes.put(resultSet.getLong(1), resultSet.getLong(2));
+        }
+        return hashes;
+    }
+}
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.BinaryFile;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface BinaryFileSrcRepository extends PagingAndSortingRepository<BinaryFile, Long> {
+public interface BinaryFileSrcRepository extends KeysetSrcRepository<BinaryFile, Long> {
 }
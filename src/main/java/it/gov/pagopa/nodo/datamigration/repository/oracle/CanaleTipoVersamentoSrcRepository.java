@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CanaleTipoVersamento;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CanaleTipoVersamentoSrcRepository extends PagingAndSortingRepository<CanaleTipoVersamento, Long> {
+public interface CanaleTipoVersamentoSrcRepository extends KeysetSrcRepository<CanaleTipoVersamento, Long> {
 }
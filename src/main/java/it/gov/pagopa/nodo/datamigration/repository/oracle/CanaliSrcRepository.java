@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Canali;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CanaliSrcRepository extends PagingAndSortingRepository<Canali, Long> {
+public interface CanaliSrcRepository extends KeysetSrcRepository<Canali, Long> {
 }
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdiDetail;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdiDetailSrcRepository extends PagingAndSortingRepository<CdiDetail, Long> {
+public interface CdiDetailSrcRepository extends KeysetSrcRepository<CdiDetail, Long> {
 }
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdiFasciaCostoServizio;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdiFasciaCostoServizioSrcRepository extends PagingAndSortingRepository<CdiFasciaCostoServizio, Long> {
+public interface CdiFasciaCostoServizioSrcRepository extends KeysetSrcRepository<CdiFasciaCostoServizio, Long> {
 }
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdiPreference;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdiPreferenceSrcRepository extends PagingAndSortingRepository<CdiPreference, Long> {
+public interface CdiPreferenceSrcRepository extends KeysetSrcRepository<CdiPreference, Long> {
 }
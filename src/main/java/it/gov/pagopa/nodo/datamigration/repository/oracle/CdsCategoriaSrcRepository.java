@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdsCategoria;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdsCategoriaSrcRepository extends PagingAndSortingRepository<CdsCategoria, Long> {
+public interface CdsCategoriaSrcRepository extends KeysetSrcRepository<CdsCategoria, Long> {
 }
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdsServizio;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdsServizioSrcRepository extends PagingAndSortingRepository<CdsServizio, Long> {
+public interface CdsServizioSrcRepository extends KeysetSrcRepository<CdsServizio, Long> {
 }
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CodifichePa;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CodifichePaSrcRepository extends PagingAndSortingRepository<CodifichePa, Long> {
+public interface CodifichePaSrcRepository extends KeysetSrcRepository<CodifichePa, Long> {
 }
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Codifiche;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CodificheSrcRepository extends PagingAndSortingRepository<Codifiche, Long> {
+public interface CodificheSrcRepository extends KeysetSrcRepository<Codifiche, Long> {
 }
@@ -1,9 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.ConfigurationKeys;
-import org.springframework.data.repository.PagingAndSortingRepository;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.pk.ConfigurationKeysView;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ConfigurationKeysSrcRepository extends PagingAndSortingRepository<ConfigurationKeys, Long> {
+public interface ConfigurationKeysSrcRepository extends KeysetSrcRepository<ConfigurationKeys, ConfigurationKeysView> {
 }
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.ElencoServizi;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ElencoServiziSrcRepository extends PagingAndSortingRepository<ElencoServizi, Long> {
+public interface ElencoServiziSrcRepository extends KeysetSrcRepository<ElencoServizi, Long> {
 }
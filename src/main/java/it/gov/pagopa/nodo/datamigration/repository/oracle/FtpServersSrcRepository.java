@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.FtpServers;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface FtpServersSrcRepository extends PagingAndSortingRepository<FtpServers, Long> {
+public interface FtpServersSrcRepository extends KeysetSrcRepository<FtpServers, Long> {
 }
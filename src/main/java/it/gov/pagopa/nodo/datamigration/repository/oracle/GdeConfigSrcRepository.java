@@ -1,9 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.GdeConfig;
-import org.springframework.data.repository.PagingAndSortingRepository;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.pk.GdeConfigPk;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface GdeConfigSrcRepository extends PagingAndSortingRepository<GdeConfig, Long> {
+public interface GdeConfigSrcRepository extends KeysetSrcRepository<GdeConfig, GdeConfigPk> {
 }
@@ -1,7 +1,6 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.IbanAttributesMaster;
-import org.springframework.data.repository.PagingAndSortingRepository;
 
-public interface IbanAttributesMasterSrcRepository extends PagingAndSortingRepository<IbanAttributesMaster, Long> {
+public interface IbanAttributesMasterSrcRepository extends KeysetSrcRepository<IbanAttributesMaster, Long> {
 }
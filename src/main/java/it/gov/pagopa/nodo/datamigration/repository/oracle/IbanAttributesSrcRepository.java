@@ -1,7 +1,6 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.IbanAttributes;
-import org.springframework.data.repository.PagingAndSortingRepository;
 
-public interface IbanAttributesSrcRepository extends PagingAndSortingRepository<IbanAttributes, Long> {
+public interface IbanAttributesSrcRepository extends KeysetSrcRepository<IbanAttributes, Long> {
 }
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.InformativeContoAccreditoMaster;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface InformativeContoAccreditoMasterSrcRepository extends PagingAndSortingRepository<InformativeContoAccreditoMaster, Long> {
+public interface InformativeContoAccreditoMasterSrcRepository extends KeysetSrcRepository<InformativeContoAccreditoMaster, Long> {
 }
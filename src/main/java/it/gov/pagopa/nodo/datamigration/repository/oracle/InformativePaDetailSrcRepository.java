@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.InformativePaDetail;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface InformativePaDetailSrcRepository extends PagingAndSortingRepository<InformativePaDetail, Long> {
+public interface InformativePaDetailSrcRepository extends KeysetSrcRepository<InformativePaDetail, Long> {
 }
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.InformativePaMaster;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface InformativePaMasterSrcRepository extends PagingAndSortingRepository<InformativePaMaster, Long> {
+public interface InformativePaMasterSrcRepository extends KeysetSrcRepository<InformativePaMaster, Long> {
 }
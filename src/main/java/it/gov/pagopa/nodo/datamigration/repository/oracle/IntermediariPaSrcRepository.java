@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.IntermediariPa;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface IntermediariPaSrcRepository extends PagingAndSortingRepository<IntermediariPa, Long> {
+public interface IntermediariPaSrcRepository extends KeysetSrcRepository<IntermediariPa, Long> {
 }
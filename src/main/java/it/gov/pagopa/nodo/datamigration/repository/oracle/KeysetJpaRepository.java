@@ -0,0 +1,357 @@
+package it.gov.pagopa.nodo.datamigration.repository.oracle;
+
+import it.gov.pagopa.nodo.datamigration.repository.JdbcRowMapping;
+import it.gov.pagopa.nodo.datamigration.repository.JdbcTableReader;
+import it.gov.pagopa.nodo.datamigration.repository.KeyRange;
+import it.gov.pagopa.nodo.datamigration.repository.RowCursor;
+import it.gov.pagopa.nodo.datamigration.repository.TableChecksum;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.dialect.OracleDialect;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+@Transactional(readOnly = true)
+public class KeysetJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> implements KeysetSrcRepository<T, ID> {
+
+    private final JpaEntityInformation<T, ID> entityInformation;
+
+    private final EntityManager entityManager;
+
+    private final List<String> keyAttributes;
+
+    private final String firstPageQuery;
+
+    private final String nextPageQuery;
+
+    private final String keyRangeQuery;
+
+    private final String firstRangePageQuery;
+
+    private final String nextRangePageQuery;
+
+    private final String keysQuery;
+
+    private final JdbcTableReader<T, ID> tableReader;
+
+    public KeysetJpaRepository(JpaEntityInformation<T, ID> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.entityManager = entityManager;
+        this.tableReader = new JdbcTableReader<>(entityInformation, entityManager);
+        // the attributes are sorted in order to have a stable ordering for composite keys
+        this.keyAttributes = StreamSupport.stream(entityInformation.getIdAttributeNames().spliterator(), false)
+                .sorted()
+                .toList();
+        String orderBy = this.keyAttributes.stream().map(attribute -> "e." + attribute).collect(Collectors.joining(", "));
+        this.firstPageQuery = String.format("SELECT e FROM %s e ORDER BY %s", entityInformation.getEntityName(), orderBy);
+        this.nextPageQuery = String.format("SELECT e FROM %s e WHERE %s ORDER BY %s", entityInformation.getEntityName(), buildSeekPredicate(), orderBy);
+        // the range queries are used only for single numeric keys, see findKeyRange
+        String key = "e." + this.keyAttributes.get(0);
+        this.keyRangeQuery = String.format("SELECT MIN(%s), MAX(%s) FROM %s e", key, key, entityInformation.getEntityName());
+        this.firstRangePageQuery = String.format("SELECT e FROM %s e WHERE %s >= :lower AND %s <= :upper ORDER BY %s", entityInformation.getEntityName(), key, key, key);
+        this.nextRangePageQuery = String.format("SELECT e FROM %s e WHERE %s > :%s AND %s <= :upper ORDER BY %s", entityInformation.getEntityName(), key, keyParameter(0), key, key);
+        this.keysQuery = String.format("SELECT e FROM %s e WHERE %s IN :keys ORDER BY %s", entityInformation.getEntityName(), key, key);
+    }
+
+    @Override
+    public Slice<T> findFirstPage(int size) {
+        return readSlice(this.entityManager.createQuery(this.firstPageQuery, getDomainClass()), size);
+    }
+
+    @Override
+    public Slice<T> findPageAfter(ID lastKey, int size) {
+        TypedQuery<T> query = this.entityManager.createQuery(this.nextPageQuery, getDomainClass());
+        for (int i = 0; i < this.keyAttributes.size(); i++) {
+            query.setParameter(keyParameter(i), getKeyAttributeValue(lastKey, this.keyAttributes.get(i)));
+        }
+        return readSlice(query, size);
+    }
+
+    @Override
+    public ID getKey(T entity) {
+        return this.entityInformation.getId(entity);
+    }
+
+    @Override
+    public Optional<KeyRange> findKeyRange() {
+        if (this.entityInformation.hasCompositeId() || !Long.class.equals(this.entityInformation.getIdType())) {
+            return Optional.empty();
+        }
+        Object[] bounds = this.entityManager.createQuery(this.keyRangeQuery, Object[].class).getSingleResult();
+        if (bounds[0] == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new KeyRange((Long) bounds[0], (Long) bounds[1]));
+    }
+
+    @Override
+    public Slice<T> findFirstPageInRange(KeyRange range, int size) {
+        TypedQuery<T> query = this.entityManager.createQuery(this.firstRangePageQuery, getDomainClass())
+                .setParameter("lower", range.getLowerBound())
+                .setParameter("upper", range.getUpperBound());
+        return readSlice(query, size);
+    }
+
+    @Override
+    public Slice<T> findPageAfterInRange(ID lastKey, KeyRange range, int size) {
+        TypedQuery<T> query = this.entityManager.createQuery(this.nextRangePageQuery, getDomainClass())
+                .setParameter(keyParameter(0), lastKey)
+                .setParameter("upper", range.getUpperBound());
+        return readSlice(query, size);
+    }
+
+    /*
+     * The rows are read with plain JDBC on the connection of the current transaction, as the pages of entities: one
+     * more row than requested, in a single round trip.
+     */
+    @Override
+    public Slice<Object[]> findRowsInRange(KeyRange range, ID lastKey, int size) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        JdbcRowMapping mapping = this.tableReader.getRowMapping(session);
+        String query = mapping.getSelectStatement(buildRangeCondition(mapping, lastKey));
+        List<Object[]> rows = session.doReturningWork(connection -> {
+            List<Object[]> content = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setMaxRows(size + 1);
+                statement.setFetchSize(size + 1);
+                bindRangeCondition(statement, range, lastKey);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        content.add(mapping.readRow(resultSet));
+                    }
+                }
+            }
+            return content;
+        });
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, Pageable.ofSize(size), hasNext);
+    }
+
+    /*
+     * The cursor stops on the requested number of rows: only then it is moved on the next row, if any, in order to know
+     * if a next page exists, after that the writer is done with the last row of the page.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Slice<ID> streamRowsInRange(KeyRange range, ID lastKey, int size, Consumer<RowCursor> writer) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        JdbcRowMapping mapping = this.tableReader.getRowMapping(session);
+        String query = mapping.getSelectStatement(buildRangeCondition(mapping, lastKey));
+        List<Long> keys = new ArrayList<>();
+        boolean hasNext = session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setMaxRows(size + 1);
+                statement.setFetchSize(size + 1);
+                bindRangeCondition(statement, range, lastKey);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    AtomicBoolean nextPage = new AtomicBoolean();
+                    writer.accept(new RowCursor() {
+                        @Override
+                        public boolean next() throws SQLException {
+                            if (keys.size() == size) {
+                                nextPage.set(resultSet.next());
+                                return false;
+                            }
+                            if (!resultSet.next()) {
+                                return false;
+                            }
+                            keys.add(resultSet.getLong(1));
+                            return true;
+                        }
+
+                        @Override
+                        public Object getValue(int index) throws SQLException {
+                            return mapping.readStreamedValue(resultSet, index);
+                        }
+
+                        @Override
+                        public List<String> getColumns() {
+                            return mapping.getColumns();
+                        }
+                    });
+                    return nextPage.get();
+                }
+            }
+        });
+        return new SliceImpl<>((List<ID>) keys, Pageable.ofSize(size), hasNext);
+    }
+
+    /*
+     * The sizes are read with plain JDBC as well, because JPQL measures only the length of the character values: on
+     * Oracle the LOB values are measured with DBMS_LOB.GETLENGTH, that reads the length stored in the LOB locator.
+     */
+    @Override
+    public Optional<KeyRange> findPageRangeWithinBytes(KeyRange range, ID lastKey, int size, List<String> sizeColumns, long byteBudget) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        JdbcRowMapping mapping = this.tableReader.getRowMapping(session);
+        String lengthFunction = session.getJdbcServices().getDialect() instanceof OracleDialect ? "DBMS_LOB.GETLENGTH" : "OCTET_LENGTH";
+        String query = mapping.getSizeStatement(buildRangeCondition(mapping, lastKey), sizeColumns, lengthFunction);
+        Long pageEnd = session.doReturningWork(connection -> {
+            Long lastPageKey = null;
+            long pageBytes = 0;
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setMaxRows(size);
+                statement.setFetchSize(size);
+                bindRangeCondition(statement, range, lastKey);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        long rowBytes = resultSet.getLong(2);
+                        if (lastPageKey != null && pageBytes + rowBytes > byteBudget) {
+                            break;
+                        }
+                        lastPageKey = resultSet.getLong(1);
+                        pageBytes += rowBytes;
+                    }
+                }
+            }
+            return lastPageKey;
+        });
+        return Optional.ofNullable(pageEnd).map(end -> new KeyRange(range.getLowerBound(), end));
+    }
+
+    @Override
+    public TableChecksum computeChecksum() {
+        return this.tableReader.computeChecksum();
+    }
+
+    @Override
+    public TableChecksum computeChecksumInRange(KeyRange range) {
+        return this.tableReader.computeChecksumInRange(range);
+    }
+
+    @Override
+    public Map<Long, Long> findRowHashesInRange(KeyRange range, int fetchSize) {
+        return this.tableReader.findRowHashesInRange(range, fetchSize);
+    }
+
+    @Override
+    public TableChecksum computeKeyChecksumInRange(KeyRange range) {
+        return this.tableReader.computeKeyChecksumInRange(range);
+    }
+
+    @Override
+    public Map<Long, Long> findKeyHashesInRange(KeyRange range, int fetchSize) {
+        return this.tableReader.findKeyHashesInRange(range, fetchSize);
+    }
+
+    @Override
+    public List<T> findAllByKeys(List<Long> keys) {
+        return this.entityManager.createQuery(this.keysQuery, getDomainClass())
+                .setParameter("keys", keys)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, keys.size())
+                .getResultList();
+    }
+
+    @Override
+    public List<ID> findAllKeys() {
+        return this.tableReader.findAllKeys();
+    }
+
+    /*
+     * The SCN is read from V$DATABASE, that needs the SELECT grant on it: it is read before the rows, so the rows
+     * changed while they are read are found again by the next comparison, and written once more at worst.
+     */
+    @Override
+    public Optional<Long> findCurrentChangeNumber() {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        if (!(session.getJdbcServices().getDialect() instanceof OracleDialect)) {
+            return Optional.empty();
+        }
+        Number changeNumber = (Number) this.entityManager.createNativeQuery("SELECT current_scn FROM v$database").getSingleResult();
+        return Optional.of(changeNumber.longValue());
+    }
+
+    @Override
+    public List<Long> findKeysChangedSince(long changeNumber, int fetchSize) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        if (!(session.getJdbcServices().getDialect() instanceof OracleDialect) || this.entityInformation.hasCompositeId() || !Long.class.equals(this.entityInformation.getIdType())) {
+            throw new UnsupportedOperationException(String.format("The changed rows of the table of [%s] cannot be found by SCN.", this.entityInformation.getEntityName()));
+        }
+        String query = this.tableReader.getRowMapping(session).getKeyStatement("ORA_ROWSCN > ?");
+        return session.doReturningWork(connection -> {
+            List<Long> keys = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, changeNumber);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        keys.add(resultSet.getLong(1));
+                    }
+                }
+            }
+            return keys;
+        });
+    }
+
+    // the first page of a range includes its lower bound, the next ones start right after the last read key
+    private String buildRangeCondition(JdbcRowMapping mapping, ID lastKey) {
+        String key = mapping.getKeyColumn();
+        return lastKey == null ?
+                String.format("%s >= ? AND %s <= ?", key, key) :
+                String.format("%s > ? AND %s <= ?", key, key);
+    }
+
+    private void bindRangeCondition(PreparedStatement statement, KeyRange range, ID lastKey) throws SQLException {
+        statement.setLong(1, lastKey == null ? range.getLowerBound() : (Long) lastKey);
+        statement.setLong(2, range.getUpperBound());
+    }
+
+    /*
+     * One more row than requested is read, in order to know if a next page exists without executing a COUNT query.
+     * The source rows are never modified, so they are loaded as read-only: Hibernate keeps no snapshot of them for the
+     * dirty checking. The whole page is fetched in one round trip, instead of the ten rows per round trip of the Oracle driver.
+     */
+    private Slice<T> readSlice(TypedQuery<T> query, int size) {
+        List<T> content = query.setMaxResults(size + 1)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, size + 1)
+                .getResultList();
+        boolean hasNext = content.size() > size;
+        return new SliceImpl<>(hasNext ? content.subList(0, size) : content, Pageable.ofSize(size), hasNext);
+    }
+
+    private Object getKeyAttributeValue(ID key, String attribute) {
+        return this.entityInformation.hasCompositeId() ? this.entityInformation.getCompositeIdAttributeValue(key, attribute) : key;
+    }
+
+    /*
+     * For a key (k0, k1, ..., kn) the seek predicate is the expansion of the tuple comparison, that JPQL does not support:
+     * (e.k0 > :k0) OR (e.k0 = :k0 AND e.k1 > :k1) OR ... OR (e.k0 = :k0 AND ... AND e.kn > :kn)
+     */
+    private String buildSeekPredicate() {
+        List<String> disjunctions = new ArrayList<>();
+        for (int i = 0; i < this.keyAttributes.size(); i++) {
+            List<String> conjunctions = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                conjunctions.add(String.format("e.%s = :%s", this.keyAttributes.get(j), keyParameter(j)));
+            }
+            conjunctions.add(String.format("e.%s > :%s", this.keyAttributes.get(i), keyParameter(i)));
+            disjunctions.add("(" + String.join(" AND ", conjunctions) + ")");
+        }
+        return String.join(" OR ", disjunctions);
+    }
+
+    private static String keyParameter(int index) {
+        return "k" + index;
+    }
+}
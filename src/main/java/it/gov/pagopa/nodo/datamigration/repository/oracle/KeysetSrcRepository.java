@@ -0,0 +1,198 @@
+package it.gov.pagopa.nodo.datamigration.repository.oracle;
+
+import it.gov.pagopa.nodo.datamigration.repository.JdbcRowMapping;
+import it.gov.pagopa.nodo.datamigration.repository.KeyRange;
+import it.gov.pagopa.nodo.datamigration.repository.RowCursor;
+import it.gov.pagopa.nodo.datamigration.repository.TableChecksum;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyDestRepository;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@NoRepositoryBean
+public interface KeysetSrcRepository<T, ID> extends Repository<T, ID> {
+
+    /**
+     * Count the rows of the table. It is meant to be called once per table, only for progress reporting.
+     *
+     * @return the number of rows of the table
+     */
+    long count();
+
+    /**
+     * Read the first page of the table, ordered by primary key.
+     *
+     * @param size the maximum number of rows to read
+     * @return the slice with the rows with the lowest keys, that knows if a next page exists without counting the rows
+     */
+    Slice<T> findFirstPage(int size);
+
+    /**
+     * Read the page that follows the passed key, ordered by primary key.
+     * The key is used as a seek predicate, so the cost of each page does not depend on its position in the table.
+     *
+     * @param lastKey the key of the last row of the previous page
+     * @param size the maximum number of rows to read
+     * @return the slice with the rows whose key is strictly greater than the passed one
+     */
+    Slice<T> findPageAfter(ID lastKey, int size);
+
+    /**
+     * Extract the primary key of the passed entity, to be used as seek key in {@link #findPageAfter(Object, int)}.
+     *
+     * @param entity the entity
+     * @return the primary key (the ID class instance for composite keys)
+     */
+    ID getKey(T entity);
+
+    /**
+     * Read the lowest and the highest key of the table, in order to split it in ranges that can be read independently.
+     *
+     * @return the range of the keys, empty if the table is empty or its key is not a single numeric column
+     */
+    Optional<KeyRange> findKeyRange();
+
+    /**
+     * Read the first page of the passed key range, ordered by primary key.
+     *
+     * @param range the key range, as returned by {@link #findKeyRange()} or one of its splits
+     * @param size the maximum number of rows to read
+     * @return the slice with the rows with the lowest keys in the range
+     */
+    Slice<T> findFirstPageInRange(KeyRange range, int size);
+
+    /**
+     * Read the page of the passed key range that follows the passed key, ordered by primary key.
+     *
+     * @param lastKey the key of the last row of the previous page
+     * @param range the key range, as returned by {@link #findKeyRange()} or one of its splits
+     * @param size the maximum number of rows to read
+     * @return the slice with the rows of the range whose key is strictly greater than the passed one
+     */
+    Slice<T> findPageAfterInRange(ID lastKey, KeyRange range, int size);
+
+    /**
+     * Read a page of the passed key range as plain column values, without creating the entities, ordered by primary key.
+     * The values of each row are in the order of the columns of the {@link JdbcRowMapping} of the entity, so they can
+     * be written as they are by {@link InsertOnlyDestRepository#insertRowsAndFlush(List)}.
+     *
+     * @param range the key range, as returned by {@link #findKeyRange()} or one of its splits
+     * @param lastKey the key of the last row of the previous page, null for the first page of the range
+     * @param size the maximum number of rows to read
+     * @return the slice with the rows of the range whose key is strictly greater than the passed one, if any
+     */
+    Slice<Object[]> findRowsInRange(KeyRange range, ID lastKey, int size);
+
+    /**
+     * Read a page of the passed key range with a cursor, ordered by primary key, and hand it off to the passed writer
+     * while the cursor is open: so the LOB values are streamed from the source DB to the writer, without being loaded.
+     * The page is written when this method returns.
+     *
+     * @param range the key range, as returned by {@link #findKeyRange()} or one of its splits
+     * @param lastKey the key of the last row of the previous page, null for the first page of the range
+     * @param size the maximum number of rows of the page
+     * @param writer the writer of the rows, i.e. {@link InsertOnlyDestRepository#copyRowsAndFlush(RowCursor)}
+     * @return the slice with the keys of the written rows, that knows if a next page exists
+     */
+    Slice<ID> streamRowsInRange(KeyRange range, ID lastKey, int size, Consumer<RowCursor> writer);
+
+    /**
+     * Find the page of the passed key range that follows the passed key, closing it either on the maximum number of rows
+     * or on the byte budget, whichever comes first. Only the keys and the sizes of the rows are read, not their values.
+     * A row bigger than the whole budget makes a page on its own.
+     *
+     * @param range the key range, as returned by {@link #findKeyRange()} or one of its splits
+     * @param lastKey the key of the last row of the previous page, null for the first page of the range
+     * @param size the maximum number of rows of the page
+     * @param sizeColumns the columns whose sum is the size of a row, see {@link JdbcRowMapping#getSizeStatement(String, List, String)}
+     * @param byteBudget the maximum size of the rows of the page
+     * @return the range from the lower bound of the passed one to the key of the last row of the page, empty if no row
+     * of the range follows the passed key
+     */
+    Optional<KeyRange> findPageRangeWithinBytes(KeyRange range, ID lastKey, int size, List<String> sizeColumns, long byteBudget);
+
+    /**
+     * Compute the row count and the aggregate hash of all the rows of the table, to be compared with
+     * {@link InsertOnlyDestRepository#computeChecksum()}. The hashes are computed and summed by the DB, so only the aggregate is read.
+     *
+     * @return the checksum of the table
+     */
+    TableChecksum computeChecksum();
+
+    /**
+     * Compute the row count and the aggregate hash of the rows whose key is in the passed range, as {@link #computeChecksum()}
+     * does for the whole table, with a single aggregate query. It can be used only for tables with a single numeric key.
+     *
+     * @param range the range of the keys, bounds included
+     * @return the checksum of the rows of the range
+     */
+    TableChecksum computeChecksumInRange(KeyRange range);
+
+    /**
+     * Compute the hash of each row whose key is in the passed range, to be compared one by one with the ones of
+     * {@link InsertOnlyDestRepository#findRowHashesInRange(KeyRange, int)}. It can be used only for tables with a single numeric key.
+     *
+     * @param range the range of the keys, bounds included
+     * @param fetchSize the rows fetched in each round trip
+     * @return the hash of each row of the range, by key
+     */
+    Map<Long, Long> findRowHashesInRange(KeyRange range, int fetchSize);
+
+    /**
+     * Compute the row count and the aggregate hash of the keys of the rows in the passed range, to be compared with
+     * {@link InsertOnlyDestRepository#computeKeyChecksumInRange(KeyRange)}. Only the keys are hashed, so the checksum is
+     * computed on the primary key index and tells only if the same rows exist, not if they have the same values.
+     *
+     * @param range the range of the keys, bounds included
+     * @return the checksum of the keys of the range
+     */
+    TableChecksum computeKeyChecksumInRange(KeyRange range);
+
+    /**
+     * Compute the hash of each key in the passed range, as summed by {@link #computeKeyChecksumInRange(KeyRange)}.
+     *
+     * @param range the range of the keys, bounds included
+     * @param fetchSize the rows fetched in each round trip
+     * @return the hash of each key of the range, by key
+     */
+    Map<Long, Long> findKeyHashesInRange(KeyRange range, int fetchSize);
+
+    /**
+     * Read the rows with the passed keys, ordered by primary key. It can be used only for tables with a single numeric key.
+     *
+     * @param keys the keys of the rows, that are bound to a single IN condition
+     * @return the rows found, as read-only entities
+     */
+    List<T> findAllByKeys(List<Long> keys);
+
+    /**
+     * Read all the keys of the table, in order to find the rows removed from it when it cannot be compared by key ranges.
+     *
+     * @return the keys of all the rows
+     */
+    List<ID> findAllKeys();
+
+    /**
+     * Read the current system change number of the source DB, to be stored as the watermark of the rows read after it.
+     *
+     * @return the current SCN, empty if the DB has no system change number
+     */
+    Optional<Long> findCurrentChangeNumber();
+
+    /**
+     * Read the keys of the rows changed after the passed system change number, i.e. whose ORA_ROWSCN is greater. Unless the
+     * table is created with ROWDEPENDENCIES, the SCN of a row is the one of its block, so the keys of some unchanged rows
+     * are read too, but no changed row is missed. The removed rows are not found, as they are no longer in the table.
+     *
+     * @param changeNumber the SCN read by {@link #findCurrentChangeNumber()} before the last rows were read
+     * @param fetchSize the rows fetched in each round trip
+     * @return the keys of the changed rows, in key order
+     * @throws UnsupportedOperationException if the DB has no system change number or the key of the table is not a single numeric column
+     */
+    List<Long> findKeysChangedSince(long changeNumber, int fetchSize);
+}
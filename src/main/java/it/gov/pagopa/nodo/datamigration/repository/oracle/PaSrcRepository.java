@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Pa;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PaSrcRepository extends PagingAndSortingRepository<Pa, Long> {
+public interface PaSrcRepository extends KeysetSrcRepository<Pa, Long> {
 }
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.PaStazionePa;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PaStazionePaSrcRepository extends PagingAndSortingRepository<PaStazionePa, Long> {
+public interface PaStazionePaSrcRepository extends KeysetSrcRepository<PaStazionePa, Long> {
 }
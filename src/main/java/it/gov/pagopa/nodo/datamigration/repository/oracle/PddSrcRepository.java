@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Pdd;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PddSrcRepository extends PagingAndSortingRepository<Pdd, Long> {
+public interface PddSrcRepository extends KeysetSrcRepository<Pdd, Long> {
 }
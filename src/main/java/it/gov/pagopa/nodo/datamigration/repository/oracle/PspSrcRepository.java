@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Psp;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PspSrcRepository extends PagingAndSortingRepository<Psp, Long> {
+public interface PspSrcRepository extends KeysetSrcRepository<Psp, Long> {
 }
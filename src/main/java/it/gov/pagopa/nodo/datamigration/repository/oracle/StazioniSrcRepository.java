@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Stazioni;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface StazioniSrcRepository extends PagingAndSortingRepository<Stazioni, Long> {
+public interface StazioniSrcRepository extends KeysetSrcRepository<Stazioni, Long> {
 }
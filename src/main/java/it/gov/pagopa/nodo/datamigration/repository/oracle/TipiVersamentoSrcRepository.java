@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.oracle;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.TipiVersamento;
-import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface TipiVersamentoSrcRepository extends PagingAndSortingRepository<TipiVersamento, Long> {
+public interface TipiVersamentoSrcRepository extends KeysetSrcRepository<TipiVersamento, Long> {
 }
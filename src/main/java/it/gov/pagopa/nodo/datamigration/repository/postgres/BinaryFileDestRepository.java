@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.BinaryFile;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface BinaryFileDestRepository extends JpaRepository<BinaryFile, Long> {
+public interface BinaryFileDestRepository extends InsertOnlyDestRepository<BinaryFile, Long> {
 
 }
@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CanaleTipoVersamento;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CanaleTipoVersamentoDestRepository extends JpaRepository<CanaleTipoVersamento, Long> {
+public interface CanaleTipoVersamentoDestRepository extends InsertOnlyDestRepository<CanaleTipoVersamento, Long> {
 
 }
@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Canali;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CanaliDestRepository extends JpaRepository<Canali, Long> {
+public interface CanaliDestRepository extends InsertOnlyDestRepository<Canali, Long> {
 
 }
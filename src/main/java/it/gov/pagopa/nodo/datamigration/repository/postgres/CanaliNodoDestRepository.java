@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CanaliNodo;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CanaliNodoDestRepository extends JpaRepository<CanaliNodo, Long> {
+public interface CanaliNodoDestRepository extends InsertOnlyDestRepository<CanaliNodo, Long> {
 
 }
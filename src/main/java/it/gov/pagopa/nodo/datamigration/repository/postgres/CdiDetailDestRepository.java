@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdiDetail;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdiDetailDestRepository extends JpaRepository<CdiDetail, Long> {
+public interface CdiDetailDestRepository extends InsertOnlyDestRepository<CdiDetail, Long> {
 
 }
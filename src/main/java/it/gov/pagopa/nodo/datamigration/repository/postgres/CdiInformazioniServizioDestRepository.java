@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdiInformazioniServizio;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdiInformazioniServizioDestRepository extends JpaRepository<CdiInformazioniServizio, Long> {
+public interface CdiInformazioniServizioDestRepository extends InsertOnlyDestRepository<CdiInformazioniServizio, Long> {
 
 }
@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdiMaster;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdiMasterDestRepository extends JpaRepository<CdiMaster, Long> {
+public interface CdiMasterDestRepository extends InsertOnlyDestRepository<CdiMaster, Long> {
 
 }
@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdiPreference;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdiPreferenceDestRepository extends JpaRepository<CdiPreference, Long> {
+public interface CdiPreferenceDestRepository extends InsertOnlyDestRepository<CdiPreference, Long> {
 
 }
@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdsCategoria;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdsCategoriaDestRepository extends JpaRepository<CdsCategoria, Long> {
+public interface CdsCategoriaDestRepository extends InsertOnlyDestRepository<CdsCategoria, Long> {
 
 }
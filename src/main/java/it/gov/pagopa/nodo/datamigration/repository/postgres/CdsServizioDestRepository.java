@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdsServizio;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdsServizioDestRepository extends JpaRepository<CdsServizio, Long> {
+public interface CdsServizioDestRepository extends InsertOnlyDestRepository<CdsServizio, Long> {
 
 }
@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CdsSoggetto;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CdsSoggettoDestRepository extends JpaRepository<CdsSoggetto, Long> {
+public interface CdsSoggettoDestRepository extends InsertOnlyDestRepository<CdsSoggetto, Long> {
 
 }
@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Codifiche;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CodificheDestRepository extends JpaRepository<Codifiche, Long> {
+public interface CodificheDestRepository extends InsertOnlyDestRepository<Codifiche, Long> {
 
 }
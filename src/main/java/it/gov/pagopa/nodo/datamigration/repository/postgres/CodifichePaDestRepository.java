@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.CodifichePa;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CodifichePaDestRepository extends JpaRepository<CodifichePa, Long> {
+public interface CodifichePaDestRepository extends InsertOnlyDestRepository<CodifichePa, Long> {
 
 }
@@ -1,10 +1,10 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.ConfigurationKeys;
-import org.springframework.data.jpa.repository.JpaRepository;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.pk.ConfigurationKeysView;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ConfigurationKeysDestRepository extends JpaRepository<ConfigurationKeys, Long> {
+public interface ConfigurationKeysDestRepository extends InsertOnlyDestRepository<ConfigurationKeys, ConfigurationKeysView> {
 
 }
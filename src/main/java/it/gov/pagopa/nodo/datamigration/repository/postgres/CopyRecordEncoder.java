@@ -0,0 +1,149 @@
+package it.gov.pagopa.nodo.datamigration.repository.postgres;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.EntityIdentifierMapping;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.NonAggregatedIdentifierMapping;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Encodes the entities of a table as the CSV records of a PostgreSQL <code>COPY ... FROM STDIN</code>.
+ * The columns and their values are taken from the Hibernate mapping model, so the attribute converters (i.e. Y/N
+ * booleans), the enumerations and the foreign keys of the associations are written exactly as Hibernate would do.
+ * The single values, including the streamed LOB values, can also be written as they are read, see {@link #writeValue}.
+ * The same values are bound by the upsert of the entities, see {@link #getValues}.
+ */
+class CopyRecordEncoder<T> {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final int STREAM_CHUNK_SIZE = 8192;
+
+    private final List<ModelPart> parts = new ArrayList<>();
+
+    private final List<Function<Object, Object>> getters = new ArrayList<>();
+
+    private final List<String> columns = new ArrayList<>();
+
+    private final String copyStatement;
+
+    CopyRecordEncoder(AbstractEntityPersister persister) {
+        // the attributes of an ID class are mapped on the entity too, so they are read one by one as the other attributes
+        EntityIdentifierMapping identifierMapping = persister.getIdentifierMapping();
+        if (identifierMapping instanceof NonAggregatedIdentifierMapping compositeIdentifierMapping) {
+            compositeIdentifierMapping.getPartMappingType().getAttributeMappings().forEach(this::addAttribute);
+        } else {
+            addPart(identifierMapping, identifierMapping::getIdentifier);
+        }
+        // collections are mapped on other tables and non-insertable attributes are not written by Hibernate too
+        boolean[] insertability = persister.getPropertyInsertability();
+        for (AttributeMapping attributeMapping : persister.getAttributeMappings()) {
+            if (!(attributeMapping instanceof PluralAttributeMapping) && insertability[attributeMapping.getStateArrayPosition()]) {
+                addAttribute(attributeMapping);
+            }
+        }
+        this.copyStatement = String.format("COPY %s (%s) FROM STDIN (FORMAT csv)", persister.getTableName(), String.join(", ", this.columns));
+    }
+
+    private void addAttribute(AttributeMapping attributeMapping) {
+        addPart(attributeMapping, attributeMapping::getValue);
+    }
+
+    private void addPart(ModelPart part, Function<Object, Object> getter) {
+        this.parts.add(part);
+        this.getters.add(getter);
+        part.forEachSelectable((index, selectable) -> this.columns.add(selectable.getSelectionExpression()));
+    }
+
+    String getCopyStatement() {
+        return this.copyStatement;
+    }
+
+    List<String> getColumns() {
+        return this.columns;
+    }
+
+    Map<String, Object> getValues(T entity, SharedSessionContractImplementor session) {
+        Map<String, Object> values = new HashMap<>();
+        ModelPart.JdbcValueConsumer consumer = (value, selectable) -> values.put(selectable.getSelectionExpression(), value);
+        for (int i = 0; i < this.parts.size(); i++) {
+            this.parts.get(i).breakDownJdbcValues(this.getters.get(i).apply(entity), consumer, session);
+        }
+        return values;
+    }
+
+    void encode(T entity, SharedSessionContractImplementor session, Writer out) throws IOException {
+        Map<String, Object> values = getValues(entity, session);
+        for (int i = 0; i < this.columns.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeValue(out, values.get(this.columns.get(i)));
+        }
+        out.write('\n');
+    }
+
+    /*
+     * The streams of the LOB values are written while they are read, a chunk at a time, with the same formats of the
+     * values read as a whole: the hex format of bytea for the binary ones, quoted text for the character ones.
+     */
+    static void writeValue(Writer out, Object value) throws IOException {
+        if (value instanceof InputStream stream) {
+            out.write("\\x");
+            byte[] chunk = new byte[STREAM_CHUNK_SIZE];
+            for (int read = stream.read(chunk); read >= 0; read = stream.read(chunk)) {
+                out.write(HEX.formatHex(chunk, 0, read));
+            }
+        } else if (value instanceof Reader reader) {
+            out.write('"');
+            char[] chunk = new char[STREAM_CHUNK_SIZE];
+            for (int read = reader.read(chunk); read >= 0; read = reader.read(chunk)) {
+                out.write(new String(chunk, 0, read).replace("\"", "\"\""));
+            }
+            out.write('"');
+        } else {
+            StringBuilder text = new StringBuilder();
+            appendValue(text, value);
+            out.append(text);
+        }
+    }
+
+    /*
+     * In CSV format an unquoted empty value is NULL, so every text is quoted in order to keep the empty strings.
+     * The binary values are written with the hex format of bytea, that is parsed by the server. The timestamps are
+     * written with their local date and time and no offset, as they are bound by Hibernate to the columns without
+     * time zone, and the server never converts them.
+     */
+    private static void appendValue(StringBuilder out, Object value) {
+        if (value == null) {
+            return;
+        }
+        if (value instanceof byte[] bytes) {
+            out.append("\\x").append(HEX.formatHex(bytes));
+        } else if (value instanceof ZonedDateTime dateTime) {
+            out.append(dateTime.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
+        } else if (value instanceof Timestamp timestamp) {
+            out.append(timestamp.toLocalDateTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value);
+        } else {
+            out.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+        }
+    }
+}
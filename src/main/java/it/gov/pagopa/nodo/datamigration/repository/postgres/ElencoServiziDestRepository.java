@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.ElencoServizi;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ElencoServiziDestRepository extends JpaRepository<ElencoServizi, Long> {
+public interface ElencoServiziDestRepository extends InsertOnlyDestRepository<ElencoServizi, Long> {
 
 }
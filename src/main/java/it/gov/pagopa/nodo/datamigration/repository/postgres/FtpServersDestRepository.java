@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.FtpServers;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface FtpServersDestRepository extends JpaRepository<FtpServers, Long> {
+public interface FtpServersDestRepository extends InsertOnlyDestRepository<FtpServers, Long> {
 
 }
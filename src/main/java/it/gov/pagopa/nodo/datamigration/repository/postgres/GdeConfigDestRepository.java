@@ -1,10 +1,10 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.GdeConfig;
-import org.springframework.data.jpa.repository.JpaRepository;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.pk.GdeConfigPk;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface GdeConfigDestRepository extends JpaRepository<GdeConfig, Long> {
+public interface GdeConfigDestRepository extends InsertOnlyDestRepository<GdeConfig, GdeConfigPk> {
 
 }
@@ -1,7 +1,6 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.IbanMaster;
-import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface IbanMasterDestRepository extends JpaRepository<IbanMaster, Long> {
+public interface IbanMasterDestRepository extends InsertOnlyDestRepository<IbanMaster, Long> {
 }
@@ -1,7 +1,6 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.IcaBinaryFile;
-import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface IcaBinaryFileDestRepository extends JpaRepository<IcaBinaryFile, Long> {
+public interface IcaBinaryFileDestRepository extends InsertOnlyDestRepository<IcaBinaryFile, Long> {
 }
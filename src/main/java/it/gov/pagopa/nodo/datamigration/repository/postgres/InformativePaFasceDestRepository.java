@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.InformativePaFasce;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface InformativePaFasceDestRepository extends JpaRepository<InformativePaFasce, Long> {
+public interface InformativePaFasceDestRepository extends InsertOnlyDestRepository<InformativePaFasce, Long> {
 
 }
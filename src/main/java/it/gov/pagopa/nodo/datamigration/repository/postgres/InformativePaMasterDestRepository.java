@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.InformativePaMaster;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface InformativePaMasterDestRepository extends JpaRepository<InformativePaMaster, Long> {
+public interface InformativePaMasterDestRepository extends InsertOnlyDestRepository<InformativePaMaster, Long> {
 
 }
@@ -0,0 +1,133 @@
+package it.gov.pagopa.nodo.datamigration.repository.postgres;
+
+import it.gov.pagopa.nodo.datamigration.repository.JdbcRowMapping;
+import it.gov.pagopa.nodo.datamigration.repository.KeyRange;
+import it.gov.pagopa.nodo.datamigration.repository.RowCursor;
+import it.gov.pagopa.nodo.datamigration.repository.TableChecksum;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetSrcRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@NoRepositoryBean
+public interface InsertOnlyDestRepository<T, ID> extends JpaRepository<T, ID> {
+
+    /**
+     * Insert the passed entities and flush them, without reading them back before writing.
+     * Unlike {@link #saveAllAndFlush(Iterable)}, no merge is executed, so the rows must not exist on the table.
+     *
+     * @param entities the entities to insert
+     */
+    void insertAllAndFlush(Iterable<T> entities);
+
+    /**
+     * Insert the passed entities with a single PostgreSQL <code>COPY ... FROM STDIN</code>, without reading them back
+     * before writing. As for {@link #insertAllAndFlush(Iterable)}, the rows must not exist on the table.
+     *
+     * @param entities the entities to insert
+     * @return the bytes of the records sent to the COPY
+     */
+    long copyAllAndFlush(Iterable<T> entities);
+
+    /**
+     * Insert the passed rows, read as plain column values by {@link KeysetSrcRepository#findRowsInRange}, with a single
+     * JDBC batch. No entity is involved and, as for {@link #insertAllAndFlush(Iterable)}, the rows must not exist.
+     *
+     * @param rows the values of the rows, in the order of the columns of the {@link JdbcRowMapping} of the entity
+     * @return the approximate bytes of the bound values, counting the length of the binary and text values
+     */
+    long insertRowsAndFlush(List<Object[]> rows);
+
+    /**
+     * Insert the passed entities or, if a row with the same key exists, update it, with a single JDBC batch of PostgreSQL
+     * <code>INSERT ... ON CONFLICT (key) DO UPDATE</code>. Unlike {@link #insertAllAndFlush(Iterable)} the rows may exist
+     * on the table, and unlike {@link #saveAllAndFlush(Iterable)} they are not read back before writing, so the same
+     * entities can be written again with the same result. The composite keys are supported too.
+     *
+     * @param entities the entities to insert or update
+     * @return the approximate bytes of the bound values, as for {@link #insertRowsAndFlush(List)}
+     */
+    long upsertAllAndFlush(Iterable<T> entities);
+
+    /**
+     * Insert the rows of the passed cursor with a single PostgreSQL <code>COPY ... FROM STDIN</code>, writing each
+     * row while it is read: the LOB values are streamed in chunks from the source DB to the COPY, so no value is
+     * loaded as a whole. As for {@link #insertAllAndFlush(Iterable)}, the rows must not exist on the table.
+     *
+     * @param rows the cursor on the rows, as handed off by {@link KeysetSrcRepository#streamRowsInRange}
+     * @return the bytes of the records sent to the COPY
+     */
+    long copyRowsAndFlush(RowCursor rows);
+
+    /**
+     * Delete the rows whose key is in the passed range, with a single bulk statement.
+     * It can be used only for tables with a single numeric key.
+     *
+     * @param range the range of the keys to delete, bounds included
+     * @return the number of deleted rows
+     */
+    int deleteAllInKeyRange(KeyRange range);
+
+    /**
+     * Compute the row count and the aggregate hash of all the rows of the table, to be compared with
+     * {@link KeysetSrcRepository#computeChecksum()}. The hashes are computed and summed by the DB, so only the aggregate is read.
+     *
+     * @return the checksum of the table
+     */
+    TableChecksum computeChecksum();
+
+    /**
+     * Read the lowest and the highest key of the table, as {@link KeysetSrcRepository#findKeyRange()} does on the source table.
+     *
+     * @return the range of the keys, empty if the table is empty or its key is not a single numeric column
+     */
+    Optional<KeyRange> findKeyRange();
+
+    /**
+     * Compute the row count and the aggregate hash of the rows whose key is in the passed range, as {@link #computeChecksum()}
+     * does for the whole table, with a single aggregate query. It can be used only for tables with a single numeric key.
+     *
+     * @param range the range of the keys, bounds included
+     * @return the checksum of the rows of the range
+     */
+    TableChecksum computeChecksumInRange(KeyRange range);
+
+    /**
+     * Compute the hash of each row whose key is in the passed range, to be compared one by one with the ones of
+     * {@link KeysetSrcRepository#findRowHashesInRange(KeyRange, int)}. It can be used only for tables with a single numeric key.
+     *
+     * @param range the range of the keys, bounds included
+     * @param fetchSize the rows fetched in each round trip
+     * @return the hash of each row of the range, by key
+     */
+    Map<Long, Long> findRowHashesInRange(KeyRange range, int fetchSize);
+
+    /**
+     * Compute the row count and the aggregate hash of the keys of the rows in the passed range, to be compared with
+     * {@link KeysetSrcRepository#computeKeyChecksumInRange(KeyRange)}, on the primary key index.
+     *
+     * @param range the range of the keys, bounds included
+     * @return the checksum of the keys of the range
+     */
+    TableChecksum computeKeyChecksumInRange(KeyRange range);
+
+    /**
+     * Compute the hash of each key in the passed range, to be compared with the ones of
+     * {@link KeysetSrcRepository#findKeyHashesInRange(KeyRange, int)}.
+     *
+     * @param range the range of the keys, bounds included
+     * @param fetchSize the rows fetched in each round trip
+     * @return the hash of each key of the range, by key
+     */
+    Map<Long, Long> findKeyHashesInRange(KeyRange range, int fetchSize);
+
+    /**
+     * Read all the keys of the table, to be compared with {@link KeysetSrcRepository#findAllKeys()}.
+     *
+     * @return the keys of all the rows
+     */
+    List<ID> findAllKeys();
+}
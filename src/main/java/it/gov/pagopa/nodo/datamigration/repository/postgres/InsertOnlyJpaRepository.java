@@ -0,0 +1,274 @@
+package it.gov.pagopa.nodo.datamigration.repository.postgres;
+
+import it.gov.pagopa.nodo.datamigration.repository.JdbcRowMapping;
+import it.gov.pagopa.nodo.datamigration.repository.JdbcTableReader;
+import it.gov.pagopa.nodo.datamigration.repository.KeyRange;
+import it.gov.pagopa.nodo.datamigration.repository.RowCursor;
+import it.gov.pagopa.nodo.datamigration.repository.TableChecksum;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Transactional(readOnly = true)
+public class InsertOnlyJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> implements InsertOnlyDestRepository<T, ID> {
+
+    private static final int COPY_BUFFER_SIZE = 65536;
+
+    private final JpaEntityInformation<T, ID> entityInformation;
+
+    private final EntityManager entityManager;
+
+    private CopyRecordEncoder<T> copyRecordEncoder;
+
+    private final JdbcTableReader<T, ID> tableReader;
+
+    public InsertOnlyJpaRepository(JpaEntityInformation<T, ID> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.entityManager = entityManager;
+        this.tableReader = new JdbcTableReader<>(entityInformation, entityManager);
+    }
+
+    /*
+     * The entities are inserted by a stateless session bound to the connection of the current transaction:
+     * no merge, no cascade and no persistence context are involved, so no SELECT is executed before the INSERTs
+     * and the associations are written using only the ID of the referenced entity.
+     */
+    @Override
+    @Transactional
+    public void insertAllAndFlush(Iterable<T> entities) {
+        Session session = this.entityManager.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (StatelessSession statelessSession = session.getSessionFactory().withStatelessOptions().connection(connection).openStatelessSession()) {
+                for (T entity : entities) {
+                    statelessSession.insert(entity);
+                }
+                // the pending JDBC batch must be executed explicitly, because the session does not own the transaction
+                ((SharedSessionContractImplementor) statelessSession).getJdbcCoordinator().executeBatch();
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public long copyAllAndFlush(Iterable<T> entities) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        CopyRecordEncoder<T> encoder = getCopyRecordEncoder(session);
+        long[] bytes = new long[1];
+        session.doWork(connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(encoder.getCopyStatement());
+            CountingOutputStream copyOut = new CountingOutputStream(new PGCopyOutputStream(copyIn, COPY_BUFFER_SIZE));
+            try (Writer out = new OutputStreamWriter(copyOut, StandardCharsets.UTF_8)) {
+                for (T entity : entities) {
+                    encoder.encode(entity, session, out);
+                }
+            } catch (IOException e) {
+                throw new SQLException("Error while streaming the records to the COPY statement", e);
+            }
+            bytes[0] = copyOut.count;
+        });
+        return bytes[0];
+    }
+
+    @Override
+    @Transactional
+    public long insertRowsAndFlush(List<Object[]> rows) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        JdbcRowMapping mapping = this.tableReader.getRowMapping(session);
+        executeBatch(session, mapping, mapping.getInsertStatement(), rows);
+        return getRowsBytes(rows);
+    }
+
+    /*
+     * The entities are broken down in their column values as for the COPY, so the attribute converters and the foreign
+     * keys of the associations are applied as Hibernate would do, then the values are bound as the plain rows are.
+     */
+    @Override
+    @Transactional
+    public long upsertAllAndFlush(Iterable<T> entities) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        CopyRecordEncoder<T> encoder = getCopyRecordEncoder(session);
+        JdbcRowMapping mapping = this.tableReader.getRowMapping(session);
+        List<Object[]> rows = new ArrayList<>();
+        for (T entity : entities) {
+            Map<String, Object> values = encoder.getValues(entity, session);
+            rows.add(mapping.getColumns().stream().map(values::get).toArray());
+        }
+        executeBatch(session, mapping, mapping.getUpsertStatement(), rows);
+        return getRowsBytes(rows);
+    }
+
+    /*
+     * The records are written on a buffered stream of the COPY, that sends them to the server each time the buffer is
+     * full: so the memory used does not depend on the size of the rows, neither on the number of rows of the page.
+     */
+    @Override
+    @Transactional
+    public long copyRowsAndFlush(RowCursor rows) {
+        SharedSessionContractImplementor session = this.entityManager.unwrap(SharedSessionContractImplementor.class);
+        JdbcRowMapping mapping = this.tableReader.getRowMapping(session);
+        String copyStatement = String.format("COPY %s (%s) FROM STDIN (FORMAT csv)", mapping.getTableName(), String.join(", ", mapping.getColumns()));
+        long[] bytes = new long[1];
+        session.doWork(connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copyStatement);
+            CountingOutputStream copyOut = new CountingOutputStream(new PGCopyOutputStream(copyIn, COPY_BUFFER_SIZE));
+            try (Writer out = new OutputStreamWriter(copyOut, StandardCharsets.UTF_8)) {
+                int columnCount = rows.getColumns().size();
+                while (rows.next()) {
+                    for (int i = 0; i < columnCount; i++) {
+                        if (i > 0) {
+                            out.write(',');
+                        }
+                        CopyRecordEncoder.writeValue(out, rows.getValue(i));
+                    }
+                    out.write('\n');
+                }
+            } catch (IOException e) {
+                throw new SQLException("Error while streaming the rows to the COPY statement", e);
+            }
+            bytes[0] = copyOut.count;
+        });
+        return bytes[0];
+    }
+
+    @Override
+    @Transactional
+    public int deleteAllInKeyRange(KeyRange range) {
+        String key = "e." + this.entityInformation.getRequiredIdAttribute().getName();
+        return this.entityManager.createQuery(String.format("DELETE FROM %s e WHERE %s >= :lower AND %s <= :upper", this.entityInformation.getEntityName(), key, key))
+                .setParameter("lower", range.getLowerBound())
+                .setParameter("upper", range.getUpperBound())
+                .executeUpdate();
+    }
+
+    @Override
+    public TableChecksum computeChecksum() {
+        return this.tableReader.computeChecksum();
+    }
+
+    @Override
+    public Optional<KeyRange> findKeyRange() {
+        if (this.entityInformation.hasCompositeId() || !Long.class.equals(this.entityInformation.getIdType())) {
+            return Optional.empty();
+        }
+        String key = "e." + this.entityInformation.getRequiredIdAttribute().getName();
+        Object[] bounds = this.entityManager.createQuery(String.format("SELECT MIN(%s), MAX(%s) FROM %s e", key, key, this.entityInformation.getEntityName()), Object[].class).getSingleResult();
+        if (bounds[0] == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new KeyRange((Long) bounds[0], (Long) bounds[1]));
+    }
+
+    @Override
+    public TableChecksum computeChecksumInRange(KeyRange range) {
+        return this.tableReader.computeChecksumInRange(range);
+    }
+
+    @Override
+    public Map<Long, Long> findRowHashesInRange(KeyRange range, int fetchSize) {
+        return this.tableReader.findRowHashesInRange(range, fetchSize);
+    }
+
+    @Override
+    public TableChecksum computeKeyChecksumInRange(KeyRange range) {
+        return this.tableReader.computeKeyChecksumInRange(range);
+    }
+
+    @Override
+    public Map<Long, Long> findKeyHashesInRange(KeyRange range, int fetchSize) {
+        return this.tableReader.findKeyHashesInRange(range, fetchSize);
+    }
+
+    @Override
+    public List<ID> findAllKeys() {
+        return this.tableReader.findAllKeys();
+    }
+
+    private synchronized CopyRecordEncoder<T> getCopyRecordEncoder(SharedSessionContractImplementor session) {
+        // the encoder is built only on first use, because the mapping model is not available when the repository is created
+        if (this.copyRecordEncoder == null) {
+            EntityPersister persister = session.getFactory().getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(getDomainClass());
+            this.copyRecordEncoder = new CopyRecordEncoder<>((AbstractEntityPersister) persister);
+        }
+        return this.copyRecordEncoder;
+    }
+
+    private static void executeBatch(SharedSessionContractImplementor session, JdbcRowMapping mapping, String sql, List<Object[]> rows) {
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Object[] row : rows) {
+                    mapping.bindRow(statement, row);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private static long getRowsBytes(List<Object[]> rows) {
+        long bytes = 0;
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                bytes += getValueBytes(value);
+            }
+        }
+        return bytes;
+    }
+
+    // the numeric and temporal values are counted as 8 bytes, as they are bound on the statement
+    private static long getValueBytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (value instanceof CharSequence text) {
+            return text.length();
+        }
+        return Long.BYTES;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            this.out.write(buffer, offset, length);
+            this.count += length;
+        }
+    }
+}
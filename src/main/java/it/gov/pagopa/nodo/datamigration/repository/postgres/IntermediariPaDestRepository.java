@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.IntermediariPa;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface IntermediariPaDestRepository extends JpaRepository<IntermediariPa, Long> {
+public interface IntermediariPaDestRepository extends InsertOnlyDestRepository<IntermediariPa, Long> {
 }
@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.IntermediariPsp;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface IntermediariPspDestRepository extends JpaRepository<IntermediariPsp, Long> {
+public interface IntermediariPspDestRepository extends InsertOnlyDestRepository<IntermediariPsp, Long> {
 }
@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Pa;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PaDestRepository extends JpaRepository<Pa, Long> {
+public interface PaDestRepository extends InsertOnlyDestRepository<Pa, Long> {
 
 }
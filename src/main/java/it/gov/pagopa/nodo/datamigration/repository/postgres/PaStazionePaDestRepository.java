@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.PaStazionePa;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PaStazionePaDestRepository extends JpaRepository<PaStazionePa, Long> {
+public interface PaStazionePaDestRepository extends InsertOnlyDestRepository<PaStazionePa, Long> {
 
 }
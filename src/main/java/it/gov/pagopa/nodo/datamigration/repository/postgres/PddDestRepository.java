@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Pdd;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PddDestRepository extends JpaRepository<Pdd, Long> {
+public interface PddDestRepository extends InsertOnlyDestRepository<Pdd, Long> {
 
 }
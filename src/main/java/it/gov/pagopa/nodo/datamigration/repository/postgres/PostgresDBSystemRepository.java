@@ -7,11 +7,19 @@ import org.springframework.stereotype.Repository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.EntityTransaction;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public class PostgresDBSystemRepository {
 
+    private static final String FOREIGN_KEYS_QUERY = "SELECT DISTINCT UPPER(t.relname), UPPER(r.relname) " +
+            "FROM pg_constraint c " +
+            "JOIN pg_class t ON t.oid = c.conrelid " +
+            "JOIN pg_class r ON r.oid = c.confrelid " +
+            "JOIN pg_namespace n ON n.oid = t.relnamespace " +
+            "WHERE c.contype = 'f' AND UPPER(n.nspname) = UPPER(:schema)";
+
     @Autowired
     @Qualifier("postgresqlEntityManagerFactory")
     EntityManagerFactory emFactory;
@@ -28,4 +36,14 @@ public class PostgresDBSystemRepository {
         entityManager.flush();
         transaction.commit();
     }
+
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findForeignKeyReferences(String schema) {
+        EntityManager entityManager = emFactory.createEntityManager();
+        try {
+            return entityManager.createNativeQuery(FOREIGN_KEYS_QUERY).setParameter("schema", schema).getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
 }
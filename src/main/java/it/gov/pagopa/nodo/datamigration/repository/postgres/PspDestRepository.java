@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Psp;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface PspDestRepository extends JpaRepository<Psp, Long> {
+public interface PspDestRepository extends InsertOnlyDestRepository<Psp, Long> {
 
 }
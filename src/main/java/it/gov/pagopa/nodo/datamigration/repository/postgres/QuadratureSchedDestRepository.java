@@ -1,9 +1,8 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.QuadratureSched;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface QuadratureSchedDestRepository extends JpaRepository<QuadratureSched, Long> {
+public interface QuadratureSchedDestRepository extends InsertOnlyDestRepository<QuadratureSched, Long> {
 }
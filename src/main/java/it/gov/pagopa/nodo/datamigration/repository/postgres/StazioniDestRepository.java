@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.Stazioni;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface StazioniDestRepository extends JpaRepository<Stazioni, Long> {
+public interface StazioniDestRepository extends InsertOnlyDestRepository<Stazioni, Long> {
 
 }
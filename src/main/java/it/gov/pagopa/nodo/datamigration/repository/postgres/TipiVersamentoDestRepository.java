@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.TipiVersamento;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface TipiVersamentoDestRepository extends JpaRepository<TipiVersamento, Long> {
+public interface TipiVersamentoDestRepository extends InsertOnlyDestRepository<TipiVersamento, Long> {
 
 }
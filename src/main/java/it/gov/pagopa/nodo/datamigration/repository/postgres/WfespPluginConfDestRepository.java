@@ -1,10 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.repository.postgres;
 
 import it.gov.pagopa.nodo.datamigration.entity.cfg.WfespPluginConf;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface WfespPluginConfDestRepository extends JpaRepository<WfespPluginConf, Long> {
+public interface WfespPluginConfDestRepository extends InsertOnlyDestRepository<WfespPluginConf, Long> {
 
 }
@@ -3,18 +3,35 @@ package it.gov.pagopa.nodo.datamigration.service;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationVerification;
+import it.gov.pagopa.nodo.datamigration.enumeration.MigrationStepStatus;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
+import it.gov.pagopa.nodo.datamigration.exception.AppError;
+import it.gov.pagopa.nodo.datamigration.exception.AppException;
 import it.gov.pagopa.nodo.datamigration.fsm.FSMExecutor;
+import it.gov.pagopa.nodo.datamigration.fsm.TableDiff;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
+import it.gov.pagopa.nodo.datamigration.fsm.TableProgress;
 import it.gov.pagopa.nodo.datamigration.model.migration.MigrationStatus;
+import it.gov.pagopa.nodo.datamigration.model.migration.TableDiffResult;
 import it.gov.pagopa.nodo.datamigration.model.migration.TableMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.model.migration.TableVerificationStatus;
 import it.gov.pagopa.nodo.datamigration.util.CommonUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class MigrationService {
@@ -23,6 +40,18 @@ public class MigrationService {
     @Qualifier("executor")
     private FSMExecutor fsmExecutor;
 
+    @Autowired
+    private TaskExecutor taskExecutor;
+
+    @Value("${diff.leaf.rows}")
+    private int diffLeafRows;
+
+    @Value("${diff.max.keys}")
+    private int diffMaxKeys;
+
+    @Value("${diff.fetch.size}")
+    private int diffFetchSize;
+
     @Async
     public void startMigration() {
         fsmExecutor.start();
@@ -33,17 +62,92 @@ public class MigrationService {
         asyncStart(lastExecutedName);
     }
 
+    /**
+     * Resume the migration of the passed tables only, skipping the completed ones, as the restart does for all the tables.
+     *
+     * @param tableNames the names of the tables
+     */
+    public void runTables(List<String> tableNames) {
+        StepName startingStep = fsmExecutor.runTables(getTableSteps(tableNames), false);
+        asyncStart(startingStep);
+    }
+
+    /**
+     * Migrate again a table, even if already completed, writing only its rows changed since the last migration.
+     *
+     * @param tableName the name of the table
+     */
+    public void rerunTable(String tableName) {
+        StepName startingStep = fsmExecutor.runTables(getTableSteps(List.of(tableName)), true);
+        asyncStart(startingStep);
+    }
+
+    public void pauseTable(String tableName) {
+        fsmExecutor.pauseTable(tableName);
+    }
+
+    public void resumeTable(String tableName) {
+        fsmExecutor.resumeTable(tableName);
+    }
+
     public void forcedStopMigration() {
         fsmExecutor.forceStop();
     }
 
+    public void finalizeSync() {
+        fsmExecutor.finalizeSync();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterruptedMigration() {
+        // with a durable status DB, a migration in progress at startup was interrupted by the previous instance
+        fsmExecutor.recoverInterruptedMigration();
+    }
+
     public MigrationStatus getMigrationStatus() {
         return convert(fsmExecutor.getLastMigrationStatus());
     }
 
-    @Async
-    protected void asyncStart(StepName lastExecutedName) {
-        fsmExecutor.start(lastExecutedName);
+    /**
+     * Compare the rows of a table on source and destination DB, finding the keys of the rows that differ.
+     * The rows are read while the diff is computed, so the table should not be migrated at the same time.
+     *
+     * @param tableName the name of the table
+     * @return the keys of the divergent rows
+     */
+    public TableDiffResult diffTable(String tableName) {
+        TableMigrationStep<?, ?> step = fsmExecutor.getTableMigrationStep(tableName).orElseThrow(() -> new AppException(AppError.NOT_FOUND_TABLE));
+        TableDiff diff;
+        try {
+            diff = step.diff(diffLeafRows, diffMaxKeys, diffFetchSize);
+        } catch (UnsupportedOperationException e) {
+            throw new AppException(AppError.TABLE_NOT_DIFFABLE);
+        }
+        return TableDiffResult.builder()
+                .table(diff.getTableName())
+                .matching(diff.isMatching())
+                .sourceRecords(diff.getSourceRecords())
+                .destinationRecords(diff.getDestinationRecords())
+                .comparedRanges(diff.getComparedRanges())
+                .missingKeys(diff.getMissingKeys())
+                .unexpectedKeys(diff.getUnexpectedKeys())
+                .differentKeys(diff.getDifferentKeys())
+                .truncated(diff.isTruncated())
+                .build();
+    }
+
+    private Set<StepName> getTableSteps(List<String> tableNames) {
+        Set<StepName> tableSteps = new HashSet<>();
+        for (String tableName : tableNames) {
+            TableMigrationStep<?, ?> step = fsmExecutor.getTableMigrationStep(tableName).orElseThrow(() -> new AppException(AppError.NOT_FOUND_TABLE));
+            tableSteps.add(StepName.valueOf(step.getStepName()));
+        }
+        return tableSteps;
+    }
+
+    // the calls within the bean skip its proxy, so the migration is submitted to the executor of the async methods
+    private void asyncStart(StepName lastExecutedName) {
+        taskExecutor.execute(() -> fsmExecutor.start(lastExecutedName));
     }
 
     public MigrationStatus convert(DataMigration dataMigration) {
@@ -92,6 +196,22 @@ public class MigrationService {
         details.put("IBAN_MASTER", getTableMigrationStatus(migrationDetails.getIbanMaster()));
         details.put("ICA_BINARY_FILE", getTableMigrationStatus(migrationDetails.getIcaBinaryFile()));
 
+        // the progress of the tables migrated by this instance is kept in memory, so it is fresher than the one saved on DB
+        fsmExecutor.getTableProgress().forEach((tableName, progress) -> {
+            TableMigrationStatus tableStatus = details.get(tableName);
+            if (tableStatus != null && Objects.equals(progress.getDataMigrationId(), dataMigration.getId())) {
+                setTableProgress(tableStatus, progress);
+            }
+        });
+
+        // the pause is kept in memory too, and it is reported as the status of the table until it is resumed
+        fsmExecutor.getPausedTables().forEach(tableName -> {
+            TableMigrationStatus tableStatus = details.get(tableName);
+            if (tableStatus != null && MigrationStepStatus.IN_PROGRESS.toString().equals(tableStatus.getStatus())) {
+                tableStatus.setStatus(MigrationStepStatus.PAUSED.toString());
+            }
+        });
+
         // complete migration status
         return MigrationStatus.builder()
                 .migrationStart(dataMigration.getStart().toString())
@@ -110,6 +230,37 @@ public class MigrationService {
                 .start(dataMigrationStatus.getStart() != null  ? dataMigrationStatus.getStart().toString() : null)
                 .elapsedTime(dataMigrationStatus.getEnd() == null ? 0L : CommonUtils.getElapsedTime(dataMigrationStatus.getStart(), dataMigrationStatus.getEnd()))
                 .records(dataMigrationStatus.getRecords())
+                .sourceRecords(dataMigrationStatus.getSourceRecords())
+                .pageSize(dataMigrationStatus.getPageSize())
+                .changeNumber(dataMigrationStatus.getChangeNumber())
+                .syncWatermark(dataMigrationStatus.getSyncWatermark() != null ? dataMigrationStatus.getSyncWatermark().toString() : null)
+                .syncedRecords(dataMigrationStatus.getSyncedRecords())
+                .verification(getTableVerificationStatus(dataMigrationStatus.getVerification()))
                 .build();
     }
+
+    private TableVerificationStatus getTableVerificationStatus(DataMigrationVerification verification) {
+        if (verification == null) {
+            return null;
+        }
+        return TableVerificationStatus.builder()
+                .status(verification.getStatus())
+                .end(verification.getEnd() != null ? verification.getEnd().toString() : null)
+                .sourceRecords(verification.getSourceRecords())
+                .destinationRecords(verification.getDestinationRecords())
+                .sourceHash(verification.getSourceHash())
+                .destinationHash(verification.getDestinationHash())
+                .build();
+    }
+
+    // the rows written so far and the estimated time to the end make sense only while the table is migrated
+    private void setTableProgress(TableMigrationStatus tableStatus, TableProgress progress) {
+        tableStatus.setRecordsPerSecond(Math.round(progress.getRecordsPerSecond()));
+        tableStatus.setBytesPerSecond(progress.getBytesPerSecond() != null ? Math.round(progress.getBytesPerSecond()) : null);
+        if (MigrationStepStatus.IN_PROGRESS.toString().equals(tableStatus.getStatus())) {
+            tableStatus.setRecords(progress.getRecords());
+            tableStatus.setSourceRecords(progress.getSourceRecords());
+            tableStatus.setEtaSeconds(progress.getEtaSeconds());
+        }
+    }
 }
@@ -11,6 +11,11 @@ public class Constants {
     public static final String API_START_OK = "Migration started successfully.";
     public static final String API_STOP_OK = "The migration will be terminated gracefully. Please, wait for the termination and saving of the state.";
     public static final String API_RESTART_OK = "Migration restarted successfully.";
+    public static final String API_RUN_TABLES_OK = "Migration of the selected tables started successfully.";
+    public static final String API_RERUN_TABLE_OK = "Migration of the table started again successfully.";
+    public static final String API_PAUSE_TABLE_OK = "The migration of the table will be paused after its current page.";
+    public static final String API_RESUME_TABLE_OK = "The migration of the table is resumed.";
+    public static final String API_FINALIZE_OK = "The sync will be finalized with a last round. Please, wait for the verification and the termination of the migration.";
     public static final String STATUS_CONFLICT = "Status Conflict";
 
     public static final Set<StepName> STATUS_NOT_RESTARTABLE = Set.of(StepName.START, StepName.END);
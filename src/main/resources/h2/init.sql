@@ -1 +1,10 @@
-CREATE TYPE IF NOT EXISTS "JSONB" AS json;
\ No newline at end of file
+CREATE TYPE IF NOT EXISTS "JSONB" AS json;
+CREATE TABLE IF NOT EXISTS CFG_DATA_MIGRATION (
+    ID VARCHAR(255) NOT NULL PRIMARY KEY,
+    START_EXEC TIMESTAMP(6) NOT NULL,
+    RESTART_EXEC TIMESTAMP(6),
+    END_EXEC TIMESTAMP(6),
+    STATUS VARCHAR(255) NOT NULL,
+    LAST_EXECUTED_STEP VARCHAR(255) NOT NULL,
+    DETAIL JSONB NOT NULL
+);
@@ -0,0 +1,11 @@
+-- schema of the migration status, kept apart from the cfg schema written by the migration
+CREATE SCHEMA IF NOT EXISTS migration;
+CREATE TABLE IF NOT EXISTS migration.cfg_data_migration (
+    id VARCHAR(255) NOT NULL PRIMARY KEY,
+    start_exec TIMESTAMP(6) NOT NULL,
+    restart_exec TIMESTAMP(6),
+    end_exec TIMESTAMP(6),
+    status VARCHAR(255) NOT NULL,
+    last_executed_step VARCHAR(255) NOT NULL,
+    detail JSONB NOT NULL
+);
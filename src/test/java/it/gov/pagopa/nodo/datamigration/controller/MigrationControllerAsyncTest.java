@@ -0,0 +1,97 @@
+package it.gov.pagopa.nodo.datamigration.controller;
+
+import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
+import it.gov.pagopa.nodo.datamigration.fsm.FSMExecutor;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
+import it.gov.pagopa.nodo.datamigration.service.MigrationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// the table APIs are called on the real service, to check that they do not wait for the migration of the tables
+@WebMvcTest(MigrationController.class)
+@Import(MigrationService.class)
+@ImportAutoConfiguration(TaskExecutionAutoConfiguration.class)
+class MigrationControllerAsyncTest {
+
+    private static final long MIGRATION_TIMEOUT_S = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean(name = "executor")
+    private FSMExecutor fsmExecutor;
+
+    @Test
+    void testRunTablesReturnsBeforeTheMigrationEnds() throws Exception {
+        mockTableStep();
+        when(fsmExecutor.runTables(Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION), false)).thenReturn(StepName.EXECUTE_PA_TABLE_MIGRATION);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ended = mockLongMigration(started, release);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/tables/run")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tables\":[\"PA\"]}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        assertFalse(ended.get());
+        assertTrue(started.await(MIGRATION_TIMEOUT_S, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    void testRerunTableReturnsBeforeTheMigrationEnds() throws Exception {
+        mockTableStep();
+        when(fsmExecutor.runTables(Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION), true)).thenReturn(StepName.EXECUTE_PA_TABLE_MIGRATION);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean ended = mockLongMigration(started, release);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/tables/PA/rerun"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        assertFalse(ended.get());
+        assertTrue(started.await(MIGRATION_TIMEOUT_S, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    private void mockTableStep() {
+        TableMigrationStep<?, ?> step = mock(TableMigrationStep.class);
+        when(step.getStepName()).thenReturn(StepName.EXECUTE_PA_TABLE_MIGRATION.toString());
+        doReturn(Optional.of(step)).when(fsmExecutor).getTableMigrationStep("PA");
+    }
+
+    // the migration lasts until released, so a request waiting for it would return only after the timeout
+    private AtomicBoolean mockLongMigration(CountDownLatch started, CountDownLatch release) {
+        AtomicBoolean ended = new AtomicBoolean();
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(MIGRATION_TIMEOUT_S, TimeUnit.SECONDS);
+            ended.set(true);
+            return null;
+        }).when(fsmExecutor).start(StepName.EXECUTE_PA_TABLE_MIGRATION);
+        return ended;
+    }
+}
@@ -1,6 +1,9 @@
 package it.gov.pagopa.nodo.datamigration.controller;
 
+import it.gov.pagopa.nodo.datamigration.exception.AppError;
+import it.gov.pagopa.nodo.datamigration.exception.AppException;
 import it.gov.pagopa.nodo.datamigration.model.migration.MigrationStatus;
+import it.gov.pagopa.nodo.datamigration.model.migration.TableDiffResult;
 import it.gov.pagopa.nodo.datamigration.service.MigrationService;
 import it.gov.pagopa.nodo.datamigration.util.Constants;
 import org.junit.jupiter.api.Test;
@@ -14,7 +17,11 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.util.List;
+
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -67,4 +74,92 @@ class MigrationControllerTest {
                 .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.message").value(Constants.API_STOP_OK));
     }
+
+    @Test
+    public void testFinalizeSync() throws Exception {
+        doNothing().when(migrationService).finalizeSync();
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/finalize"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value(Constants.API_FINALIZE_OK));
+    }
+
+    @Test
+    public void testRunTables() throws Exception {
+        doNothing().when(migrationService).runTables(List.of("PA", "PSP"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/tables/run")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tables\":[\"PA\",\"PSP\"]}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value(Constants.API_RUN_TABLES_OK));
+
+        verify(migrationService).runTables(List.of("PA", "PSP"));
+    }
+
+    @Test
+    public void testRunNoTables() throws Exception {
+        doThrow(new AppException(AppError.NO_TABLE_SELECTED)).when(migrationService).runTables(List.of());
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/tables/run")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    public void testRerunTable() throws Exception {
+        doNothing().when(migrationService).rerunTable("PA");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/tables/PA/rerun"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value(Constants.API_RERUN_TABLE_OK));
+    }
+
+    @Test
+    public void testPauseTable() throws Exception {
+        doNothing().when(migrationService).pauseTable("PA");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/tables/PA/pause"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value(Constants.API_PAUSE_TABLE_OK));
+    }
+
+    @Test
+    public void testPauseTableNotInProgress() throws Exception {
+        doThrow(new AppException(AppError.TABLE_NOT_IN_PROGRESS)).when(migrationService).pauseTable("PA");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/tables/PA/pause"))
+                .andExpect(MockMvcResultMatchers.status().isConflict());
+    }
+
+    @Test
+    public void testResumeTable() throws Exception {
+        doNothing().when(migrationService).resumeTable("PA");
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/tables/PA/resume"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.message").value(Constants.API_RESUME_TABLE_OK));
+    }
+
+    @Test
+    public void testDiffTable() throws Exception {
+        TableDiffResult diff = TableDiffResult.builder().table("PA").matching(false).missingKeys(List.of(37L)).build();
+
+        when(migrationService.diffTable("PA")).thenReturn(diff);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tables/PA/diff"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.matching").value(false))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.missing_keys[0]").value(37));
+    }
+
+    @Test
+    public void testDiffUnknownTable() throws Exception {
+        when(migrationService.diffTable("UNKNOWN")).thenThrow(new AppException(AppError.NOT_FOUND_TABLE));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/tables/UNKNOWN/diff"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
 }
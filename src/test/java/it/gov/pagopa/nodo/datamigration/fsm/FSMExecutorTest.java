@@ -1,6 +1,7 @@
 package it.gov.pagopa.nodo.datamigration.fsm;
 
 import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
 import it.gov.pagopa.nodo.datamigration.enumeration.MigrationStepStatus;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
 import it.gov.pagopa.nodo.datamigration.exception.AppError;
@@ -15,11 +16,16 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.util.ReflectionTestUtils.setField;
 
@@ -36,6 +42,9 @@ class FSMExecutorTest {
     @MockBean
     private Map<String, Step> steps;
 
+    @MockBean
+    private StepScheduler stepScheduler;
+
     @Mock
     private Step step;
 
@@ -63,6 +72,19 @@ class FSMExecutorTest {
         verify(fsmSharedState, times(1)).lock();
     }
 
+    @Test
+    void testStartTableMigrationSteps() {
+        TableMigrationStep<?, ?> tableStep = mock(TableMigrationStep.class);
+        when(steps.get(StepName.EXECUTE_PA_TABLE_MIGRATION.toString())).thenReturn(tableStep);
+        when(steps.values()).thenReturn(List.of(step, tableStep));
+        when(stepScheduler.execute(eq(List.of(tableStep)), any(), any())).thenReturn(null);
+
+        fsmExecutor.start(StepName.EXECUTE_PA_TABLE_MIGRATION);
+
+        verify(stepScheduler, times(1)).execute(eq(List.of(tableStep)), any(), eq(cfgDataMigrationRepo));
+        verify(tableStep, never()).call();
+    }
+
     @Test
     void testStartAppException() {
         fsmSharedState.lock();
@@ -132,6 +154,35 @@ class FSMExecutorTest {
         assertEquals(AppError.MIGRATION_NOT_RESTARTABLE.getDetails(), thrown.getMessage());
     }
 
+    @Test
+    void testRecoverInterruptedMigration() {
+        DataMigrationStatus inProgressStatus = new DataMigrationStatus();
+        inProgressStatus.setStatus(MigrationStepStatus.IN_PROGRESS.toString());
+        DataMigrationStatus completedStatus = new DataMigrationStatus();
+        completedStatus.setStatus(MigrationStepStatus.COMPLETED.toString());
+        Step completedStep = mock(Step.class);
+        when(dataMigration.getStatus()).thenReturn(MigrationStepStatus.IN_PROGRESS.toString());
+        when(steps.values()).thenReturn(List.of(step, completedStep));
+        when(step.getDataMigrationStatus(any())).thenReturn(inProgressStatus);
+        when(completedStep.getDataMigrationStatus(any())).thenReturn(completedStatus);
+
+        fsmExecutor.recoverInterruptedMigration();
+
+        assertEquals(MigrationStepStatus.FAILED.toString(), inProgressStatus.getStatus());
+        assertEquals(MigrationStepStatus.COMPLETED.toString(), completedStatus.getStatus());
+        verify(dataMigration, times(1)).setStatus(MigrationStepStatus.FAILED.toString());
+        verify(cfgDataMigrationRepo, times(1)).saveAndFlush(dataMigration);
+    }
+
+    @Test
+    void testRecoverInterruptedMigrationNotInProgress() {
+        when(dataMigration.getStatus()).thenReturn(MigrationStepStatus.BLOCKED.toString());
+
+        fsmExecutor.recoverInterruptedMigration();
+
+        verify(cfgDataMigrationRepo, never()).saveAndFlush(any());
+    }
+
     @Test
     void testForceStop() {
         when(fsmSharedState.isBlockRequested()).thenReturn(false);
@@ -143,6 +194,187 @@ class FSMExecutorTest {
         verify(fsmSharedState, times(1)).requestBlock();
     }
 
+    @Test
+    void testFinalizeSync() {
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        setField(fsmExecutor, "sharedState", fsmSharedState);
+        setField(fsmExecutor, "currentStep", StepName.SYNC);
+
+        fsmExecutor.finalizeSync();
+
+        verify(fsmSharedState, times(1)).requestFinalize();
+    }
+
+    @Test
+    void testFinalizeSyncNotSyncing() {
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        setField(fsmExecutor, "sharedState", fsmSharedState);
+        setField(fsmExecutor, "currentStep", StepName.EXECUTE_PA_TABLE_MIGRATION);
+
+        AppException thrown = assertThrows(AppException.class, () -> fsmExecutor.finalizeSync());
+
+        assertEquals(AppError.SYNC_NOT_IN_PROGRESS.getDetails(), thrown.getMessage());
+        verify(fsmSharedState, never()).requestFinalize();
+    }
+
+    @Test
+    void testFinalizeSyncAlreadyRequested() {
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(fsmSharedState.isFinalizeRequested()).thenReturn(true);
+        setField(fsmExecutor, "sharedState", fsmSharedState);
+        setField(fsmExecutor, "currentStep", StepName.SYNC);
+
+        AppException thrown = assertThrows(AppException.class, () -> fsmExecutor.finalizeSync());
+
+        assertEquals(AppError.FINALIZE_ALREADY_REQUESTED.getDetails(), thrown.getMessage());
+    }
+
+    @Test
+    void testStartSelectedTableSteps() {
+        TableMigrationStep<?, ?> paStep = mock(TableMigrationStep.class);
+        TableMigrationStep<?, ?> pspStep = mock(TableMigrationStep.class);
+        when(paStep.getStepName()).thenReturn(StepName.EXECUTE_PA_TABLE_MIGRATION.toString());
+        when(pspStep.getStepName()).thenReturn(StepName.EXECUTE_PSP_TABLE_MIGRATION.toString());
+        when(steps.get(StepName.EXECUTE_PA_TABLE_MIGRATION.toString())).thenReturn(paStep);
+        when(steps.values()).thenReturn(List.of(step, paStep, pspStep));
+        fsmExecutor.getSharedState().selectTableSteps(Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION), false);
+
+        fsmExecutor.start(StepName.EXECUTE_PA_TABLE_MIGRATION);
+
+        verify(stepScheduler, times(1)).execute(eq(List.of(paStep)), any(), eq(cfgDataMigrationRepo));
+    }
+
+    @Test
+    void testRunTables() {
+        when(dataMigration.getStatus()).thenReturn(MigrationStepStatus.COMPLETED.toString());
+        when(dataMigration.getId()).thenReturn("migration");
+
+        StepName startingStep = fsmExecutor.runTables(Set.of(StepName.EXECUTE_PDD_TABLE_MIGRATION, StepName.EXECUTE_PA_TABLE_MIGRATION), false);
+
+        // the chosen tables are resumed from their own status
+        assertEquals(StepName.EXECUTE_PA_TABLE_MIGRATION, startingStep);
+        verify(step, never()).getDataMigrationStatus(any());
+        verify(dataMigration, times(1)).setStatus(MigrationStepStatus.IN_PROGRESS.toString());
+        verify(cfgDataMigrationRepo, times(1)).saveAndFlush(dataMigration);
+        FSMSharedState sharedState = fsmExecutor.getSharedState();
+        assertEquals("migration", sharedState.getDataMigrationStateId());
+        assertFalse(sharedState.isRerunRequested());
+        assertTrue(sharedState.isTableStepSelected(StepName.EXECUTE_PDD_TABLE_MIGRATION.toString()));
+        assertFalse(sharedState.isTableStepSelected(StepName.EXECUTE_PSP_TABLE_MIGRATION.toString()));
+    }
+
+    @Test
+    void testRunTablesRerun() {
+        DataMigrationStatus paStatus = new DataMigrationStatus();
+        paStatus.setStatus(MigrationStepStatus.COMPLETED.toString());
+        paStatus.setCheckpoints(Map.of(1L, 10L));
+        when(step.getDataMigrationStatus(any())).thenReturn(paStatus);
+        when(dataMigration.getStatus()).thenReturn(MigrationStepStatus.COMPLETED.toString());
+
+        fsmExecutor.runTables(Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION), true);
+
+        // a completed table starts over
+        assertEquals(MigrationStepStatus.TODO.toString(), paStatus.getStatus());
+        assertNull(paStatus.getCheckpoints());
+        assertTrue(fsmExecutor.getSharedState().isRerunRequested());
+    }
+
+    @Test
+    void testRunTablesAlreadyLocked() {
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        setField(fsmExecutor, "sharedState", fsmSharedState);
+
+        AppException thrown = assertThrows(AppException.class, () -> fsmExecutor.runTables(Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION), false));
+
+        assertEquals(AppError.STATUS_ALREADY_LOCKED.getDetails(), thrown.getMessage());
+    }
+
+    @Test
+    void testRunTablesNoTableSelected() {
+        AppException thrown = assertThrows(AppException.class, () -> fsmExecutor.runTables(Set.of(), false));
+
+        assertEquals(AppError.NO_TABLE_SELECTED.getDetails(), thrown.getMessage());
+    }
+
+    @Test
+    void testRunTablesMigrationInProgress() {
+        when(dataMigration.getStatus()).thenReturn(MigrationStepStatus.IN_PROGRESS.toString());
+
+        AppException thrown = assertThrows(AppException.class, () -> fsmExecutor.runTables(Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION), false));
+
+        assertEquals(AppError.MIGRATION_ALREADY_IN_PROGRESS.getDetails(), thrown.getMessage());
+        verify(cfgDataMigrationRepo, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testPauseTable() {
+        TableMigrationStep<?, ?> paStep = mockTableStep("PA");
+        when(paStep.isInFlight()).thenReturn(true);
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        setField(fsmExecutor, "sharedState", fsmSharedState);
+
+        fsmExecutor.pauseTable("PA");
+
+        verify(paStep, times(1)).pause();
+    }
+
+    @Test
+    void testPauseTableNotInProgress() {
+        TableMigrationStep<?, ?> paStep = mockTableStep("PA");
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        setField(fsmExecutor, "sharedState", fsmSharedState);
+
+        AppException thrown = assertThrows(AppException.class, () -> fsmExecutor.pauseTable("PA"));
+
+        assertEquals(AppError.TABLE_NOT_IN_PROGRESS.getDetails(), thrown.getMessage());
+        verify(paStep, never()).pause();
+    }
+
+    @Test
+    void testPauseTableAlreadyPaused() {
+        TableMigrationStep<?, ?> paStep = mockTableStep("PA");
+        when(paStep.isInFlight()).thenReturn(true);
+        when(paStep.isPaused()).thenReturn(true);
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        setField(fsmExecutor, "sharedState", fsmSharedState);
+
+        AppException thrown = assertThrows(AppException.class, () -> fsmExecutor.pauseTable("PA"));
+
+        assertEquals(AppError.TABLE_ALREADY_PAUSED.getDetails(), thrown.getMessage());
+    }
+
+    @Test
+    void testPauseTableNotFound() {
+        mockTableStep("PA");
+
+        AppException thrown = assertThrows(AppException.class, () -> fsmExecutor.pauseTable("PSP"));
+
+        assertEquals(AppError.NOT_FOUND_TABLE.getDetails(), thrown.getMessage());
+    }
+
+    @Test
+    void testResumeTable() {
+        TableMigrationStep<?, ?> paStep = mockTableStep("PA");
+        when(paStep.isPaused()).thenReturn(true);
+        when(paStep.isInFlight()).thenReturn(true);
+
+        assertEquals(Set.of("PA"), fsmExecutor.getPausedTables());
+
+        fsmExecutor.resumeTable("PA");
+
+        verify(paStep, times(1)).resume();
+    }
+
+    @Test
+    void testResumeTableNotPaused() {
+        TableMigrationStep<?, ?> paStep = mockTableStep("PA");
+
+        AppException thrown = assertThrows(AppException.class, () -> fsmExecutor.resumeTable("PA"));
+
+        assertEquals(AppError.TABLE_NOT_PAUSED.getDetails(), thrown.getMessage());
+        verify(paStep, never()).resume();
+    }
+
     @Test
     void testForceStopBlockRequested() {
         when(fsmSharedState.isBlockRequested()).thenReturn(true);
@@ -180,4 +412,11 @@ class FSMExecutorTest {
 
         assertEquals(AppError.NOT_FOUND_NO_VALID_MIGRATION_STATUS.getDetails(), thrown.getMessage());
     }
+
+    private TableMigrationStep<?, ?> mockTableStep(String tableName) {
+        TableMigrationStep<?, ?> tableStep = mock(TableMigrationStep.class);
+        lenient().when(tableStep.getTableName()).thenReturn(tableName);
+        when(steps.values()).thenReturn(List.of(step, tableStep));
+        return tableStep;
+    }
 }
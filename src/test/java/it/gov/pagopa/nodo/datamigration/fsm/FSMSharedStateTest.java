@@ -1,10 +1,13 @@
 package it.gov.pagopa.nodo.datamigration.fsm;
 
+import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,6 +23,23 @@ class FSMSharedStateTest {
         assertTrue(fsmSharedState.isBlockRequested());
     }
 
+    @Test
+    void testRequestFinalize() {
+        assertFalse(fsmSharedState.isFinalizeRequested());
+        fsmSharedState.requestFinalize();
+        assertTrue(fsmSharedState.isFinalizeRequested());
+    }
+
+    @Test
+    void testSelectTableSteps() {
+        // all the table steps are selected until the table API chooses some of them
+        assertTrue(fsmSharedState.isTableStepSelected(StepName.EXECUTE_PSP_TABLE_MIGRATION.toString()));
+        fsmSharedState.selectTableSteps(Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION), true);
+        assertTrue(fsmSharedState.isTableStepSelected(StepName.EXECUTE_PA_TABLE_MIGRATION.toString()));
+        assertFalse(fsmSharedState.isTableStepSelected(StepName.EXECUTE_PSP_TABLE_MIGRATION.toString()));
+        assertTrue(fsmSharedState.isRerunRequested());
+    }
+
     @Test
     void testLockAndUnlock() {
         assertFalse(fsmSharedState.isInLock());
@@ -33,13 +53,18 @@ class FSMSharedStateTest {
     void testResetStates() {
         fsmSharedState.setDataMigrationStateId("TestID");
         fsmSharedState.requestBlock();
+        fsmSharedState.requestFinalize();
+        fsmSharedState.selectTableSteps(Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION), true);
         fsmSharedState.lock();
 
         fsmSharedState.resetStates();
 
         assertFalse(fsmSharedState.isBlockRequested());
+        assertFalse(fsmSharedState.isFinalizeRequested());
         assertTrue(fsmSharedState.isInLock());
         assertNull(fsmSharedState.getDataMigrationStateId());
+        assertNull(fsmSharedState.getSelectedTableSteps());
+        assertFalse(fsmSharedState.isRerunRequested());
     }
 
 }
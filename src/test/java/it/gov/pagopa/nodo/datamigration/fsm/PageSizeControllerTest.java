@@ -0,0 +1,68 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageSizeControllerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    @Test
+    void testGrowsOnFastFullPages() {
+        PageSizeController controller = new PageSizeController(100, 50, 200, 100, 0.75, () -> 0.1);
+
+        controller.onPageWritten(100, FAST);
+        assertEquals(150, controller.getPageSize());
+        // a page not full says nothing about a bigger one
+        controller.onPageWritten(20, FAST);
+        assertEquals(150, controller.getPageSize());
+        controller.onPageWritten(150, FAST);
+        controller.onPageWritten(200, FAST);
+        assertEquals(200, controller.getPageSize());
+    }
+
+    @Test
+    void testShrinksOnSlowPages() {
+        PageSizeController controller = new PageSizeController(400, 50, 500, 100, 0.75, () -> 0.1);
+
+        controller.onPageWritten(400, SLOW);
+        assertEquals(200, controller.getPageSize());
+        controller.onPageRead(SLOW);
+        assertEquals(100, controller.getPageSize());
+        controller.onPageRead(FAST);
+        assertEquals(100, controller.getPageSize());
+        controller.onPageRead(SLOW);
+        controller.onPageRead(SLOW);
+        assertEquals(50, controller.getPageSize());
+    }
+
+    @Test
+    void testShrinksOnHighHeapUsage() {
+        PageSizeController controller = new PageSizeController(400, 50, 500, 100, 0.75, () -> 0.9);
+
+        controller.onPageWritten(400, FAST);
+
+        assertEquals(200, controller.getPageSize());
+    }
+
+    @Test
+    void testInitialSizeWithinBounds() {
+        assertEquals(500, new PageSizeController(1000, 50, 500, 100, 0.75, () -> 0.1).getPageSize());
+        assertEquals(50, new PageSizeController(10, 50, 500, 100, 0.75, () -> 0.1).getPageSize());
+    }
+
+    @Test
+    void testFixed() {
+        PageSizeController controller = PageSizeController.fixed(100);
+
+        controller.onPageWritten(100, FAST);
+        controller.onPageRead(Long.MAX_VALUE);
+
+        assertEquals(100, controller.getPageSize());
+    }
+}
@@ -0,0 +1,234 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.enumeration.MigrationStepStatus;
+import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
+import it.gov.pagopa.nodo.datamigration.repository.h2.CfgDataMigrationRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.PostgresDBSystemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+@ExtendWith(MockitoExtension.class)
+class StepSchedulerTest {
+
+    private static final String SCHEMA = "cfg";
+
+    @InjectMocks
+    private StepScheduler stepScheduler;
+
+    @Mock
+    private PostgresDBSystemRepository postgresSystemRepo;
+
+    @Mock
+    private CfgDataMigrationRepository cfgDataMigrationRepo;
+
+    private final FSMSharedState sharedState = new FSMSharedState();
+
+    @BeforeEach
+    void setUp() {
+        setField(stepScheduler, "schema", SCHEMA);
+        setField(stepScheduler, "parallelism", 2);
+        setField(stepScheduler, "sourcePoolSize", 10);
+        setField(stepScheduler, "destinationPoolSize", 10);
+        sharedState.lock();
+        lenient().when(cfgDataMigrationRepo.findById(any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void testExecuteFollowsForeignKeys() {
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        TableMigrationStep<?, ?> stazioni = mockStep(StepName.EXECUTE_STAZIONI_TABLE_MIGRATION, "STAZIONI", executed);
+        TableMigrationStep<?, ?> paStazionePa = mockStep(StepName.EXECUTE_PA_STAZIONE_PA_TABLE_MIGRATION, "PA_STAZIONE_PA", executed);
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, "PA", executed);
+        when(postgresSystemRepo.findForeignKeyReferences(SCHEMA)).thenReturn(List.of(
+                new Object[]{"PA_STAZIONE_PA", "PA"},
+                new Object[]{"PA_STAZIONE_PA", "STAZIONI"},
+                new Object[]{"PA_STAZIONE_PA", "PA_STAZIONE_PA"},
+                new Object[]{"STAZIONI", "INTERMEDIARI_PA"}
+        ));
+
+        StepName result = stepScheduler.execute(List.of(paStazionePa, stazioni, pa), sharedState, cfgDataMigrationRepo);
+
+        assertEquals(StepName.SYNC, result);
+        assertEquals(3, executed.size());
+        assertEquals("PA_STAZIONE_PA", executed.get(2));
+    }
+
+    @Test
+    void testExecuteIndependentStepsConcurrently() {
+        CountDownLatch latch = new CountDownLatch(2);
+        List<Boolean> concurrent = Collections.synchronizedList(new ArrayList<>());
+        TableMigrationStep<?, ?> pdd = mockStep(StepName.EXECUTE_PDD_TABLE_MIGRATION, "PDD");
+        TableMigrationStep<?, ?> ftpServers = mockStep(StepName.EXECUTE_FTP_SERVERS_TABLE_MIGRATION, "FTP_SERVERS");
+        for (TableMigrationStep<?, ?> step : List.of(pdd, ftpServers)) {
+            when(step.call()).thenAnswer(invocation -> {
+                // both the steps must be running in order to pass the latch
+                latch.countDown();
+                concurrent.add(latch.await(10, TimeUnit.SECONDS));
+                return StepName.END;
+            });
+        }
+        when(postgresSystemRepo.findForeignKeyReferences(SCHEMA)).thenReturn(Collections.emptyList());
+
+        StepName result = stepScheduler.execute(List.of(pdd, ftpServers), sharedState, cfgDataMigrationRepo);
+
+        assertEquals(StepName.SYNC, result);
+        assertEquals(List.of(true, true), concurrent);
+    }
+
+    @Test
+    void testExecuteStopsOnError() {
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, "PA");
+        TableMigrationStep<?, ?> ibanMaster = mockStep(StepName.EXECUTE_IBAN_MASTER_TABLE_MIGRATION, "IBAN_MASTER");
+        when(pa.call()).thenReturn(StepName.ERROR);
+        when(postgresSystemRepo.findForeignKeyReferences(SCHEMA)).thenReturn(Collections.singletonList(new Object[]{"IBAN_MASTER", "PA"}));
+
+        StepName result = stepScheduler.execute(List.of(pa, ibanMaster), sharedState, cfgDataMigrationRepo);
+
+        assertEquals(StepName.ERROR, result);
+        verify(ibanMaster, never()).call();
+    }
+
+    @Test
+    void testExecuteUnexpectedError() {
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, "PA");
+        when(pa.call()).thenThrow(new IllegalStateException());
+        when(postgresSystemRepo.findForeignKeyReferences(SCHEMA)).thenReturn(Collections.emptyList());
+
+        StepName result = stepScheduler.execute(List.of(pa), sharedState, cfgDataMigrationRepo);
+
+        assertEquals(StepName.ERROR, result);
+    }
+
+    @Test
+    void testExecuteStopsOnBlockRequest() {
+        setField(stepScheduler, "parallelism", 1);
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, "PA");
+        TableMigrationStep<?, ?> stazioni = mockStep(StepName.EXECUTE_STAZIONI_TABLE_MIGRATION, "STAZIONI");
+        when(pa.call()).thenAnswer(invocation -> {
+            sharedState.requestBlock();
+            return StepName.END;
+        });
+        when(postgresSystemRepo.findForeignKeyReferences(SCHEMA)).thenReturn(Collections.emptyList());
+
+        StepName result = stepScheduler.execute(List.of(stazioni, pa), sharedState, cfgDataMigrationRepo);
+
+        assertEquals(StepName.END, result);
+        verify(stazioni, never()).call();
+    }
+
+    @Test
+    void testExecuteSkipsCompletedSteps() {
+        DataMigration dataMigration = new DataMigration();
+        DataMigrationStatus completedStatus = new DataMigrationStatus();
+        completedStatus.setStatus(MigrationStepStatus.COMPLETED.toString());
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, "PA");
+        TableMigrationStep<?, ?> ibanMaster = mockStep(StepName.EXECUTE_IBAN_MASTER_TABLE_MIGRATION, "IBAN_MASTER");
+        when(pa.getDataMigrationStatus(any())).thenReturn(completedStatus);
+        when(ibanMaster.getDataMigrationStatus(any())).thenReturn(new DataMigrationStatus());
+        when(ibanMaster.call()).thenReturn(StepName.END);
+        when(cfgDataMigrationRepo.findById(any())).thenReturn(Optional.of(dataMigration));
+        when(postgresSystemRepo.findForeignKeyReferences(SCHEMA)).thenReturn(Collections.singletonList(new Object[]{"IBAN_MASTER", "PA"}));
+
+        StepName result = stepScheduler.execute(List.of(pa, ibanMaster), sharedState, cfgDataMigrationRepo);
+
+        assertEquals(StepName.SYNC, result);
+        verify(pa, never()).call();
+        verify(ibanMaster, times(1)).call();
+    }
+
+    @Test
+    void testExecuteCircularDependencies() {
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, "PA");
+        TableMigrationStep<?, ?> stazioni = mockStep(StepName.EXECUTE_STAZIONI_TABLE_MIGRATION, "STAZIONI");
+        when(postgresSystemRepo.findForeignKeyReferences(SCHEMA)).thenReturn(List.of(
+                new Object[]{"PA", "STAZIONI"},
+                new Object[]{"STAZIONI", "PA"}
+        ));
+
+        StepName result = stepScheduler.execute(List.of(pa, stazioni), sharedState, cfgDataMigrationRepo);
+
+        assertEquals(StepName.ERROR, result);
+        verify(pa, never()).call();
+        verify(stazioni, never()).call();
+    }
+
+    @Test
+    void testExecuteForeignKeysNotReadable() {
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, "PA");
+        when(postgresSystemRepo.findForeignKeyReferences(SCHEMA)).thenThrow(new DataAccessResourceFailureException("unreachable"));
+
+        StepName result = stepScheduler.execute(List.of(pa), sharedState, cfgDataMigrationRepo);
+
+        assertEquals(StepName.ERROR, result);
+        verify(pa, never()).call();
+    }
+
+    @Test
+    void testExecuteDeletesRemovedRowsInReverseOrder() {
+        List<String> deleted = Collections.synchronizedList(new ArrayList<>());
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, "PA", new ArrayList<>());
+        TableMigrationStep<?, ?> paStazionePa = mockStep(StepName.EXECUTE_PA_STAZIONE_PA_TABLE_MIGRATION, "PA_STAZIONE_PA", new ArrayList<>());
+        TableMigrationStep<?, ?> pdd = mockStep(StepName.EXECUTE_PDD_TABLE_MIGRATION, "PDD", new ArrayList<>());
+        for (TableMigrationStep<?, ?> step : List.of(pa, paStazionePa)) {
+            when(step.hasRemovedRows()).thenReturn(true);
+            when(step.deleteRemovedRows()).thenAnswer(invocation -> {
+                deleted.add(step.getTableName());
+                return 1;
+            });
+        }
+        when(postgresSystemRepo.findForeignKeyReferences(SCHEMA)).thenReturn(Collections.singletonList(new Object[]{"PA_STAZIONE_PA", "PA"}));
+
+        StepName result = stepScheduler.execute(List.of(pa, paStazionePa, pdd), sharedState, cfgDataMigrationRepo);
+
+        assertEquals(StepName.SYNC, result);
+        // the referencing rows are deleted before the referenced ones
+        assertEquals(List.of("PA_STAZIONE_PA", "PA"), deleted);
+        verify(pdd, never()).deleteRemovedRows();
+    }
+
+    @Test
+    void testExecuteRemovedRowsNotDeletable() {
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, "PA", new ArrayList<>());
+        when(pa.hasRemovedRows()).thenReturn(true);
+        when(pa.deleteRemovedRows()).thenThrow(new DataAccessResourceFailureException("unreachable"));
+        when(postgresSystemRepo.findForeignKeyReferences(SCHEMA)).thenReturn(Collections.emptyList());
+
+        StepName result = stepScheduler.execute(List.of(pa), sharedState, cfgDataMigrationRepo);
+
+        assertEquals(StepName.ERROR, result);
+    }
+
+    private static TableMigrationStep<?, ?> mockStep(StepName stepName, String tableName) {
+        TableMigrationStep<?, ?> step = mock(TableMigrationStep.class);
+        when(step.getStepName()).thenReturn(stepName.toString());
+        when(step.getTableName()).thenReturn(tableName);
+        return step;
+    }
+
+    private static TableMigrationStep<?, ?> mockStep(StepName stepName, String tableName, List<String> executed) {
+        TableMigrationStep<?, ?> step = mockStep(stepName, tableName);
+        when(step.call()).thenAnswer(invocation -> {
+            executed.add(tableName);
+            return StepName.END;
+        });
+        return step;
+    }
+}
@@ -1,36 +1,53 @@
 package it.gov.pagopa.nodo.datamigration.fsm;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.testing.junit5.OpenTelemetryExtension;
+import io.opentelemetry.sdk.trace.data.SpanData;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
 import it.gov.pagopa.nodo.datamigration.entity.cfg.BinaryFile;
+import it.gov.pagopa.nodo.datamigration.enumeration.ResetMode;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
+import it.gov.pagopa.nodo.datamigration.enumeration.WriteMode;
 import it.gov.pagopa.nodo.datamigration.exception.migration.InvalidMigrationStatusException;
 import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationInterruptedStepException;
 import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
 import it.gov.pagopa.nodo.datamigration.fsm.step.ExecuteBinaryFileTableMigrationStep;
 import it.gov.pagopa.nodo.datamigration.repository.oracle.BinaryFileSrcRepository;
+import it.gov.pagopa.nodo.datamigration.repository.KeyRange;
+import it.gov.pagopa.nodo.datamigration.repository.RowCursor;
+import it.gov.pagopa.nodo.datamigration.repository.TableChecksum;
 import it.gov.pagopa.nodo.datamigration.repository.postgres.BinaryFileDestRepository;
 import it.gov.pagopa.nodo.datamigration.repository.h2.CfgDataMigrationRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataAccessException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -38,6 +55,9 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class StepTest {
 
+    @RegisterExtension
+    static final OpenTelemetryExtension otelTesting = OpenTelemetryExtension.create();
+
     @InjectMocks
     @Spy
     private ExecuteBinaryFileTableMigrationStep step;
@@ -81,27 +101,721 @@ class StepTest {
         pageSize.setAccessible(true);
         pageSize.set(step, 1);
 
+        Field writeMode = step.getClass().getDeclaredField("WRITE_MODE");
+        writeMode.setAccessible(true);
+        writeMode.set(step, WriteMode.INSERT);
+
+        setPartitions(1);
+        setPageBytes(0);
+        setDedupCacheBytes(0);
+
         lenient().when(cfgDataMigrationRepository.findById(any())).thenReturn(Optional.of(dataMigration));
         step.attachSharedState(fsmSharedState, cfgDataMigrationRepository);
     }
 
     @Test
     void testExecuteStep() {
-        when(srcRepo.findAll(any(Pageable.class))).thenReturn(createMockPage());
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(createMockPage());
+
+        assertDoesNotThrow(() -> step.executeStep());
+    }
+
+    @Test
+    void testExecuteStepReadsNextPageAfterLastKey() {
+        List<BinaryFile> firstPage = Collections.singletonList(new BinaryFile());
+        List<BinaryFile> lastPage = Collections.singletonList(new BinaryFile());
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findFirstPage(1)).thenReturn(new SliceImpl<>(firstPage, Pageable.ofSize(1), true));
+        when(srcRepo.getKey(firstPage.get(0))).thenReturn(10L);
+        when(srcRepo.findPageAfter(10L, 1)).thenReturn(new SliceImpl<>(lastPage, Pageable.ofSize(1), false));
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the last slice has no next page, so no further query is executed
+        verify(srcRepo, times(1)).findPageAfter(anyLong(), anyInt());
+        verify(destRepo, times(1)).insertAllAndFlush(firstPage);
+        verify(destRepo, times(1)).insertAllAndFlush(lastPage);
+        assertEquals(2L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    void testExecuteStepUpsertsOnNotEmptyDestination() {
+        Slice<BinaryFile> page = createMockPage();
+        when(destRepo.count()).thenReturn(1L);
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(page);
 
         assertDoesNotThrow(() -> step.executeStep());
+
+        // the rows already written by the previous execution are updated, without reading them back
+        verify(destRepo, times(1)).upsertAllAndFlush(page.getContent());
+        verify(destRepo, never()).saveAllAndFlush(any());
+        verify(destRepo, never()).insertAllAndFlush(any());
+    }
+
+    @Test
+    void testExecuteStepWritesWithCopy() throws IllegalAccessException, NoSuchFieldException {
+        Slice<BinaryFile> page = createMockPage();
+        Field writeMode = step.getClass().getDeclaredField("WRITE_MODE");
+        writeMode.setAccessible(true);
+        writeMode.set(step, WriteMode.COPY);
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(page);
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        verify(destRepo, times(1)).copyAllAndFlush(page.getContent());
+        verify(destRepo, never()).insertAllAndFlush(any());
+    }
+
+    @Test
+    void testExecuteStepWritesWithJdbc() throws IllegalAccessException, NoSuchFieldException {
+        setWriteMode(WriteMode.JDBC);
+        List<Object[]> firstRows = Collections.singletonList(new Object[]{4L, "first"});
+        List<Object[]> lastRows = Collections.singletonList(new Object[]{7L, "last"});
+        KeyRange keyRange = new KeyRange(1, 10);
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(keyRange));
+        when(srcRepo.findRowsInRange(keyRange, null, 1)).thenReturn(new SliceImpl<>(firstRows, Pageable.ofSize(1), true));
+        when(srcRepo.findRowsInRange(keyRange, 4L, 1)).thenReturn(new SliceImpl<>(lastRows, Pageable.ofSize(1), false));
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the rows are copied as they are read, and their key is the first value
+        verify(destRepo, times(1)).insertRowsAndFlush(firstRows);
+        verify(destRepo, times(1)).insertRowsAndFlush(lastRows);
+        verify(srcRepo, never()).findFirstPageInRange(any(), anyInt());
+        verify(destRepo, never()).insertAllAndFlush(any());
+        assertEquals(Map.of(1L, 7L), dataMigrationStatus.getCheckpoints());
+        assertEquals(2L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    void testExecuteStepClosesPagesOnByteBudget() throws IllegalAccessException, NoSuchFieldException {
+        setPageSize(10);
+        setPageBytes(1024);
+        List<BinaryFile> firstPage = List.of(new BinaryFile(), new BinaryFile());
+        List<BinaryFile> lastPage = Collections.singletonList(new BinaryFile());
+        KeyRange keyRange = new KeyRange(1, 10);
+        List<String> sizeColumns = List.of("FILE_SIZE", "XML_FILE_CONTENT");
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(keyRange));
+        when(srcRepo.findPageRangeWithinBytes(keyRange, null, 10, sizeColumns, 1024)).thenReturn(Optional.of(new KeyRange(1, 4)));
+        when(srcRepo.findFirstPageInRange(new KeyRange(1, 4), 10)).thenReturn(new SliceImpl<>(firstPage, Pageable.ofSize(10), false));
+        when(srcRepo.getKey(any())).thenReturn(4L, 4L, 9L, 9L);
+        when(srcRepo.findPageRangeWithinBytes(keyRange, 4L, 10, sizeColumns, 1024)).thenReturn(Optional.of(new KeyRange(1, 9)));
+        when(srcRepo.findPageAfterInRange(4L, new KeyRange(1, 9), 10)).thenReturn(new SliceImpl<>(lastPage, Pageable.ofSize(10), false));
+        when(srcRepo.findPageRangeWithinBytes(keyRange, 9L, 10, sizeColumns, 1024)).thenReturn(Optional.empty());
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // each page ends on the last key within the budget, and the next one is read until no row is left in the range
+        verify(destRepo, times(1)).insertAllAndFlush(firstPage);
+        verify(destRepo, times(1)).insertAllAndFlush(lastPage);
+        verify(srcRepo, times(3)).findPageRangeWithinBytes(any(), any(), anyInt(), any(), anyLong());
+        assertEquals(Map.of(1L, 9L), dataMigrationStatus.getCheckpoints());
+        assertEquals(3L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExecuteStepWritesWithStream() throws IllegalAccessException, NoSuchFieldException {
+        setWriteMode(WriteMode.STREAM);
+        enablePipeline();
+        KeyRange keyRange = new KeyRange(1, 10);
+        RowCursor rows = mock(RowCursor.class);
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(keyRange));
+        when(srcRepo.streamRowsInRange(eq(keyRange), isNull(), eq(1), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<RowCursor>>getArgument(3).accept(rows);
+            return new SliceImpl<>(List.of(4L), Pageable.ofSize(1), true);
+        });
+        when(srcRepo.streamRowsInRange(eq(keyRange), eq(4L), eq(1), any())).thenReturn(new SliceImpl<>(List.of(7L), Pageable.ofSize(1), false));
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the rows are copied by the destination while the source reads them, so the step only keeps the checkpoints
+        verify(destRepo, times(1)).copyRowsAndFlush(rows);
+        verify(destRepo, never()).insertRowsAndFlush(any());
+        verify(destRepo, never()).insertAllAndFlush(any());
+        assertEquals(Map.of(1L, 7L), dataMigrationStatus.getCheckpoints());
+        assertEquals(2L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExecuteStepWritesWithStreamDeduplicated() throws IllegalAccessException, NoSuchFieldException {
+        setWriteMode(WriteMode.STREAM);
+        setDedupCacheBytes(1024);
+        KeyRange keyRange = new KeyRange(1, 10);
+        RowCursor rows = mock(RowCursor.class);
+        when(rows.getColumns()).thenReturn(List.of("OBJ_ID", "FILE_CONTENT", "FILE_HASH", "FILE_SIZE"));
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(keyRange));
+        when(srcRepo.streamRowsInRange(eq(keyRange), isNull(), eq(1), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<RowCursor>>getArgument(3).accept(rows);
+            return new SliceImpl<>(List.of(4L), Pageable.ofSize(1), false);
+        });
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the destination gets the cursor that takes the duplicated payloads from the cache of the step
+        verify(destRepo, times(1)).copyRowsAndFlush(argThat(cursor -> cursor != rows));
+        assertEquals(1L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    void testExecuteStepJdbcKeyNotSplittable() throws IllegalAccessException, NoSuchFieldException {
+        setWriteMode(WriteMode.JDBC);
+        Slice<BinaryFile> page = createMockPage();
+        when(srcRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(page);
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // without key ranges the rows cannot be read as plain values, so they are inserted as entities
+        verify(destRepo, times(1)).insertAllAndFlush(page.getContent());
+        verify(srcRepo, never()).findRowsInRange(any(), any(), anyInt());
+    }
+
+    @Test
+    void testExecuteStepPipelined() throws IllegalAccessException, NoSuchFieldException {
+        enablePipeline();
+        List<BinaryFile> firstPage = Collections.singletonList(new BinaryFile());
+        List<BinaryFile> lastPage = Collections.singletonList(new BinaryFile());
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findFirstPage(1)).thenReturn(new SliceImpl<>(firstPage, Pageable.ofSize(1), true));
+        when(srcRepo.getKey(firstPage.get(0))).thenReturn(10L);
+        when(srcRepo.findPageAfter(10L, 1)).thenReturn(new SliceImpl<>(lastPage, Pageable.ofSize(1), false));
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        verify(destRepo, times(1)).insertAllAndFlush(firstPage);
+        verify(destRepo, times(1)).insertAllAndFlush(lastPage);
+        assertEquals(2L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    void testExecuteStepPipelinedStopsOnBlockRequest() throws IllegalAccessException, NoSuchFieldException {
+        enablePipeline();
+        List<BinaryFile> firstPage = Collections.singletonList(new BinaryFile());
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        // the block is requested while the first page is written
+        AtomicBoolean blockRequested = new AtomicBoolean(false);
+        when(fsmSharedState.isBlockRequested()).thenAnswer(invocation -> blockRequested.get());
+        doAnswer(invocation -> {
+            blockRequested.set(true);
+            return null;
+        }).when(destRepo).insertAllAndFlush(any());
+        when(srcRepo.findFirstPage(1)).thenReturn(new SliceImpl<>(firstPage, Pageable.ofSize(1), true));
+        lenient().when(srcRepo.findPageAfter(any(), anyInt())).thenReturn(new SliceImpl<>(Collections.singletonList(new BinaryFile()), Pageable.ofSize(1), true));
+
+        assertThrows(MigrationInterruptedStepException.class, () -> step.executeStep());
+
+        verify(destRepo, times(1)).insertAllAndFlush(any());
+        verify(destRepo, times(1)).insertAllAndFlush(firstPage);
+    }
+
+    @Test
+    void testExecuteStepPipelinedReaderDataAccessException() throws IllegalAccessException, NoSuchFieldException {
+        enablePipeline();
+        when(srcRepo.findFirstPage(anyInt())).thenThrow(new DataAccessException("Test Exception") {});
+
+        assertThrows(MigrationStepException.class, () -> step.executeStep());
+
+        verify(destRepo, never()).insertAllAndFlush(any());
+        assertEquals("FAILED", dataMigrationStatus.getStatus());
+    }
+
+    @Test
+    void testExecuteStepPartitioned() throws IllegalAccessException, NoSuchFieldException {
+        setPartitions(2);
+        List<BinaryFile> firstRange = Collections.singletonList(new BinaryFile());
+        List<BinaryFile> secondRange = Collections.singletonList(new BinaryFile());
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(new KeyRange(1, 10)));
+        when(srcRepo.findFirstPageInRange(new KeyRange(1, 5), 1)).thenReturn(new SliceImpl<>(firstRange, Pageable.ofSize(1), false));
+        when(srcRepo.findFirstPageInRange(new KeyRange(6, 10), 1)).thenReturn(new SliceImpl<>(secondRange, Pageable.ofSize(1), false));
+        when(srcRepo.getKey(firstRange.get(0))).thenReturn(1L);
+        when(srcRepo.getKey(secondRange.get(0))).thenReturn(6L);
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        verify(destRepo, times(1)).insertAllAndFlush(firstRange);
+        verify(destRepo, times(1)).insertAllAndFlush(secondRange);
+        verify(srcRepo, never()).findFirstPage(anyInt());
+        assertEquals(2L, dataMigrationStatus.getRecords());
+        assertEquals(Map.of(1L, 1L, 6L, 6L), dataMigrationStatus.getCheckpoints());
+    }
+
+    @Test
+    void testExecuteStepPartitionedReadsNextPageInRange() throws IllegalAccessException, NoSuchFieldException {
+        setPartitions(2);
+        KeyRange firstRange = new KeyRange(1, 1);
+        KeyRange secondRange = new KeyRange(2, 2);
+        List<BinaryFile> firstPage = Collections.singletonList(new BinaryFile());
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(new KeyRange(1, 2)));
+        when(srcRepo.findFirstPageInRange(firstRange, 1)).thenReturn(new SliceImpl<>(firstPage, Pageable.ofSize(1), true));
+        when(srcRepo.getKey(firstPage.get(0))).thenReturn(1L);
+        when(srcRepo.findPageAfterInRange(1L, firstRange, 1)).thenReturn(new SliceImpl<>(Collections.emptyList(), Pageable.ofSize(1), false));
+        when(srcRepo.findFirstPageInRange(secondRange, 1)).thenReturn(new SliceImpl<>(Collections.emptyList(), Pageable.ofSize(1), false));
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        verify(srcRepo, times(1)).findPageAfterInRange(1L, firstRange, 1);
+        verify(srcRepo, never()).findPageAfter(any(), anyInt());
+        assertEquals(1L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    void testExecuteStepSavesCheckpoints() {
+        List<BinaryFile> firstPage = Collections.singletonList(new BinaryFile());
+        List<BinaryFile> lastPage = Collections.singletonList(new BinaryFile());
+        KeyRange keyRange = new KeyRange(1, 10);
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(keyRange));
+        when(srcRepo.findFirstPageInRange(keyRange, 1)).thenReturn(new SliceImpl<>(firstPage, Pageable.ofSize(1), true));
+        when(srcRepo.getKey(firstPage.get(0))).thenReturn(4L);
+        when(srcRepo.findPageAfterInRange(4L, keyRange, 1)).thenReturn(new SliceImpl<>(lastPage, Pageable.ofSize(1), false));
+        when(srcRepo.getKey(lastPage.get(0))).thenReturn(7L);
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        verify(destRepo, never()).deleteAllInKeyRange(any());
+        // a checkpoint is saved after each page
+        verify(cfgDataMigrationRepository, atLeast(2)).saveAndFlush(dataMigration);
+        assertEquals(Map.of(1L, 7L), dataMigrationStatus.getCheckpoints());
+        assertEquals(2L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    void testExecuteStepSavesCheckpointsEveryFewPages() throws IllegalAccessException, NoSuchFieldException {
+        setCheckpointInterval(10, 60000);
+        List<BinaryFile> firstPage = Collections.singletonList(new BinaryFile());
+        List<BinaryFile> secondPage = Collections.singletonList(new BinaryFile());
+        List<BinaryFile> lastPage = Collections.singletonList(new BinaryFile());
+        KeyRange keyRange = new KeyRange(1, 10);
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(keyRange));
+        when(srcRepo.findFirstPageInRange(keyRange, 1)).thenReturn(new SliceImpl<>(firstPage, Pageable.ofSize(1), true));
+        when(srcRepo.getKey(firstPage.get(0))).thenReturn(4L);
+        when(srcRepo.findPageAfterInRange(4L, keyRange, 1)).thenReturn(new SliceImpl<>(secondPage, Pageable.ofSize(1), true));
+        when(srcRepo.getKey(secondPage.get(0))).thenReturn(7L);
+        when(srcRepo.findPageAfterInRange(7L, keyRange, 1)).thenReturn(new SliceImpl<>(lastPage, Pageable.ofSize(1), false));
+        when(srcRepo.getKey(lastPage.get(0))).thenReturn(9L);
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the status is saved on start, once for the checkpoints of the three pages, then for the page size and on end
+        verify(cfgDataMigrationRepository, times(4)).saveAndFlush(dataMigration);
+        assertEquals(Map.of(1L, 9L), dataMigrationStatus.getCheckpoints());
+        assertEquals(3L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    void testExecuteStepTracksProgress() {
+        dataMigrationStatus.setCheckpoints(new HashMap<>(Map.of(1L, 5L)));
+        List<BinaryFile> page = List.of(new BinaryFile(), new BinaryFile());
+        KeyRange keyRange = new KeyRange(1, 10);
+        when(srcRepo.count()).thenReturn(10L);
+        when(destRepo.count()).thenReturn(5L);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(keyRange));
+        when(srcRepo.findPageAfterInRange(5L, keyRange, 1)).thenReturn(new SliceImpl<>(page, Pageable.ofSize(1), false));
+        when(srcRepo.getKey(page.get(1))).thenReturn(7L);
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the rows migrated before the restart are counted, but only the written ones make the throughput
+        TableProgress progress = step.getProgress();
+        assertTrue(progress.isEnded());
+        assertEquals(7L, progress.getRecords());
+        assertEquals(10L, progress.getSourceRecords());
+        assertTrue(progress.getRecordsPerSecond() > 0);
+        assertNull(progress.getBytesPerSecond());
+        assertNull(progress.getEtaSeconds());
+    }
+
+    @Test
+    void testExecuteStepRecordsMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            List<BinaryFile> page = List.of(new BinaryFile(), new BinaryFile());
+            KeyRange keyRange = new KeyRange(1, 10);
+            when(srcRepo.findKeyRange()).thenReturn(Optional.of(keyRange));
+            when(srcRepo.findFirstPageInRange(keyRange, 1)).thenReturn(new SliceImpl<>(page, Pageable.ofSize(1), false));
+            when(srcRepo.getKey(page.get(1))).thenReturn(7L);
+
+            StepName result = step.call();
+
+            assertEquals(step.getNextState(), result);
+            assertEquals(1, registry.get("migration.page.read").tag("table", "BINARY_FILE").timer().count());
+            assertEquals(1, registry.get("migration.page.write").tag("table", "BINARY_FILE").timer().count());
+            assertEquals(2, registry.get("migration.rows").tag("table", "BINARY_FILE").counter().count());
+            assertEquals(1, registry.get("migration.status.write").tag("step", "EXECUTE_BINARY_FILE_TABLE_MIGRATION").timer().count());
+            assertEquals(1, registry.get("migration.step").tag("step", "EXECUTE_BINARY_FILE_TABLE_MIGRATION").timer().count());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    @Test
+    void testCallTracesPages() {
+        List<BinaryFile> page = List.of(new BinaryFile(), new BinaryFile());
+        KeyRange keyRange = new KeyRange(1, 10);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(keyRange));
+        when(srcRepo.findFirstPageInRange(keyRange, 1)).thenReturn(new SliceImpl<>(page, Pageable.ofSize(1), false));
+        when(srcRepo.getKey(page.get(1))).thenReturn(7L);
+
+        step.call();
+
+        // each page read and written is a child span of the step
+        List<SpanData> spans = otelTesting.getSpans();
+        SpanData stepSpan = spans.stream().filter(span -> span.getName().equals("EXECUTE_BINARY_FILE_TABLE_MIGRATION")).findFirst().orElseThrow();
+        SpanData readSpan = spans.stream().filter(span -> span.getName().equals("read page BINARY_FILE")).findFirst().orElseThrow();
+        SpanData writeSpan = spans.stream().filter(span -> span.getName().equals("write page BINARY_FILE")).findFirst().orElseThrow();
+        assertEquals(stepSpan.getSpanId(), readSpan.getParentSpanId());
+        assertEquals(stepSpan.getSpanId(), writeSpan.getParentSpanId());
+        assertEquals(2L, readSpan.getAttributes().get(AttributeKey.longKey("migration.page.rows")));
+        assertEquals(1L, readSpan.getAttributes().get(AttributeKey.longKey("migration.page.range.lower_bound")));
+        assertEquals(10L, readSpan.getAttributes().get(AttributeKey.longKey("migration.page.range.upper_bound")));
+        assertEquals(2L, writeSpan.getAttributes().get(AttributeKey.longKey("migration.page.rows")));
+        assertEquals("7", writeSpan.getAttributes().get(AttributeKey.stringKey("migration.page.last_key")));
+    }
+
+    @Test
+    void testExecuteStepAdaptsPageSize() throws IllegalAccessException, NoSuchFieldException {
+        enableAdaptiveBatch(1, 4);
+        List<BinaryFile> firstPage = Collections.singletonList(new BinaryFile());
+        List<BinaryFile> lastPage = List.of(new BinaryFile(), new BinaryFile());
+        KeyRange keyRange = new KeyRange(1, 10);
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(keyRange));
+        when(srcRepo.findFirstPageInRange(keyRange, 1)).thenReturn(new SliceImpl<>(firstPage, Pageable.ofSize(1), true));
+        when(srcRepo.getKey(firstPage.get(0))).thenReturn(4L);
+        when(srcRepo.findPageAfterInRange(4L, keyRange, 2)).thenReturn(new SliceImpl<>(lastPage, Pageable.ofSize(2), false));
+        when(srcRepo.getKey(lastPage.get(1))).thenReturn(7L);
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // each full page written within the target latency grows the next one
+        verify(destRepo, times(1)).insertAllAndFlush(lastPage);
+        assertEquals(3L, dataMigrationStatus.getRecords());
+        assertEquals(3, dataMigrationStatus.getPageSize());
+    }
+
+    @Test
+    void testExecuteStepResumesFromCheckpoint() {
+        dataMigrationStatus.setCheckpoints(new HashMap<>(Map.of(1L, 5L)));
+        List<BinaryFile> page = Collections.singletonList(new BinaryFile());
+        KeyRange keyRange = new KeyRange(1, 10);
+        when(destRepo.count()).thenReturn(7L, 5L);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(keyRange));
+        when(srcRepo.findPageAfterInRange(5L, keyRange, 1)).thenReturn(new SliceImpl<>(page, Pageable.ofSize(1), false));
+        when(srcRepo.getKey(page.get(0))).thenReturn(6L);
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the rows written after the checkpoint are deleted, then the rows are inserted again from the checkpoint
+        verify(destRepo, times(1)).deleteAllInKeyRange(new KeyRange(6, 10));
+        verify(srcRepo, never()).findFirstPageInRange(any(), anyInt());
+        verify(destRepo, times(1)).insertAllAndFlush(page);
+        verify(destRepo, never()).saveAllAndFlush(any());
+        assertEquals(Map.of(1L, 6L), dataMigrationStatus.getCheckpoints());
+        assertEquals(6L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    void testExecuteStepPartitionedResumesFromCheckpoints() throws IllegalAccessException, NoSuchFieldException {
+        setPartitions(2);
+        dataMigrationStatus.setCheckpoints(new HashMap<>(Map.of(1L, 3L)));
+        when(destRepo.count()).thenReturn(4L, 3L);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(new KeyRange(1, 10)));
+        when(srcRepo.findPageAfterInRange(3L, new KeyRange(1, 5), 1)).thenReturn(new SliceImpl<>(Collections.emptyList(), Pageable.ofSize(1), false));
+        when(srcRepo.findFirstPageInRange(new KeyRange(6, 10), 1)).thenReturn(new SliceImpl<>(Collections.emptyList(), Pageable.ofSize(1), false));
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the range without checkpoint is deleted as a whole
+        verify(destRepo, times(1)).deleteAllInKeyRange(new KeyRange(4, 5));
+        verify(destRepo, times(1)).deleteAllInKeyRange(new KeyRange(6, 10));
+        assertEquals(3L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    void testExecuteStepPartitionedKeyNotSplittable() throws IllegalAccessException, NoSuchFieldException {
+        setPartitions(2);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(createMockPage());
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        verify(srcRepo, never()).findFirstPageInRange(any(), anyInt());
+        assertEquals(1L, dataMigrationStatus.getRecords());
+    }
+
+    @Test
+    void testExecuteStepPartitionedWorkerDataAccessException() throws IllegalAccessException, NoSuchFieldException {
+        setPartitions(2);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(new KeyRange(1, 10)));
+        when(srcRepo.findFirstPageInRange(any(), anyInt())).thenThrow(new DataAccessException("Test Exception") {});
+
+        assertThrows(MigrationStepException.class, () -> step.executeStep());
+
+        verify(destRepo, never()).insertAllAndFlush(any());
+        assertEquals("FAILED", dataMigrationStatus.getStatus());
+    }
+
+    @Test
+    void testExecuteStepIncremental() throws IllegalAccessException, NoSuchFieldException {
+        enableIncremental();
+        BinaryFile changed = new BinaryFile();
+        BinaryFile inserted = new BinaryFile();
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(new KeyRange(1, 4)));
+        when(destRepo.findKeyRange()).thenReturn(Optional.of(new KeyRange(1, 5)));
+        when(srcRepo.computeChecksumInRange(new KeyRange(1, 5))).thenReturn(new TableChecksum(4, 10));
+        when(destRepo.computeChecksumInRange(new KeyRange(1, 5))).thenReturn(new TableChecksum(4, 11));
+        when(srcRepo.findRowHashesInRange(new KeyRange(1, 5), 100)).thenReturn(Map.of(1L, 1L, 2L, 2L, 3L, 3L, 4L, 4L));
+        when(destRepo.findRowHashesInRange(new KeyRange(1, 5), 100)).thenReturn(Map.of(1L, 1L, 2L, 9L, 3L, 3L, 5L, 5L));
+        when(srcRepo.findAllByKeys(List.of(2L))).thenReturn(List.of(changed));
+        when(srcRepo.findAllByKeys(List.of(4L))).thenReturn(List.of(inserted));
+        when(srcRepo.getKey(changed)).thenReturn(2L);
+        when(srcRepo.getKey(inserted)).thenReturn(4L);
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // only the changed and the inserted rows are read by their keys and written, and the removed one is deleted only on request
+        verify(destRepo, times(1)).upsertAllAndFlush(List.of(changed));
+        verify(destRepo, times(1)).upsertAllAndFlush(List.of(inserted));
+        verify(srcRepo, never()).findFirstPageInRange(any(), anyInt());
+        verify(destRepo, never()).insertAllAndFlush(any());
+        verify(destRepo, never()).deleteAllByIdInBatch(any());
+        assertEquals(2L, dataMigrationStatus.getRecords());
+        assertTrue(step.hasRemovedRows());
+
+        assertEquals(1, step.deleteRemovedRows());
+
+        verify(destRepo, times(1)).deleteAllByIdInBatch(List.of(5L));
+        assertFalse(step.hasRemovedRows());
+    }
+
+    @Test
+    void testExecuteStepIncrementalByChangeNumber() throws IllegalAccessException, NoSuchFieldException {
+        enableIncremental();
+        dataMigrationStatus.setChangeNumber(100L);
+        BinaryFile changed = new BinaryFile();
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findCurrentChangeNumber()).thenReturn(Optional.of(200L));
+        when(srcRepo.findKeysChangedSince(100L, 100)).thenReturn(List.of(2L));
+        when(srcRepo.findAllByKeys(List.of(2L))).thenReturn(List.of(changed));
+        when(srcRepo.getKey(changed)).thenReturn(2L);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.of(new KeyRange(1, 4)));
+        when(destRepo.findKeyRange()).thenReturn(Optional.of(new KeyRange(1, 5)));
+        when(srcRepo.computeKeyChecksumInRange(new KeyRange(1, 5))).thenReturn(new TableChecksum(4, 10));
+        when(destRepo.computeKeyChecksumInRange(new KeyRange(1, 5))).thenReturn(new TableChecksum(5, 15));
+        when(srcRepo.findKeyHashesInRange(new KeyRange(1, 5), 100)).thenReturn(Map.of(1L, 1L, 2L, 2L, 3L, 3L, 4L, 4L));
+        when(destRepo.findKeyHashesInRange(new KeyRange(1, 5), 100)).thenReturn(Map.of(1L, 1L, 2L, 2L, 3L, 3L, 4L, 4L, 5L, 5L));
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the changed rows are found by SCN, and the removed ones comparing only the keys
+        verify(destRepo, times(1)).upsertAllAndFlush(List.of(changed));
+        verify(srcRepo, never()).computeChecksumInRange(any());
+        verify(srcRepo, never()).findRowHashesInRange(any(), anyInt());
+        assertEquals(1L, dataMigrationStatus.getRecords());
+        assertEquals(200L, dataMigrationStatus.getChangeNumber());
+        assertTrue(step.hasRemovedRows());
+    }
+
+    @Test
+    void testExecuteStepStoresChangeNumber() throws IllegalAccessException, NoSuchFieldException {
+        enableSync();
+        when(srcRepo.findCurrentChangeNumber()).thenReturn(Optional.of(200L));
+        when(srcRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(createMockPage());
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        assertEquals(200L, dataMigrationStatus.getChangeNumber());
+    }
+
+    @Test
+    void testExecuteStepResumedKeepsChangeNumber() throws IllegalAccessException, NoSuchFieldException {
+        enableSync();
+        dataMigrationStatus.setChangeNumber(100L);
+        lenient().when(srcRepo.findCurrentChangeNumber()).thenReturn(Optional.of(200L));
+        when(srcRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(createMockPage());
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the rows changed after the first start are found by the next incremental migration
+        assertEquals(100L, dataMigrationStatus.getChangeNumber());
+    }
+
+    @Test
+    void testExecuteStepWithoutSyncReadsNoChangeNumber() {
+        when(srcRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(createMockPage());
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the SCN is not needed, so the grant on V$DATABASE is not required either
+        verify(srcRepo, never()).findCurrentChangeNumber();
+        assertNull(dataMigrationStatus.getChangeNumber());
+    }
+
+    @Test
+    void testExecuteStepChangeNumberNotReadable() throws IllegalAccessException, NoSuchFieldException {
+        enableSync();
+        when(srcRepo.findCurrentChangeNumber()).thenThrow(new InvalidDataAccessResourceUsageException("ORA-00942: table or view does not exist"));
+        when(srcRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(createMockPage());
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the table is migrated anyway, and it will be compared row by row by the next incremental migration
+        assertEquals("COMPLETED", dataMigrationStatus.getStatus());
+        assertNull(dataMigrationStatus.getChangeNumber());
+    }
+
+    @Test
+    void testExecuteStepIncrementalKeyNotSplittable() throws IllegalAccessException, NoSuchFieldException {
+        enableIncremental();
+        when(srcRepo.count()).thenReturn(1L);
+        when(destRepo.count()).thenReturn(2L);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(destRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(srcRepo.computeChecksum()).thenReturn(new TableChecksum(1, 42));
+        when(destRepo.computeChecksum()).thenReturn(new TableChecksum(2, 43));
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(createMockPage());
+        when(srcRepo.findAllKeys()).thenReturn(List.of(1L));
+        when(destRepo.findAllKeys()).thenReturn(List.of(1L, 2L));
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // the table is upserted again as a whole, and only the row removed from the source table is deleted, on request
+        verify(destRepo, never()).deleteAllInBatch();
+        verify(destRepo, times(1)).upsertAllAndFlush(any());
+        verify(destRepo, never()).insertAllAndFlush(any());
+        assertTrue(step.hasRemovedRows());
+
+        assertEquals(1, step.deleteRemovedRows());
+
+        verify(destRepo, times(1)).deleteAllByIdInBatch(List.of(2L));
+    }
+
+    @Test
+    void testSynchronizeKeyNotSplittableMatching() throws IllegalAccessException, NoSuchFieldException, MigrationStepException {
+        enableIncremental();
+        when(srcRepo.count()).thenReturn(1L);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(destRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(srcRepo.computeChecksum()).thenReturn(new TableChecksum(1, 42));
+        when(destRepo.computeChecksum()).thenReturn(new TableChecksum(1, 42));
+
+        assertEquals(0, step.synchronize(true));
+
+        // the rows of the table match, so they are not migrated again, and the status of the step is not touched
+        verify(destRepo, never()).deleteAllInBatch();
+        verify(srcRepo, never()).findFirstPage(anyInt());
+        verify(cfgDataMigrationRepository, never()).saveAndFlush(any());
+        assertNull(step.getProgress());
+    }
+
+    @Test
+    void testSynchronizeByChangeNumber() throws IllegalAccessException, NoSuchFieldException, MigrationStepException {
+        enableIncremental();
+        dataMigrationStatus.setChangeNumber(100L);
+        BinaryFile changed = new BinaryFile();
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findCurrentChangeNumber()).thenReturn(Optional.of(200L));
+        when(srcRepo.findKeysChangedSince(100L, 100)).thenReturn(List.of(2L));
+        when(srcRepo.findAllByKeys(List.of(2L))).thenReturn(List.of(changed));
+        when(srcRepo.getKey(changed)).thenReturn(2L);
+
+        assertEquals(1, step.synchronize(false));
+
+        // a round before the last one writes only the rows changed since the SCN, without comparing the tables
+        verify(destRepo, times(1)).upsertAllAndFlush(List.of(changed));
+        verify(srcRepo, never()).findKeyRange();
+        verify(srcRepo, never()).computeKeyChecksumInRange(any());
+        assertEquals(200L, dataMigrationStatus.getChangeNumber());
+        assertFalse(step.hasRemovedRows());
+    }
+
+    @Test
+    void testExecuteStepRerun() throws IllegalAccessException, NoSuchFieldException {
+        enableIncremental();
+        Field resetMode = TableMigrationStep.class.getDeclaredField("resetMode");
+        resetMode.setAccessible(true);
+        resetMode.set(step, ResetMode.DELETE);
+        when(fsmSharedState.isRerunRequested()).thenReturn(true);
+        when(srcRepo.count()).thenReturn(1L);
+        when(srcRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(destRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(srcRepo.computeChecksum()).thenReturn(new TableChecksum(1, 42));
+        when(destRepo.computeChecksum()).thenReturn(new TableChecksum(1, 42));
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        // a rerun table is compared as the incremental migration does, so its matching rows are not written again
+        verify(destRepo, never()).deleteAllInBatch();
+        verify(srcRepo, never()).findFirstPage(anyInt());
+        assertEquals("COMPLETED", dataMigrationStatus.getStatus());
+    }
+
+    @Test
+    void testExecuteStepPausedBetweenPages() throws InterruptedException {
+        List<BinaryFile> firstPage = Collections.singletonList(new BinaryFile());
+        List<BinaryFile> lastPage = Collections.singletonList(new BinaryFile());
+        CountDownLatch paused = new CountDownLatch(1);
+        when(fsmSharedState.isInLock()).thenReturn(true);
+        when(srcRepo.findFirstPage(1)).thenReturn(new SliceImpl<>(firstPage, Pageable.ofSize(1), true));
+        when(srcRepo.getKey(firstPage.get(0))).thenReturn(10L);
+        when(srcRepo.findPageAfter(10L, 1)).thenReturn(new SliceImpl<>(lastPage, Pageable.ofSize(1), false));
+        doAnswer(invocation -> {
+            step.pause();
+            paused.countDown();
+            return null;
+        }).when(destRepo).insertAllAndFlush(firstPage);
+
+        Thread execution = new Thread(() -> assertDoesNotThrow(() -> step.executeStep()));
+        execution.start();
+        assertTrue(paused.await(5, TimeUnit.SECONDS));
+
+        // the next page is not read until the step is resumed
+        verify(srcRepo, after(200).never()).findPageAfter(anyLong(), anyInt());
+        assertTrue(step.isInFlight());
+        assertTrue(step.isPaused());
+
+        step.resume();
+        execution.join(5000);
+
+        verify(destRepo, times(1)).insertAllAndFlush(lastPage);
+        assertEquals(2L, dataMigrationStatus.getRecords());
+        assertFalse(step.isInFlight());
+    }
+
+    @Test
+    void testExecuteStepCountsSourceRecordsOnce() {
+        when(srcRepo.count()).thenReturn(42L);
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(createMockPage());
+
+        assertDoesNotThrow(() -> step.executeStep());
+
+        verify(srcRepo, times(1)).count();
+        assertEquals(42L, dataMigrationStatus.getSourceRecords());
     }
 
     @Test
     void testExecuteStepDataAccessException() {
-        when(srcRepo.findAll(any(Pageable.class))).thenThrow(new DataAccessException("Test Exception") {});
+        when(srcRepo.findFirstPage(anyInt())).thenThrow(new DataAccessException("Test Exception") {});
 
         assertThrows(MigrationStepException.class, () -> step.executeStep());
     }
 
     @Test
     void testCall() {
-        when(srcRepo.findAll(any(Pageable.class))).thenReturn(createMockPage());
+        when(srcRepo.findFirstPage(anyInt())).thenReturn(createMockPage());
 
         StepName result = step.call();
 
@@ -137,12 +851,10 @@ class StepTest {
         when(fsmSharedState.isBlockRequested()).thenReturn(false);
         when(fsmSharedState.isInLock()).thenReturn(true);
 
-        Pageable pageable = PageRequest.of(0, 1);
-
-        Method method = Step.class.getDeclaredMethod("canContinueReadPages", Pageable.class);
+        Method method = Step.class.getDeclaredMethod("canContinueReadPages", Slice.class);
         method.setAccessible(true);
 
-        boolean result = (boolean) method.invoke(step, pageable);
+        boolean result = (boolean) method.invoke(step, new SliceImpl<>(Collections.emptyList(), Pageable.ofSize(1), true));
 
         assertTrue(result);
     }
@@ -163,15 +875,92 @@ class StepTest {
     @Test
     void testCheckExecutionBlockBlockRequested() throws InvalidMigrationStatusException {
         when(fsmSharedState.isBlockRequested()).thenReturn(true);
-        doNothing().when(step).updateDataMigrationStatusOnStart(any(cfgDataMigrationRepository.getClass()));
+        doNothing().when(step).updateDataMigrationStatusOnStart(any(cfgDataMigrationRepository.getClass()), anyLong());
         when(cfgDataMigrationRepository.findById(any())).thenReturn(Optional.empty());
 
         assertThrows(InvalidMigrationStatusException.class, () -> step.executeStep());
     }
 
-    private Page<BinaryFile> createMockPage() {
+    @Test
+    void testGetTableName() {
+        assertEquals("BINARY_FILE", step.getTableName());
+    }
+
+    private void setPartitions(int partitions) throws IllegalAccessException, NoSuchFieldException {
+        Field partitionsField = step.getClass().getDeclaredField("PARTITIONS");
+        partitionsField.setAccessible(true);
+        partitionsField.set(step, partitions);
+    }
+
+    private void setPageSize(int size) throws IllegalAccessException, NoSuchFieldException {
+        Field pageSize = step.getClass().getDeclaredField("PAGE_SIZE");
+        pageSize.setAccessible(true);
+        pageSize.set(step, size);
+    }
+
+    private void setPageBytes(long bytes) throws IllegalAccessException, NoSuchFieldException {
+        Field pageBytes = step.getClass().getDeclaredField("PAGE_BYTES");
+        pageBytes.setAccessible(true);
+        pageBytes.set(step, bytes);
+    }
+
+    private void setDedupCacheBytes(long bytes) throws IllegalAccessException, NoSuchFieldException {
+        Field cacheBytes = step.getClass().getDeclaredField("DEDUP_CACHE_BYTES");
+        cacheBytes.setAccessible(true);
+        cacheBytes.set(step, bytes);
+        Field maxFileBytes = step.getClass().getDeclaredField("DEDUP_MAX_FILE_BYTES");
+        maxFileBytes.setAccessible(true);
+        maxFileBytes.set(step, 1024L);
+    }
+
+    private void setWriteMode(WriteMode mode) throws IllegalAccessException, NoSuchFieldException {
+        Field writeMode = step.getClass().getDeclaredField("WRITE_MODE");
+        writeMode.setAccessible(true);
+        writeMode.set(step, mode);
+    }
+
+    private void enableAdaptiveBatch(int minSize, int maxSize) throws IllegalAccessException, NoSuchFieldException {
+        Map<String, Object> values = Map.of("adaptiveBatchEnabled", true, "adaptiveBatchMinSize", minSize, "adaptiveBatchMaxSize", maxSize,
+                "adaptiveBatchTargetLatencyMs", 60000L, "adaptiveBatchMaxHeapRatio", 1.0);
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            Field field = TableMigrationStep.class.getDeclaredField(value.getKey());
+            field.setAccessible(true);
+            field.set(step, value.getValue());
+        }
+    }
+
+    private void enableIncremental() throws IllegalAccessException, NoSuchFieldException {
+        Map<String, Object> values = Map.of("resetMode", ResetMode.INCREMENTAL, "incrementalLeafRows", 10, "incrementalFetchSize", 100);
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            Field field = TableMigrationStep.class.getDeclaredField(value.getKey());
+            field.setAccessible(true);
+            field.set(step, value.getValue());
+        }
+    }
+
+    private void enableSync() throws IllegalAccessException, NoSuchFieldException {
+        Field field = TableMigrationStep.class.getDeclaredField("syncEnabled");
+        field.setAccessible(true);
+        field.set(step, true);
+    }
+
+    private void setCheckpointInterval(int pages, long ms) throws IllegalAccessException, NoSuchFieldException {
+        Map<String, Object> values = Map.of("checkpointIntervalPages", pages, "checkpointIntervalMs", ms);
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            Field field = TableMigrationStep.class.getDeclaredField(value.getKey());
+            field.setAccessible(true);
+            field.set(step, value.getValue());
+        }
+    }
+
+    private void enablePipeline() throws IllegalAccessException, NoSuchFieldException {
+        Field prefetchPages = TableMigrationStep.class.getDeclaredField("prefetchPages");
+        prefetchPages.setAccessible(true);
+        prefetchPages.set(step, 2);
+    }
+
+    private Slice<BinaryFile> createMockPage() {
         BinaryFile binaryFile = new BinaryFile();
-        List<BinaryFile> content = Collections.singletonList(binaryFile);
-        return new PageImpl<>(content, PageRequest.of(0, 1), 1);
+        return new SliceImpl<>(Collections.singletonList(binaryFile));
     }
 }
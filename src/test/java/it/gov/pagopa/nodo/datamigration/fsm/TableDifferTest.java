@@ -0,0 +1,214 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import it.gov.pagopa.nodo.datamigration.repository.KeyRange;
+import it.gov.pagopa.nodo.datamigration.repository.TableChecksum;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetSrcRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyDestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TableDifferTest {
+
+    @Mock
+    private KeysetSrcRepository<Object, Long> srcRepo;
+
+    @Mock
+    private InsertOnlyDestRepository<Object, Long> destRepo;
+
+    private final TreeMap<Long, Long> sourceRows = new TreeMap<>();
+
+    private final TreeMap<Long, Long> destinationRows = new TreeMap<>();
+
+    @BeforeEach
+    void setUp() {
+        for (long key = 1; key <= 100; key++) {
+            sourceRows.put(key, key * 31);
+            destinationRows.put(key, key * 31);
+        }
+        lenient().when(srcRepo.findKeyRange()).thenAnswer(invocation -> keyRangeOf(sourceRows));
+        lenient().when(destRepo.findKeyRange()).thenAnswer(invocation -> keyRangeOf(destinationRows));
+        lenient().when(srcRepo.computeChecksumInRange(any())).thenAnswer(checksumOf(sourceRows));
+        lenient().when(destRepo.computeChecksumInRange(any())).thenAnswer(checksumOf(destinationRows));
+        lenient().when(srcRepo.findRowHashesInRange(any(), anyInt())).thenAnswer(rowHashesOf(sourceRows));
+        lenient().when(destRepo.findRowHashesInRange(any(), anyInt())).thenAnswer(rowHashesOf(destinationRows));
+        lenient().when(srcRepo.computeKeyChecksumInRange(any())).thenAnswer(keyChecksumOf(sourceRows));
+        lenient().when(destRepo.computeKeyChecksumInRange(any())).thenAnswer(keyChecksumOf(destinationRows));
+        lenient().when(srcRepo.findKeyHashesInRange(any(), anyInt())).thenAnswer(keyHashesOf(sourceRows));
+        lenient().when(destRepo.findKeyHashesInRange(any(), anyInt())).thenAnswer(keyHashesOf(destinationRows));
+    }
+
+    @Test
+    void testDiffMatchingTable() {
+        TableDiff diff = new TableDiffer(srcRepo, destRepo, 10, 100).diff("PA", 10);
+
+        assertTrue(diff.isMatching());
+        assertEquals(100, diff.getSourceRecords());
+        assertEquals(100, diff.getDestinationRecords());
+        assertEquals(1, diff.getComparedRanges());
+        verify(srcRepo, never()).findRowHashesInRange(any(), anyInt());
+    }
+
+    @Test
+    void testDiffFindsDivergentKeys() {
+        destinationRows.remove(37L);
+        destinationRows.put(58L, 0L);
+        destinationRows.put(150L, 1L);
+
+        TableDiff diff = new TableDiffer(srcRepo, destRepo, 10, 100).diff("PA", 10);
+
+        assertFalse(diff.isMatching());
+        assertEquals(List.of(37L), diff.getMissingKeys());
+        assertEquals(List.of(150L), diff.getUnexpectedKeys());
+        assertEquals(List.of(58L), diff.getDifferentKeys());
+        assertFalse(diff.isTruncated());
+        // only the divergent ranges are compared row by row
+        verify(srcRepo, times(3)).findRowHashesInRange(any(), eq(100));
+        verify(destRepo, times(3)).findRowHashesInRange(any(), eq(100));
+    }
+
+    @Test
+    void testDiffTruncatesKeys() {
+        for (long key = 1; key <= 20; key++) {
+            destinationRows.remove(key);
+        }
+
+        TableDiff diff = new TableDiffer(srcRepo, destRepo, 10, 100).diff("PA", 5);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), diff.getMissingKeys());
+        assertTrue(diff.isTruncated());
+        assertFalse(diff.isMatching());
+    }
+
+    @Test
+    void testDiffEmptyTables() {
+        sourceRows.clear();
+        destinationRows.clear();
+
+        TableDiff diff = new TableDiffer(srcRepo, destRepo, 10, 100).diff("PA", 5);
+
+        assertTrue(diff.isMatching());
+        assertEquals(0, diff.getComparedRanges());
+    }
+
+    @Test
+    void testDiffCompositeKey() {
+        when(srcRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(destRepo.findKeyRange()).thenReturn(Optional.empty());
+        when(srcRepo.count()).thenReturn(10L);
+
+        TableDiffer differ = new TableDiffer(srcRepo, destRepo, 10, 100);
+
+        assertThrows(UnsupportedOperationException.class, () -> differ.diff("CONFIGURATION_KEYS", 5));
+    }
+
+    @Test
+    void testCompareHandsOffDivergentRows() {
+        for (long key = 1; key <= 30; key++) {
+            destinationRows.remove(key);
+        }
+        destinationRows.put(58L, 0L);
+        List<Long> missingKeys = new ArrayList<>();
+        List<Long> differentKeys = new ArrayList<>();
+
+        TableDiff diff = new TableDiffer(srcRepo, destRepo, 10, 100).compare("PA", (range, missing, unexpected, different) -> {
+            missingKeys.addAll(missing);
+            differentKeys.addAll(different);
+            return true;
+        });
+
+        // the keys are not limited by a maximum, nor collected by the diff
+        assertEquals(30, missingKeys.size());
+        assertEquals(List.of(58L), differentKeys);
+        assertTrue(diff.getMissingKeys().isEmpty());
+        assertFalse(diff.isTruncated());
+    }
+
+    @Test
+    void testCompareStopsOnHandlerRequest() {
+        destinationRows.remove(10L);
+        destinationRows.remove(90L);
+        List<KeyRange> ranges = new ArrayList<>();
+
+        TableDiff diff = new TableDiffer(srcRepo, destRepo, 10, 100).compare("PA", (range, missing, unexpected, different) -> {
+            ranges.add(range);
+            return false;
+        });
+
+        assertEquals(1, ranges.size());
+        assertTrue(diff.isTruncated());
+    }
+
+    @Test
+    void testCompareKeysOnly() {
+        destinationRows.remove(37L);
+        destinationRows.put(58L, 0L);
+        destinationRows.put(150L, 1L);
+        List<Long> missingKeys = new ArrayList<>();
+        List<Long> unexpectedKeys = new ArrayList<>();
+        List<Long> differentKeys = new ArrayList<>();
+
+        new TableDiffer(srcRepo, destRepo, 10, 100, true).compare("PA", (range, missing, unexpected, different) -> {
+            missingKeys.addAll(missing);
+            unexpectedKeys.addAll(unexpected);
+            differentKeys.addAll(different);
+            return true;
+        });
+
+        // only the keys are compared, so the changed values are not found
+        assertEquals(List.of(37L), missingKeys);
+        assertEquals(List.of(150L), unexpectedKeys);
+        assertTrue(differentKeys.isEmpty());
+        verify(srcRepo, never()).computeChecksumInRange(any());
+        verify(destRepo, never()).findRowHashesInRange(any(), anyInt());
+    }
+
+    private static Optional<KeyRange> keyRangeOf(TreeMap<Long, Long> rows) {
+        return rows.isEmpty() ? Optional.empty() : Optional.of(new KeyRange(rows.firstKey(), rows.lastKey()));
+    }
+
+    private static Answer<TableChecksum> checksumOf(TreeMap<Long, Long> rows) {
+        return invocation -> {
+            Map<Long, Long> range = rowsInRange(rows, invocation.getArgument(0));
+            return new TableChecksum(range.size(), range.values().stream().mapToLong(Long::longValue).sum());
+        };
+    }
+
+    private static Answer<Map<Long, Long>> rowHashesOf(TreeMap<Long, Long> rows) {
+        return invocation -> rowsInRange(rows, invocation.getArgument(0));
+    }
+
+    // the hash of a key is the key itself
+    private static Answer<TableChecksum> keyChecksumOf(TreeMap<Long, Long> rows) {
+        return invocation -> {
+            Map<Long, Long> range = rowsInRange(rows, invocation.getArgument(0));
+            return new TableChecksum(range.size(), range.keySet().stream().mapToLong(Long::longValue).sum());
+        };
+    }
+
+    private static Answer<Map<Long, Long>> keyHashesOf(TreeMap<Long, Long> rows) {
+        return invocation -> rowsInRange(rows, invocation.getArgument(0)).keySet().stream()
+                .collect(Collectors.toMap(key -> key, key -> key));
+    }
+
+    private static Map<Long, Long> rowsInRange(TreeMap<Long, Long> rows, KeyRange range) {
+        return rows.subMap(range.getLowerBound(), true, range.getUpperBound(), true).entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+}
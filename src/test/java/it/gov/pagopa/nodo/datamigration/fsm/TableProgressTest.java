@@ -0,0 +1,43 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableProgressTest {
+
+    @Test
+    void testProgress() throws InterruptedException {
+        TableProgress progress = new TableProgress("ID", 100);
+        progress.onResume(20);
+        assertEquals(20L, progress.getRecords());
+        assertNull(progress.getEtaSeconds());
+        assertNull(progress.getBytesPerSecond());
+
+        Thread.sleep(10);
+        progress.onPageWritten(30, 3000);
+        progress.onBytesWritten(1000);
+
+        assertEquals("ID", progress.getDataMigrationId());
+        assertEquals(50L, progress.getRecords());
+        assertTrue(progress.getRecordsPerSecond() > 0);
+        // the bytes are 4000 for 30 rows, so the byte rate is proportional to the row rate
+        assertEquals(progress.getRecordsPerSecond() * 4000 / 30, progress.getBytesPerSecond(), progress.getBytesPerSecond() / 100);
+        assertTrue(progress.getEtaSeconds() > 0);
+    }
+
+    @Test
+    void testProgressOnEnd() throws InterruptedException {
+        TableProgress progress = new TableProgress("ID", 10);
+        progress.onPageWritten(10, 0);
+        progress.onEnd();
+        double recordsPerSecond = progress.getRecordsPerSecond();
+
+        Thread.sleep(10);
+
+        // the rates of an ended step are frozen at its end
+        assertTrue(progress.isEnded());
+        assertEquals(recordsPerSecond, progress.getRecordsPerSecond());
+        assertNull(progress.getEtaSeconds());
+    }
+}
@@ -0,0 +1,103 @@
+package it.gov.pagopa.nodo.datamigration.fsm;
+
+import it.gov.pagopa.nodo.datamigration.repository.TableChecksum;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetSrcRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyDestRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TableSynchronizerTest {
+
+    @Mock
+    private KeysetSrcRepository<Object, Long> srcRepo;
+
+    @Mock
+    private InsertOnlyDestRepository<Object, Long> destRepo;
+
+    @Mock
+    private TableSynchronizer.ChangedRowsWriter writer;
+
+    private TableSynchronizer<Object, Long> synchronizer;
+
+    @BeforeEach
+    void setUp() {
+        FSMSharedState sharedState = new FSMSharedState();
+        sharedState.lock();
+        synchronizer = new TableSynchronizer<>("EXECUTE_PA_TABLE_MIGRATION", "PA", srcRepo, destRepo, sharedState, 10, 100);
+    }
+
+    @Test
+    void testSynchronizeRowsChangedSinceChangeNumber() throws Exception {
+        when(srcRepo.findCurrentChangeNumber()).thenReturn(Optional.of(200L));
+        when(srcRepo.findKeysChangedSince(100L, 100)).thenReturn(List.of(3L, 5L));
+        when(writer.writeRows(List.of(3L, 5L))).thenReturn(2L);
+
+        assertEquals(2, synchronizer.synchronize(false, 100L, writer));
+
+        verify(writer).saveChangeNumber(200L);
+        assertFalse(synchronizer.hasRemovedRows());
+    }
+
+    @Test
+    void testSynchronizeWholeTableAgain() throws Exception {
+        when(srcRepo.findCurrentChangeNumber()).thenReturn(Optional.of(200L));
+        when(srcRepo.findKeysChangedSince(anyLong(), anyInt())).thenThrow(new UnsupportedOperationException());
+        when(srcRepo.computeChecksum()).thenReturn(new TableChecksum(1, 7));
+        when(destRepo.computeChecksum()).thenReturn(new TableChecksum(2, 9));
+        when(writer.writeAllRows()).thenReturn(1L);
+        when(srcRepo.findAllKeys()).thenReturn(List.of(1L));
+        when(destRepo.findAllKeys()).thenReturn(List.of(1L, 2L));
+
+        assertEquals(1, synchronizer.synchronize(false, 100L, writer));
+
+        verify(writer).saveChangeNumber(200L);
+        assertTrue(synchronizer.hasRemovedRows());
+        assertEquals(1, synchronizer.deleteRemovedRows());
+        verify(destRepo).deleteAllByIdInBatch(List.of(2L));
+        assertFalse(synchronizer.hasRemovedRows());
+    }
+
+    @Test
+    void testWriteChangedRowsChangeNumberNotReadable() throws Exception {
+        when(srcRepo.findCurrentChangeNumber()).thenThrow(new InvalidDataAccessResourceUsageException("ORA-00942"));
+        when(srcRepo.findKeysChangedSince(anyLong(), anyInt())).thenThrow(new UnsupportedOperationException());
+        when(srcRepo.computeChecksum()).thenReturn(new TableChecksum(1, 7));
+        when(destRepo.computeChecksum()).thenReturn(new TableChecksum(1, 7));
+
+        assertEquals(0, synchronizer.writeChangedRows(100L, writer));
+
+        verify(writer, never()).writeAllRows();
+        verify(writer, never()).saveChangeNumber(anyLong());
+    }
+
+    @Test
+    void testDeleteRemovedRowsInBatches() throws Exception {
+        when(srcRepo.findCurrentChangeNumber()).thenReturn(Optional.empty());
+        when(srcRepo.findKeysChangedSince(anyLong(), anyInt())).thenThrow(new UnsupportedOperationException());
+        when(srcRepo.computeChecksum()).thenReturn(new TableChecksum(0, 0));
+        when(destRepo.computeChecksum()).thenReturn(new TableChecksum(2500, 1));
+        when(srcRepo.findAllKeys()).thenReturn(List.of());
+        when(destRepo.findAllKeys()).thenReturn(LongStream.rangeClosed(1, 2500).boxed().toList());
+
+        synchronizer.writeChangedRows(100L, writer);
+
+        // the keys are deleted a batch at a time
+        assertEquals(2500, synchronizer.deleteRemovedRows());
+        verify(destRepo, times(3)).deleteAllByIdInBatch(anyList());
+    }
+}
@@ -3,11 +3,14 @@ package it.gov.pagopa.nodo.datamigration.fsm.step;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.enumeration.MigrationStepStatus;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
 import it.gov.pagopa.nodo.datamigration.fsm.FSMSharedState;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
 import it.gov.pagopa.nodo.datamigration.repository.oracle.OracleDBSystemRepository;
 import it.gov.pagopa.nodo.datamigration.repository.h2.CfgDataMigrationRepository;
 import it.gov.pagopa.nodo.datamigration.repository.postgres.PostgresDBSystemRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -17,13 +20,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataAccessException;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
 
 @ExtendWith(MockitoExtension.class)
 @SpringBootTest(classes = EndStep.class)
@@ -41,12 +47,20 @@ class EndStepTest {
     @MockBean
     private CfgDataMigrationRepository cfgDataMigrationRepository;
 
+    @MockBean
+    private List<TableMigrationStep<?, ?>> tableSteps;
+
     @Mock
     private DataMigration dataMigration;
 
     @Mock
     private FSMSharedState fsmSharedState;
 
+    @BeforeEach
+    void setUp() {
+        setField(endStep, "tableSteps", List.of());
+    }
+
     @Test
     void testExecuteStep() {
         when(cfgDataMigrationRepository.findById(any())).thenReturn(Optional.of(dataMigration));
@@ -60,6 +74,28 @@ class EndStepTest {
         verify(cfgDataMigrationRepository).saveAndFlush(any(DataMigration.class));
     }
 
+    @Test
+    void testExecuteStepPartiallyCompleted() {
+        DataMigrationStatus paStatus = new DataMigrationStatus();
+        paStatus.setStatus(MigrationStepStatus.COMPLETED.toString());
+        DataMigrationStatus pspStatus = new DataMigrationStatus();
+        pspStatus.setStatus(MigrationStepStatus.TODO.toString());
+        TableMigrationStep<?, ?> pa = mock(TableMigrationStep.class);
+        TableMigrationStep<?, ?> psp = mock(TableMigrationStep.class);
+        when(pa.getDataMigrationStatus(any())).thenReturn(paStatus);
+        when(psp.getDataMigrationStatus(any())).thenReturn(pspStatus);
+        setField(endStep, "tableSteps", List.of(pa, psp));
+        when(fsmSharedState.getSelectedTableSteps()).thenReturn(Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION));
+        when(cfgDataMigrationRepository.findById(any())).thenReturn(Optional.of(dataMigration));
+
+        endStep.executeStep();
+
+        // the tables not chosen by the table API are still to migrate, so the migration can be restarted
+        verify(dataMigration).setStatus(MigrationStepStatus.BLOCKED.toString());
+        verify(dataMigration, never()).setLastExecutedStep(anyString());
+        verify(cfgDataMigrationRepository).saveAndFlush(dataMigration);
+    }
+
     @Test
     void testExecuteStepEmptyDatamigration() {
         when(cfgDataMigrationRepository.findById(anyString())).thenReturn(Optional.empty());
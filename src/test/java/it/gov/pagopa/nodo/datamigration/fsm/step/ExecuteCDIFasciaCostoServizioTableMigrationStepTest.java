@@ -24,10 +24,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataAccessException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
 import java.lang.reflect.Field;
 import java.util.Collections;
@@ -35,6 +32,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -88,25 +86,22 @@ class ExecuteCDIFasciaCostoServizioTableMigrationStepTest {
     @Test
     void testExecuteStep() throws MigrationStepException, IllegalAccessException, NoSuchFieldException {
         CdiFasciaCostoServizio cdiFasciaCostoServizio = new CdiFasciaCostoServizio();
-        Page<CdiFasciaCostoServizio> pagedResponse = new PageImpl<>(Collections.singletonList(cdiFasciaCostoServizio));
 
-        // Emulating findAll
-        Pageable pageable = PageRequest.of(0, PAGE_SIZE);
-        when(srcRepo.findAll(pageable)).thenReturn(pagedResponse);
+        // Emulating the first keyset page
+        when(srcRepo.findFirstPage(PAGE_SIZE)).thenReturn(new SliceImpl<>(Collections.singletonList(cdiFasciaCostoServizio)));
 
         when(sharedState.getDataMigrationStateId()).thenReturn("1");
         when(dataMigrationRepository.findById(anyString())).thenReturn(Optional.of(dataMigration));
 
         migrationStep.executeStep();
 
-        verify(srcRepo, times(1)).findAll(any(Pageable.class));
-        verify(destRepo, times(1)).saveAllAndFlush(anyList());
+        verify(srcRepo, times(1)).findFirstPage(anyInt());
+        verify(destRepo, times(1)).insertAllAndFlush(anyList());
     }
 
     @Test
     void testExecuteStepMigrationErrorOnStepException() throws MigrationStepException {
-        Pageable pageable = PageRequest.of(0, PAGE_SIZE);
-        when(srcRepo.findAll(pageable)).thenThrow(new DataAccessException("Test Exception") {});
+        when(srcRepo.findFirstPage(PAGE_SIZE)).thenThrow(new DataAccessException("Test Exception") {});
         when(sharedState.getDataMigrationStateId()).thenReturn("1");
 
         assertThrows(MigrationErrorOnStepException.class, () -> migrationStep.executeStep());
@@ -127,7 +122,7 @@ class ExecuteCDIFasciaCostoServizioTableMigrationStepTest {
     @Test
     void getNextState() {
         StepName nextState = migrationStep.getNextState();
-        assertEquals(StepName.EXECUTE_CDI_INFORMAZIONI_SERVIZIO_TABLE_MIGRATION, nextState);
+        assertEquals(StepName.SYNC, nextState);
     }
 
     @Test
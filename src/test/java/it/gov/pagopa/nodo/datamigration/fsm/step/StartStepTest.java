@@ -3,6 +3,7 @@ package it.gov.pagopa.nodo.datamigration.fsm.step;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.enumeration.ResetMode;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
 import it.gov.pagopa.nodo.datamigration.exception.migration.DatabaseConnectionException;
 import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStatusSavingException;
@@ -18,15 +19,21 @@ import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.Query;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
 
 @ExtendWith(MockitoExtension.class)
 @SpringBootTest(classes = HealthCheckService.class)
@@ -79,6 +86,7 @@ class StartStepTest {
     @Mock private EntityManagerFactory emFactory;
     @Mock private EntityManager em;
     @Mock private Query query;
+    @Mock private PlatformTransactionManager transactionManager;
     @Mock private FSMSharedState fsmSharedState;
 
     @Test
@@ -95,6 +103,61 @@ class StartStepTest {
         verify(healthCheckService).getHealthCheckForPostgresDB();
     }
 
+    @Test
+    void testExecuteStepTruncate() throws MigrationStepException {
+        setField(startStep, "schema", "cfg");
+        setField(startStep, "resetMode", ResetMode.TRUNCATE);
+        when(healthCheckService.getHealthCheckForOracleDB()).thenReturn(true);
+        when(healthCheckService.getHealthCheckForPostgresDB()).thenReturn(true);
+        when(em.createNativeQuery(anyString())).thenReturn(query);
+
+        startStep.executeStep();
+
+        // the statement is executed in a transaction of the PostgreSQL transaction manager, not of a new entity manager
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(emFactory, never()).createEntityManager();
+        ArgumentCaptor<String> statement = ArgumentCaptor.forClass(String.class);
+        verify(em, times(1)).createNativeQuery(statement.capture());
+        assertTrue(statement.getValue().startsWith("TRUNCATE TABLE cfg.GDE_CONFIG, cfg.PDD, "));
+        assertTrue(statement.getValue().endsWith(", cfg.INTERMEDIARI_PA, cfg.QUADRATURE_SCHED RESTART IDENTITY"));
+        verify(query, times(1)).executeUpdate();
+    }
+
+    @Test
+    void testExecuteStepIncremental() throws MigrationStepException {
+        setField(startStep, "resetMode", ResetMode.INCREMENTAL);
+        when(healthCheckService.getHealthCheckForOracleDB()).thenReturn(true);
+        when(healthCheckService.getHealthCheckForPostgresDB()).thenReturn(true);
+
+        startStep.executeStep();
+
+        verify(emFactory, never()).createEntityManager();
+    }
+
+    @Test
+    void testExecuteStepIncrementalKeepsChangeNumbers() throws MigrationStepException {
+        setField(startStep, "resetMode", ResetMode.INCREMENTAL);
+        setField(startStep, "tableSteps", List.of(new ExecuteBinaryFileTableMigrationStep(), new ExecutePATableMigrationStep()));
+        DataMigration lastMigration = DataMigration.builder()
+                .details(DataMigrationDetails.builder()
+                        .binaryFile(DataMigrationStatus.builder().status("COMPLETED").changeNumber(100L).build())
+                        .pa(DataMigrationStatus.builder().status("FAILED").changeNumber(200L).build())
+                        .build())
+                .build();
+        when(dataMigrationRepository.findTopByOrderByStartDesc()).thenReturn(Optional.of(lastMigration));
+        when(healthCheckService.getHealthCheckForOracleDB()).thenReturn(true);
+        when(healthCheckService.getHealthCheckForPostgresDB()).thenReturn(true);
+
+        startStep.executeStep();
+
+        // only the SCNs of the tables completed by the last migration are kept
+        ArgumentCaptor<DataMigration> dataMigration = ArgumentCaptor.forClass(DataMigration.class);
+        verify(dataMigrationRepository, times(1)).save(dataMigration.capture());
+        assertEquals(100L, dataMigration.getValue().getDetails().getBinaryFile().getChangeNumber());
+        assertNull(dataMigration.getValue().getDetails().getPa().getChangeNumber());
+    }
+
     @Test
     void testExecuteStepDatabaseConnectionExceptionExceptionOracleDB() {
         when(healthCheckService.getHealthCheckForOracleDB()).thenReturn(false);
@@ -152,6 +215,8 @@ class StartStepTest {
 
     @Test
     void getNextState() {
+        setField(startStep, "tableSteps", List.of(new ExecutePATableMigrationStep(), new ExecuteQuadratureSchedTableMigrationStep()));
+
         StepName nextState = startStep.getNextState();
         assertEquals(StepName.EXECUTE_QUADRATURE_SCHED_TABLE_MIGRATION, nextState);
     }
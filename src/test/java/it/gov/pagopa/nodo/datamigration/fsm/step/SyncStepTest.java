@@ -0,0 +1,143 @@
+package it.gov.pagopa.nodo.datamigration.fsm.step;
+
+import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
+import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
+import it.gov.pagopa.nodo.datamigration.fsm.FSMSharedState;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
+import it.gov.pagopa.nodo.datamigration.repository.h2.CfgDataMigrationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+@ExtendWith(MockitoExtension.class)
+class SyncStepTest {
+
+    private static final String MIGRATION_ID = "migration";
+
+    @Mock
+    private CfgDataMigrationRepository cfgDataMigrationRepo;
+
+    private final SyncStep syncStep = new SyncStep();
+
+    private final FSMSharedState sharedState = new FSMSharedState();
+
+    private final DataMigration dataMigration = new DataMigration();
+
+    @BeforeEach
+    void setUp() {
+        setField(syncStep, "enabled", true);
+        setField(syncStep, "intervalMs", 10L);
+        sharedState.lock();
+        sharedState.setDataMigrationStateId(MIGRATION_ID);
+        syncStep.attachSharedState(sharedState, cfgDataMigrationRepo);
+        lenient().when(cfgDataMigrationRepo.findById(MIGRATION_ID)).thenReturn(Optional.of(dataMigration));
+    }
+
+    @Test
+    void testExecuteStepLastRound() throws MigrationStepException {
+        DataMigrationStatus paStatus = new DataMigrationStatus();
+        paStatus.setSyncedRecords(3L);
+        DataMigrationStatus pddStatus = new DataMigrationStatus();
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, paStatus);
+        TableMigrationStep<?, ?> pdd = mockStep(StepName.EXECUTE_PDD_TABLE_MIGRATION, pddStatus);
+        when(pa.synchronize(true)).thenReturn(2L);
+        when(pdd.synchronize(true)).thenReturn(0L);
+        when(pa.hasRemovedRows()).thenReturn(true);
+        when(pdd.hasRemovedRows()).thenReturn(true);
+        setField(syncStep, "tableSteps", List.of(pdd, pa));
+        sharedState.requestFinalize();
+
+        syncStep.executeStep();
+
+        // a single round, written in the order of the chain and deleted in the reverse one
+        InOrder inOrder = inOrder(pa, pdd);
+        inOrder.verify(pa).synchronize(true);
+        inOrder.verify(pdd).synchronize(true);
+        inOrder.verify(pdd).deleteRemovedRows();
+        inOrder.verify(pa).deleteRemovedRows();
+        assertEquals(5L, paStatus.getSyncedRecords());
+        assertEquals(0L, pddStatus.getSyncedRecords());
+        assertNotNull(paStatus.getSyncWatermark());
+        verify(cfgDataMigrationRepo, times(1)).saveAndFlush(dataMigration);
+    }
+
+    @Test
+    void testExecuteStepUntilFinalized() throws MigrationStepException {
+        DataMigrationStatus paStatus = new DataMigrationStatus();
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, paStatus);
+        when(pa.synchronize(false)).thenReturn(1L).thenAnswer(invocation -> {
+            sharedState.requestFinalize();
+            return 1L;
+        });
+        when(pa.synchronize(true)).thenReturn(0L);
+        setField(syncStep, "tableSteps", List.of(pa));
+
+        syncStep.executeStep();
+
+        // the round that sees the finalize request is followed by the last one, the only one that compares the tables
+        verify(pa, times(2)).synchronize(false);
+        verify(pa, times(1)).synchronize(true);
+        assertEquals(2L, paStatus.getSyncedRecords());
+        verify(cfgDataMigrationRepo, times(3)).saveAndFlush(dataMigration);
+    }
+
+    @Test
+    void testExecuteStepDisabled() throws MigrationStepException {
+        TableMigrationStep<?, ?> pa = mock(TableMigrationStep.class);
+        setField(syncStep, "enabled", false);
+        setField(syncStep, "tableSteps", List.of(pa));
+
+        syncStep.executeStep();
+
+        verify(pa, never()).synchronize(anyBoolean());
+        verify(cfgDataMigrationRepo, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testCallStopsOnBlockRequest() throws MigrationStepException {
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, new DataMigrationStatus());
+        setField(syncStep, "tableSteps", List.of(pa));
+        sharedState.requestBlock();
+
+        assertEquals(StepName.END, syncStep.call());
+        verify(pa, never()).synchronize(anyBoolean());
+        verify(cfgDataMigrationRepo, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testCallFailsOnDataAccessError() throws MigrationStepException {
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, new DataMigrationStatus());
+        when(pa.synchronize(true)).thenReturn(1L);
+        when(pa.hasRemovedRows()).thenReturn(true);
+        doThrow(new DataAccessResourceFailureException("unreachable")).when(pa).deleteRemovedRows();
+        setField(syncStep, "tableSteps", List.of(pa));
+        sharedState.requestFinalize();
+
+        assertEquals(StepName.ERROR, syncStep.call());
+        verify(cfgDataMigrationRepo, never()).saveAndFlush(any());
+    }
+
+    private static TableMigrationStep<?, ?> mockStep(StepName stepName, DataMigrationStatus status) {
+        TableMigrationStep<?, ?> step = mock(TableMigrationStep.class);
+        lenient().when(step.getStepName()).thenReturn(stepName.toString());
+        lenient().when(step.getTableName()).thenReturn(stepName.toString());
+        lenient().when(step.getDataMigrationStatus(any())).thenReturn(status);
+        return step;
+    }
+}
@@ -0,0 +1,153 @@
+package it.gov.pagopa.nodo.datamigration.fsm.step;
+
+import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationVerification;
+import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
+import it.gov.pagopa.nodo.datamigration.enumeration.VerificationStatus;
+import it.gov.pagopa.nodo.datamigration.exception.migration.MigrationStepException;
+import it.gov.pagopa.nodo.datamigration.fsm.FSMSharedState;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
+import it.gov.pagopa.nodo.datamigration.repository.TableChecksum;
+import it.gov.pagopa.nodo.datamigration.repository.h2.CfgDataMigrationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.util.ReflectionTestUtils.setField;
+
+@ExtendWith(MockitoExtension.class)
+class VerifyStepTest {
+
+    private static final String MIGRATION_ID = "migration";
+
+    @Mock
+    private CfgDataMigrationRepository cfgDataMigrationRepo;
+
+    private final VerifyStep verifyStep = new VerifyStep();
+
+    private final FSMSharedState sharedState = new FSMSharedState();
+
+    private final DataMigration dataMigration = new DataMigration();
+
+    @BeforeEach
+    void setUp() {
+        setField(verifyStep, "enabled", true);
+        setField(verifyStep, "parallelism", 2);
+        sharedState.lock();
+        sharedState.setDataMigrationStateId(MIGRATION_ID);
+        verifyStep.attachSharedState(sharedState, cfgDataMigrationRepo);
+        lenient().when(cfgDataMigrationRepo.findById(MIGRATION_ID)).thenReturn(Optional.of(dataMigration));
+    }
+
+    @Test
+    void testExecuteStepRecordsVerification() throws MigrationStepException {
+        DataMigrationStatus paStatus = new DataMigrationStatus();
+        DataMigrationStatus pddStatus = new DataMigrationStatus();
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, paStatus);
+        TableMigrationStep<?, ?> pdd = mockStep(StepName.EXECUTE_PDD_TABLE_MIGRATION, pddStatus);
+        when(pa.computeSourceChecksum()).thenReturn(new TableChecksum(3, 42));
+        when(pa.computeDestinationChecksum()).thenReturn(new TableChecksum(3, 42));
+        when(pdd.computeSourceChecksum()).thenReturn(new TableChecksum(3, 42));
+        when(pdd.computeDestinationChecksum()).thenReturn(new TableChecksum(3, 43));
+        setField(verifyStep, "tableSteps", List.of(pdd, pa));
+
+        verifyStep.executeStep();
+
+        DataMigrationVerification paVerification = paStatus.getVerification();
+        assertEquals(VerificationStatus.MATCHING.toString(), paVerification.getStatus());
+        assertEquals(3L, paVerification.getSourceRecords());
+        assertEquals(3L, paVerification.getDestinationRecords());
+        assertEquals("000000000000002a", paVerification.getSourceHash());
+        assertEquals(VerificationStatus.MISMATCHING.toString(), pddStatus.getVerification().getStatus());
+        assertEquals("000000000000002b", pddStatus.getVerification().getDestinationHash());
+        verify(cfgDataMigrationRepo, times(2)).saveAndFlush(dataMigration);
+    }
+
+    @Test
+    void testExecuteStepRecordsFailedChecksum() throws MigrationStepException {
+        DataMigrationStatus paStatus = new DataMigrationStatus();
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, paStatus);
+        when(pa.computeSourceChecksum()).thenThrow(new DataAccessResourceFailureException("unreachable"));
+        lenient().when(pa.computeDestinationChecksum()).thenReturn(new TableChecksum(3, 42));
+        setField(verifyStep, "tableSteps", List.of(pa));
+
+        verifyStep.executeStep();
+
+        assertEquals(VerificationStatus.FAILED.toString(), paStatus.getVerification().getStatus());
+        assertNull(paStatus.getVerification().getSourceHash());
+    }
+
+    @Test
+    void testExecuteStepVerifiesSelectedTables() throws MigrationStepException {
+        DataMigrationStatus paStatus = new DataMigrationStatus();
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, paStatus);
+        TableMigrationStep<?, ?> pdd = mockStep(StepName.EXECUTE_PDD_TABLE_MIGRATION, new DataMigrationStatus());
+        when(pa.computeSourceChecksum()).thenReturn(new TableChecksum(3, 42));
+        when(pa.computeDestinationChecksum()).thenReturn(new TableChecksum(3, 42));
+        setField(verifyStep, "tableSteps", List.of(pdd, pa));
+        sharedState.selectTableSteps(Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION), false);
+
+        verifyStep.executeStep();
+
+        // only the tables run by the table API are verified
+        assertEquals(VerificationStatus.MATCHING.toString(), paStatus.getVerification().getStatus());
+        verify(pdd, never()).computeSourceChecksum();
+        verify(cfgDataMigrationRepo, times(1)).saveAndFlush(dataMigration);
+    }
+
+    @Test
+    void testExecuteStepDisabled() throws MigrationStepException {
+        TableMigrationStep<?, ?> pa = mock(TableMigrationStep.class);
+        setField(verifyStep, "enabled", false);
+        setField(verifyStep, "tableSteps", List.of(pa));
+
+        verifyStep.executeStep();
+
+        verify(pa, never()).computeSourceChecksum();
+        verify(cfgDataMigrationRepo, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testCallStopsOnBlockRequest() {
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, new DataMigrationStatus());
+        lenient().when(pa.computeSourceChecksum()).thenReturn(new TableChecksum(3, 42));
+        lenient().when(pa.computeDestinationChecksum()).thenReturn(new TableChecksum(3, 42));
+        setField(verifyStep, "tableSteps", List.of(pa));
+        sharedState.requestBlock();
+
+        assertEquals(StepName.END, verifyStep.call());
+        verify(cfgDataMigrationRepo, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void testExecuteStepWithoutMigration() {
+        TableMigrationStep<?, ?> pa = mockStep(StepName.EXECUTE_PA_TABLE_MIGRATION, new DataMigrationStatus());
+        when(pa.computeSourceChecksum()).thenReturn(new TableChecksum(3, 42));
+        when(pa.computeDestinationChecksum()).thenReturn(new TableChecksum(3, 42));
+        when(cfgDataMigrationRepo.findById(MIGRATION_ID)).thenReturn(Optional.empty());
+        setField(verifyStep, "tableSteps", List.of(pa));
+
+        assertEquals(StepName.ERROR, verifyStep.call());
+    }
+
+    private static TableMigrationStep<?, ?> mockStep(StepName stepName, DataMigrationStatus status) {
+        TableMigrationStep<?, ?> step = mock(TableMigrationStep.class);
+        lenient().when(step.getStepName()).thenReturn(stepName.toString());
+        lenient().when(step.getTableName()).thenReturn(stepName.toString());
+        lenient().when(step.getDataMigrationStatus(any())).thenReturn(status);
+        return step;
+    }
+}
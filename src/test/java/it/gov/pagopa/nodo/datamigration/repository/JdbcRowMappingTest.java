@@ -0,0 +1,344 @@
+package it.gov.pagopa.nodo.datamigration.repository;
+
+import it.gov.pagopa.nodo.datamigration.entity.cfg.BinaryFile;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.ConfigurationKeys;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.GdeConfig;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.Psp;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.pk.ConfigurationKeysView;
+import it.gov.pagopa.nodo.datamigration.repository.oracle.KeysetJpaRepository;
+import it.gov.pagopa.nodo.datamigration.repository.postgres.InsertOnlyJpaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcRowMappingTest {
+
+    private static LocalContainerEntityManagerFactoryBean factoryBean;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void setUp() {
+        // the rows are copied with real JDBC statements, so Hibernate creates the tables on an in-memory database
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(new DriverManagerDataSource("jdbc:h2:mem:jdbcrows;DB_CLOSE_DELAY=-1", "sa", "sa"));
+        factoryBean.setPackagesToScan("it.gov.pagopa.nodo.datamigration.entity.cfg");
+        factoryBean.setPersistenceUnitName("jdbcRowsTestUnit");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Properties props = new Properties();
+        props.put("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        props.put("hibernate.hbm2ddl.auto", "create-drop");
+        props.put("hibernate.hbm2ddl.create_namespaces", "true");
+        props.put("hibernate.default_schema", "cfg");
+        factoryBean.setJpaProperties(props);
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        factoryBean.destroy();
+    }
+
+    @Test
+    void testStatements() {
+        JdbcRowMapping mapping = mappingOf(Psp.class);
+
+        assertEquals("OBJ_ID", mapping.getKeyColumn());
+        assertEquals(String.format("SELECT %s FROM cfg.PSP WHERE OBJ_ID > ? ORDER BY OBJ_ID", String.join(", ", mapping.getColumns())), mapping.getSelectStatement("OBJ_ID > ?"));
+        // the rows are hashed by the DB, and only the aggregate of a range or the hash of each row is read
+        assertTrue(mapping.getChecksumStatement(RowHashDialect.ORACLE).startsWith("SELECT COUNT(*), SUM(TO_NUMBER(SUBSTR(RAWTOHEX(STANDARD_HASH(CASE WHEN OBJ_ID IS NULL THEN 'n' ELSE TO_CHAR(OBJ_ID) END || '|' || "));
+        assertTrue(mapping.getChecksumStatement(RowHashDialect.POSTGRESQL, "OBJ_ID BETWEEN ? AND ?").startsWith("SELECT COUNT(*), SUM(('x' || substr(md5(CASE WHEN OBJ_ID IS NULL THEN 'n' ELSE OBJ_ID::text END || '|' || "));
+        assertTrue(mapping.getChecksumStatement(RowHashDialect.POSTGRESQL, "OBJ_ID BETWEEN ? AND ?").endsWith(", 1, 15))::bit(60)::bigint) FROM cfg.PSP WHERE OBJ_ID BETWEEN ? AND ?"));
+        assertTrue(mapping.getChecksumStatement(RowHashDialect.POSTGRESQL).contains(" || '|' || CASE WHEN ID_PSP IS NULL THEN 'n' ELSE md5(ID_PSP) END || '|' || "));
+        assertTrue(mapping.getRowHashStatement(RowHashDialect.ORACLE, "OBJ_ID BETWEEN ? AND ?").startsWith("SELECT OBJ_ID, TO_NUMBER("));
+        assertTrue(mapping.getRowHashStatement(RowHashDialect.ORACLE, "OBJ_ID BETWEEN ? AND ?").endsWith(" FROM cfg.PSP WHERE OBJ_ID BETWEEN ? AND ?"));
+        assertTrue(mapping.getInsertStatement().startsWith("INSERT INTO cfg.PSP (OBJ_ID, "));
+        assertTrue(mapping.getInsertStatement().endsWith("?, ?)"));
+        assertEquals("SELECT OBJ_ID, COALESCE(FILE_SIZE, 0) + COALESCE(OCTET_LENGTH(XML_FILE_CONTENT), 0) FROM cfg.BINARY_FILE WHERE OBJ_ID > ? ORDER BY OBJ_ID",
+                mappingOf(BinaryFile.class).getSizeStatement("OBJ_ID > ?", List.of("FILE_SIZE", "XML_FILE_CONTENT"), "OCTET_LENGTH"));
+    }
+
+    @Test
+    void testUpsertStatements() {
+        JdbcRowMapping mapping = mappingOf(Psp.class);
+
+        assertTrue(mapping.getUpsertStatement().startsWith(mapping.getInsertStatement() + " ON CONFLICT (OBJ_ID) DO UPDATE SET "));
+        assertTrue(mapping.getUpsertStatement().contains(", ID_PSP = EXCLUDED.ID_PSP"));
+        assertFalse(mapping.getUpsertStatement().contains("OBJ_ID = EXCLUDED.OBJ_ID"));
+        // the composite keys are made of all the ID columns
+        assertTrue(mappingOf(ConfigurationKeys.class).getUpsertStatement().endsWith(" ON CONFLICT (CONFIG_CATEGORY, CONFIG_KEY) DO UPDATE SET CONFIG_DESCRIPTION = EXCLUDED.CONFIG_DESCRIPTION, CONFIG_VALUE = EXCLUDED.CONFIG_VALUE"));
+        assertTrue(mappingOf(GdeConfig.class).getUpsertStatement().contains(" ON CONFLICT (PRIMITIVA, TYPE) DO UPDATE SET "));
+    }
+
+    @Test
+    void testFindPageRangeWithinBytes() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            for (long id = 1; id <= 4; id++) {
+                entityManager.persist(BinaryFile.builder().id(id).fileContent(new byte[100]).fileHash(new byte[]{0x01}).fileSize(100L).xmlFileContent("x".repeat(50)).build());
+            }
+            entityManager.flush();
+            KeysetJpaRepository<BinaryFile, Long> srcRepo = new KeysetJpaRepository<>(entityInformationOf(BinaryFile.class, entityManager), entityManager);
+            List<String> sizeColumns = List.of("FILE_SIZE", "XML_FILE_CONTENT");
+
+            // each row is 150 bytes: the budget closes the page before the page size, but a page has at least one row
+            assertEquals(Optional.of(new KeyRange(1, 2)), srcRepo.findPageRangeWithinBytes(new KeyRange(1, 4), null, 10, sizeColumns, 400));
+            assertEquals(Optional.of(new KeyRange(1, 4)), srcRepo.findPageRangeWithinBytes(new KeyRange(1, 4), 2L, 10, sizeColumns, 400));
+            assertEquals(Optional.of(new KeyRange(1, 3)), srcRepo.findPageRangeWithinBytes(new KeyRange(1, 4), 2L, 10, sizeColumns, 100));
+            assertEquals(Optional.of(new KeyRange(1, 1)), srcRepo.findPageRangeWithinBytes(new KeyRange(1, 4), null, 1, sizeColumns, 400));
+            assertEquals(Optional.empty(), srcRepo.findPageRangeWithinBytes(new KeyRange(1, 4), 4L, 10, sizeColumns, 400));
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void testCopyRowsInRange() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            for (long id = 1; id <= 3; id++) {
+                entityManager.persist(BinaryFile.builder().id(id).fileContent(new byte[]{(byte) id, 0x0A}).fileHash(new byte[]{0x01}).fileSize(2L).xmlFileContent("<xml>" + id + "</xml>").build());
+            }
+            entityManager.flush();
+            KeysetJpaRepository<BinaryFile, Long> srcRepo = new KeysetJpaRepository<>(entityInformationOf(BinaryFile.class, entityManager), entityManager);
+            InsertOnlyJpaRepository<BinaryFile, Long> destRepo = new InsertOnlyJpaRepository<>(entityInformationOf(BinaryFile.class, entityManager), entityManager);
+
+            Slice<Object[]> firstPage = srcRepo.findRowsInRange(new KeyRange(1, 3), null, 2);
+            Slice<Object[]> lastPage = srcRepo.findRowsInRange(new KeyRange(1, 3), 2L, 2);
+            entityManager.createQuery("DELETE FROM BinaryFile").executeUpdate();
+            destRepo.insertRowsAndFlush(firstPage.getContent());
+            destRepo.insertRowsAndFlush(lastPage.getContent());
+            entityManager.clear();
+
+            assertEquals(2, firstPage.getNumberOfElements());
+            assertTrue(firstPage.hasNext());
+            assertEquals(1L, firstPage.getContent().get(0)[0]);
+            assertEquals(1, lastPage.getNumberOfElements());
+            assertFalse(lastPage.hasNext());
+            BinaryFile copied = entityManager.find(BinaryFile.class, 3L);
+            assertArrayEquals(new byte[]{0x03, 0x0A}, copied.getFileContent());
+            assertEquals("<xml>3</xml>", copied.getXmlFileContent());
+            assertEquals(3L, entityManager.createQuery("SELECT COUNT(e) FROM BinaryFile e", Long.class).getSingleResult());
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void testStreamRowsInRange() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            for (long id = 1; id <= 3; id++) {
+                entityManager.persist(BinaryFile.builder().id(id).fileContent(new byte[]{(byte) id, 0x0A}).fileHash(new byte[]{0x01}).fileSize(2L).xmlFileContent("<xml>" + id + "</xml>").build());
+            }
+            entityManager.flush();
+            KeysetJpaRepository<BinaryFile, Long> srcRepo = new KeysetJpaRepository<>(entityInformationOf(BinaryFile.class, entityManager), entityManager);
+            JdbcRowMapping mapping = mappingOf(BinaryFile.class);
+            List<Object> fileContents = new ArrayList<>();
+            List<Object> xmlFileContents = new ArrayList<>();
+
+            Slice<Long> page = srcRepo.streamRowsInRange(new KeyRange(1, 3), 1L, 1, rows -> {
+                try {
+                    while (rows.next()) {
+                        fileContents.add(((InputStream) rows.getValue(mapping.getColumns().indexOf("FILE_CONTENT"))).readAllBytes());
+                        StringWriter xmlFileContent = new StringWriter();
+                        ((Reader) rows.getValue(mapping.getColumns().indexOf("XML_FILE_CONTENT"))).transferTo(xmlFileContent);
+                        xmlFileContents.add(xmlFileContent.toString());
+                    }
+                } catch (SQLException | IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            // only the rows of the page are handed off, while the next row is read only to know that it exists
+            assertEquals(List.of(2L), page.getContent());
+            assertTrue(page.hasNext());
+            assertArrayEquals(new byte[]{0x02, 0x0A}, (byte[]) fileContents.get(0));
+            assertEquals(List.of("<xml>2</xml>"), xmlFileContents);
+            assertFalse(srcRepo.streamRowsInRange(new KeyRange(1, 3), 2L, 1, rows -> {}).hasNext());
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void testCopyConvertedAndNullValues() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.persist(Psp.builder().objId(1L).idPsp("PSP1").enabled(true).marcaBolloDigitale(1).agidPsp(false).abi("").build());
+            entityManager.flush();
+            KeysetJpaRepository<Psp, Long> srcRepo = new KeysetJpaRepository<>(entityInformationOf(Psp.class, entityManager), entityManager);
+            InsertOnlyJpaRepository<Psp, Long> destRepo = new InsertOnlyJpaRepository<>(entityInformationOf(Psp.class, entityManager), entityManager);
+
+            Slice<Object[]> page = srcRepo.findRowsInRange(new KeyRange(1, 1), null, 10);
+            entityManager.createQuery("DELETE FROM Psp").executeUpdate();
+            destRepo.insertRowsAndFlush(page.getContent());
+            entityManager.clear();
+
+            // the booleans are copied as they are stored, without being converted back and forth
+            JdbcRowMapping mapping = mappingOf(Psp.class);
+            assertEquals("Y", page.getContent().get(0)[mapping.getColumns().indexOf("ENABLED")]);
+            Psp copied = entityManager.find(Psp.class, 1L);
+            assertTrue(copied.getEnabled());
+            assertFalse(copied.getAgidPsp());
+            assertEquals(1, copied.getMarcaBolloDigitale());
+            assertEquals("", copied.getAbi());
+            assertNull(copied.getBic());
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void testComputeChecksum() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            for (long id = 1; id <= 3; id++) {
+                entityManager.persist(BinaryFile.builder().id(id).fileContent(new byte[]{(byte) id, 0x0A}).fileHash(new byte[]{0x01}).fileSize(2L).xmlFileContent("<xml>" + id + "</xml>").build());
+            }
+            entityManager.flush();
+            KeysetJpaRepository<BinaryFile, Long> srcRepo = new KeysetJpaRepository<>(entityInformationOf(BinaryFile.class, entityManager), entityManager);
+            InsertOnlyJpaRepository<BinaryFile, Long> destRepo = new InsertOnlyJpaRepository<>(entityInformationOf(BinaryFile.class, entityManager), entityManager);
+
+            TableChecksum source = srcRepo.computeChecksum();
+            List<Object[]> rows = new ArrayList<>(srcRepo.findRowsInRange(new KeyRange(1, 3), null, 10).getContent());
+            entityManager.createQuery("DELETE FROM BinaryFile").executeUpdate();
+            // the checksum does not depend on the order of the rows
+            destRepo.insertRowsAndFlush(List.of(rows.get(2), rows.get(0), rows.get(1)));
+            TableChecksum destination = destRepo.computeChecksum();
+            entityManager.createQuery("UPDATE BinaryFile SET xmlFileContent = '<xml>4</xml>' WHERE id = 3").executeUpdate();
+            TableChecksum changed = destRepo.computeChecksum();
+
+            assertEquals(3, source.getRecords());
+            assertEquals(source, destination);
+            assertEquals(16, source.getHashHex().length());
+            assertEquals(3, changed.getRecords());
+            assertNotEquals(source.getHash(), changed.getHash());
+            assertEquals(new TableChecksum(0, 0), new InsertOnlyJpaRepository<>(entityInformationOf(Psp.class, entityManager), entityManager).computeChecksum());
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void testComputeChecksumInRange() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            for (long id = 1; id <= 4; id++) {
+                entityManager.persist(BinaryFile.builder().id(id).fileContent(new byte[]{(byte) id, 0x0A}).fileHash(new byte[]{0x01}).fileSize(2L).xmlFileContent("<xml>" + id + "</xml>").build());
+            }
+            entityManager.flush();
+            KeysetJpaRepository<BinaryFile, Long> srcRepo = new KeysetJpaRepository<>(entityInformationOf(BinaryFile.class, entityManager), entityManager);
+            InsertOnlyJpaRepository<BinaryFile, Long> destRepo = new InsertOnlyJpaRepository<>(entityInformationOf(BinaryFile.class, entityManager), entityManager);
+
+            Map<Long, Long> rowHashes = srcRepo.findRowHashesInRange(new KeyRange(2, 3), 10);
+            TableChecksum checksum = destRepo.computeChecksumInRange(new KeyRange(2, 3));
+
+            // the checksum of a range is the sum of the hashes of its rows
+            assertEquals(Set.of(2L, 3L), rowHashes.keySet());
+            assertEquals(new TableChecksum(2, rowHashes.get(2L) + rowHashes.get(3L)), checksum);
+            assertEquals(srcRepo.computeChecksum(), destRepo.computeChecksumInRange(new KeyRange(1, 4)));
+            assertEquals(Optional.of(new KeyRange(1, 4)), destRepo.findKeyRange());
+            assertEquals(Optional.empty(), new InsertOnlyJpaRepository<>(entityInformationOf(Psp.class, entityManager), entityManager).findKeyRange());
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void testFindChangedRowsByKeys() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            for (long id = 1; id <= 4; id++) {
+                entityManager.persist(BinaryFile.builder().id(id).fileContent(new byte[]{(byte) id}).fileHash(new byte[]{0x01}).fileSize(1L).xmlFileContent("<xml>" + id + "</xml>").build());
+            }
+            entityManager.flush();
+            KeysetJpaRepository<BinaryFile, Long> srcRepo = new KeysetJpaRepository<>(entityInformationOf(BinaryFile.class, entityManager), entityManager);
+            InsertOnlyJpaRepository<BinaryFile, Long> destRepo = new InsertOnlyJpaRepository<>(entityInformationOf(BinaryFile.class, entityManager), entityManager);
+
+            assertEquals(List.of(2L, 4L), srcRepo.findAllByKeys(List.of(4L, 2L, 7L)).stream().map(BinaryFile::getId).toList());
+            assertEquals(List.of(1L, 2L, 3L, 4L), srcRepo.findAllKeys());
+            // the keys are hashed as the rows, but without their values
+            Map<Long, Long> keyHashes = srcRepo.findKeyHashesInRange(new KeyRange(2, 3), 10);
+            assertEquals(Set.of(2L, 3L), keyHashes.keySet());
+            assertEquals(new TableChecksum(2, keyHashes.get(2L) + keyHashes.get(3L)), destRepo.computeKeyChecksumInRange(new KeyRange(2, 3)));
+            assertNotEquals(srcRepo.findRowHashesInRange(new KeyRange(2, 3), 10), keyHashes);
+            // only Oracle has a system change number
+            assertEquals(Optional.empty(), srcRepo.findCurrentChangeNumber());
+            assertThrows(UnsupportedOperationException.class, () -> srcRepo.findKeysChangedSince(0, 10));
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindAllCompositeKeys() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.persist(ConfigurationKeys.builder().configCategory("GLOBAL").configKey("a").configValue("1").build());
+            entityManager.persist(ConfigurationKeys.builder().configCategory("GLOBAL").configKey("b").configValue("2").build());
+            entityManager.flush();
+            JpaEntityInformation<ConfigurationKeys, ConfigurationKeysView> entityInformation = (JpaEntityInformation<ConfigurationKeys, ConfigurationKeysView>) JpaEntityInformationSupport.getEntityInformation(ConfigurationKeys.class, entityManager);
+            List<ConfigurationKeysView> sourceKeys = new KeysetJpaRepository<>(entityInformation, entityManager).findAllKeys();
+            List<ConfigurationKeysView> destinationKeys = new InsertOnlyJpaRepository<>(entityInformation, entityManager).findAllKeys();
+
+            // the composite keys are compared by value, in order to find the removed rows
+            assertEquals(2, sourceKeys.size());
+            assertEquals(Set.copyOf(sourceKeys), Set.copyOf(destinationKeys));
+        } finally {
+            entityManager.getTransaction().rollback();
+            entityManager.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> JpaEntityInformation<T, Long> entityInformationOf(Class<T> entityClass, EntityManager entityManager) {
+        return (JpaEntityInformation<T, Long>) JpaEntityInformationSupport.getEntityInformation(entityClass, entityManager);
+    }
+
+    private static JdbcRowMapping mappingOf(Class<?> entityClass) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        return new JdbcRowMapping((AbstractEntityPersister) sessionFactory.getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(entityClass));
+    }
+}
@@ -0,0 +1,38 @@
+package it.gov.pagopa.nodo.datamigration.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeyRangeTest {
+
+    @Test
+    void testSplit() {
+        List<KeyRange> ranges = new KeyRange(1, 10).split(3);
+
+        assertEquals(List.of(new KeyRange(1, 4), new KeyRange(5, 8), new KeyRange(9, 10)), ranges);
+    }
+
+    @Test
+    void testSplitExactly() {
+        List<KeyRange> ranges = new KeyRange(0, 99).split(4);
+
+        assertEquals(List.of(new KeyRange(0, 24), new KeyRange(25, 49), new KeyRange(50, 74), new KeyRange(75, 99)), ranges);
+    }
+
+    @Test
+    void testSplitLessKeysThanPartitions() {
+        List<KeyRange> ranges = new KeyRange(5, 6).split(4);
+
+        assertEquals(List.of(new KeyRange(5, 5), new KeyRange(6, 6)), ranges);
+    }
+
+    @Test
+    void testSplitSingleKey() {
+        List<KeyRange> ranges = new KeyRange(7, 7).split(2);
+
+        assertEquals(List.of(new KeyRange(7, 7)), ranges);
+    }
+}
@@ -0,0 +1,79 @@
+package it.gov.pagopa.nodo.datamigration.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PayloadDeduplicatorTest {
+
+    private static final List<String> COLUMNS = List.of("OBJ_ID", "FILE_CONTENT", "FILE_HASH", "FILE_SIZE");
+
+    @Mock
+    private RowCursor rows;
+
+    @Test
+    void testDuplicatedPayloadWrittenFromCache() throws Exception {
+        when(rows.getColumns()).thenReturn(COLUMNS);
+        when(rows.next()).thenReturn(true, true, false);
+        when(rows.getValue(1)).thenReturn(new ByteArrayInputStream(new byte[]{0x01, 0x02}));
+        when(rows.getValue(2)).thenReturn(new ByteArrayInputStream(new byte[]{0x0F}), new ByteArrayInputStream(new byte[]{0x0F}));
+        when(rows.getValue(3)).thenReturn(2L);
+        PayloadDeduplicator deduplicator = new PayloadDeduplicator("FILE_CONTENT", "FILE_HASH", "FILE_SIZE", 1024, 1024);
+        RowCursor cursor = deduplicator.wrap(rows);
+
+        assertTrue(cursor.next());
+        byte[] first = ((InputStream) cursor.getValue(1)).readAllBytes();
+        byte[] firstHash = ((InputStream) cursor.getValue(2)).readAllBytes();
+        assertTrue(cursor.next());
+        byte[] second = ((InputStream) cursor.getValue(1)).readAllBytes();
+        byte[] secondHash = ((InputStream) cursor.getValue(2)).readAllBytes();
+        assertFalse(cursor.next());
+
+        // the second payload is the cached copy of the first one, so its LOB is never read from the source
+        assertArrayEquals(new byte[]{0x01, 0x02}, first);
+        assertArrayEquals(first, second);
+        assertArrayEquals(new byte[]{0x0F}, firstHash);
+        assertArrayEquals(firstHash, secondHash);
+        verify(rows, times(1)).getValue(1);
+        verify(rows, times(2)).getValue(2);
+        assertEquals(1, deduplicator.getDeduplicatedPayloads());
+        assertEquals(2, deduplicator.getDeduplicatedBytes());
+    }
+
+    @Test
+    void testBigPayloadNotCached() throws Exception {
+        when(rows.getColumns()).thenReturn(COLUMNS);
+        when(rows.next()).thenReturn(true, true);
+        when(rows.getValue(1)).thenReturn(new ByteArrayInputStream(new byte[]{0x01, 0x02}), new ByteArrayInputStream(new byte[]{0x01, 0x02}));
+        when(rows.getValue(2)).thenReturn(new byte[]{0x0F});
+        when(rows.getValue(3)).thenReturn(2L);
+        PayloadDeduplicator deduplicator = new PayloadDeduplicator("FILE_CONTENT", "FILE_HASH", "FILE_SIZE", 1024, 1);
+        RowCursor cursor = deduplicator.wrap(rows);
+
+        cursor.next();
+        ((InputStream) cursor.getValue(1)).readAllBytes();
+        cursor.next();
+        ((InputStream) cursor.getValue(1)).readAllBytes();
+
+        // the payloads bigger than the maximum are always streamed from the source
+        verify(rows, times(2)).getValue(1);
+        assertEquals(0, deduplicator.getDeduplicatedPayloads());
+    }
+
+    @Test
+    void testRowsWithoutHashColumns() {
+        when(rows.getColumns()).thenReturn(List.of("OBJ_ID", "LOGO_PSP"));
+        PayloadDeduplicator deduplicator = new PayloadDeduplicator("FILE_CONTENT", "FILE_HASH", "FILE_SIZE", 1024, 1024);
+
+        assertThrows(IllegalArgumentException.class, () -> deduplicator.wrap(rows));
+    }
+}
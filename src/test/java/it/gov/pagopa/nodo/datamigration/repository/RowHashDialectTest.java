@@ -0,0 +1,44 @@
+package it.gov.pagopa.nodo.datamigration.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowHashDialectTest {
+
+    @Test
+    void testOracleRowHash() {
+        List<String> values = valuesOf(3);
+
+        assertEquals("TO_NUMBER(SUBSTR(RAWTOHEX(STANDARD_HASH(V0 || '|' || V1 || '|' || V2, 'MD5')), 1, 15), 'XXXXXXXXXXXXXXX')", RowHashDialect.ORACLE.rowHash(values));
+    }
+
+    @Test
+    void testOracleWideRowHash() {
+        // the rendered values of 200 columns can be longer than the 4000 bytes of a VARCHAR2 expression
+        String rowHash = RowHashDialect.ORACLE.rowHash(valuesOf(200));
+
+        assertTrue(rowHash.startsWith("TO_NUMBER(SUBSTR(RAWTOHEX(DBMS_CRYPTO.HASH(TO_CLOB(V0) || '|' || V1 || '|' || "));
+        assertTrue(rowHash.endsWith(" || '|' || V199, 2)), 1, 15), 'XXXXXXXXXXXXXXX')"));
+        assertFalse(rowHash.contains("STANDARD_HASH"));
+    }
+
+    @Test
+    void testOracleRowHashLimit() {
+        assertTrue(RowHashDialect.ORACLE.rowHash(valuesOf(61)).contains("STANDARD_HASH("));
+        assertTrue(RowHashDialect.ORACLE.rowHash(valuesOf(62)).contains("DBMS_CRYPTO.HASH(TO_CLOB("));
+    }
+
+    @Test
+    void testPostgresqlWideRowHash() {
+        // the text of PostgreSQL has no length limit, so the wide rows are hashed as the other ones
+        assertTrue(RowHashDialect.POSTGRESQL.rowHash(valuesOf(200)).startsWith("('x' || substr(md5(V0 || '|' || V1 || '|' || "));
+    }
+
+    private static List<String> valuesOf(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "V" + i).toList();
+    }
+}
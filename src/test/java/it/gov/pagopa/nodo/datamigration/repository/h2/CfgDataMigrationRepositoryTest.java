@@ -0,0 +1,61 @@
+package it.gov.pagopa.nodo.datamigration.repository.h2;
+
+import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.util.CommonUtils;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class CfgDataMigrationRepositoryTest {
+
+    @MockBean
+    @Qualifier("oracledbDataSource")
+    private DataSource oracledbDataSource;
+
+    @MockBean
+    @Qualifier("postgresqlDataSource")
+    private DataSource postgresqlDataSource;
+
+    @Autowired
+    @Qualifier("h2EntityManagerFactory")
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CfgDataMigrationRepository cfgDataMigrationRepository;
+
+    @Test
+    void testManagesOnlyTheStatusTable() {
+        // the DDL of the status unit, if enabled, must never touch the migrated tables
+        List<String> entities = entityManagerFactory.getMetamodel().getEntities().stream().map(EntityType::getName).toList();
+        assertEquals(List.of("DataMigration"), entities);
+    }
+
+    @Test
+    void testSaveOnTheTableOfTheInitScript() {
+        DataMigration dataMigration = DataMigration.builder()
+                .id("init-script")
+                .start(CommonUtils.now())
+                .status("RUNNING")
+                .lastExecutedStep("START")
+                .details(DataMigrationDetails.builder().pa(DataMigrationStatus.builder().status("COMPLETED").records(3L).build()).build())
+                .build();
+
+        cfgDataMigrationRepository.saveAndFlush(dataMigration);
+
+        DataMigration saved = cfgDataMigrationRepository.findById("init-script").orElseThrow();
+        assertEquals(3L, saved.getDetails().getPa().getRecords());
+        cfgDataMigrationRepository.delete(saved);
+    }
+}
@@ -0,0 +1,155 @@
+package it.gov.pagopa.nodo.datamigration.repository.oracle;
+
+import it.gov.pagopa.nodo.datamigration.entity.cfg.BinaryFile;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.GdeConfig;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.pk.GdeConfigPk;
+import it.gov.pagopa.nodo.datamigration.repository.KeyRange;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KeysetJpaRepositoryTest {
+
+    @Mock
+    private JpaEntityInformation<GdeConfig, GdeConfigPk> entityInformation;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<GdeConfig> query;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(entityManager.getDelegate()).thenReturn(entityManager);
+        lenient().when(entityInformation.getJavaType()).thenReturn(GdeConfig.class);
+        lenient().when(entityInformation.getEntityName()).thenReturn("GdeConfig");
+        lenient().when(entityInformation.getIdAttributeNames()).thenReturn(List.of("type", "primitiva"));
+        lenient().when(query.setParameter(anyString(), any())).thenReturn(query);
+        lenient().when(query.setMaxResults(anyInt())).thenReturn(query);
+        lenient().when(query.setHint(anyString(), any())).thenReturn(query);
+        lenient().when(query.getResultList()).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    void testFindFirstPage() {
+        when(entityManager.createQuery("SELECT e FROM GdeConfig e ORDER BY e.primitiva, e.type", GdeConfig.class)).thenReturn(query);
+        KeysetJpaRepository<GdeConfig, GdeConfigPk> repository = new KeysetJpaRepository<>(entityInformation, entityManager);
+
+        Slice<GdeConfig> result = repository.findFirstPage(50);
+
+        assertFalse(result.hasContent());
+        assertFalse(result.hasNext());
+        // one more row is requested to know if a next page exists
+        verify(query, times(1)).setMaxResults(51);
+        verify(query, never()).setParameter(anyString(), any());
+        // the rows are read without snapshots, in a single round trip
+        verify(query, times(1)).setHint(HibernateHints.HINT_READ_ONLY, true);
+        verify(query, times(1)).setHint(HibernateHints.HINT_FETCH_SIZE, 51);
+    }
+
+    @Test
+    void testFindPageAfterCompositeKey() {
+        String expectedQuery = "SELECT e FROM GdeConfig e " +
+                "WHERE (e.primitiva > :k0) OR (e.primitiva = :k0 AND e.type > :k1) " +
+                "ORDER BY e.primitiva, e.type";
+        when(entityManager.createQuery(expectedQuery, GdeConfig.class)).thenReturn(query);
+        GdeConfigPk lastKey = new GdeConfigPk("nodoInviaRPT", "REQ");
+        when(entityInformation.hasCompositeId()).thenReturn(true);
+        when(entityInformation.getCompositeIdAttributeValue(lastKey, "primitiva")).thenReturn("nodoInviaRPT");
+        when(entityInformation.getCompositeIdAttributeValue(lastKey, "type")).thenReturn("REQ");
+        KeysetJpaRepository<GdeConfig, GdeConfigPk> repository = new KeysetJpaRepository<>(entityInformation, entityManager);
+
+        repository.findPageAfter(lastKey, 50);
+
+        verify(query, times(1)).setParameter("k0", "nodoInviaRPT");
+        verify(query, times(1)).setParameter("k1", "REQ");
+        verify(query, times(1)).setMaxResults(51);
+    }
+
+    @Test
+    void testFindFirstPageHasNext() {
+        when(entityManager.createQuery("SELECT e FROM GdeConfig e ORDER BY e.primitiva, e.type", GdeConfig.class)).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(new GdeConfig(), new GdeConfig(), new GdeConfig()));
+        KeysetJpaRepository<GdeConfig, GdeConfigPk> repository = new KeysetJpaRepository<>(entityInformation, entityManager);
+
+        Slice<GdeConfig> result = repository.findFirstPage(2);
+
+        assertEquals(2, result.getNumberOfElements());
+        assertTrue(result.hasNext());
+    }
+
+    @Test
+    void testFindKeyRangeCompositeKey() {
+        when(entityInformation.hasCompositeId()).thenReturn(true);
+        KeysetJpaRepository<GdeConfig, GdeConfigPk> repository = new KeysetJpaRepository<>(entityInformation, entityManager);
+
+        assertTrue(repository.findKeyRange().isEmpty());
+        verify(entityManager, never()).createQuery(anyString(), eq(Object[].class));
+    }
+
+    @Test
+    void testFindKeyRange() {
+        KeysetJpaRepository<BinaryFile, Long> repository = createSingleKeyRepository();
+        TypedQuery<Object[]> rangeQuery = mock(TypedQuery.class);
+        when(entityManager.createQuery("SELECT MIN(e.id), MAX(e.id) FROM BinaryFile e", Object[].class)).thenReturn(rangeQuery);
+        when(rangeQuery.getSingleResult()).thenReturn(new Object[]{1L, 100L});
+
+        assertEquals(Optional.of(new KeyRange(1, 100)), repository.findKeyRange());
+    }
+
+    @Test
+    void testFindKeyRangeEmptyTable() {
+        KeysetJpaRepository<BinaryFile, Long> repository = createSingleKeyRepository();
+        TypedQuery<Object[]> rangeQuery = mock(TypedQuery.class);
+        when(entityManager.createQuery("SELECT MIN(e.id), MAX(e.id) FROM BinaryFile e", Object[].class)).thenReturn(rangeQuery);
+        when(rangeQuery.getSingleResult()).thenReturn(new Object[]{null, null});
+
+        assertTrue(repository.findKeyRange().isEmpty());
+    }
+
+    @Test
+    void testFindPagesInRange() {
+        KeysetJpaRepository<BinaryFile, Long> repository = createSingleKeyRepository();
+        TypedQuery<BinaryFile> rangeQuery = mock(TypedQuery.class);
+        when(rangeQuery.setParameter(anyString(), any())).thenReturn(rangeQuery);
+        when(rangeQuery.setMaxResults(anyInt())).thenReturn(rangeQuery);
+        when(rangeQuery.setHint(anyString(), any())).thenReturn(rangeQuery);
+        when(entityManager.createQuery("SELECT e FROM BinaryFile e WHERE e.id >= :lower AND e.id <= :upper ORDER BY e.id", BinaryFile.class)).thenReturn(rangeQuery);
+        when(entityManager.createQuery("SELECT e FROM BinaryFile e WHERE e.id > :k0 AND e.id <= :upper ORDER BY e.id", BinaryFile.class)).thenReturn(rangeQuery);
+        KeyRange range = new KeyRange(1, 50);
+
+        repository.findFirstPageInRange(range, 10);
+        repository.findPageAfterInRange(20L, range, 10);
+
+        verify(rangeQuery, times(1)).setParameter("lower", 1L);
+        verify(rangeQuery, times(2)).setParameter("upper", 50L);
+        verify(rangeQuery, times(1)).setParameter("k0", 20L);
+        verify(rangeQuery, times(2)).setMaxResults(11);
+    }
+
+    @SuppressWarnings("unchecked")
+    private KeysetJpaRepository<BinaryFile, Long> createSingleKeyRepository() {
+        JpaEntityInformation<BinaryFile, Long> singleKeyInformation = mock(JpaEntityInformation.class);
+        lenient().when(singleKeyInformation.getJavaType()).thenReturn(BinaryFile.class);
+        when(singleKeyInformation.getEntityName()).thenReturn("BinaryFile");
+        when(singleKeyInformation.getIdAttributeNames()).thenReturn(List.of("id"));
+        lenient().when(singleKeyInformation.getIdType()).thenReturn(Long.class);
+        return new KeysetJpaRepository<>(singleKeyInformation, entityManager);
+    }
+}
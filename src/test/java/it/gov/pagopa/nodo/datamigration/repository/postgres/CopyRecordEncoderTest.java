@@ -0,0 +1,174 @@
+package it.gov.pagopa.nodo.datamigration.repository.postgres;
+
+import it.gov.pagopa.nodo.datamigration.entity.cfg.BinaryFile;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.CdiMaster;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.ConfigurationKeys;
+import it.gov.pagopa.nodo.datamigration.entity.cfg.Psp;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Properties;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CopyRecordEncoderTest {
+
+    private static LocalContainerEntityManagerFactoryBean factoryBean;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    static void setUp() {
+        // the real mapping model is needed, so Hibernate is bootstrapped on an in-memory database without schema
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(new DriverManagerDataSource("jdbc:h2:mem:copy;DB_CLOSE_DELAY=-1", "sa", "sa"));
+        factoryBean.setPackagesToScan("it.gov.pagopa.nodo.datamigration.entity.cfg");
+        factoryBean.setPersistenceUnitName("copyTestUnit");
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Properties props = new Properties();
+        props.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        props.put("hibernate.hbm2ddl.auto", "none");
+        props.put("hibernate.default_schema", "cfg");
+        factoryBean.setJpaProperties(props);
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        factoryBean.destroy();
+    }
+
+    @Test
+    void testEncodeConvertedBooleanAndEmptyString() {
+        Psp psp = Psp.builder().objId(1L).idPsp("PSP \"1\"").enabled(true).abi("").build();
+
+        CopyRecordEncoder<Psp> encoder = encoderOf(Psp.class);
+        String record = encode(encoder, psp);
+
+        assertEquals(String.format("COPY cfg.PSP (%s) FROM STDIN (FORMAT csv)", String.join(", ", encoder.getColumns())), encoder.getCopyStatement());
+        assertEquals("OBJ_ID", encoder.getColumns().get(0));
+        assertEquals("1", valueOf(encoder, record, "OBJ_ID"));
+        assertEquals("\"PSP \"\"1\"\"\"", valueOf(encoder, record, "ID_PSP"));
+        assertEquals("\"Y\"", valueOf(encoder, record, "ENABLED"));
+        assertEquals("\"\"", valueOf(encoder, record, "ABI"));
+        assertEquals("", valueOf(encoder, record, "BIC"));
+    }
+
+    @Test
+    void testEncodeBinaryAndForeignKeys() {
+        // the referenced rows are read as uninitialized proxies from a session that is already closed
+        EntityManager sourceEntityManager = entityManagerFactory.createEntityManager();
+        Psp psp = sourceEntityManager.getReference(Psp.class, 1L);
+        sourceEntityManager.close();
+        CdiMaster cdiMaster = CdiMaster.builder()
+                .id(10L)
+                .idInformativaPsp("INF")
+                .dataPubblicazione(Timestamp.valueOf("2023-10-03 16:36:43.316"))
+                .logoPsp(new byte[]{0x0A, (byte) 0xFF})
+                .fkPsp(psp)
+                .fkBinaryFile(BinaryFile.builder().id(2L).build())
+                .build();
+
+        CopyRecordEncoder<CdiMaster> encoder = encoderOf(CdiMaster.class);
+        String record = encode(encoder, cdiMaster);
+
+        assertEquals("\\x0aff", valueOf(encoder, record, "LOGO_PSP"));
+        assertEquals("2023-10-03T16:36:43.316", valueOf(encoder, record, "DATA_PUBBLICAZIONE"));
+        assertEquals("1", valueOf(encoder, record, "FK_PSP"));
+        assertEquals("2", valueOf(encoder, record, "FK_BINARY_FILE"));
+    }
+
+    @Test
+    void testEncodeTimestampInOtherTimeZone() {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            // the rows read by a pod with another time zone are written with the same local date and time
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+            CdiMaster cdiMaster = CdiMaster.builder()
+                    .id(10L)
+                    .dataPubblicazione(Timestamp.valueOf(LocalDateTime.of(2023, 3, 26, 2, 30, 0, 123456000)))
+                    .build();
+
+            CopyRecordEncoder<CdiMaster> encoder = encoderOf(CdiMaster.class);
+            String record = encode(encoder, cdiMaster);
+
+            assertEquals("2023-03-26T02:30:00.123456", valueOf(encoder, record, "DATA_PUBBLICAZIONE"));
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    @Test
+    void testWriteStreamedValues() throws IOException {
+        StringWriter out = new StringWriter();
+
+        CopyRecordEncoder.writeValue(out, new ByteArrayInputStream(new byte[]{0x01, (byte) 0xAB}));
+        out.write(',');
+        CopyRecordEncoder.writeValue(out, new StringReader("<a b=\"c\"/>"));
+        out.write(',');
+        CopyRecordEncoder.writeValue(out, null);
+        out.write(',');
+        CopyRecordEncoder.writeValue(out, 42L);
+
+        // the streams are written with the same formats of the values read as a whole
+        assertEquals("\\x01ab,\"<a b=\"\"c\"\"/>\",,42", out.toString());
+    }
+
+    @Test
+    void testEncodeCompositeKey() {
+        ConfigurationKeys configurationKeys = ConfigurationKeys.builder()
+                .configCategory("GLOBAL")
+                .configKey("key")
+                .configValue("value")
+                .build();
+
+        CopyRecordEncoder<ConfigurationKeys> encoder = encoderOf(ConfigurationKeys.class);
+        String record = encode(encoder, configurationKeys);
+
+        assertEquals("\"GLOBAL\"", valueOf(encoder, record, "CONFIG_CATEGORY"));
+        assertEquals("\"key\"", valueOf(encoder, record, "CONFIG_KEY"));
+        assertEquals("\"value\"", valueOf(encoder, record, "CONFIG_VALUE"));
+    }
+
+    private static <T> CopyRecordEncoder<T> encoderOf(Class<T> entityClass) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        return new CopyRecordEncoder<>((AbstractEntityPersister) sessionFactory.getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(entityClass));
+    }
+
+    private static <T> String encode(CopyRecordEncoder<T> encoder, T entity) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            StringWriter out = new StringWriter();
+            encoder.encode(entity, entityManager.unwrap(SharedSessionContractImplementor.class), out);
+            return out.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    // the values in the tests do not contain commas, so the record can be simply split
+    private static String valueOf(CopyRecordEncoder<?> encoder, String record, String column) {
+        String[] values = record.substring(0, record.length() - 1).split(",", -1);
+        return values[encoder.getColumns().indexOf(column)];
+    }
+}
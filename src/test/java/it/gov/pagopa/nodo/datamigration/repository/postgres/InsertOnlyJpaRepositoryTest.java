@@ -0,0 +1,226 @@
+package it.gov.pagopa.nodo.datamigration.repository.postgres;
+
+import it.gov.pagopa.nodo.datamigration.entity.cfg.Stazioni;
+import it.gov.pagopa.nodo.datamigration.repository.KeyRange;
+import it.gov.pagopa.nodo.datamigration.repository.RowCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.StatelessSessionBuilder;
+import org.hibernate.engine.jdbc.spi.JdbcCoordinator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jdbc.Work;
+import org.hibernate.metamodel.mapping.BasicEntityIdentifierMapping;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InsertOnlyJpaRepositoryTest {
+
+    @Mock
+    private JpaEntityInformation<Stazioni, Long> entityInformation;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private SessionFactory sessionFactory;
+
+    @Mock
+    private StatelessSessionBuilder statelessSessionBuilder;
+
+    @Mock
+    private Connection connection;
+
+    @Mock(extraInterfaces = StatelessSession.class)
+    private SharedSessionContractImplementor statelessSession;
+
+    @Mock
+    private JdbcCoordinator jdbcCoordinator;
+
+    @Test
+    void testInsertAllAndFlush() throws Exception {
+        when(entityManager.getDelegate()).thenReturn(entityManager);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        when(session.getSessionFactory()).thenReturn(sessionFactory);
+        when(sessionFactory.withStatelessOptions()).thenReturn(statelessSessionBuilder);
+        when(statelessSessionBuilder.connection(connection)).thenReturn(statelessSessionBuilder);
+        when(statelessSessionBuilder.openStatelessSession()).thenReturn((StatelessSession) statelessSession);
+        when(statelessSession.getJdbcCoordinator()).thenReturn(jdbcCoordinator);
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(session).doWork(any());
+        InsertOnlyJpaRepository<Stazioni, Long> repository = new InsertOnlyJpaRepository<>(entityInformation, entityManager);
+        Stazioni first = new Stazioni();
+        Stazioni second = new Stazioni();
+
+        repository.insertAllAndFlush(List.of(first, second));
+
+        StatelessSession stateless = (StatelessSession) statelessSession;
+        verify(stateless, times(1)).insert(first);
+        verify(stateless, times(1)).insert(second);
+        verify(jdbcCoordinator, times(1)).executeBatch();
+        verify(stateless, times(1)).close();
+        verify(entityManager, never()).merge(any());
+    }
+
+    @Test
+    void testCopyAllAndFlush() throws Exception {
+        SharedSessionContractImplementor sessionImplementor = mock(SharedSessionContractImplementor.class, RETURNS_DEEP_STUBS);
+        AbstractEntityPersister persister = mock(AbstractEntityPersister.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        CopyIn copyIn = mock(CopyIn.class);
+        ByteArrayOutputStream copied = new ByteArrayOutputStream();
+        when(entityManager.getDelegate()).thenReturn(entityManager);
+        when(entityInformation.getJavaType()).thenReturn(Stazioni.class);
+        when(entityManager.unwrap(SharedSessionContractImplementor.class)).thenReturn(sessionImplementor);
+        when(sessionImplementor.getFactory().getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(Stazioni.class)).thenReturn(persister);
+        when(persister.getIdentifierMapping()).thenReturn(mock(BasicEntityIdentifierMapping.class));
+        when(persister.getPropertyInsertability()).thenReturn(new boolean[0]);
+        when(persister.getAttributeMappings()).thenReturn(Collections.emptyList());
+        when(persister.getTableName()).thenReturn("cfg.STAZIONI");
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn("COPY cfg.STAZIONI () FROM STDIN (FORMAT csv)")).thenReturn(copyIn);
+        when(copyIn.isActive()).thenReturn(true);
+        doAnswer(invocation -> {
+            copied.write(invocation.<byte[]>getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(sessionImplementor).doWork(any());
+        InsertOnlyJpaRepository<Stazioni, Long> repository = new InsertOnlyJpaRepository<>(entityInformation, entityManager);
+
+        long bytes = repository.copyAllAndFlush(List.of(new Stazioni(), new Stazioni()));
+
+        // the records are encoded straight into the COPY stream, so the bytes are the ones actually sent
+        assertEquals("\n\n", copied.toString(StandardCharsets.UTF_8));
+        assertEquals(copied.size(), bytes);
+        verify(copyIn, times(1)).endCopy();
+        verify(copyManager, never()).copyIn(anyString(), any(Reader.class));
+        verify(entityManager, never()).merge(any());
+    }
+
+    @Test
+    void testUpsertAllAndFlush() throws Exception {
+        SharedSessionContractImplementor sessionImplementor = mock(SharedSessionContractImplementor.class, RETURNS_DEEP_STUBS);
+        AbstractEntityPersister persister = mock(AbstractEntityPersister.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(entityManager.getDelegate()).thenReturn(entityManager);
+        when(entityInformation.getJavaType()).thenReturn(Stazioni.class);
+        when(entityManager.unwrap(SharedSessionContractImplementor.class)).thenReturn(sessionImplementor);
+        when(sessionImplementor.getFactory().getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(Stazioni.class)).thenReturn(persister);
+        when(persister.getIdentifierMapping()).thenReturn(mock(BasicEntityIdentifierMapping.class));
+        when(persister.getPropertyInsertability()).thenReturn(new boolean[0]);
+        when(persister.getAttributeMappings()).thenReturn(Collections.emptyList());
+        when(persister.getTableName()).thenReturn("cfg.STAZIONI");
+        when(connection.prepareStatement("INSERT INTO cfg.STAZIONI () VALUES () ON CONFLICT () DO NOTHING")).thenReturn(statement);
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(sessionImplementor).doWork(any());
+        InsertOnlyJpaRepository<Stazioni, Long> repository = new InsertOnlyJpaRepository<>(entityInformation, entityManager);
+
+        repository.upsertAllAndFlush(List.of(new Stazioni(), new Stazioni()));
+
+        // the entities are written with a single batch, without being read back
+        verify(statement, times(2)).addBatch();
+        verify(statement, times(1)).executeBatch();
+        verify(entityManager, never()).merge(any());
+        verify(entityManager, never()).find(any(), any());
+    }
+
+    @Test
+    void testCopyRowsAndFlush() throws Exception {
+        SharedSessionContractImplementor sessionImplementor = mock(SharedSessionContractImplementor.class, RETURNS_DEEP_STUBS);
+        AbstractEntityPersister persister = mock(AbstractEntityPersister.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        CopyIn copyIn = mock(CopyIn.class);
+        RowCursor rows = mock(RowCursor.class);
+        ByteArrayOutputStream copied = new ByteArrayOutputStream();
+        when(entityManager.getDelegate()).thenReturn(entityManager);
+        when(entityInformation.getJavaType()).thenReturn(Stazioni.class);
+        when(entityManager.unwrap(SharedSessionContractImplementor.class)).thenReturn(sessionImplementor);
+        when(sessionImplementor.getFactory().getRuntimeMetamodels().getMappingMetamodel().getEntityDescriptor(Stazioni.class)).thenReturn(persister);
+        when(persister.getIdentifierMapping()).thenReturn(mock(BasicEntityIdentifierMapping.class));
+        when(persister.getPropertyInsertability()).thenReturn(new boolean[0]);
+        when(persister.getAttributeMappings()).thenReturn(Collections.emptyList());
+        when(persister.getTableName()).thenReturn("cfg.STAZIONI");
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn("COPY cfg.STAZIONI () FROM STDIN (FORMAT csv)")).thenReturn(copyIn);
+        when(copyIn.isActive()).thenReturn(true);
+        doAnswer(invocation -> {
+            copied.write(invocation.<byte[]>getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        when(rows.next()).thenReturn(true, true, false);
+        when(rows.getColumns()).thenReturn(List.of("OBJ_ID", "FILE_CONTENT"));
+        when(rows.getValue(0)).thenReturn(1L, 2L);
+        when(rows.getValue(1)).thenReturn(new ByteArrayInputStream(new byte[]{0x0A}), new StringReader("text"));
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(sessionImplementor).doWork(any());
+        InsertOnlyJpaRepository<Stazioni, Long> repository = new InsertOnlyJpaRepository<>(entityInformation, entityManager);
+
+        long bytes = repository.copyRowsAndFlush(rows);
+
+        // each row is written while the cursor is on it, then the COPY is ended once for the whole page
+        assertEquals("1,\\x0a\n2,\"text\"\n", copied.toString(StandardCharsets.UTF_8));
+        assertEquals(copied.size(), bytes);
+        verify(copyIn, times(1)).endCopy();
+        verify(copyManager, never()).copyIn(anyString(), any(Reader.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDeleteAllInKeyRange() {
+        SingularAttribute<Stazioni, Long> idAttribute = mock(SingularAttribute.class);
+        Query query = mock(Query.class);
+        when(entityManager.getDelegate()).thenReturn(entityManager);
+        doReturn(idAttribute).when(entityInformation).getRequiredIdAttribute();
+        when(idAttribute.getName()).thenReturn("id");
+        when(entityInformation.getEntityName()).thenReturn("Stazioni");
+        when(entityManager.createQuery("DELETE FROM Stazioni e WHERE e.id >= :lower AND e.id <= :upper")).thenReturn(query);
+        when(query.setParameter(anyString(), any())).thenReturn(query);
+        when(query.executeUpdate()).thenReturn(3);
+        InsertOnlyJpaRepository<Stazioni, Long> repository = new InsertOnlyJpaRepository<>(entityInformation, entityManager);
+
+        assertEquals(3, repository.deleteAllInKeyRange(new KeyRange(10, 20)));
+
+        verify(query, times(1)).setParameter("lower", 10L);
+        verify(query, times(1)).setParameter("upper", 20L);
+    }
+}
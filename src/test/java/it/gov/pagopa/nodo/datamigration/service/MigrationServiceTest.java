@@ -4,8 +4,13 @@ import it.gov.pagopa.nodo.datamigration.entity.DataMigration;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
 import it.gov.pagopa.nodo.datamigration.enumeration.StepName;
+import it.gov.pagopa.nodo.datamigration.exception.AppException;
 import it.gov.pagopa.nodo.datamigration.fsm.FSMExecutor;
+import it.gov.pagopa.nodo.datamigration.fsm.TableDiff;
+import it.gov.pagopa.nodo.datamigration.fsm.TableMigrationStep;
+import it.gov.pagopa.nodo.datamigration.fsm.TableProgress;
 import it.gov.pagopa.nodo.datamigration.model.migration.MigrationStatus;
+import it.gov.pagopa.nodo.datamigration.model.migration.TableDiffResult;
 import it.gov.pagopa.nodo.datamigration.model.migration.TableMigrationStatus;
 import it.gov.pagopa.nodo.datamigration.repository.h2.CfgDataMigrationRepository;
 import it.gov.pagopa.nodo.datamigration.util.CommonUtils;
@@ -14,14 +19,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.platform.commons.util.ReflectionUtils;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
 
 import java.lang.reflect.Method;
 import java.sql.Timestamp;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +50,9 @@ class MigrationServiceTest {
     @Mock
     private CfgDataMigrationRepository cfgDataMigrationRepository;
 
+    @Spy
+    private TaskExecutor taskExecutor = new SyncTaskExecutor();
+
     @InjectMocks
     private MigrationService migrationService;
 
@@ -62,51 +80,16 @@ class MigrationServiceTest {
         verify(fsmExecutor).forceStop();
     }
 
+    @Test
+    public void testRecoverInterruptedMigration() {
+        migrationService.recoverInterruptedMigration();
+
+        verify(fsmExecutor).recoverInterruptedMigration();
+    }
+
     @Test
     public void testGetMigrationStatus() {
-        DataMigrationDetails dataMigrationDetails = DataMigrationDetails.builder()
-                .intermediariPa(new DataMigrationStatus())
-                .pa(new DataMigrationStatus())
-                .stazioni(new DataMigrationStatus())
-                .paStazioniPa(new DataMigrationStatus())
-                .codifiche(new DataMigrationStatus())
-                .codifichePa(new DataMigrationStatus())
-                .binaryFile(new DataMigrationStatus())
-                .iban(new DataMigrationStatus())
-                .ibanAttributes(new DataMigrationStatus())
-                .ibanAttributesMaster(new DataMigrationStatus())
-                .ibanMaster(new DataMigrationStatus())
-                .icaBinaryFile(new DataMigrationStatus())
-                .informativeContoAccreditoMaster(new DataMigrationStatus())
-                .informativeContoAccreditoDetail(new DataMigrationStatus())
-                .informativePaMaster(new DataMigrationStatus())
-                .informativePaDetail(new DataMigrationStatus())
-                .informativePaFasce(new DataMigrationStatus())
-                .intermediariPsp(new DataMigrationStatus())
-                .psp(new DataMigrationStatus())
-                .canaliNodo(new DataMigrationStatus())
-                .canali(new DataMigrationStatus())
-                .tipiVersamento(new DataMigrationStatus())
-                .canaleTipoVersamento(new DataMigrationStatus())
-                .pspCanaleTipoVersamento(new DataMigrationStatus())
-                .dizionarioMetadati(new DataMigrationStatus())
-                .cdiMaster(new DataMigrationStatus())
-                .cdiDetail(new DataMigrationStatus())
-                .cdiFasciaCostoServizio(new DataMigrationStatus())
-                .cdiInformazioniServizio(new DataMigrationStatus())
-                .cdiPreferences(new DataMigrationStatus())
-                .elencoServizi(new DataMigrationStatus())
-                .cdsCategorie(new DataMigrationStatus())
-                .cdsSoggetto(new DataMigrationStatus())
-                .cdsServizio(new DataMigrationStatus())
-                .cdsSoggettoServizio(new DataMigrationStatus())
-                .configurationKeys(new DataMigrationStatus())
-                .wfespPluginConf(new DataMigrationStatus())
-                .ftpServers(new DataMigrationStatus())
-                .pdd(new DataMigrationStatus())
-                .gdeConfig(new DataMigrationStatus())
-                .quadratureSched(new DataMigrationStatus())
-                .build();
+        DataMigrationDetails dataMigrationDetails = createDataMigrationDetails();
 
         DataMigration dataMigration = new DataMigration();
         dataMigration.setDetails(dataMigrationDetails);
@@ -182,6 +165,144 @@ class MigrationServiceTest {
         verify(fsmExecutor).start(StepName.EXECUTE_BINARY_FILE_TABLE_MIGRATION);
     }
 
+    @Test
+    public void testConvertWithTableProgress() {
+        DataMigrationDetails dataMigrationDetails = createDataMigrationDetails();
+        dataMigrationDetails.getBinaryFile().setStatus("IN_PROGRESS");
+        dataMigrationDetails.getBinaryFile().setRecords(0L);
+        DataMigration dataMigration = new DataMigration();
+        dataMigration.setId("ID");
+        dataMigration.setDetails(dataMigrationDetails);
+        dataMigration.setStart(CommonUtils.now());
+        TableProgress progress = new TableProgress("ID", 10);
+        progress.onPageWritten(4, 400);
+        when(fsmExecutor.getTableProgress()).thenReturn(Map.of("BINARY_FILE", progress, "PA", new TableProgress("OTHER_ID", 5)));
+
+        MigrationStatus migrationStatus = migrationService.convert(dataMigration);
+
+        // the in-memory progress replaces the records saved on DB, while the progress of another migration is ignored
+        TableMigrationStatus binaryFile = migrationStatus.getDetails().get("BINARY_FILE");
+        assertEquals(4L, binaryFile.getRecords());
+        assertEquals(10L, binaryFile.getSourceRecords());
+        assertNotNull(binaryFile.getRecordsPerSecond());
+        assertNotNull(binaryFile.getBytesPerSecond());
+        assertNotNull(binaryFile.getEtaSeconds());
+        assertNull(migrationStatus.getDetails().get("PA").getRecordsPerSecond());
+    }
+
+    @Test
+    public void testConvertWithPausedTable() {
+        DataMigrationDetails dataMigrationDetails = createDataMigrationDetails();
+        dataMigrationDetails.getBinaryFile().setStatus("IN_PROGRESS");
+        dataMigrationDetails.getPa().setStatus("COMPLETED");
+        DataMigration dataMigration = new DataMigration();
+        dataMigration.setDetails(dataMigrationDetails);
+        dataMigration.setStart(CommonUtils.now());
+        when(fsmExecutor.getPausedTables()).thenReturn(Set.of("BINARY_FILE", "PA"));
+
+        MigrationStatus migrationStatus = migrationService.convert(dataMigration);
+
+        // only the tables still in progress are reported as paused
+        assertEquals("PAUSED", migrationStatus.getDetails().get("BINARY_FILE").getStatus());
+        assertEquals("COMPLETED", migrationStatus.getDetails().get("PA").getStatus());
+    }
+
+    @Test
+    public void testRunTables() {
+        mockTableStep("PA", StepName.EXECUTE_PA_TABLE_MIGRATION);
+        mockTableStep("PSP", StepName.EXECUTE_PSP_TABLE_MIGRATION);
+        Set<StepName> tableSteps = Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION, StepName.EXECUTE_PSP_TABLE_MIGRATION);
+        when(fsmExecutor.runTables(tableSteps, false)).thenReturn(StepName.EXECUTE_PA_TABLE_MIGRATION);
+
+        migrationService.runTables(List.of("PA", "PSP"));
+
+        verify(fsmExecutor).start(StepName.EXECUTE_PA_TABLE_MIGRATION);
+    }
+
+    @Test
+    public void testRerunTable() {
+        mockTableStep("PA", StepName.EXECUTE_PA_TABLE_MIGRATION);
+        when(fsmExecutor.runTables(Set.of(StepName.EXECUTE_PA_TABLE_MIGRATION), true)).thenReturn(StepName.EXECUTE_PA_TABLE_MIGRATION);
+
+        migrationService.rerunTable("PA");
+
+        verify(taskExecutor).execute(any());
+        verify(fsmExecutor).start(StepName.EXECUTE_PA_TABLE_MIGRATION);
+    }
+
+    @Test
+    public void testRunUnknownTable() {
+        mockTableStep("PA", StepName.EXECUTE_PA_TABLE_MIGRATION);
+        when(fsmExecutor.getTableMigrationStep("UNKNOWN")).thenReturn(Optional.empty());
+
+        AppException exception = assertThrows(AppException.class, () -> migrationService.runTables(List.of("PA", "UNKNOWN")));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getHttpStatus());
+        verify(fsmExecutor, never()).runTables(any(), anyBoolean());
+        verify(fsmExecutor, never()).start(any());
+    }
+
+    @Test
+    public void testPauseAndResumeTable() {
+        migrationService.pauseTable("PA");
+        migrationService.resumeTable("PA");
+
+        verify(fsmExecutor).pauseTable("PA");
+        verify(fsmExecutor).resumeTable("PA");
+    }
+
+    private void mockTableStep(String tableName, StepName stepName) {
+        TableMigrationStep<?, ?> step = mock(TableMigrationStep.class);
+        when(step.getStepName()).thenReturn(stepName.toString());
+        doReturn(Optional.of(step)).when(fsmExecutor).getTableMigrationStep(tableName);
+    }
+
+    private DataMigrationDetails createDataMigrationDetails() {
+        return DataMigrationDetails.builder()
+                .intermediariPa(new DataMigrationStatus())
+                .pa(new DataMigrationStatus())
+                .stazioni(new DataMigrationStatus())
+                .paStazioniPa(new DataMigrationStatus())
+                .codifiche(new DataMigrationStatus())
+                .codifichePa(new DataMigrationStatus())
+                .binaryFile(new DataMigrationStatus())
+                .iban(new DataMigrationStatus())
+                .ibanAttributes(new DataMigrationStatus())
+                .ibanAttributesMaster(new DataMigrationStatus())
+                .ibanMaster(new DataMigrationStatus())
+                .icaBinaryFile(new DataMigrationStatus())
+                .informativeContoAccreditoMaster(new DataMigrationStatus())
+                .informativeContoAccreditoDetail(new DataMigrationStatus())
+                .informativePaMaster(new DataMigrationStatus())
+                .informativePaDetail(new DataMigrationStatus())
+                .informativePaFasce(new DataMigrationStatus())
+                .intermediariPsp(new DataMigrationStatus())
+                .psp(new DataMigrationStatus())
+                .canaliNodo(new DataMigrationStatus())
+                .canali(new DataMigrationStatus())
+                .tipiVersamento(new DataMigrationStatus())
+                .canaleTipoVersamento(new DataMigrationStatus())
+                .pspCanaleTipoVersamento(new DataMigrationStatus())
+                .dizionarioMetadati(new DataMigrationStatus())
+                .cdiMaster(new DataMigrationStatus())
+                .cdiDetail(new DataMigrationStatus())
+                .cdiFasciaCostoServizio(new DataMigrationStatus())
+                .cdiInformazioniServizio(new DataMigrationStatus())
+                .cdiPreferences(new DataMigrationStatus())
+                .elencoServizi(new DataMigrationStatus())
+                .cdsCategorie(new DataMigrationStatus())
+                .cdsSoggetto(new DataMigrationStatus())
+                .cdsServizio(new DataMigrationStatus())
+                .cdsSoggettoServizio(new DataMigrationStatus())
+                .configurationKeys(new DataMigrationStatus())
+                .wfespPluginConf(new DataMigrationStatus())
+                .ftpServers(new DataMigrationStatus())
+                .pdd(new DataMigrationStatus())
+                .gdeConfig(new DataMigrationStatus())
+                .quadratureSched(new DataMigrationStatus())
+                .build();
+    }
+
     private TableMigrationStatus getTableMigrationStatus(DataMigrationStatus dataMigrationStatus) {
         return TableMigrationStatus.builder()
                 .status(dataMigrationStatus.getStatus())
@@ -191,4 +312,39 @@ class MigrationServiceTest {
                 .records(dataMigrationStatus.getRecords())
                 .build();
     }
+
+    @Test
+    public void testDiffTable() {
+        TableMigrationStep<?, ?> step = mock(TableMigrationStep.class);
+        TableDiff diff = mock(TableDiff.class);
+        when(diff.getTableName()).thenReturn("PA");
+        when(diff.getMissingKeys()).thenReturn(List.of(37L));
+        when(step.diff(anyInt(), anyInt(), anyInt())).thenReturn(diff);
+        doReturn(Optional.of(step)).when(fsmExecutor).getTableMigrationStep("PA");
+
+        TableDiffResult result = migrationService.diffTable("PA");
+
+        assertEquals("PA", result.getTable());
+        assertEquals(List.of(37L), result.getMissingKeys());
+    }
+
+    @Test
+    public void testDiffUnknownTable() {
+        when(fsmExecutor.getTableMigrationStep("UNKNOWN")).thenReturn(Optional.empty());
+
+        AppException exception = assertThrows(AppException.class, () -> migrationService.diffTable("UNKNOWN"));
+
+        assertEquals(HttpStatus.NOT_FOUND, exception.getHttpStatus());
+    }
+
+    @Test
+    public void testDiffTableWithCompositeKey() {
+        TableMigrationStep<?, ?> step = mock(TableMigrationStep.class);
+        when(step.diff(anyInt(), anyInt(), anyInt())).thenThrow(new UnsupportedOperationException("composite key"));
+        doReturn(Optional.of(step)).when(fsmExecutor).getTableMigrationStep("CONFIGURATION_KEYS");
+
+        AppException exception = assertThrows(AppException.class, () -> migrationService.diffTable("CONFIGURATION_KEYS"));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getHttpStatus());
+    }
 }
@@ -3,6 +3,7 @@ package it.gov.pagopa.nodo.datamigration.util;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationDetails;
 import it.gov.pagopa.nodo.datamigration.entity.DataMigrationStatus;
+import it.gov.pagopa.nodo.datamigration.entity.DataMigrationVerification;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -11,6 +12,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 
 import java.io.IOException;
 import java.sql.Timestamp;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
@@ -39,6 +41,21 @@ class JsonBConverterTest {
                 .end(new Timestamp(1696343803317L))
                 .start(new Timestamp(1696343803316L))
                 .records(35L)
+                .sourceRecords(35L)
+                .pageSize(100)
+                .checkpoints(Map.of(1L, 35L))
+                .changeNumber(8412745L)
+                .syncWatermark(new Timestamp(1696343803319L))
+                .syncedRecords(2L)
+                .verification(DataMigrationVerification
+                        .builder()
+                        .status("MATCHING")
+                        .end(new Timestamp(1696343803318L))
+                        .sourceRecords(35L)
+                        .destinationRecords(35L)
+                        .sourceHash("1f2e3d4c5b6a7988")
+                        .destinationHash("1f2e3d4c5b6a7988")
+                        .build())
                 .build());
         String expectedJson = TestUtil.readStringFromFile("JsonTest.json");
         String jsonbContent = jsonBConverter.convertToDatabaseColumn(details);
@@ -54,7 +71,13 @@ class JsonBConverterTest {
         assertEquals(details.getPa().getStatus(), detailsContent.getPa().getStatus());
         assertEquals(details.getPa().getEnd(), detailsContent.getPa().getEnd());
         assertEquals(details.getPa().getRecords(), detailsContent.getPa().getRecords());
+        assertEquals(details.getPa().getSourceRecords(), detailsContent.getPa().getSourceRecords());
+        assertEquals(details.getPa().getPageSize(), detailsContent.getPa().getPageSize());
+        assertEquals(Map.of(1L, 35L), detailsContent.getPa().getCheckpoints());
         assertEquals(details.getPa().getStart(), detailsContent.getPa().getStart());
+        assertEquals(2L, detailsContent.getPa().getSyncedRecords());
+        assertEquals("MATCHING", detailsContent.getPa().getVerification().getStatus());
+        assertEquals(35L, detailsContent.getPa().getVerification().getDestinationRecords());
     }
 
     @Test